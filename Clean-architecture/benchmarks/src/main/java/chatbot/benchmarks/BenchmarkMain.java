@@ -0,0 +1,29 @@
+package chatbot.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+// Entry point of benchmarks.jar: runs JMH with the allocation profiler (-prof gc) and a JSON
+// result file under results/ unless the command line already sets them.
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(List.of(args));
+        if (!jmhArgs.contains("-prof")) {
+            jmhArgs.addAll(List.of("-prof", "gc"));
+        }
+        if (!jmhArgs.contains("-rff")) {
+            String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            Files.createDirectories(Path.of("results"));
+            jmhArgs.addAll(List.of("-rf", "json", "-rff", "results/jmh-" + stamp + ".json"));
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,74 @@
+package chatbot.benchmarks;
+
+import chatbot.infrastructure.config.JwtEncodedServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Per-request cost of JwtEncodedService.decode: parser built per call (the former code),
+// shared parser without the cache, and a cache hit.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+    private JwtEncodedServiceImpl cachedService;
+    private JwtEncodedServiceImpl uncachedService;
+    private String token;
+
+    private Key standaloneKey;
+    private String standaloneToken;
+
+    @Setup
+    public void setUp() {
+        cachedService = new JwtEncodedServiceImpl(100_000, new SimpleMeterRegistry());
+        uncachedService = new JwtEncodedServiceImpl(0, new SimpleMeterRegistry());
+        token = cachedService.encode(42);
+        cachedService.decode(token);
+
+        standaloneKey = Keys.hmacShaKeyFor("benchmarkbenchmarkbenchmarkbenchmarkbenchmark".getBytes());
+        standaloneToken = Jwts.builder()
+                .setSubject("42")
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(standaloneKey)
+                .compact();
+    }
+
+    @Benchmark
+    public Integer parserPerCall() {
+        String subject = Jwts.parserBuilder()
+                .setSigningKey(standaloneKey)
+                .build()
+                .parseClaimsJws(standaloneToken)
+                .getBody()
+                .getSubject();
+        return Integer.valueOf(subject);
+    }
+
+    @Benchmark
+    public Integer sharedParser() {
+        return uncachedService.decode(token);
+    }
+
+    @Benchmark
+    public Integer cacheHit() {
+        return cachedService.decode(token);
+    }
+}
@@ -0,0 +1,38 @@
+package chatbot.benchmarks;
+
+import chatbot.infrastructure.config.JwtEncodedServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Token signing done on every login and registration.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtEncodeBenchmark {
+
+    private JwtEncodedServiceImpl service;
+
+    @Setup
+    public void setUp() {
+        service = new JwtEncodedServiceImpl(0, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String encode() {
+        return service.encode(42);
+    }
+}
@@ -0,0 +1,60 @@
+package chatbot.benchmarks;
+
+import chatbot.infrastructure.external.PromptContextBuilder;
+import chatbot.infrastructure.persistence.HistoryEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Prompt assembly done by GeminiAiChatService before every model call: summary plus as many
+// recent turns as fit the token budget. 40 entries is the default history cap.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptBuildBenchmark {
+
+    @Param({"10", "40"})
+    private int entries;
+
+    private PromptContextBuilder builder;
+    private List<HistoryEntry> history;
+    private String summary;
+
+    @Setup
+    public void setUp() {
+        builder = new PromptContextBuilder(2000, 400, 5);
+        history = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            history.add(i % 2 == 0
+                    ? HistoryEntry.user("Question " + i + ": how would I structure a service layer for this?")
+                    : HistoryEntry.ai("Answer " + i + ": keep use cases thin, push I/O behind interfaces "
+                            + "and let the infrastructure layer own the adapters."));
+        }
+        summary = "The user is building a chat backend in Java and asked about layering and caching.";
+    }
+
+    @Benchmark
+    public String withSummary() {
+        return builder.build(summary, history, "And where should rate limiting live?");
+    }
+
+    @Benchmark
+    public String withoutSummary() {
+        return builder.build(null, history, "And where should rate limiting live?");
+    }
+}
@@ -0,0 +1,73 @@
+package chatbot.benchmarks;
+
+import chatbot.Interface.dto.ResponseDto;
+import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson serialization of message responses with LocalDateTime timestamps. The mapper comes
+// from Jackson2ObjectMapperBuilder, the same defaults Spring Boot's HTTP converter uses
+// (JavaTimeModule, ISO-8601 dates instead of timestamps).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "50"})
+    private int messages;
+
+    private ObjectWriter writer;
+    private ResponseDto<List<Message>> messageList;
+    private ResponseDto<MessagePage> messagePage;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        writer = mapper.writer();
+
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        List<Message> list = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            list.add(new Message(i + 1, "Message number " + i + " with a typical sentence of chat text.",
+                    start.plusSeconds(i * 7L), i % 2 == 0));
+        }
+        messageList = new ResponseDto<>("Success", list, 200);
+        messagePage = new ResponseDto<>("Success", new MessagePage(list, 1, true), 200);
+    }
+
+    @Benchmark
+    public byte[] messageList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(messageList);
+    }
+
+    // What getConversation actually returns
+    @Benchmark
+    public byte[] messagePage() throws JsonProcessingException {
+        return writer.writeValueAsBytes(messagePage);
+    }
+}
@@ -0,0 +1,78 @@
+package chatbot.benchmarks;
+
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.entity.MessagePage;
+import chatbot.domain.entity.User;
+import chatbot.infrastructure.persistence.JdbcConversationRepository;
+import chatbot.infrastructure.persistence.JdbcUserRepository;
+import chatbot.infrastructure.persistence.MessageWriter;
+import chatbot.infrastructure.persistence.Outbox;
+import chatbot.infrastructure.persistence.ReadRouting;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+// Row mapping in the JDBC repositories, driven through their public methods over canned rows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    // 50 is the default page size of getConversation
+    @Param({"1", "50"})
+    private int rows;
+
+    private JdbcConversationRepository conversationRepository;
+    private JdbcConversationRepository messageRepository;
+    private JdbcUserRepository userRepository;
+
+    @Setup
+    public void setUp() {
+        conversationRepository = new JdbcConversationRepository(
+                StubResultSets.directory(StubResultSets.template(rows(StubResultSets::conversationRow))),
+                ReadRouting.primaryOnly(), MessageWriter.direct(new Outbox(false)));
+        messageRepository = new JdbcConversationRepository(
+                StubResultSets.directory(StubResultSets.template(rows(StubResultSets::messageRow))),
+                ReadRouting.primaryOnly(), MessageWriter.direct(new Outbox(false)));
+        JdbcTemplate users = StubResultSets.template(rows(StubResultSets::userRow));
+        userRepository = new JdbcUserRepository(users, StubResultSets.directory(users), ReadRouting.primaryOnly());
+    }
+
+    @Benchmark
+    public List<Conversation> conversations() {
+        return conversationRepository.findByUserId(1);
+    }
+
+    @Benchmark
+    public MessagePage messagePage() {
+        return messageRepository.getMessagesPage(1, null, rows);
+    }
+
+    @Benchmark
+    public Optional<User> userByEmail() {
+        return userRepository.findByEmail("user1@example.com");
+    }
+
+    private List<Map<String, Object>> rows(IntFunction<Map<String, Object>> row) {
+        return IntStream.rangeClosed(1, rows).mapToObj(row).toList();
+    }
+}
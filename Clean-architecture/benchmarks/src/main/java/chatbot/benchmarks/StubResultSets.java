@@ -0,0 +1,84 @@
+package chatbot.benchmarks;
+
+import chatbot.infrastructure.persistence.ShardDirectory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Feeds canned rows to the repositories' row mappers without a database. Each query gets one
+// ResultSet, a dynamic proxy that reads the row under its cursor, so like a driver's result set it
+// is created once per query rather than once per row. Every column read costs a reflective call
+// plus a map lookup; that overhead is the same before and after a mapper change and cancels out
+// in comparisons.
+final class StubResultSets {
+
+    private StubResultSets() {
+    }
+
+    static Map<String, Object> conversationRow(int id) {
+        return Map.of("id", id, "name", "Conversation " + id, "user_id", 1,
+                "created_at", Timestamp.valueOf("2025-01-01 10:00:00"));
+    }
+
+    static Map<String, Object> messageRow(int id) {
+        return Map.of("id", id, "content", "Message number " + id + " with a typical sentence of chat text.",
+                "timestamp", Timestamp.valueOf("2025-01-01 10:00:00"), "is_user", id % 2 == 0);
+    }
+
+    static Map<String, Object> userRow(int id) {
+        return Map.of("id", id, "name", "User " + id, "email", "user" + id + "@example.com",
+                "password", "$2a$10$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyz01234");
+    }
+
+    // One unsharded database behind the stub template. The benchmarks only read, so there is no
+    // transaction manager: a write would fail rather than pretend to commit.
+    static ShardDirectory directory(JdbcTemplate template) {
+        return ShardDirectory.single(template, new TransactionTemplate());
+    }
+
+    // A JdbcTemplate whose queries map the given rows instead of touching a connection
+    static JdbcTemplate template(List<Map<String, Object>> rows) {
+        return new JdbcTemplate() {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+                List<T> mapped = new ArrayList<>(rows.size());
+                int[] cursor = new int[1];
+                ResultSet resultSet = resultSet(rows, cursor);
+                try {
+                    for (int i = 0; i < rows.size(); i++) {
+                        cursor[0] = i;
+                        mapped.add(rowMapper.mapRow(resultSet, i));
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                return mapped;
+            }
+        };
+    }
+
+    // Reads from rows.get(cursor[0]); the caller moves the cursor between rows
+    private static ResultSet resultSet(List<Map<String, Object>> rows, int[] cursor) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value = args != null && args.length == 1 && args[0] instanceof String column
+                            ? rows.get(cursor[0]).get(column)
+                            : null;
+                    return switch (method.getName()) {
+                        case "getInt" -> value == null ? 0 : (Integer) value;
+                        case "getBoolean" -> value != null && (Boolean) value;
+                        case "getString", "getTimestamp", "getObject" -> value;
+                        case "wasNull" -> false;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+}
@@ -0,0 +1,63 @@
+package chatbot.infrastructure.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// Real Redis binary started in-process for the loadtest profile, so Lua scripts and blocking
+// list commands behave exactly as in production. Starts before the web server takes traffic.
+@Component
+@Profile("loadtest")
+public class EmbeddedRedisServer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedRedisServer.class);
+
+    private final int port;
+    private RedisServer server;
+
+    public EmbeddedRedisServer(@Value("${spring.data.redis.port:6379}") int port) {
+        this.port = port;
+    }
+
+    @Override
+    public void start() {
+        try {
+            server = new RedisServer(port);
+            server.start();
+            logger.info("Embedded Redis listening on port {}", port);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded Redis on port " + port, e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            if (server != null) {
+                server.stop();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not stop embedded Redis: {}", e.getMessage());
+        } finally {
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    // Lower phases start first: Redis must be up before the web server (phase Integer.MAX_VALUE - 1024)
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,16 @@
+-- H2 (MySQL mode) copy of db/migration/mysql/V10, used by the loadtest profile.
+
+CREATE TABLE message_search_stats (
+    user_id INT NOT NULL,
+    term VARCHAR(40) NOT NULL,
+    documents INT NOT NULL,
+    PRIMARY KEY (user_id, term)
+);
+
+INSERT INTO message_search_stats (user_id, term, documents)
+SELECT user_id, term, COUNT(*) FROM message_terms GROUP BY user_id, term;
+
+INSERT INTO message_search_stats (user_id, term, documents)
+SELECT user_id, '', COUNT(*) FROM message_search GROUP BY user_id;
+
+CREATE INDEX idx_message_search_occurred ON message_search (occurred_at);
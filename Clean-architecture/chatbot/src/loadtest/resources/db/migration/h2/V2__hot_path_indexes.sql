@@ -0,0 +1,8 @@
+-- H2 copy of db/migration/mysql/V2. V3 (monthly partitions) has no H2 counterpart.
+-- Composite indexes matching the repository queries.
+-- JdbcConversationRepository.findByUserId: WHERE user_id = ?
+CREATE INDEX idx_conversations_user_created ON conversations (user_id, created_at);
+
+-- JdbcConversationRepository.getMessages / getMessagesPage:
+-- WHERE conversation_id = ? [AND id < ?] ORDER BY id
+CREATE INDEX idx_messages_conversation_id ON messages (conversation_id, id);
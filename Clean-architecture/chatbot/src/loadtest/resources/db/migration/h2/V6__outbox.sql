@@ -0,0 +1,10 @@
+-- H2 (MySQL mode) copy of db/migration/mysql/V6, used by the loadtest profile.
+
+CREATE TABLE outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    conversation_id INT NOT NULL,
+    is_user BOOLEAN NOT NULL,
+    content TEXT NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    recorded_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
@@ -0,0 +1,16 @@
+-- H2 (MySQL mode) copy of db/migration/mysql/V8, used by the loadtest profile.
+
+CREATE TABLE bucket_fences (
+    bucket SMALLINT PRIMARY KEY,
+    state VARCHAR(16) NOT NULL
+);
+
+INSERT INTO bucket_fences (bucket, state) SELECT bucket, 'ACTIVE' FROM shard_buckets;
+
+ALTER TABLE shard_buckets ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE shard_directory_nodes (
+    node_id VARCHAR(36) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    seen_at TIMESTAMP(3) NOT NULL
+);
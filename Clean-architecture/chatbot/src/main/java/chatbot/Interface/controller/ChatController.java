@@ -5,29 +5,63 @@ import chatbot.Interface.dto.SendMessageRequestDto;
 import chatbot.application.usecase.CreateConversationUseCase;
 import chatbot.application.usecase.GetConversationUseCase;
 import chatbot.application.usecase.GetHistoryUseCase;
+import chatbot.application.usecase.SearchConversationsUseCase;
 import chatbot.application.usecase.SendMessageUseCase;
+import chatbot.application.usecase.SetResponseCacheUseCase;
+import chatbot.application.usecase.StreamMessageUseCase;
 import chatbot.domain.entity.Conversation;
-import chatbot.domain.entity.Message;
+import chatbot.domain.entity.ConversationMatch;
+import chatbot.domain.entity.MessagePage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/api/chat")
 public class    ChatController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
+
     private final SendMessageUseCase sendMessageUseCase;
+    private final StreamMessageUseCase streamMessageUseCase;
     private final CreateConversationUseCase createConversationUseCase;
     private final GetHistoryUseCase getHistoryUseCase;
     private final GetConversationUseCase GetConversationUseCase;
-
-    public ChatController(SendMessageUseCase sendMessageUseCase,
-                          CreateConversationUseCase createConversationUseCase, GetHistoryUseCase getHistoryUseCase, GetConversationUseCase GetConversationUseCase) {
+    private final SetResponseCacheUseCase setResponseCacheUseCase;
+    private final SearchConversationsUseCase searchConversationsUseCase;
+    private final Executor streamExecutor;
+    private final long streamTimeoutMs;
+
+    public ChatController(SendMessageUseCase sendMessageUseCase, StreamMessageUseCase streamMessageUseCase,
+                          CreateConversationUseCase createConversationUseCase, GetHistoryUseCase getHistoryUseCase, GetConversationUseCase GetConversationUseCase,
+                          SetResponseCacheUseCase setResponseCacheUseCase,
+                          SearchConversationsUseCase searchConversationsUseCase,
+                          @Qualifier("streamExecutor") Executor streamExecutor,
+                          @Value("${chat.stream.timeout-ms:120000}") long streamTimeoutMs) {
         this.sendMessageUseCase = sendMessageUseCase;
+        this.streamMessageUseCase = streamMessageUseCase;
         this.createConversationUseCase = createConversationUseCase;
         this.getHistoryUseCase = getHistoryUseCase;
         this.GetConversationUseCase = GetConversationUseCase;
+        this.setResponseCacheUseCase = setResponseCacheUseCase;
+        this.searchConversationsUseCase = searchConversationsUseCase;
+        this.streamExecutor = streamExecutor;
+        this.streamTimeoutMs = streamTimeoutMs;
     }
 
     @PostMapping("/create")
@@ -59,13 +93,33 @@ public class    ChatController {
         }
         return ResponseEntity.ok(new ResponseDto<>("Success", result.getConversationId(), 200));
     }
+    @GetMapping("/search")
+    public ResponseEntity<ResponseDto<List<ConversationMatch>>> search(
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+
+        String token = authorizationHeader.replace("Bearer ", "");
+        SearchConversationsUseCase.SearchConversationsResult result = searchConversationsUseCase.execute(token, q, limit);
+
+        if (!result.isSuccess()) {
+            int statusCode = result.getMessage().startsWith("Search query") ? 400 : 500;
+            return ResponseEntity.status(statusCode)
+                    .body(new ResponseDto<>(result.getMessage(), null, statusCode));
+        }
+
+        return ResponseEntity.ok(new ResponseDto<>("Success", result.getMatches(), 200));
+    }
+
     @GetMapping("/getConversation/{conversationId}")
-    public ResponseEntity<ResponseDto<List<Message>>> getConversation(
+    public ResponseEntity<ResponseDto<MessagePage>> getConversation(
             @PathVariable Integer conversationId,
-            @RequestHeader("Authorization") String authorizationHeader) {
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestParam(required = false) Integer before,
+            @RequestParam(required = false) Integer limit) {
 
         String token = authorizationHeader.replace("Bearer ", "");
-        GetConversationUseCase.GetConversationResult result = GetConversationUseCase.execute(conversationId);
+        GetConversationUseCase.GetConversationResult result = GetConversationUseCase.execute(conversationId, before, limit);
 
         if (!result.isSuccess()) {
             int statusCode = result.getMessage().contains("not found") || result.getMessage().contains("access denied") ? 404 : 500;
@@ -76,6 +130,23 @@ public class    ChatController {
         return ResponseEntity.ok(new ResponseDto<>("Success", result.getConversation(), 200));
     }
 
+    @PutMapping("/responseCache/{conversationId}")
+    public ResponseEntity<ResponseDto<Boolean>> setResponseCache(
+            @PathVariable Integer conversationId,
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestParam boolean enabled) {
+
+        String token = authorizationHeader.replace("Bearer ", "");
+        SetResponseCacheUseCase.SetResponseCacheResult result = setResponseCacheUseCase.execute(conversationId, token, enabled);
+
+        if (!result.isSuccess()) {
+            int statusCode = result.getMessage().contains("not found") || result.getMessage().contains("access denied") ? 404 : 500;
+            return ResponseEntity.status(statusCode)
+                    .body(new ResponseDto<>(result.getMessage(), null, statusCode));
+        }
+
+        return ResponseEntity.ok(new ResponseDto<>("Success", result.getEnabled(), 200));
+    }
 
     @PostMapping("/getResponse/{conversationId}")
     public ResponseEntity<ResponseDto<String>> sendMessage(
@@ -86,6 +157,12 @@ public class    ChatController {
         String token = authorizationHeader.replace("Bearer ", "");
         SendMessageUseCase.SendMessageResult result = sendMessageUseCase.execute(conversationId, token, dto.getPrompt());
 
+        if (result.getRetryAfterSeconds() != null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.getRetryAfterSeconds()))
+                    .body(new ResponseDto<>(result.getMessage(), null, 429));
+        }
+
         if (!result.isSuccess()) {
             int statusCode = result.getMessage().contains("not found") || result.getMessage().contains("access denied") ? 404 : 500;
             return ResponseEntity.status(statusCode)
@@ -94,4 +171,78 @@ public class    ChatController {
 
         return ResponseEntity.ok(new ResponseDto<>("Success", result.getAiResponse(), 200));
     }
+
+    @PostMapping(value = "/streamResponse/{conversationId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @PathVariable Integer conversationId,
+            @RequestHeader("Authorization") String authorizationHeader,
+            @RequestBody SendMessageRequestDto dto) {
+
+        String token = authorizationHeader.replace("Bearer ", "");
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        try {
+            streamExecutor.execute(() -> stream(emitter, open, conversationId, token, dto.getPrompt()));
+        } catch (TaskRejectedException e) {
+            sendFinalEvent(emitter, "error", new ResponseDto<>("Too many concurrent streams", null, 503));
+        }
+        return emitter;
+    }
+
+    private void stream(SseEmitter emitter, AtomicBoolean open, Integer conversationId, String token, String prompt) {
+        // send() blocks while the client is slow to read, which in turn stops us
+        // pulling further chunks from the model: the client paces the stream.
+        StreamMessageUseCase.StreamMessageResult result = streamMessageUseCase.execute(conversationId, token, prompt, chunk -> {
+            if (!open.get()) {
+                throw new IllegalStateException("Client disconnected");
+            }
+            try {
+                emitter.send(SseEmitter.event().name("token").data(Map.of("token", chunk), MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                open.set(false);
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        if (!open.get()) {
+            logger.info("Stream for conversationId={} closed by client before completion", conversationId);
+            return;
+        }
+
+        // The stream response is already committed, so a rejection travels in the error event;
+        // the SSE retry field carries Retry-After
+        if (result.getRetryAfterSeconds() != null) {
+            sendFinalEvent(emitter, SseEmitter.event().name("error")
+                    .reconnectTime(result.getRetryAfterSeconds() * 1000)
+                    .data(new ResponseDto<String>(result.getMessage(), null, 429), MediaType.APPLICATION_JSON));
+            return;
+        }
+
+        if (!result.isSuccess()) {
+            int statusCode = result.getMessage().contains("not found") || result.getMessage().contains("access denied") ? 404 : 500;
+            sendFinalEvent(emitter, "error", new ResponseDto<>(result.getMessage(), null, statusCode));
+            return;
+        }
+
+        logger.info("Streamed reply for conversationId={} (time to first token: {} ms)",
+                conversationId, result.getTimeToFirstTokenMs());
+        sendFinalEvent(emitter, "done", new ResponseDto<>("Success", result.getAiResponse(), 200));
+    }
+
+    private void sendFinalEvent(SseEmitter emitter, String name, ResponseDto<String> body) {
+        sendFinalEvent(emitter, SseEmitter.event().name(name).data(body, MediaType.APPLICATION_JSON));
+    }
+
+    private void sendFinalEvent(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
 }
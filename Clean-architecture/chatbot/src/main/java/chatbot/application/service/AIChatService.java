@@ -1,5 +1,26 @@
 package chatbot.application.service;
 
+import java.util.function.Consumer;
+
 public interface AIChatService {
     String generateResponse(String prompt, Integer conversationId);
-}
\ No newline at end of file
+
+    // Emits the reply chunk by chunk as the model produces it and returns the full reply.
+    // Implementations without native streaming emit the whole reply as a single chunk.
+    default String streamResponse(String prompt, Integer conversationId, Consumer<String> onToken) {
+        String reply = generateResponse(prompt, conversationId);
+        onToken.accept(reply);
+        return reply;
+    }
+
+    // Identifies the context a reply to this prompt depends on (summary, recent turns).
+    // Two requests with the same prompt and fingerprint may share a reply.
+    default String contextFingerprint(String prompt, Integer conversationId) {
+        return "";
+    }
+
+    // Records an exchange that was answered without calling the model, e.g. from a cache,
+    // so that context kept by the implementation stays in step with the conversation.
+    default void recordExchange(String prompt, String reply, Integer conversationId) {
+    }
+}
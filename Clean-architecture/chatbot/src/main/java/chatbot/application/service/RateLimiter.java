@@ -0,0 +1,10 @@
+package chatbot.application.service;
+
+public interface RateLimiter {
+    // Admits one chat request for the user and reserves the estimated model tokens of its prompt.
+    // Returns 0 when admitted, otherwise the milliseconds to wait before retrying.
+    long tryAcquire(Integer userId, String prompt);
+
+    // Charges the model tokens of the reply once it is known
+    void recordReply(Integer userId, String reply);
+}
@@ -0,0 +1,7 @@
+package chatbot.application.service;
+
+public interface ResponseCacheSettings {
+    boolean isEnabled(Integer conversationId);
+
+    void setEnabled(Integer conversationId, boolean enabled);
+}
@@ -0,0 +1,15 @@
+package chatbot.application.service;
+
+// Cheap model-token estimate shared by prompt budgeting and rate limiting
+public final class TokenEstimator {
+
+    // Rough average for English text with Gemini's tokenizer; no tokenizer round trip per request
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+}
@@ -1,24 +1,25 @@
 package chatbot.application.usecase;
 
-import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
 import chatbot.domain.repository.ConversationRepository;
-import chatbot.domain.entity.Conversation;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 public class GetConversationUseCase {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final ConversationRepository conversationService;
 
     public GetConversationUseCase(ConversationRepository conversationService) {
         this.conversationService = conversationService;
     }
 
-    public GetConversationResult execute(Integer conversationId) {
+    public GetConversationResult execute(Integer conversationId, Integer beforeId, Integer limit) {
         try {
-            List<Message> messages= conversationService.getMessages(conversationId);
+            int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+            MessagePage messages = conversationService.getMessagesPage(conversationId, beforeId, pageSize);
             return new GetConversationResult(true, "Get message successfully", messages);
         } catch (Exception e) {
             return new GetConversationResult(false, "Error: " + e.getMessage(), null);
@@ -28,9 +29,9 @@ public class GetConversationUseCase {
     public static class GetConversationResult {
         private final boolean success;
         private final String message;
-        private final List<Message> conversation;
+        private final MessagePage conversation;
 
-        public GetConversationResult(boolean success, String message, List<Message> conversation) {
+        public GetConversationResult(boolean success, String message, MessagePage conversation) {
             this.success = success;
             this.message = message;
             this.conversation = conversation;
@@ -38,6 +39,6 @@ public class GetConversationUseCase {
 
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
-        public List<Message> getConversation() { return conversation; }
+        public MessagePage getConversation() { return conversation; }
     }
 }
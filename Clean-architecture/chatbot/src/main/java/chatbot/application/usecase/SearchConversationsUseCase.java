@@ -0,0 +1,59 @@
+package chatbot.application.usecase;
+
+import chatbot.application.service.JwtEncodedService;
+import chatbot.domain.entity.ConversationMatch;
+import chatbot.domain.repository.MessageSearchRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class SearchConversationsUseCase {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 50;
+    public static final int MAX_QUERY_LENGTH = 200;
+
+    private final MessageSearchRepository messageSearchRepository;
+    private final JwtEncodedService jwtEncodedService;
+
+    public SearchConversationsUseCase(MessageSearchRepository messageSearchRepository, JwtEncodedService jwtEncodedService) {
+        this.messageSearchRepository = messageSearchRepository;
+        this.jwtEncodedService = jwtEncodedService;
+    }
+
+    public SearchConversationsResult execute(String token, String query, Integer limit) {
+        try {
+            if (query == null || query.isBlank()) {
+                return new SearchConversationsResult(false, "Search query is required", null);
+            }
+            if (query.length() > MAX_QUERY_LENGTH) {
+                return new SearchConversationsResult(false, "Search query is too long", null);
+            }
+
+            // Only the caller's own conversations are searched
+            Integer userId = jwtEncodedService.decode(token);
+            int resultLimit = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+            List<ConversationMatch> matches = messageSearchRepository.search(userId, query.trim(), resultLimit);
+            return new SearchConversationsResult(true, "Search completed successfully", matches);
+        } catch (Exception e) {
+            return new SearchConversationsResult(false, "Error: " + e.getMessage(), null);
+        }
+    }
+
+    public static class SearchConversationsResult {
+        private final boolean success;
+        private final String message;
+        private final List<ConversationMatch> matches;
+
+        public SearchConversationsResult(boolean success, String message, List<ConversationMatch> matches) {
+            this.success = success;
+            this.message = message;
+            this.matches = matches;
+        }
+
+        public boolean isSuccess() { return success; }
+        public String getMessage() { return message; }
+        public List<ConversationMatch> getMatches() { return matches; }
+    }
+}
@@ -1,71 +1,125 @@
 package chatbot.application.usecase;
 
 import chatbot.application.service.JwtEncodedService;
+import chatbot.application.service.RateLimiter;
+import chatbot.domain.entity.Conversation;
 import chatbot.domain.entity.Message;
 import chatbot.application.service.AIChatService;
 import chatbot.domain.repository.ConversationRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
 public class SendMessageUseCase {
-    
+
     private final ConversationRepository conversationRepository;
     private final JwtEncodedService jwtEncodedService;
     private final AIChatService aiChatService;
-    
+    private final RateLimiter rateLimiter;
+    private final Executor useCaseExecutor;
+
     public SendMessageUseCase(ConversationRepository conversationRepository,
                              JwtEncodedService jwtEncodedService,
-                              AIChatService aiChatService) {
+                              AIChatService aiChatService,
+                              RateLimiter rateLimiter,
+                              @Qualifier("useCaseExecutor") Executor useCaseExecutor) {
         this.conversationRepository = conversationRepository;
         this.jwtEncodedService = jwtEncodedService;
         this.aiChatService = aiChatService;
+        this.rateLimiter = rateLimiter;
+        this.useCaseExecutor = useCaseExecutor;
     }
-    
+
     public SendMessageResult execute(Integer conversationId, String token, String prompt) {
         try {
-            Integer userId = jwtEncodedService.decode(token);
-            
-            // Validate user owns conversation
-            List<Message> conversationOpt = conversationRepository.getMessages(conversationId);
-            
-            if (conversationOpt == null) {
+            LocalDateTime sentAt = LocalDateTime.now();
+
+            // Validate user owns conversation: the lookup runs while the token is verified
+            Conversation conversation = findOwnedConversation(conversationId, token);
+
+            if (conversation == null) {
                 return new SendMessageResult(false, "Conversation not found or access denied", null);
             }
-            
+
+            // Per-user request and model-token budget
+            long retryAfterMs = rateLimiter.tryAcquire(conversation.getUserId(), prompt);
+            if (retryAfterMs > 0) {
+                return new SendMessageResult(false, "Rate limit exceeded", null, toSeconds(retryAfterMs));
+            }
+
             // Generate AI response
             String reply = aiChatService.generateResponse(prompt, conversationId);
-            
-            // Save user message
-            conversationRepository.addMessage(conversationId,
-                    new Message(null, prompt, LocalDateTime.now(), true));
-            
-            // Save AI response
-            conversationRepository.addMessage(conversationId,
-                    new Message(null, reply, LocalDateTime.now(), false));
-            
+            rateLimiter.recordReply(conversation.getUserId(), reply);
+
+            // Save user message and AI response in one transactional batch
+            conversationRepository.addMessages(conversationId, List.of(
+                    new Message(null, prompt, sentAt, true),
+                    new Message(null, reply, LocalDateTime.now(), false)));
+
             return new SendMessageResult(true, "Message sent successfully", reply);
-            
+
         } catch (Exception e) {
             return new SendMessageResult(false, "Error processing message: " + e.getMessage(), null);
         }
     }
-    
+
+    private Conversation findOwnedConversation(Integer conversationId, String token) {
+        CompletableFuture<Conversation> lookup = CompletableFuture.supplyAsync(
+                () -> conversationRepository.findById(conversationId), useCaseExecutor);
+
+        Integer userId;
+        try {
+            userId = jwtEncodedService.decode(token);
+        } catch (RuntimeException e) {
+            // An invalid token ends the request; don't leave the lookup behind
+            lookup.cancel(true);
+            throw e;
+        }
+
+        Conversation conversation;
+        try {
+            conversation = lookup.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        if (conversation == null || !userId.equals(conversation.getUserId())) {
+            return null;
+        }
+        return conversation;
+    }
+
+    static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
     public static class SendMessageResult {
         private final boolean success;
         private final String message;
         private final String aiResponse;
-        
+        private final Long retryAfterSeconds;
+
         public SendMessageResult(boolean success, String message, String aiResponse) {
+            this(success, message, aiResponse, null);
+        }
+
+        public SendMessageResult(boolean success, String message, String aiResponse, Long retryAfterSeconds) {
             this.success = success;
             this.message = message;
             this.aiResponse = aiResponse;
+            this.retryAfterSeconds = retryAfterSeconds;
         }
-        
+
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
         public String getAiResponse() { return aiResponse; }
+        // Set only when the request was rejected by the rate limiter
+        public Long getRetryAfterSeconds() { return retryAfterSeconds; }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
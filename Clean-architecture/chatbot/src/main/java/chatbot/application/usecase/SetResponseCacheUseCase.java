@@ -0,0 +1,58 @@
+package chatbot.application.usecase;
+
+import chatbot.application.service.JwtEncodedService;
+import chatbot.application.service.ResponseCacheSettings;
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.repository.ConversationRepository;
+import org.springframework.stereotype.Service;
+
+@Service
+public class SetResponseCacheUseCase {
+
+    private final ConversationRepository conversationRepository;
+    private final JwtEncodedService jwtEncodedService;
+    private final ResponseCacheSettings responseCacheSettings;
+
+    public SetResponseCacheUseCase(ConversationRepository conversationRepository,
+                                   JwtEncodedService jwtEncodedService,
+                                   ResponseCacheSettings responseCacheSettings) {
+        this.conversationRepository = conversationRepository;
+        this.jwtEncodedService = jwtEncodedService;
+        this.responseCacheSettings = responseCacheSettings;
+    }
+
+    public SetResponseCacheResult execute(Integer conversationId, String token, boolean enabled) {
+        try {
+            Integer userId = jwtEncodedService.decode(token);
+
+            // Validate user owns conversation
+            Conversation conversation = conversationRepository.findById(conversationId);
+
+            if (conversation == null || !userId.equals(conversation.getUserId())) {
+                return new SetResponseCacheResult(false, "Conversation not found or access denied", null);
+            }
+
+            responseCacheSettings.setEnabled(conversationId, enabled);
+            return new SetResponseCacheResult(true, "Response cache updated", enabled);
+
+        } catch (Exception e) {
+            return new SetResponseCacheResult(false, "Error: " + e.getMessage(), null);
+        }
+    }
+
+    public static class SetResponseCacheResult {
+        private final boolean success;
+        private final String message;
+        private final Boolean enabled;
+
+        public SetResponseCacheResult(boolean success, String message, Boolean enabled) {
+            this.success = success;
+            this.message = message;
+            this.enabled = enabled;
+        }
+
+        public boolean isSuccess() { return success; }
+        public String getMessage() { return message; }
+        public Boolean getEnabled() { return enabled; }
+    }
+}
@@ -0,0 +1,106 @@
+package chatbot.application.usecase;
+
+import chatbot.application.service.AIChatService;
+import chatbot.application.service.JwtEncodedService;
+import chatbot.application.service.RateLimiter;
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.entity.Message;
+import chatbot.domain.repository.ConversationRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Service
+public class StreamMessageUseCase {
+
+    private final ConversationRepository conversationRepository;
+    private final JwtEncodedService jwtEncodedService;
+    private final AIChatService aiChatService;
+    private final RateLimiter rateLimiter;
+
+    public StreamMessageUseCase(ConversationRepository conversationRepository,
+                                JwtEncodedService jwtEncodedService,
+                                AIChatService aiChatService,
+                                RateLimiter rateLimiter) {
+        this.conversationRepository = conversationRepository;
+        this.jwtEncodedService = jwtEncodedService;
+        this.aiChatService = aiChatService;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public StreamMessageResult execute(Integer conversationId, String token, String prompt, Consumer<String> onToken) {
+        try {
+            Integer userId = jwtEncodedService.decode(token);
+
+            // Validate user owns conversation
+            Conversation conversation = conversationRepository.findById(conversationId);
+
+            if (conversation == null || !userId.equals(conversation.getUserId())) {
+                return new StreamMessageResult(false, "Conversation not found or access denied", null, null);
+            }
+
+            // Per-user request and model-token budget
+            long retryAfterMs = rateLimiter.tryAcquire(userId, prompt);
+            if (retryAfterMs > 0) {
+                return new StreamMessageResult(false, "Rate limit exceeded", null, null,
+                        SendMessageUseCase.toSeconds(retryAfterMs));
+            }
+
+            LocalDateTime sentAt = LocalDateTime.now();
+            long startedAt = System.nanoTime();
+            AtomicLong firstTokenAt = new AtomicLong();
+
+            // Stream AI response, remembering when the first chunk arrived
+            String reply = aiChatService.streamResponse(prompt, conversationId, chunk -> {
+                firstTokenAt.compareAndSet(0, System.nanoTime());
+                onToken.accept(chunk);
+            });
+            rateLimiter.recordReply(userId, reply);
+
+            // Persist the exchange in one transactional batch once the stream has completed
+            conversationRepository.addMessages(conversationId, List.of(
+                    new Message(null, prompt, sentAt, true),
+                    new Message(null, reply, LocalDateTime.now(), false)));
+
+            Long timeToFirstTokenMs = firstTokenAt.get() == 0
+                    ? null
+                    : TimeUnit.NANOSECONDS.toMillis(firstTokenAt.get() - startedAt);
+            return new StreamMessageResult(true, "Message sent successfully", reply, timeToFirstTokenMs);
+
+        } catch (Exception e) {
+            return new StreamMessageResult(false, "Error processing message: " + e.getMessage(), null, null);
+        }
+    }
+
+    public static class StreamMessageResult {
+        private final boolean success;
+        private final String message;
+        private final String aiResponse;
+        private final Long timeToFirstTokenMs;
+        private final Long retryAfterSeconds;
+
+        public StreamMessageResult(boolean success, String message, String aiResponse, Long timeToFirstTokenMs) {
+            this(success, message, aiResponse, timeToFirstTokenMs, null);
+        }
+
+        public StreamMessageResult(boolean success, String message, String aiResponse, Long timeToFirstTokenMs,
+                                   Long retryAfterSeconds) {
+            this.success = success;
+            this.message = message;
+            this.aiResponse = aiResponse;
+            this.timeToFirstTokenMs = timeToFirstTokenMs;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public boolean isSuccess() { return success; }
+        public String getMessage() { return message; }
+        public String getAiResponse() { return aiResponse; }
+        public Long getTimeToFirstTokenMs() { return timeToFirstTokenMs; }
+        // Set only when the request was rejected by the rate limiter
+        public Long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+}
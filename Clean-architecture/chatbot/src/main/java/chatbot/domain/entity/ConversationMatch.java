@@ -0,0 +1,35 @@
+package chatbot.domain.entity;
+
+import java.util.List;
+
+public class ConversationMatch {
+    private final Integer conversationId;
+    private final String conversationName;
+    private final double score;
+    private final List<SearchSnippet> snippets;
+
+    public ConversationMatch(Integer conversationId, String conversationName, double score, List<SearchSnippet> snippets) {
+        this.conversationId = conversationId;
+        this.conversationName = conversationName;
+        this.score = score;
+        this.snippets = snippets;
+    }
+
+    public Integer getConversationId() {
+        return conversationId;
+    }
+
+    public String getConversationName() {
+        return conversationName;
+    }
+
+    // Relevance; only meaningful for ordering the results of one search
+    public double getScore() {
+        return score;
+    }
+
+    // Best matching messages first
+    public List<SearchSnippet> getSnippets() {
+        return snippets;
+    }
+}
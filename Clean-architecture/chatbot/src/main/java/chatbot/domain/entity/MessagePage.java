@@ -0,0 +1,29 @@
+package chatbot.domain.entity;
+
+import java.util.List;
+
+public class MessagePage {
+    private final List<Message> messages;
+    private final Integer nextCursor;
+    private final boolean hasMore;
+
+    public MessagePage(List<Message> messages, Integer nextCursor, boolean hasMore) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Oldest to newest, ready to be rendered top-down
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    // Pass back as "before" to fetch the next, older page; null when there is none
+    public Integer getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,41 @@
+package chatbot.domain.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class SearchSnippet {
+
+    // [start, end) character range of a matched word within the snippet text
+    public record Highlight(int start, int end) {
+    }
+
+    private final String text;
+    private final LocalDateTime timestamp;
+    private final Boolean isUser;
+    private final List<Highlight> highlights;
+
+    public SearchSnippet(String text, LocalDateTime timestamp, Boolean isUser, List<Highlight> highlights) {
+        this.text = text;
+        this.timestamp = timestamp;
+        this.isUser = isUser;
+        this.highlights = highlights;
+    }
+
+    // An excerpt of the message around its first match
+    public String getText() {
+        return text;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public Boolean getIsUser() {
+        return isUser;
+    }
+
+    // The matched words within text, in order
+    public List<Highlight> getHighlights() {
+        return highlights;
+    }
+}
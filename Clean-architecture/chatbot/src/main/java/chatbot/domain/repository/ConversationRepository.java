@@ -2,6 +2,7 @@ package chatbot.domain.repository;
 
 import chatbot.domain.entity.Conversation;
 import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,7 +12,10 @@ public interface ConversationRepository {
     void save(Conversation conversation);
 
     List<Message> getMessages(Integer conversationId);
+    // Latest "limit" messages older than beforeId (or the latest ones when beforeId is null)
+    MessagePage getMessagesPage(Integer conversationId, Integer beforeId, int limit);
     void addMessage(Integer conversationId, Message message);
+    void addMessages(Integer conversationId, List<Message> messages);
 
     void renameConversation(Integer conversationId, String newName);
 }
@@ -0,0 +1,10 @@
+package chatbot.domain.repository;
+
+import chatbot.domain.entity.ConversationMatch;
+
+import java.util.List;
+
+public interface MessageSearchRepository {
+    // The user's conversations whose messages match the query, most relevant first
+    List<ConversationMatch> search(Integer userId, String query, int limit);
+}
@@ -0,0 +1,48 @@
+package chatbot.infrastructure.config;
+
+import chatbot.application.service.AIChatService;
+import chatbot.application.service.ResponseCacheSettings;
+import chatbot.infrastructure.external.CachingAiChatService;
+import chatbot.infrastructure.external.MeteredAiChatService;
+import chatbot.infrastructure.external.SingleFlightAiChatService;
+import chatbot.infrastructure.persistence.RedisInFlightRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+// Use cases get the model backend (Gemini or the mock, registered as "aiChatBackend")
+// wrapped in the decorators enabled here: cache -> single-flight -> metrics -> backend.
+@Configuration
+public class AiChatServiceConfig {
+
+    @Bean
+    @Primary
+    public AIChatService aiChatService(@Qualifier("aiChatBackend") AIChatService backend,
+                                       ResponseCacheSettings responseCacheSettings,
+                                       RedisInFlightRegistry inFlightRegistry,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${ai.cache.enabled:true}") boolean cacheEnabled,
+                                       @Value("${ai.cache.max-weight-bytes:67108864}") long cacheMaxWeightBytes,
+                                       @Value("${ai.cache.ttl-minutes:60}") long cacheTtlMinutes,
+                                       @Value("${ai.single-flight.enabled:true}") boolean singleFlightEnabled,
+                                       @Value("${ai.single-flight.lease-ms:120000}") long singleFlightLeaseMs,
+                                       @Value("${ai.single-flight.result-ttl-ms:10000}") long singleFlightResultTtlMs,
+                                       @Value("${ai.single-flight.poll-ms:100}") long singleFlightPollMs) {
+        AIChatService service = new MeteredAiChatService(backend, meterRegistry);
+        if (singleFlightEnabled) {
+            service = new SingleFlightAiChatService(service, inFlightRegistry,
+                    Duration.ofMillis(singleFlightLeaseMs), Duration.ofMillis(singleFlightResultTtlMs),
+                    Duration.ofMillis(singleFlightPollMs), meterRegistry);
+        }
+        if (cacheEnabled) {
+            service = new CachingAiChatService(service, responseCacheSettings,
+                    cacheMaxWeightBytes, Duration.ofMinutes(cacheTtlMinutes), meterRegistry);
+        }
+        return service;
+    }
+}
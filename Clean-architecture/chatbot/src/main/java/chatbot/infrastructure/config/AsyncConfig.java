@@ -0,0 +1,63 @@
+package chatbot.infrastructure.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    // Runs SSE streams so the servlet thread is released while the model is generating
+    @Bean(name = "streamExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
+    public TaskExecutor streamExecutor(@Value("${chat.stream.pool-size:32}") int poolSize,
+                                       @Value("${chat.stream.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("chat-stream-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // One virtual thread per stream; the limit replaces the pool size as the bulkhead
+    @Bean(name = "streamExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public TaskExecutor virtualStreamExecutor(@Value("${chat.stream.max-concurrent:1000}") int maxConcurrent) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("chat-stream-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrent);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+
+    // Runs the independent steps of a use case side by side (e.g. the conversation lookup next to the JWT check)
+    @Bean(name = "useCaseExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "false", matchIfMissing = true)
+    public TaskExecutor useCaseExecutor(@Value("${chat.usecase.pool-size:64}") int poolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("usecase-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "useCaseExecutor")
+    @ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+    public TaskExecutor virtualUseCaseExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("usecase-");
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
@@ -0,0 +1,18 @@
+package chatbot.infrastructure.config;
+
+import com.google.genai.Client;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "ai.service.mock", havingValue = "false", matchIfMissing = true)
+public class GeminiConfig {
+
+    // One client (and its HTTP connection pool) shared by chat calls and the summarizer.
+    // The client reads its key from GOOGLE_API_KEY.
+    @Bean
+    public Client geminiClient() {
+        return new Client();
+    }
+}
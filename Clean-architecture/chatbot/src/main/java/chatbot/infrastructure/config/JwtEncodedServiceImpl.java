@@ -1,12 +1,21 @@
 package chatbot.infrastructure.config;
 
 import chatbot.application.service.JwtEncodedService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class JwtEncodedServiceImpl implements JwtEncodedService {
@@ -16,23 +25,85 @@ public class JwtEncodedServiceImpl implements JwtEncodedService {
 
     private final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
 
+    // Parsers are immutable and thread-safe, so one instance serves every request
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build();
+
+    // Token -> user id for tokens whose signature has already been checked; null when disabled
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtEncodedServiceImpl(@Value("${jwt.cache.max-size:100000}") long cacheMaxSize,
+                                 MeterRegistry meterRegistry) {
+        if (cacheMaxSize <= 0) {
+            this.verifiedTokens = null;
+            return;
+        }
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
+
     @Override
     public String encode(Integer userId) {
+        return encode(userId, new Date(System.currentTimeMillis() + EXPIRATION_TIME));
+    }
+
+    String encode(Integer userId, Date expiration) {
         return Jwts.builder()
                 .setSubject(userId.toString())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
+                .setExpiration(expiration)
                 .signWith(key)
                 .compact();
     }
 
     public Integer decode(String token) {
-        String subject = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-        return Integer.valueOf(subject);
+        if (verifiedTokens != null) {
+            VerifiedToken cached = verifiedTokens.getIfPresent(token);
+            if (cached != null) {
+                return cached.userId();
+            }
+        }
+
+        Claims claims = verify(token);
+        Integer userId = Integer.valueOf(claims.getSubject());
+
+        // Tokens without exp are never cached: there would be nothing to bound their lifetime
+        if (verifiedTokens != null && claims.getExpiration() != null) {
+            verifiedTokens.put(token, new VerifiedToken(userId, claims.getExpiration().getTime()));
+        }
+        return userId;
+    }
+
+    // Signature and exp check; throws for tampered or expired tokens
+    Claims verify(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private record VerifiedToken(Integer userId, long expiresAtMillis) {
+    }
+
+    // Each entry lives exactly until the exp claim of its token
+    private static class ExpireAtTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.expiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,45 @@
+package chatbot.infrastructure.config;
+
+import chatbot.infrastructure.persistence.OutboxMessage;
+import chatbot.infrastructure.persistence.OutboxSubscriber;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Message volume counted from the outbox rather than the request path. A redelivered batch is
+// counted again, so these are at-least-once counts.
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class MessageMetricsSubscriber implements OutboxSubscriber {
+
+    private final Counter userMessages;
+    private final Counter aiMessages;
+    private final DistributionSummary messageLength;
+
+    public MessageMetricsSubscriber(MeterRegistry meterRegistry) {
+        this.userMessages = Counter.builder("chat.messages.stored")
+                .description("Messages stored, by author")
+                .tag("role", "user")
+                .register(meterRegistry);
+        this.aiMessages = Counter.builder("chat.messages.stored")
+                .description("Messages stored, by author")
+                .tag("role", "ai")
+                .register(meterRegistry);
+        this.messageLength = DistributionSummary.builder("chat.messages.length")
+                .description("Characters per stored message")
+                .baseUnit("characters")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onMessages(int shardId, List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            (message.fromUser() ? userMessages : aiMessages).increment();
+            messageLength.record(message.content().length());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package chatbot.infrastructure.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Polls every replica's replication status. A replica takes reads only while it answers, its
+// SQL thread is applying events and it is at most db.replicas.max-lag-seconds behind; when
+// none qualifies, reads fall back to the primary until one recovers.
+// Needs the REPLICATION CLIENT privilege for the replica user.
+@Component
+@ConditionalOnProperty(name = "db.replicas.enabled", havingValue = "true")
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final double maxLagSeconds;
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource,
+                             @Value("${db.replicas.max-lag-seconds:2}") double maxLagSeconds) {
+        this.routingDataSource = routingDataSource;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Scheduled(fixedDelayString = "${db.replicas.lag-check-ms:1000}")
+    public void check() {
+        for (ReplicaRoutingDataSource.Replica replica : routingDataSource.replicas()) {
+            double lag = lagSeconds(replica);
+            boolean healthy = !Double.isNaN(lag) && lag <= maxLagSeconds;
+            if (healthy != replica.isHealthy()) {
+                if (healthy) {
+                    logger.info("Replica {} back in rotation (lag {} s)", replica.name(), lag);
+                } else {
+                    logger.warn("Replica {} out of rotation (lag {} s, limit {} s)", replica.name(), lag, maxLagSeconds);
+                }
+            }
+            replica.update(healthy, lag);
+        }
+    }
+
+    // NaN when the replica is unreachable or replication is not running
+    private double lagSeconds(ReplicaRoutingDataSource.Replica replica) {
+        try {
+            List<Map<String, Object>> status = new JdbcTemplate(replica.dataSource()).queryForList("SHOW REPLICA STATUS");
+            if (status.isEmpty()) {
+                return Double.NaN;
+            }
+            Object lag = status.get(0).get("Seconds_Behind_Source");
+            return lag instanceof Number seconds ? seconds.doubleValue() : Double.NaN;
+        } catch (RuntimeException e) {
+            logger.debug("Lag check on replica {} failed: {}", replica.name(), e.getMessage());
+            return Double.NaN;
+        }
+    }
+}
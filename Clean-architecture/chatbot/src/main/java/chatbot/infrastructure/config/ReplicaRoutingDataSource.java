@@ -0,0 +1,88 @@
+package chatbot.infrastructure.config;
+
+import chatbot.infrastructure.persistence.ReadRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends connections requested for replica reads (see ReadRouting) round-robin to the replicas
+// ReplicaLagMonitor currently considers healthy; everything else, and every read while no
+// replica is healthy, goes to the primary.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<Replica> replicas) {
+        this.replicas = List.copyOf(replicas);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (Replica replica : this.replicas) {
+            targets.put(replica.name(), replica.dataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!ReadRouting.isReplicaRead()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        if (size == 0) {
+            return PRIMARY;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica.name();
+            }
+        }
+        return PRIMARY;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    // The primary pool is a bean of its own and closed by the container; replicas are owned here
+    @Override
+    public void destroy() {
+        for (Replica replica : replicas) {
+            replica.dataSource().close();
+        }
+    }
+
+    // Health and lag are written by ReplicaLagMonitor and read on every routed connection
+    public static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        String name() { return name; }
+        HikariDataSource dataSource() { return dataSource; }
+        boolean isHealthy() { return healthy; }
+        double lagSeconds() { return lagSeconds; }
+
+        void update(boolean healthy, double lagSeconds) {
+            this.healthy = healthy;
+            this.lagSeconds = lagSeconds;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package chatbot.infrastructure.config;
+
+import chatbot.infrastructure.persistence.Shard;
+import chatbot.infrastructure.persistence.ShardDirectory;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Shard 0 is the spring.datasource database; with db.shards.enabled every URL in db.shards.urls
+// adds shard 1, 2, ... with its own pool, migrated from db/shard/mysql on startup.
+// Each shard hands out auto-increment ids in its own residue class (increment MAX_SHARDS,
+// offset shard id + 1), so ids are generated locally yet stay unique when a bucket is
+// copied to another shard.
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    public ShardDirectory shardDirectory(JdbcTemplate jdbcTemplate,
+                                         PlatformTransactionManager transactionManager,
+                                         DataSourceProperties properties,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${db.shards.enabled:false}") boolean enabled,
+                                         @Value("${db.shards.urls:}") List<String> urls,
+                                         @Value("${db.shards.username:${spring.datasource.username}}") String username,
+                                         @Value("${db.shards.password:${spring.datasource.password}}") String password,
+                                         @Value("${db.shards.pool-size:20}") int poolSize,
+                                         @Value("${db.shards.write-wait-ms:10000}") long writeWaitMs) {
+        List<Shard> shards = new ArrayList<>();
+        shards.add(new Shard(0, jdbcTemplate, new TransactionTemplate(transactionManager)));
+        List<HikariDataSource> pools = new ArrayList<>();
+        if (enabled) {
+            if (urls.size() + 1 > ShardDirectory.MAX_SHARDS) {
+                throw new IllegalStateException("At most " + ShardDirectory.MAX_SHARDS + " shards are supported");
+            }
+            for (String url : urls) {
+                int shardId = shards.size();
+                HikariDataSource pool = new HikariDataSource();
+                pool.setPoolName("shard-" + shardId);
+                pool.setJdbcUrl(url.trim());
+                pool.setUsername(username);
+                pool.setPassword(password);
+                pool.setDriverClassName(properties.determineDriverClassName());
+                pool.setMaximumPoolSize(poolSize);
+                pool.setConnectionInitSql(autoIncrementSql(shardId));
+                pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+                pools.add(pool);
+
+                Flyway.configure()
+                        .dataSource(pool)
+                        .locations("classpath:db/shard/mysql")
+                        .load()
+                        .migrate();
+                JdbcTemplate shardTemplate = new JdbcTemplate(pool);
+                startAbove(jdbcTemplate, shardTemplate);
+                shards.add(new Shard(shardId, shardTemplate,
+                        new TransactionTemplate(new DataSourceTransactionManager(pool))));
+            }
+        }
+        return new ShardDirectory(enabled, shards, writeWaitMs, pools);
+    }
+
+    // Puts shard 0's pool into residue class 0 as well; static so it applies to the DataSource beans
+    @Bean
+    public static BeanPostProcessor shardZeroAutoIncrement(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool
+                        && environment.getProperty("db.shards.enabled", Boolean.class, false)) {
+                    pool.setConnectionInitSql(autoIncrementSql(0));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Ids handed out on shard 0 before sharding use every residue; a new shard starts above them
+    // so rows copied from shard 0 can never collide with ids it generated itself
+    private static void startAbove(JdbcTemplate shardZero, JdbcTemplate shard) {
+        Integer existing = shard.queryForObject("SELECT COUNT(*) FROM conversations", Integer.class);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        for (String table : List.of("conversations", "messages", "message_search")) {
+            Integer maxId = shardZero.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Integer.class);
+            shard.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + (maxId + ShardDirectory.MAX_SHARDS));
+        }
+    }
+
+    private static String autoIncrementSql(int shardId) {
+        return "SET SESSION auto_increment_increment = " + ShardDirectory.MAX_SHARDS
+                + ", auto_increment_offset = " + (shardId + 1);
+    }
+}
@@ -0,0 +1,70 @@
+package chatbot.infrastructure.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+// Times every use case execute() as chatbot.usecase{usecase, outcome}. Use cases report failures
+// through their result objects rather than exceptions, so the outcome is read from isSuccess().
+// Kept out of the application layer so use cases stay free of metrics code.
+@Aspect
+@Component
+public class UseCaseMetricsAspect {
+
+    private static final ClassValue<Method> SUCCESS_ACCESSOR = new ClassValue<>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                return type.getMethod("isSuccess");
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    };
+
+    private final MeterRegistry meterRegistry;
+
+    public UseCaseMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * chatbot.application.usecase.*UseCase.execute(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long startedAt = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcomeOf(result);
+            return result;
+        } finally {
+            Timer.builder("chatbot.usecase")
+                    .description("Use case execution time")
+                    .tag("usecase", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String outcomeOf(Object result) {
+        if (result == null) {
+            return "success";
+        }
+        Method accessor = SUCCESS_ACCESSOR.get(result.getClass());
+        if (accessor == null) {
+            return "success";
+        }
+        try {
+            return Boolean.TRUE.equals(accessor.invoke(result)) ? "success" : "failure";
+        } catch (ReflectiveOperationException e) {
+            return "unknown";
+        }
+    }
+}
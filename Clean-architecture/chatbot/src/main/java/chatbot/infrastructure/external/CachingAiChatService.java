@@ -0,0 +1,129 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.AIChatService;
+import chatbot.application.service.ResponseCacheSettings;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Serves repeated prompts from memory. Replies are keyed on the normalized prompt plus the
+// backend's context fingerprint, so a reply is only reused where the model would have seen
+// the same conversation. The cache is bounded by an approximate byte weight and a TTL.
+public class CachingAiChatService implements AIChatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingAiChatService.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s.!?]+$");
+
+    private final AIChatService delegate;
+    private final ResponseCacheSettings settings;
+    private final Cache<String, String> responses;
+    private final Counter bypassed;
+
+    public CachingAiChatService(AIChatService delegate, ResponseCacheSettings settings,
+                                long maxWeightBytes, Duration ttl, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.responses = Caffeine.newBuilder()
+                // Java strings are UTF-16, so two bytes per char is a close upper estimate
+                .maximumWeight(maxWeightBytes)
+                .weigher((String key, String reply) -> 2 * (key.length() + reply.length()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "ai.responses");
+        this.bypassed = Counter.builder("ai.responses.cache.bypassed")
+                .description("Requests for conversations that opted out of reply caching")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generateResponse(String prompt, Integer conversationId) {
+        String key = cacheKey(prompt, conversationId);
+        if (key != null) {
+            String cached = responses.getIfPresent(key);
+            if (cached != null) {
+                delegate.recordExchange(prompt, cached, conversationId);
+                return cached;
+            }
+        }
+
+        String reply = delegate.generateResponse(prompt, conversationId);
+        if (key != null) {
+            responses.put(key, reply);
+        }
+        return reply;
+    }
+
+    @Override
+    public String streamResponse(String prompt, Integer conversationId, Consumer<String> onToken) {
+        String key = cacheKey(prompt, conversationId);
+        if (key != null) {
+            String cached = responses.getIfPresent(key);
+            if (cached != null) {
+                onToken.accept(cached);
+                delegate.recordExchange(prompt, cached, conversationId);
+                return cached;
+            }
+        }
+
+        String reply = delegate.streamResponse(prompt, conversationId, onToken);
+        if (key != null) {
+            responses.put(key, reply);
+        }
+        return reply;
+    }
+
+    @Override
+    public String contextFingerprint(String prompt, Integer conversationId) {
+        return delegate.contextFingerprint(prompt, conversationId);
+    }
+
+    @Override
+    public void recordExchange(String prompt, String reply, Integer conversationId) {
+        delegate.recordExchange(prompt, reply, conversationId);
+    }
+
+    // Null when the reply must not be cached for this conversation
+    private String cacheKey(String prompt, Integer conversationId) {
+        try {
+            if (!settings.isEnabled(conversationId)) {
+                bypassed.increment();
+                return null;
+            }
+            return sha256(normalize(prompt) + '\u0000' + delegate.contextFingerprint(prompt, conversationId));
+        } catch (RuntimeException e) {
+            // Without a key the request simply goes to the model
+            logger.warn("Skipping reply cache for conversationId={}: {}", conversationId, e.getMessage());
+            return null;
+        }
+    }
+
+    static String normalize(String prompt) {
+        String collapsed = WHITESPACE.matcher(prompt.strip().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
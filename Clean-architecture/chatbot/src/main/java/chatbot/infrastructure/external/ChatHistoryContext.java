@@ -0,0 +1,80 @@
+package chatbot.infrastructure.external;
+
+import chatbot.infrastructure.persistence.HistoryEntry;
+import chatbot.infrastructure.persistence.RedisChatHistoryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+// The Redis prompt history as seen by a model backend during one chat turn. The context read to
+// fingerprint a turn for the reply cache is kept until the same turn builds its prompt, so a turn
+// reads its summary and recent entries once whether or not the cache is in front of the backend.
+// Contexts are kept per turn (conversation and prompt): overlapping turns of one conversation
+// each build their prompt from the context their cache key was computed on.
+@Component
+public class ChatHistoryContext {
+
+    static final int SUMMARY_INTERVAL = 5;
+
+    // Long enough to cover a single-flight wait between fingerprinting and prompt building
+    private static final Duration FINGERPRINTED_TTL = Duration.ofMinutes(2);
+
+    private final RedisChatHistoryRepository historyRepository;
+    // Absent with the mock model, which does not summarize
+    private final ObjectProvider<ConversationSummarizer> summarizer;
+    private final boolean outboxFollows;
+    private final Cache<Turn, RedisChatHistoryRepository.ChatContext> fingerprinted = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(FINGERPRINTED_TTL)
+            .build();
+
+    public ChatHistoryContext(RedisChatHistoryRepository historyRepository,
+                              ObjectProvider<ConversationSummarizer> summarizer,
+                              @Value("${outbox.enabled:false}") boolean outboxFollows) {
+        this.historyRepository = historyRepository;
+        this.summarizer = summarizer;
+        this.outboxFollows = outboxFollows;
+    }
+
+    // Everything the prompt builder may draw on besides the new message
+    public String fingerprint(Integer conversationId, String prompt) {
+        RedisChatHistoryRepository.ChatContext context = historyRepository.context(conversationId);
+        fingerprinted.put(new Turn(conversationId, prompt), context);
+        StringBuilder fingerprint = new StringBuilder();
+        if (context.summary() != null) {
+            fingerprint.append(context.summary());
+        }
+        for (HistoryEntry entry : context.recentEntries()) {
+            fingerprint.append('\n').append(entry.promptLine());
+        }
+        return fingerprint.toString();
+    }
+
+    // The context this turn was fingerprinted on, or a fresh read when it was not
+    public RedisChatHistoryRepository.ChatContext forPrompt(Integer conversationId, String prompt) {
+        RedisChatHistoryRepository.ChatContext context = fingerprinted.asMap().remove(new Turn(conversationId, prompt));
+        return context != null ? context : historyRepository.context(conversationId);
+    }
+
+    public void record(Integer conversationId, String prompt, String reply) {
+        // Left behind when the turn was answered from the cache
+        fingerprinted.invalidate(new Turn(conversationId, prompt));
+        // Append both entries, cap the list and refresh the TTL in a single round trip. The next
+        // turn sees them at once; with the outbox, OutboxChatHistoryWriter skips them on delivery.
+        long appended = historyRepository.append(conversationId,
+                List.of(HistoryEntry.user(prompt), HistoryEntry.ai(reply)), outboxFollows);
+
+        // Summaries are built by a background worker; this turn only queues the request
+        if (appended % (SUMMARY_INTERVAL * 2) == 0) {
+            summarizer.ifAvailable(service -> service.requestSummary(conversationId));
+        }
+    }
+
+    private record Turn(Integer conversationId, String prompt) {
+    }
+}
@@ -0,0 +1,12 @@
+package chatbot.infrastructure.external;
+
+import java.util.function.Consumer;
+
+// The model API calls ResilientModelInvoker builds on; GeminiChatModel in production
+interface ChatModel {
+
+    String generate(String model, String prompt);
+
+    // Calls onChunk with each non-empty piece of text as it arrives
+    void stream(String model, String prompt, Consumer<String> onChunk);
+}
@@ -0,0 +1,263 @@
+package chatbot.infrastructure.external;
+
+import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
+import chatbot.domain.repository.ConversationRepository;
+import chatbot.infrastructure.persistence.HistoryEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Long-term memory for prompts: every stored message of a conversation is embedded into an
+// in-process HNSW index of that conversation, and each turn retrieves the stored messages closest
+// to the new question, however old they are. The database stays the source of truth: a turn first
+// indexes the messages stored since the previous one, so turns handled by other nodes are picked
+// up too. Conversations not in memory (new node, evicted, restart) are rebuilt from their newest
+// messages, with older ones backfilled in the background. A conversation keeps at most
+// max-messages-per-conversation of its newest messages: backfill stops there, and once new
+// messages push it past that (plus some slack) the index is rebuilt from the newest ones it already
+// holds, without embedding anything again. Memory is best-effort: any failure leaves the prompt as
+// it would be without it.
+@Component
+@ConditionalOnExpression("${ai.memory.enabled:true} and !${ai.service.mock:false}")
+public class ConversationMemory {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationMemory.class);
+
+    // Messages stored since the last turn are read (and embedded) in one page
+    private static final int CATCH_UP_PAGE = 50;
+    private static final int BACKFILL_PAGE = 100;
+    private static final int MAX_LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+    // Rebuilding is amortized over this share of the cap in new messages
+    private static final int TRIM_SLACK_DIVISOR = 10;
+
+    public record Recalled(int messageId, HistoryEntry entry, double score) {
+    }
+
+    private record Stored(int messageId, HistoryEntry entry) {
+    }
+
+    // One conversation's index; guarded by its own monitor
+    private static class Memory {
+        HnswIndex<Stored> index = new HnswIndex<>(MAX_LINKS, EF_CONSTRUCTION);
+        final Set<Integer> messageIds = new HashSet<>();
+        int newestId;
+        boolean backfilling;
+    }
+
+    private final ConversationRepository conversationRepository;
+    private final EmbeddingProvider embeddingProvider;
+    private final int maxMessagesPerConversation;
+    private final double minScore;
+    private final Cache<Integer, Memory> memories;
+    private final ThreadPoolExecutor backfills = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1000), Thread.ofPlatform().name("memory-backfill").daemon().factory());
+
+    public ConversationMemory(ConversationRepository conversationRepository,
+                              EmbeddingProvider embeddingProvider,
+                              @Value("${ai.memory.max-messages-per-conversation:5000}") int maxMessagesPerConversation,
+                              @Value("${ai.memory.max-cached-messages:50000}") long maxCachedMessages,
+                              @Value("${ai.memory.idle-minutes:30}") long idleMinutes,
+                              @Value("${ai.memory.min-score:0.5}") double minScore,
+                              MeterRegistry meterRegistry) {
+        this.conversationRepository = conversationRepository;
+        this.embeddingProvider = embeddingProvider;
+        this.maxMessagesPerConversation = maxMessagesPerConversation;
+        this.minScore = minScore;
+        // Weighed by indexed messages, re-weighed whenever a memory is put back after growing
+        this.memories = Caffeine.newBuilder()
+                .maximumWeight(maxCachedMessages)
+                .weigher((Integer conversationId, Memory memory) -> memory.messageIds.size() + 1)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, memories, "ai.memory.conversations");
+    }
+
+    // Up to limit stored messages most similar to the prompt, best first
+    public List<Recalled> recall(Integer conversationId, String prompt, int limit) {
+        try {
+            Memory memory = memories.get(conversationId, id -> new Memory());
+            MessagePage latest = conversationRepository.getMessagesPage(conversationId, null, CATCH_UP_PAGE);
+            if (latest == null) {
+                return List.of();
+            }
+
+            int indexedUpTo;
+            synchronized (memory) {
+                indexedUpTo = memory.newestId;
+            }
+            List<Message> fresh = newerThan(latest.getMessages(), indexedUpTo);
+
+            // One embedding call for the question and everything stored since the last turn
+            List<String> texts = new ArrayList<>(fresh.size() + 1);
+            fresh.forEach(message -> texts.add(message.getContent()));
+            texts.add(prompt);
+            List<float[]> vectors = embeddingProvider.embed(texts);
+
+            List<HnswIndex.Hit<Stored>> hits;
+            boolean scheduleBackfill = false;
+            boolean evict = false;
+            synchronized (memory) {
+                insert(memory, fresh, vectors);
+                if (memory.messageIds.size() > maxMessagesPerConversation + maxMessagesPerConversation / TRIM_SLACK_DIVISOR) {
+                    keepNewest(memory, maxMessagesPerConversation);
+                }
+                hits = memory.index.search(normalize(vectors.get(vectors.size() - 1)), limit, EF_SEARCH);
+
+                // The page did not reach back to what was already indexed: older messages are missing
+                boolean gap = latest.isHasMore() && !fresh.isEmpty() && fresh.size() == latest.getMessages().size();
+                if (gap && memory.backfilling) {
+                    // A second gap while the first is still filling; rebuilding is simpler than tracking both
+                    evict = true;
+                } else if (gap && memory.messageIds.size() < maxMessagesPerConversation) {
+                    memory.backfilling = true;
+                    scheduleBackfill = true;
+                }
+            }
+
+            if (evict) {
+                // Rebuilt from the newest messages on the next turn
+                memories.invalidate(conversationId);
+            } else {
+                memories.asMap().replace(conversationId, memory, memory);
+            }
+            if (scheduleBackfill) {
+                scheduleBackfill(conversationId, memory, latest.getNextCursor(), indexedUpTo);
+            }
+
+            List<Recalled> recalled = new ArrayList<>(hits.size());
+            for (HnswIndex.Hit<Stored> hit : hits) {
+                if (hit.score() >= minScore) {
+                    recalled.add(new Recalled(hit.value().messageId(), hit.value().entry(), hit.score()));
+                }
+            }
+            return recalled;
+        } catch (Exception e) {
+            logger.warn("Conversation memory unavailable for conversationId={}: {}", conversationId, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void scheduleBackfill(Integer conversationId, Memory memory, Integer beforeId, int downToId) {
+        try {
+            backfills.execute(() -> backfill(conversationId, memory, beforeId, downToId));
+        } catch (RejectedExecutionException e) {
+            memories.invalidate(conversationId);
+        }
+    }
+
+    // Walks back from beforeId until it reaches messages indexed before the gap (downToId)
+    private void backfill(Integer conversationId, Memory memory, Integer beforeId, int downToId) {
+        try {
+            Integer cursor = beforeId;
+            while (cursor != null) {
+                MessagePage page = conversationRepository.getMessagesPage(conversationId, cursor, BACKFILL_PAGE);
+                if (page == null) {
+                    break;
+                }
+                List<Message> older = newerThan(page.getMessages(), downToId);
+                int room;
+                synchronized (memory) {
+                    room = maxMessagesPerConversation - memory.messageIds.size();
+                }
+                if (older.isEmpty() || room <= 0) {
+                    break;
+                }
+                // Pages run oldest to newest: past the cap, the oldest messages are left out
+                List<Message> kept = older.size() > room ? older.subList(older.size() - room, older.size()) : older;
+                List<float[]> vectors = embeddingProvider.embed(kept.stream().map(Message::getContent).toList());
+                synchronized (memory) {
+                    insert(memory, kept, vectors);
+                }
+                memories.asMap().replace(conversationId, memory, memory);
+                if (kept.size() < page.getMessages().size()) {
+                    break;
+                }
+                cursor = page.isHasMore() ? page.getNextCursor() : null;
+            }
+        } catch (Exception e) {
+            logger.warn("Conversation memory backfill failed for conversationId={}: {}", conversationId, e.getMessage());
+            memories.invalidate(conversationId);
+        } finally {
+            synchronized (memory) {
+                memory.backfilling = false;
+            }
+        }
+    }
+
+    // Messages are skipped when already indexed, so overlapping catch-ups and backfills are harmless
+    private static void insert(Memory memory, List<Message> messages, List<float[]> vectors) {
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (!memory.messageIds.add(message.getId())) {
+                continue;
+            }
+            HistoryEntry entry = Boolean.TRUE.equals(message.getIsUser())
+                    ? HistoryEntry.user(message.getContent())
+                    : HistoryEntry.ai(message.getContent());
+            memory.index.add(normalize(vectors.get(i)), new Stored(message.getId(), entry));
+            memory.newestId = Math.max(memory.newestId, message.getId());
+        }
+    }
+
+    // Rebuilds the index from the newest max messages it holds, reusing their vectors
+    private static void keepNewest(Memory memory, int max) {
+        List<Map.Entry<float[], Stored>> entries = new ArrayList<>(memory.messageIds.size());
+        memory.index.forEach((vector, stored) -> entries.add(Map.entry(vector, stored)));
+        entries.sort(Comparator.comparingInt((Map.Entry<float[], Stored> entry) -> entry.getValue().messageId()).reversed());
+        List<Map.Entry<float[], Stored>> newest = entries.subList(0, Math.min(max, entries.size()));
+
+        HnswIndex<Stored> index = new HnswIndex<>(MAX_LINKS, EF_CONSTRUCTION);
+        memory.messageIds.clear();
+        for (int i = newest.size() - 1; i >= 0; i--) {
+            index.add(newest.get(i).getKey(), newest.get(i).getValue());
+            memory.messageIds.add(newest.get(i).getValue().messageId());
+        }
+        memory.index = index;
+    }
+
+    private static List<Message> newerThan(List<Message> messages, int messageId) {
+        return messages.stream()
+                .filter(message -> message.getId() != null && message.getId() > messageId)
+                .toList();
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = Math.sqrt(HnswIndex.similarity(vector, vector));
+        if (norm == 0) {
+            return vector;
+        }
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfills.shutdownNow();
+    }
+}
@@ -0,0 +1,177 @@
+package chatbot.infrastructure.external;
+
+import chatbot.infrastructure.persistence.HistoryEntry;
+import chatbot.infrastructure.persistence.RedisChatHistoryRepository;
+import chatbot.infrastructure.persistence.RedisSummaryQueue;
+import com.google.genai.Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps conversation summaries up to date off the request path.
+// Chat turns only enqueue a conversation id; worker threads drain the Redis queue and fold
+// the turns added since the last run into the previous summary.
+@Component
+@ConditionalOnProperty(name = "ai.service.mock", havingValue = "false", matchIfMissing = true)
+public class ConversationSummarizer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationSummarizer.class);
+
+    private static final String SUMMARY_MODEL = "gemini-2.5-flash";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    // How often a worker looks for leases left behind by dead or stalled workers
+    private static final Duration RECLAIM_INTERVAL = Duration.ofSeconds(10);
+
+    private final Client geminiClient;
+    private final RedisChatHistoryRepository historyRepository;
+    private final RedisSummaryQueue summaryQueue;
+    private final int workerCount;
+    private final Timer summaryTimer;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public ConversationSummarizer(Client geminiClient,
+                                  RedisChatHistoryRepository historyRepository,
+                                  RedisSummaryQueue summaryQueue,
+                                  @Value("${ai.summary.workers:1}") int workerCount,
+                                  MeterRegistry meterRegistry) {
+        this.geminiClient = geminiClient;
+        this.historyRepository = historyRepository;
+        this.summaryQueue = summaryQueue;
+        this.workerCount = workerCount;
+        this.summaryTimer = Timer.builder("ai.summary.calls")
+                .description("Model calls made by the background summarizer")
+                .tag("model", SUMMARY_MODEL)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // Called on the request path: a single Redis round trip, never a model call
+    public void requestSummary(Integer conversationId) {
+        try {
+            if (!summaryQueue.enqueue(conversationId)) {
+                logger.debug("Summary for conversationId={} already queued", conversationId);
+            }
+        } catch (RuntimeException e) {
+            // A missed summary only means a longer one next time; never fail the chat turn
+            logger.warn("Could not queue summary for conversationId={}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        // Expired leases are reclaimed by the workers, so startup needs no Redis call
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = Thread.ofPlatform()
+                    .name("summary-worker-" + i)
+                    .daemon(true)
+                    .start(this::drainQueue);
+            workers.add(worker);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                // A worker notices the flag after its current poll or summary finishes
+                worker.join(RECLAIM_INTERVAL.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        workers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainQueue() {
+        long nextReclaim = 0;
+        while (running) {
+            Integer conversationId;
+            try {
+                if (System.nanoTime() - nextReclaim >= 0) {
+                    long reclaimed = summaryQueue.reclaimExpired();
+                    if (reclaimed > 0) {
+                        logger.info("Requeued {} summary job(s) whose lease expired", reclaimed);
+                    }
+                    nextReclaim = System.nanoTime() + RECLAIM_INTERVAL.toNanos();
+                }
+                conversationId = summaryQueue.take();
+            } catch (RuntimeException e) {
+                logger.warn("Summary queue poll failed: {}", e.getMessage());
+                pause();
+                continue;
+            }
+            if (conversationId == null) {
+                pause();
+                continue;
+            }
+
+            try {
+                summarize(conversationId);
+            } catch (RuntimeException e) {
+                // Dropped rather than retried; the next interval requests a new run anyway
+                logger.error("Error summarizing conversationId={}: {}", conversationId, e.getMessage(), e);
+            }
+            try {
+                summaryQueue.acknowledge(conversationId);
+            } catch (RuntimeException e) {
+                // The lease runs out and the conversation is summarized again; harmless
+                logger.warn("Could not acknowledge summary of conversationId={}: {}", conversationId, e.getMessage());
+            }
+        }
+    }
+
+    void summarize(Integer conversationId) {
+        // New entries are bounded by the capped history list, so the input never grows unbounded
+        RedisChatHistoryRepository.SummaryInput input = historyRepository.summaryInput(conversationId);
+        if (input.newEntries().isEmpty()) {
+            return;
+        }
+
+        String summaryPrompt = buildSummaryPrompt(input.previousSummary(), input.newEntries());
+        String summary = summaryTimer.record(
+                () -> geminiClient.models.generateContent(SUMMARY_MODEL, summaryPrompt, null).text());
+        historyRepository.saveSummary(conversationId, summary, input.appended());
+        logger.debug("Updated summary for conversationId={}: {}", conversationId, summary);
+    }
+
+    private String buildSummaryPrompt(String previousSummary, List<HistoryEntry> newEntries) {
+        StringBuilder turns = new StringBuilder();
+        for (HistoryEntry entry : newEntries) {
+            turns.append(entry.promptLine()).append("\n");
+        }
+        if (previousSummary == null || previousSummary.isBlank()) {
+            return "Summarize this conversation:\n" + turns;
+        }
+        return "Here is a summary of the earlier part of a conversation:\n" + previousSummary
+                + "\n\nHere are the messages that followed:\n" + turns
+                + "\nWrite an updated summary that covers the whole conversation.";
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
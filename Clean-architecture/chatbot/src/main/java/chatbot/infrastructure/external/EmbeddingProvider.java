@@ -0,0 +1,11 @@
+package chatbot.infrastructure.external;
+
+import java.util.List;
+
+// Turns text into vectors for the conversation memory. Implementations are picked with
+// ai.memory.embedding.provider; vectors of one provider must all have the same length.
+public interface EmbeddingProvider {
+
+    // One vector per text, in order
+    List<float[]> embed(List<String> texts);
+}
@@ -0,0 +1,43 @@
+package chatbot.infrastructure.external;
+
+import com.google.genai.Client;
+import com.google.genai.ResponseStream;
+import com.google.genai.types.GenerateContentResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "ai.service.mock", havingValue = "false", matchIfMissing = true)
+class GeminiChatModel implements ChatModel {
+
+    private final Client geminiClient;
+
+    GeminiChatModel(Client geminiClient) {
+        this.geminiClient = geminiClient;
+    }
+
+    @Override
+    public String generate(String model, String prompt) {
+        return geminiClient.models.generateContent(model, prompt, null).text();
+    }
+
+    @Override
+    public void stream(String model, String prompt, Consumer<String> onChunk) {
+        try (ResponseStream<GenerateContentResponse> stream =
+                     geminiClient.models.generateContentStream(model, prompt, null)) {
+            for (GenerateContentResponse chunk : stream) {
+                String text = chunk.text();
+                if (text != null && !text.isEmpty()) {
+                    onChunk.accept(text);
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // Checked exceptions from closing the stream
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package chatbot.infrastructure.external;
+
+import com.google.genai.Client;
+import com.google.genai.types.ContentEmbedding;
+import com.google.genai.types.EmbedContentConfig;
+import com.google.genai.types.EmbedContentResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Embeddings from the Gemini API. All texts of a turn (the new question and the messages stored
+// since the last turn) go out in one call. SEMANTIC_SIMILARITY is used for both sides, since
+// queries and stored messages are the same kind of text here. Calls run on their own threads
+// under ai.memory.embedding.timeout-ms, so a slow embedding never holds up the turn for long.
+@Component
+@ConditionalOnExpression("'${ai.memory.embedding.provider:gemini}' == 'gemini' and !${ai.service.mock:false}")
+public class GeminiEmbeddingProvider implements EmbeddingProvider {
+
+    private final Client geminiClient;
+    private final String model;
+    private final EmbedContentConfig config;
+    private final long timeoutMs;
+    private final Timer embedTimer;
+    private final ExecutorService calls = Executors.newVirtualThreadPerTaskExecutor();
+
+    public GeminiEmbeddingProvider(Client geminiClient,
+                                   @Value("${ai.memory.embedding.model:text-embedding-004}") String model,
+                                   @Value("${ai.memory.embedding.dimensions:256}") int dimensions,
+                                   @Value("${ai.memory.embedding.timeout-ms:2000}") long timeoutMs,
+                                   MeterRegistry meterRegistry) {
+        this.geminiClient = geminiClient;
+        this.model = model;
+        this.timeoutMs = timeoutMs;
+        this.config = EmbedContentConfig.builder()
+                .taskType("SEMANTIC_SIMILARITY")
+                .outputDimensionality(dimensions)
+                .build();
+        this.embedTimer = Timer.builder("ai.embedding.calls")
+                .description("Embedding calls made for the conversation memory")
+                .tag("model", model)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        if (texts.isEmpty()) {
+            return List.of();
+        }
+        EmbedContentResponse response = embedTimer.record(() -> await(calls.submit(
+                () -> geminiClient.models.embedContent(model, texts, config))));
+        List<ContentEmbedding> embeddings = response.embeddings().orElse(List.of());
+        if (embeddings.size() != texts.size()) {
+            throw new IllegalStateException("Expected " + texts.size() + " embeddings, got " + embeddings.size());
+        }
+        List<float[]> vectors = new ArrayList<>(embeddings.size());
+        for (ContentEmbedding embedding : embeddings) {
+            List<Float> values = embedding.values().orElse(List.of());
+            float[] vector = new float[values.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = values.get(i);
+            }
+            vectors.add(vector);
+        }
+        return vectors;
+    }
+
+    private EmbedContentResponse await(Future<EmbedContentResponse> call) {
+        try {
+            return call.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            throw new IllegalStateException("Embedding call timed out after " + timeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while embedding", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        calls.shutdownNow();
+    }
+}
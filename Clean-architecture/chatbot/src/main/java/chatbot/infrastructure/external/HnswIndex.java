@@ -0,0 +1,188 @@
+package chatbot.infrastructure.external;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+// Hierarchical navigable small world graph (Malkov & Yashunin) over unit vectors, scored by inner
+// product (= cosine similarity). Insert-only and not thread-safe; callers lock around it.
+// Levels come from a seeded Random, so the same inserts always build the same graph.
+class HnswIndex<T> {
+
+    record Hit<T>(T value, double score) {
+    }
+
+    private record Scored(int node, double score) {
+    }
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed();
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score);
+
+    private final int maxLinks;
+    private final int maxLinksLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final List<float[]> vectors = new ArrayList<>();
+    private final List<T> values = new ArrayList<>();
+    // links.get(node)[layer] holds the neighbour ids of node on that layer
+    private final List<int[][]> links = new ArrayList<>();
+    private final List<int[]> linkCounts = new ArrayList<>();
+
+    private int entryPoint = -1;
+    private int topLayer = -1;
+
+    HnswIndex(int maxLinks, int efConstruction) {
+        this.maxLinks = maxLinks;
+        this.maxLinksLayer0 = maxLinks * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(maxLinks);
+    }
+
+    int size() {
+        return vectors.size();
+    }
+
+    void add(float[] vector, T value) {
+        int node = vectors.size();
+        int level = (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        int[][] nodeLinks = new int[level + 1][];
+        for (int layer = 0; layer <= level; layer++) {
+            nodeLinks[layer] = new int[(layer == 0 ? maxLinksLayer0 : maxLinks) + 1];
+        }
+        vectors.add(vector);
+        values.add(value);
+        links.add(nodeLinks);
+        linkCounts.add(new int[level + 1]);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            topLayer = level;
+            return;
+        }
+
+        // Greedy descent through the layers above the new node's level, then a beam search on
+        // each of its layers to pick the neighbours it is linked to
+        List<Scored> entries = List.of(new Scored(entryPoint, similarity(vector, vectors.get(entryPoint))));
+        for (int layer = topLayer; layer > level; layer--) {
+            entries = searchLayer(vector, entries, 1, layer);
+        }
+        for (int layer = Math.min(level, topLayer); layer >= 0; layer--) {
+            List<Scored> candidates = searchLayer(vector, entries, efConstruction, layer);
+            int limit = layer == 0 ? maxLinksLayer0 : maxLinks;
+            for (int i = 0; i < Math.min(maxLinks, candidates.size()); i++) {
+                int neighbour = candidates.get(i).node();
+                link(node, neighbour, layer, limit);
+                link(neighbour, node, layer, limit);
+            }
+            entries = candidates;
+        }
+
+        if (level > topLayer) {
+            entryPoint = node;
+            topLayer = level;
+        }
+    }
+
+    // Every vector with its value, in insertion order
+    void forEach(BiConsumer<float[], T> action) {
+        for (int node = 0; node < vectors.size(); node++) {
+            action.accept(vectors.get(node), values.get(node));
+        }
+    }
+
+    // Up to k values, most similar first
+    List<Hit<T>> search(float[] query, int k, int ef) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        List<Scored> entries = List.of(new Scored(entryPoint, similarity(query, vectors.get(entryPoint))));
+        for (int layer = topLayer; layer > 0; layer--) {
+            entries = searchLayer(query, entries, 1, layer);
+        }
+        List<Scored> nearest = searchLayer(query, entries, Math.max(ef, k), 0);
+        List<Hit<T>> hits = new ArrayList<>(Math.min(k, nearest.size()));
+        for (int i = 0; i < Math.min(k, nearest.size()); i++) {
+            hits.add(new Hit<>(values.get(nearest.get(i).node()), nearest.get(i).score()));
+        }
+        return hits;
+    }
+
+    // The ef nodes closest to the query reachable on this layer from the entries, best first
+    private List<Scored> searchLayer(float[] query, List<Scored> entries, int ef, int layer) {
+        BitSet visited = new BitSet(vectors.size());
+        PriorityQueue<Scored> candidates = new PriorityQueue<>(BEST_FIRST);
+        PriorityQueue<Scored> nearest = new PriorityQueue<>(WORST_FIRST);
+        for (Scored entry : entries) {
+            visited.set(entry.node());
+            candidates.add(entry);
+            nearest.add(entry);
+        }
+        while (nearest.size() > ef) {
+            nearest.poll();
+        }
+
+        while (!candidates.isEmpty()) {
+            Scored current = candidates.poll();
+            if (nearest.size() >= ef && current.score() < nearest.peek().score()) {
+                break;
+            }
+            int[] neighbours = links.get(current.node())[layer];
+            int count = linkCounts.get(current.node())[layer];
+            for (int i = 0; i < count; i++) {
+                int neighbour = neighbours[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+                double score = similarity(query, vectors.get(neighbour));
+                if (nearest.size() < ef || score > nearest.peek().score()) {
+                    Scored scored = new Scored(neighbour, score);
+                    candidates.add(scored);
+                    nearest.add(scored);
+                    if (nearest.size() > ef) {
+                        nearest.poll();
+                    }
+                }
+            }
+        }
+
+        List<Scored> result = new ArrayList<>(nearest);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    // Adds the link and, once the node has more than limit links, drops its least similar one
+    private void link(int from, int to, int layer, int limit) {
+        int[] neighbours = links.get(from)[layer];
+        int[] counts = linkCounts.get(from);
+        neighbours[counts[layer]++] = to;
+        if (counts[layer] <= limit) {
+            return;
+        }
+        float[] origin = vectors.get(from);
+        int worst = 0;
+        double worstScore = Double.MAX_VALUE;
+        for (int i = 0; i < counts[layer]; i++) {
+            double score = similarity(origin, vectors.get(neighbours[i]));
+            if (score < worstScore) {
+                worstScore = score;
+                worst = i;
+            }
+        }
+        neighbours[worst] = neighbours[--counts[layer]];
+    }
+
+    static double similarity(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return dot;
+    }
+}
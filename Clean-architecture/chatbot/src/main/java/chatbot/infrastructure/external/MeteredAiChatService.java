@@ -0,0 +1,67 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.AIChatService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Wraps the model backend directly, below the cache and single-flight layers, so it counts
+// real model calls only: ai.calls{operation, outcome} times them and ai.calls.in-flight
+// is the number currently waiting on the model (a scaling signal).
+public class MeteredAiChatService implements AIChatService {
+
+    private final AIChatService delegate;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public MeteredAiChatService(AIChatService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("ai.calls.in-flight", inFlight, AtomicInteger::get)
+                .description("Model calls currently in progress on this node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generateResponse(String prompt, Integer conversationId) {
+        return timed("generate", () -> delegate.generateResponse(prompt, conversationId));
+    }
+
+    @Override
+    public String streamResponse(String prompt, Integer conversationId, Consumer<String> onToken) {
+        return timed("stream", () -> delegate.streamResponse(prompt, conversationId, onToken));
+    }
+
+    @Override
+    public String contextFingerprint(String prompt, Integer conversationId) {
+        return delegate.contextFingerprint(prompt, conversationId);
+    }
+
+    @Override
+    public void recordExchange(String prompt, String reply, Integer conversationId) {
+        delegate.recordExchange(prompt, reply, conversationId);
+    }
+
+    private String timed(String operation, Supplier<String> call) {
+        inFlight.incrementAndGet();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            String reply = call.get();
+            outcome = "success";
+            return reply;
+        } finally {
+            inFlight.decrementAndGet();
+            sample.stop(Timer.builder("ai.calls")
+                    .description("Model calls made by the backend, including prompt building and history writes")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
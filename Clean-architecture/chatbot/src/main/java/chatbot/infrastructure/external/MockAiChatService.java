@@ -1,16 +1,124 @@
 package chatbot.infrastructure.external;
 
 import chatbot.application.service.AIChatService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-@Service
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+// Offline stand-in for the model. Latency, streaming pace, failures and reply size are all
+// drawn from configurable distributions, so load tests see production-like call durations
+// without any network access. The Redis prompt history is read and written as with Gemini,
+// so load tests also see production's Redis traffic and reply-cache keys.
+@Service("aiChatBackend")
 @ConditionalOnProperty(name = "ai.service.mock", havingValue = "true")
 public class MockAiChatService implements AIChatService {
 
+    private static final String[] FILLER = {
+            "the", "model", "would", "explain", "this", "in", "more", "detail", "with", "an",
+            "example", "and", "a", "short", "summary", "of", "what", "to", "try", "next"
+    };
+
+    private final ChatHistoryContext chatHistory;
+    private final SampledDistribution latency;
+    private final long streamDelayMs;
+    private final double errorRate;
+    private final SampledDistribution replyWords;
+
+    public MockAiChatService(ChatHistoryContext chatHistory,
+                             @Value("${ai.service.mock.latency-distribution:fixed}") String latencyDistribution,
+                             @Value("${ai.service.mock.latency-ms:0}") double latencyMs,
+                             @Value("${ai.service.mock.latency-stddev-ms:0}") double latencyStddevMs,
+                             @Value("${ai.service.mock.latency-pareto-shape:1.5}") double latencyParetoShape,
+                             @Value("${ai.service.mock.latency-max-ms:60000}") double latencyMaxMs,
+                             @Value("${ai.service.mock.stream-delay-ms:0}") long streamDelayMs,
+                             @Value("${ai.service.mock.error-rate:0}") double errorRate,
+                             @Value("${ai.service.mock.reply-words-distribution:fixed}") String replyWordsDistribution,
+                             @Value("${ai.service.mock.reply-words:0}") double replyWords,
+                             @Value("${ai.service.mock.reply-words-stddev:0}") double replyWordsStddev,
+                             @Value("${ai.service.mock.reply-words-pareto-shape:1.5}") double replyWordsParetoShape,
+                             @Value("${ai.service.mock.reply-words-max:4000}") double replyWordsMax) {
+        this.chatHistory = chatHistory;
+        this.latency = SampledDistribution.of(latencyDistribution, latencyMs, latencyStddevMs, latencyParetoShape, latencyMaxMs);
+        this.streamDelayMs = streamDelayMs;
+        this.errorRate = errorRate;
+        this.replyWords = SampledDistribution.of(replyWordsDistribution, replyWords, replyWordsStddev, replyWordsParetoShape, replyWordsMax);
+    }
+
     @Override
     public String generateResponse(String prompt, Integer conversationId) {
+        chatHistory.forPrompt(conversationId, prompt);
+        // Hold the calling thread like a real model call would; failures take time too
+        sleep(latency.sampleLong());
+        if (shouldFail()) {
+            throw new IllegalStateException("Mock AI error (injected)");
+        }
+        String reply = mockReply(prompt);
+        chatHistory.record(conversationId, prompt, reply);
+        return reply;
+    }
+
+    @Override
+    public String streamResponse(String prompt, Integer conversationId, Consumer<String> onToken) {
+        chatHistory.forPrompt(conversationId, prompt);
+        // The sampled latency is the time to first token; then the reply is emitted word by word
+        sleep(latency.sampleLong());
+        String reply = mockReply(prompt);
+        String[] words = reply.split("(?<= )");
+        // An injected failure breaks the stream at a random point, possibly before the first word
+        int failAt = shouldFail() ? ThreadLocalRandom.current().nextInt(words.length) : -1;
+        for (int i = 0; i < words.length; i++) {
+            if (i == failAt) {
+                throw new IllegalStateException("Mock AI stream error (injected)");
+            }
+            if (i > 0) {
+                sleep(streamDelayMs);
+            }
+            onToken.accept(words[i]);
+        }
+        chatHistory.record(conversationId, prompt, reply);
+        return reply;
+    }
+
+    @Override
+    public String contextFingerprint(String prompt, Integer conversationId) {
+        return chatHistory.fingerprint(conversationId, prompt);
+    }
+
+    @Override
+    public void recordExchange(String prompt, String reply, Integer conversationId) {
+        chatHistory.record(conversationId, prompt, reply);
+    }
+
+    private boolean shouldFail() {
+        return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+    }
+
+    private String mockReply(String prompt) {
         // Return a mock response for testing
-        return "Mock AI Response: I received your message '" + prompt + "'. This is a simulated response for testing purposes.";
+        String reply = "Mock AI Response: I received your message '" + prompt + "'. This is a simulated response for testing purposes.";
+        long words = replyWords.sampleLong();
+        if (words <= 0) {
+            return reply;
+        }
+        StringBuilder padded = new StringBuilder(reply);
+        for (long i = 0; i < words; i++) {
+            padded.append(' ').append(FILLER[(int) (i % FILLER.length)]);
+        }
+        return padded.toString();
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Mock AI call interrupted", e);
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,56 @@
+package chatbot.infrastructure.external;
+
+import chatbot.infrastructure.persistence.HistoryEntry;
+import chatbot.infrastructure.persistence.OutboxMessage;
+import chatbot.infrastructure.persistence.OutboxSubscriber;
+import chatbot.infrastructure.persistence.RedisChatHistoryRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// With the outbox, every stored message reaches the Redis prompt history, including turns whose
+// request-path append failed and messages stored by other paths. Turns the request path already
+// appended, and redelivered rows, are skipped by appendOnce.
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class OutboxChatHistoryWriter implements OutboxSubscriber {
+
+    private static final int SUMMARY_EVERY_ENTRIES = ChatHistoryContext.SUMMARY_INTERVAL * 2;
+
+    private final RedisChatHistoryRepository historyRepository;
+    // Absent with the mock model, which neither reads history nor summarizes
+    private final ObjectProvider<ConversationSummarizer> summarizer;
+
+    public OutboxChatHistoryWriter(RedisChatHistoryRepository historyRepository,
+                                   ObjectProvider<ConversationSummarizer> summarizer) {
+        this.historyRepository = historyRepository;
+        this.summarizer = summarizer;
+    }
+
+    @Override
+    public void onMessages(int shardId, List<OutboxMessage> messages) {
+        // One append per conversation, keeping the outbox order within it
+        Map<Integer, List<OutboxMessage>> byConversation = new LinkedHashMap<>();
+        for (OutboxMessage message : messages) {
+            byConversation.computeIfAbsent(message.conversationId(), id -> new ArrayList<>()).add(message);
+        }
+
+        byConversation.forEach((conversationId, stored) -> {
+            List<HistoryEntry> entries = stored.stream()
+                    .map(message -> message.fromUser() ? HistoryEntry.user(message.content()) : HistoryEntry.ai(message.content()))
+                    .toList();
+            List<Long> outboxIds = stored.stream().map(OutboxMessage::id).toList();
+            RedisChatHistoryRepository.Appended appended =
+                    historyRepository.appendOnce(conversationId, shardId, outboxIds, entries);
+            if (appended.added() > 0
+                    && appended.total() / SUMMARY_EVERY_ENTRIES > (appended.total() - appended.added()) / SUMMARY_EVERY_ENTRIES) {
+                summarizer.ifAvailable(service -> service.requestSummary(conversationId));
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.TokenEstimator;
+import chatbot.infrastructure.persistence.HistoryEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Assembles the model prompt within a token budget: the stored summary first, then the older
+// messages recalled from the conversation memory, then as many of the most recent history entries
+// as still fit, then the new user message. Recalled messages are limited to their own share of the
+// budget, and whatever of that share they leave unused goes back to the recent entries, so recall
+// never grows the prompt, it only decides what the remaining tokens hold.
+@Component
+public class PromptContextBuilder {
+
+    private static final String HEADER = "This is a conversation between a user and an AI assistant.\n\n";
+    private static final String SUMMARY_HEADER = "Summary of the earlier conversation:\n";
+    private static final String CONVERSATION_HEADER = "Conversation:\n";
+    private static final String RECALLED_HEADER = "Relevant earlier messages:\n";
+
+    private final int tokenBudget;
+    private final int memoryTokenBudget;
+    private final int memoryTopK;
+
+    public PromptContextBuilder(@Value("${ai.prompt.token-budget:2000}") int tokenBudget,
+                                @Value("${ai.memory.token-budget:400}") int memoryTokenBudget,
+                                @Value("${ai.memory.top-k:5}") int memoryTopK) {
+        this.tokenBudget = tokenBudget;
+        this.memoryTokenBudget = memoryTokenBudget;
+        this.memoryTopK = memoryTopK;
+    }
+
+    // How many recalled candidates to ask the memory for: the ones already in the recent window
+    // are skipped here, so the lookup has to reach past them
+    public int recallCandidates(int recentEntryCount) {
+        return memoryTopK + recentEntryCount;
+    }
+
+    // recentEntries are ordered oldest to newest
+    public String build(String summary, List<HistoryEntry> recentEntries, String prompt) {
+        return build(summary, List.of(), recentEntries, prompt);
+    }
+
+    // recalled is ordered best match first
+    public String build(String summary, List<ConversationMemory.Recalled> recalled,
+                        List<HistoryEntry> recentEntries, String prompt) {
+        String question = "User: " + prompt + "\nAI:";
+        int remaining = tokenBudget
+                - TokenEstimator.estimate(HEADER) - TokenEstimator.estimate(CONVERSATION_HEADER) - TokenEstimator.estimate(question);
+
+        String summarySection = null;
+        if (summary != null && !summary.isBlank()) {
+            String section = SUMMARY_HEADER + summary + "\n\n";
+            int cost = TokenEstimator.estimate(section);
+            if (cost <= remaining) {
+                summarySection = section;
+                remaining -= cost;
+            }
+        }
+
+        // Recalled lines are picked against the widest recent window the budget allows, so none
+        // repeats a turn that could be shown anyway; best matches first, capped at their own share
+        Set<String> shown = new HashSet<>(recentLines(recentEntries, remaining));
+        // The section ends with a blank line before the conversation
+        int memoryCost = TokenEstimator.estimate(RECALLED_HEADER + "\n");
+        int memoryRemaining = Math.min(memoryTokenBudget, remaining) - memoryCost;
+        List<ConversationMemory.Recalled> chosen = new ArrayList<>();
+        for (ConversationMemory.Recalled candidate : recalled) {
+            if (chosen.size() == memoryTopK) {
+                break;
+            }
+            String line = candidate.entry().promptLine() + "\n";
+            int cost = TokenEstimator.estimate(line);
+            if (cost > memoryRemaining || !shown.add(line)) {
+                continue;
+            }
+            chosen.add(candidate);
+            memoryRemaining -= cost;
+            memoryCost += cost;
+        }
+        // Only what recall used is taken from the recent window
+        if (!chosen.isEmpty()) {
+            remaining -= memoryCost;
+        }
+        Deque<String> kept = recentLines(recentEntries, remaining);
+
+        // Printed in conversation order so the model reads them as an excerpt
+        chosen.sort(Comparator.comparingInt(ConversationMemory.Recalled::messageId));
+
+        StringBuilder chatPrompt = new StringBuilder(HEADER);
+        if (summarySection != null) {
+            chatPrompt.append(summarySection);
+        }
+        if (!chosen.isEmpty()) {
+            chatPrompt.append(RECALLED_HEADER);
+            chosen.forEach(candidate -> chatPrompt.append(candidate.entry().promptLine()).append('\n'));
+            chatPrompt.append('\n');
+        }
+        chatPrompt.append(CONVERSATION_HEADER);
+        kept.forEach(chatPrompt::append);
+        chatPrompt.append(question);
+        return chatPrompt.toString();
+    }
+
+    // Walks back from the newest entry and stops at the first one that no longer fits,
+    // so the kept turns are always a contiguous tail of the conversation
+    private static Deque<String> recentLines(List<HistoryEntry> recentEntries, int budget) {
+        Deque<String> kept = new ArrayDeque<>();
+        int remaining = budget;
+        for (int i = recentEntries.size() - 1; i >= 0; i--) {
+            String line = recentEntries.get(i).promptLine() + "\n";
+            int cost = TokenEstimator.estimate(line);
+            if (cost > remaining) {
+                break;
+            }
+            kept.addFirst(line);
+            remaining -= cost;
+        }
+        return kept;
+    }
+}
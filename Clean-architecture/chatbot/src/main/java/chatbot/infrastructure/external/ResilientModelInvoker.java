@@ -0,0 +1,539 @@
+package chatbot.infrastructure.external;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Calls the chat model with a deadline per call and per attempt, retries within a retry budget
+// using jittered exponential backoff, and hedges an attempt with a second one once it runs past
+// the recent p95 latency. A circuit breaker on the primary model sends traffic to the fallback
+// model while the primary is failing.
+// Attempts that lose a hedge race or time out are abandoned, not aborted: the HTTP call
+// finishes in the background on its own virtual thread. Streams are read on such a thread too
+// and handed over chunk by chunk, so the first chunk and the whole stream can be timed out.
+// Every HTTP call to the model is timed as ai.gemini.attempts{model, operation, outcome};
+// retries, hedges and fallbacks are counted separately.
+@Component
+@ConditionalOnProperty(name = "ai.service.mock", havingValue = "false", matchIfMissing = true)
+public class ResilientModelInvoker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResilientModelInvoker.class);
+
+    private final ChatModel chatModel;
+    private final String primaryModel;
+    private final String fallbackModel;
+    private final long deadlineNanos;
+    private final long streamDeadlineNanos;
+    private final long attemptTimeoutNanos;
+    private final int maxAttempts;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final boolean hedgingEnabled;
+    private final long initialHedgeDelayNanos;
+    private final long minHedgeDelayNanos;
+
+    private static final Object STREAM_END = new Object();
+
+    private final ExecutorService attempts = Executors.newVirtualThreadPerTaskExecutor();
+    private final LatencyWindow latencies = new LatencyWindow(200);
+    private final RetryBudget retryBudget;
+    private final CircuitBreaker breaker;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter retries;
+    private final Counter hedges;
+    private final Counter fallbacks;
+
+    public ResilientModelInvoker(ChatModel chatModel,
+                                 @Value("${ai.gemini.model:gemini-2.0-flash}") String primaryModel,
+                                 @Value("${ai.gemini.fallback-model:}") String fallbackModel,
+                                 @Value("${ai.gemini.deadline-ms:30000}") long deadlineMs,
+                                 @Value("${ai.gemini.stream-deadline-ms:120000}") long streamDeadlineMs,
+                                 @Value("${ai.gemini.attempt-timeout-ms:15000}") long attemptTimeoutMs,
+                                 @Value("${ai.gemini.max-attempts:3}") int maxAttempts,
+                                 @Value("${ai.gemini.backoff-base-ms:200}") long backoffBaseMs,
+                                 @Value("${ai.gemini.backoff-max-ms:2000}") long backoffMaxMs,
+                                 @Value("${ai.gemini.retry-budget-ratio:0.1}") double retryBudgetRatio,
+                                 @Value("${ai.gemini.hedge.enabled:true}") boolean hedgingEnabled,
+                                 @Value("${ai.gemini.hedge.initial-delay-ms:3000}") long initialHedgeDelayMs,
+                                 @Value("${ai.gemini.hedge.min-delay-ms:500}") long minHedgeDelayMs,
+                                 @Value("${ai.gemini.breaker.window:20}") int breakerWindow,
+                                 @Value("${ai.gemini.breaker.failure-rate:0.5}") double breakerFailureRate,
+                                 @Value("${ai.gemini.breaker.open-ms:30000}") long breakerOpenMs,
+                                 MeterRegistry meterRegistry) {
+        this.chatModel = chatModel;
+        this.primaryModel = primaryModel;
+        this.fallbackModel = fallbackModel.isBlank() ? null : fallbackModel;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        this.streamDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(streamDeadlineMs);
+        this.attemptTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(attemptTimeoutMs);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.hedgingEnabled = hedgingEnabled;
+        this.initialHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(initialHedgeDelayMs);
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMs);
+        this.retryBudget = new RetryBudget(retryBudgetRatio, 10);
+        this.breaker = new CircuitBreaker(breakerWindow, breakerFailureRate, TimeUnit.MILLISECONDS.toNanos(breakerOpenMs));
+        this.meterRegistry = meterRegistry;
+        this.retries = Counter.builder("ai.gemini.retries").register(meterRegistry);
+        this.hedges = Counter.builder("ai.gemini.hedges").register(meterRegistry);
+        this.fallbacks = Counter.builder("ai.gemini.fallbacks").register(meterRegistry);
+        Gauge.builder("ai.gemini.breaker.open", breaker, b -> b.isOpen() ? 1 : 0)
+                .description("1 while the primary model's circuit is open or half-open")
+                .register(meterRegistry);
+    }
+
+    public String generate(String prompt) {
+        long deadlineAt = System.nanoTime() + deadlineNanos;
+        RuntimeException primaryFailure;
+        if (breaker.allowRequest()) {
+            try {
+                String reply = generateWithRetries(primaryModel, prompt, deadlineAt);
+                breaker.recordSuccess();
+                return reply;
+            } catch (RuntimeException e) {
+                breaker.recordFailure();
+                primaryFailure = e;
+            }
+        } else {
+            primaryFailure = new IllegalStateException("Circuit open for " + primaryModel);
+        }
+
+        if (fallbackModel == null) {
+            throw primaryFailure;
+        }
+        // The fallback gets one attempt within what is left of the deadline
+        long remaining = deadlineAt - System.nanoTime();
+        if (remaining <= 0) {
+            throw primaryFailure;
+        }
+        logger.warn("{} unavailable ({}), falling back to {}", primaryModel, primaryFailure.getMessage(), fallbackModel);
+        fallbacks.increment();
+        return await(submit(fallbackModel, prompt), Math.min(attemptTimeoutNanos, remaining));
+    }
+
+    // Retries and hedging only apply before the first chunk: once text has reached the client,
+    // a failure is reported rather than replayed. The first chunk must arrive within the attempt
+    // timeout and the whole stream within ai.gemini.stream-deadline-ms.
+    public String stream(String prompt, Consumer<String> onToken) {
+        long deadlineAt = System.nanoTime() + streamDeadlineNanos;
+        boolean usePrimary = breaker.allowRequest();
+        String model = usePrimary ? primaryModel : fallbackModel;
+        if (model == null) {
+            throw new IllegalStateException("Circuit open for " + primaryModel);
+        }
+
+        StringBuilder reply = new StringBuilder();
+        try {
+            streamFrom(model, prompt, reply, onToken, deadlineAt);
+        } catch (ConsumerException e) {
+            // The client went away; that says nothing about the model
+            if (usePrimary) {
+                breaker.recordIgnored();
+            }
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            if (!usePrimary) {
+                throw e;
+            }
+            breaker.recordFailure();
+            if (reply.length() > 0 || fallbackModel == null || System.nanoTime() >= deadlineAt) {
+                throw e;
+            }
+            logger.warn("{} stream failed ({}), falling back to {}", primaryModel, e.getMessage(), fallbackModel);
+            fallbacks.increment();
+            try {
+                streamFrom(fallbackModel, prompt, reply, onToken, deadlineAt);
+            } catch (ConsumerException consumerFailure) {
+                throw consumerFailure.getCause();
+            }
+            return reply.toString();
+        }
+        if (usePrimary) {
+            breaker.recordSuccess();
+        }
+        return reply.toString();
+    }
+
+    private void streamFrom(String model, String prompt, StringBuilder reply, Consumer<String> onToken, long deadlineAt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        long firstChunkAt = System.nanoTime() + Math.min(attemptTimeoutNanos, deadlineAt - System.nanoTime());
+        // Chunks are handed over one at a time, so the reader never runs ahead of the consumer
+        SynchronousQueue<Object> handoff = new SynchronousQueue<>();
+        Future<?> reader = attempts.submit(() -> {
+            Object last = STREAM_END;
+            try {
+                chatModel.stream(model, prompt, chunk -> {
+                    try {
+                        handoff.put(chunk);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Stream abandoned", e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                last = e;
+            }
+            try {
+                handoff.put(last);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            while (true) {
+                long waitUntil = reply.isEmpty() ? firstChunkAt : deadlineAt;
+                Object item = handoff.poll(waitUntil - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (item == null) {
+                    outcome = "timeout";
+                    throw new IllegalStateException((reply.isEmpty() ? "No reply" : "Stream not finished")
+                            + " from " + model + " within its deadline");
+                }
+                if (item == STREAM_END) {
+                    break;
+                }
+                if (item instanceof RuntimeException failure) {
+                    throw failure;
+                }
+                String text = (String) item;
+                reply.append(text);
+                try {
+                    onToken.accept(text);
+                } catch (RuntimeException e) {
+                    throw new ConsumerException(e);
+                }
+            }
+            outcome = "success";
+        } catch (ConsumerException e) {
+            outcome = "client_gone";
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while streaming from " + model, e);
+        } finally {
+            // Unblocks an abandoned reader; its HTTP call finishes in the background
+            reader.cancel(true);
+            sample.stop(attemptTimer(model, "stream", outcome));
+        }
+    }
+
+    private String generateWithRetries(String model, String prompt, long deadlineAt) {
+        retryBudget.recordCall();
+        for (int attempt = 1; ; attempt++) {
+            long remaining = deadlineAt - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Deadline exceeded calling " + model);
+            }
+            try {
+                return hedgedAttempt(model, prompt, Math.min(attemptTimeoutNanos, remaining));
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryBudget.tryWithdraw()) {
+                    throw e;
+                }
+                long backoffMs = fullJitterBackoff(attempt);
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMs) >= deadlineAt) {
+                    throw e;
+                }
+                logger.debug("Attempt {} on {} failed ({}), retrying in {} ms", attempt, model, e.getMessage(), backoffMs);
+                retries.increment();
+                sleep(backoffMs);
+            }
+        }
+    }
+
+    private String hedgedAttempt(String model, String prompt, long timeoutNanos) {
+        long startedAt = System.nanoTime();
+        CompletableFuture<String> first = submit(model, prompt);
+        if (!hedgingEnabled) {
+            return await(first, timeoutNanos);
+        }
+
+        long hedgeDelay = Math.min(hedgeDelayNanos(), timeoutNanos);
+        try {
+            return first.get(hedgeDelay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slower than usual: fall through and race a second attempt
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling " + model, e);
+        }
+
+        long remaining = timeoutNanos - (System.nanoTime() - startedAt);
+        // Hedges spend the same budget as retries, so an outage cannot double the load
+        if (remaining <= 0 || !retryBudget.tryWithdraw()) {
+            return await(first, Math.max(remaining, 0));
+        }
+        logger.debug("Hedging {} after {} ms", model, TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+        hedges.increment();
+        return await(firstSuccessful(first, submit(model, prompt)), remaining);
+    }
+
+    private CompletableFuture<String> submit(String model, String prompt) {
+        return CompletableFuture.supplyAsync(() -> {
+            long startedAt = System.nanoTime();
+            String reply;
+            try {
+                reply = chatModel.generate(model, prompt);
+            } catch (RuntimeException e) {
+                attemptTimer(model, "generate", "error").record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+            long elapsed = System.nanoTime() - startedAt;
+            latencies.record(elapsed);
+            attemptTimer(model, "generate", "success").record(elapsed, TimeUnit.NANOSECONDS);
+            return reply;
+        }, attempts);
+    }
+
+    private Timer attemptTimer(String model, String operation, String outcome) {
+        return Timer.builder("ai.gemini.attempts")
+                .description("Individual HTTP calls to the model")
+                .tag("model", model)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private long hedgeDelayNanos() {
+        long p95 = latencies.percentile(0.95);
+        return p95 < 0 ? initialHedgeDelayNanos : Math.max(minHedgeDelayNanos, p95);
+    }
+
+    private long fullJitterBackoff(int attempt) {
+        long ceiling = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static CompletableFuture<String> firstSuccessful(CompletableFuture<String> a, CompletableFuture<String> b) {
+        CompletableFuture<String> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        a.whenComplete((reply, error) -> settle(winner, pending, reply, error));
+        b.whenComplete((reply, error) -> settle(winner, pending, reply, error));
+        return winner;
+    }
+
+    private static void settle(CompletableFuture<String> winner, AtomicInteger pending, String reply, Throwable error) {
+        if (error == null) {
+            winner.complete(reply);
+        } else if (pending.decrementAndGet() == 0) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private static String await(CompletableFuture<String> call, long timeoutNanos) {
+        try {
+            return call.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Model call timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the model", e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        // supplyAsync wraps failures in CompletionException
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause.getMessage(), cause);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during retry backoff", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        attempts.shutdownNow();
+    }
+
+    // Failure raised by the token consumer rather than the model
+    private static class ConsumerException extends RuntimeException {
+        ConsumerException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+
+    // Latencies of the most recent successful attempts
+    private static class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        // -1 until there are enough samples for the percentile to mean something
+        synchronized long percentile(double p) {
+            if (size < 20) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(size - 1, Math.ceil(p * size) - 1)];
+        }
+    }
+
+    // Retries and hedges may add at most `ratio` extra calls per call, plus a small reserve
+    private static class RetryBudget {
+        private final double ratio;
+        private final double max;
+        private double balance;
+
+        RetryBudget(double ratio, double max) {
+            this.ratio = ratio;
+            this.max = max;
+            this.balance = max;
+        }
+
+        synchronized void recordCall() {
+            balance = Math.min(max, balance + ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (balance < 1) {
+                return false;
+            }
+            balance--;
+            return true;
+        }
+    }
+
+    // Failure-rate breaker over the last `window` primary calls; half-open lets one trial call through
+    private static class CircuitBreaker {
+        private enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final boolean[] outcomes;
+        private final double failureRateThreshold;
+        private final long openNanos;
+        private State state = State.CLOSED;
+        private int next;
+        private int size;
+        private int failures;
+        private long openedAt;
+        private boolean trialInFlight;
+
+        CircuitBreaker(int window, double failureRateThreshold, long openNanos) {
+            this.outcomes = new boolean[Math.max(1, window)];
+            this.failureRateThreshold = failureRateThreshold;
+            this.openNanos = openNanos;
+        }
+
+        synchronized boolean allowRequest() {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.nanoTime() - openedAt < openNanos) {
+                        return false;
+                    }
+                    state = State.HALF_OPEN;
+                    trialInFlight = true;
+                    return true;
+                default:
+                    if (trialInFlight) {
+                        return false;
+                    }
+                    trialInFlight = true;
+                    return true;
+            }
+        }
+
+        synchronized void recordSuccess() {
+            if (state == State.HALF_OPEN) {
+                logger.info("Circuit closed again after a successful trial call");
+                reset(State.CLOSED);
+                return;
+            }
+            add(false);
+        }
+
+        synchronized void recordFailure() {
+            if (state == State.HALF_OPEN) {
+                reset(State.OPEN);
+                return;
+            }
+            add(true);
+            if (size >= outcomes.length / 2 && failures >= failureRateThreshold * size) {
+                logger.warn("Circuit opened: {} of the last {} calls failed", failures, size);
+                reset(State.OPEN);
+            }
+        }
+
+        synchronized boolean isOpen() {
+            return state != State.CLOSED;
+        }
+
+        synchronized void recordIgnored() {
+            trialInFlight = false;
+        }
+
+        private void add(boolean failed) {
+            if (size == outcomes.length && outcomes[next]) {
+                failures--;
+            }
+            outcomes[next] = failed;
+            if (failed) {
+                failures++;
+            }
+            next = (next + 1) % outcomes.length;
+            size = Math.min(size + 1, outcomes.length);
+        }
+
+        private void reset(State newState) {
+            state = newState;
+            openedAt = System.nanoTime();
+            trialInFlight = false;
+            next = 0;
+            size = 0;
+            failures = 0;
+        }
+    }
+}
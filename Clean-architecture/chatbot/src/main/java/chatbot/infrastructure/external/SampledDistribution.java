@@ -0,0 +1,56 @@
+package chatbot.infrastructure.external;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Random values for the mock AI backend: latencies and reply sizes.
+//   fixed  - always `value`
+//   normal - mean `value`, standard deviation `stddev`
+//   pareto - minimum `value` with a long tail; smaller `shape` means a heavier tail
+// Samples are clamped to [0, max].
+final class SampledDistribution {
+
+    private enum Kind { FIXED, NORMAL, PARETO }
+
+    private final Kind kind;
+    private final double value;
+    private final double stddev;
+    private final double shape;
+    private final double max;
+
+    private SampledDistribution(Kind kind, double value, double stddev, double shape, double max) {
+        this.kind = kind;
+        this.value = value;
+        this.stddev = stddev;
+        this.shape = shape;
+        this.max = max;
+    }
+
+    static SampledDistribution of(String kind, double value, double stddev, double shape, double max) {
+        Kind parsed;
+        try {
+            parsed = Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown distribution '" + kind + "', expected fixed, normal or pareto", e);
+        }
+        if (parsed == Kind.PARETO && shape <= 0) {
+            throw new IllegalArgumentException("Pareto shape must be positive");
+        }
+        return new SampledDistribution(parsed, value, stddev, shape, max);
+    }
+
+    double sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double sample = switch (kind) {
+            case FIXED -> value;
+            case NORMAL -> value + stddev * random.nextGaussian();
+            // Inverse-CDF sampling; 1 - nextDouble() lies in (0, 1] so there is no division by zero
+            case PARETO -> value / Math.pow(1 - random.nextDouble(), 1 / shape);
+        };
+        return Math.max(0, Math.min(max, sample));
+    }
+
+    long sampleLong() {
+        return Math.round(sample());
+    }
+}
@@ -0,0 +1,206 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.AIChatService;
+import chatbot.infrastructure.persistence.RedisInFlightRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Lets identical requests (same conversation, same prompt, same context) that overlap in time share
+// one model call. The context fingerprint is part of the call, so a repeated prompt in a later turn
+// is a new call. Within a node the first caller runs the call and later callers wait on its future.
+// Across nodes a Redis lock elects one flight to run it; the other nodes poll for the result that
+// flight publishes. If the flight ends without a result, the waiting node makes the call itself.
+// Followers get the whole reply at once: only the runner streams tokens.
+public class SingleFlightAiChatService implements AIChatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightAiChatService.class);
+
+    private final AIChatService delegate;
+    private final RedisInFlightRegistry registry;
+    private final Duration lease;
+    private final Duration resultTtl;
+    private final Duration pollInterval;
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedLocal;
+    private final Counter coalescedRemote;
+
+    public SingleFlightAiChatService(AIChatService delegate, RedisInFlightRegistry registry,
+                                     Duration lease, Duration resultTtl, Duration pollInterval,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.lease = lease;
+        this.resultTtl = resultTtl;
+        this.pollInterval = pollInterval;
+        this.coalescedLocal = Counter.builder("ai.single-flight.coalesced").tag("scope", "local")
+                .description("Requests that reused an identical in-flight model call")
+                .register(meterRegistry);
+        this.coalescedRemote = Counter.builder("ai.single-flight.coalesced").tag("scope", "remote")
+                .description("Requests that reused an identical in-flight model call")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generateResponse(String prompt, Integer conversationId) {
+        return execute(prompt, conversationId, null);
+    }
+
+    @Override
+    public String streamResponse(String prompt, Integer conversationId, Consumer<String> onToken) {
+        return execute(prompt, conversationId, onToken);
+    }
+
+    @Override
+    public String contextFingerprint(String prompt, Integer conversationId) {
+        return delegate.contextFingerprint(prompt, conversationId);
+    }
+
+    @Override
+    public void recordExchange(String prompt, String reply, Integer conversationId) {
+        delegate.recordExchange(prompt, reply, conversationId);
+    }
+
+    // onToken is null for non-streaming calls
+    private String execute(String prompt, Integer conversationId, Consumer<String> onToken) {
+        String callHash;
+        try {
+            callHash = sha256(prompt + '\u0000' + delegate.contextFingerprint(prompt, conversationId));
+        } catch (RuntimeException e) {
+            // Without the context there is no telling which calls are identical
+            logger.warn("Skipping single-flight for conversationId={}: {}", conversationId, e.getMessage());
+            return call(prompt, conversationId, onToken);
+        }
+        String localKey = conversationId + ":" + callHash;
+
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(localKey, call);
+        if (existing != null) {
+            coalescedLocal.increment();
+            String reply = join(existing);
+            if (onToken != null) {
+                onToken.accept(reply);
+            }
+            return reply;
+        }
+
+        try {
+            String reply = runOnce(prompt, conversationId, callHash, onToken);
+            call.complete(reply);
+            return reply;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, call);
+        }
+    }
+
+    private String runOnce(String prompt, Integer conversationId, String callHash, Consumer<String> onToken) {
+        String flightId = UUID.randomUUID().toString();
+        String runningFlight = tryAcquire(conversationId, callHash, flightId);
+        if (!runningFlight.equals(flightId)) {
+            String reply = awaitRemote(conversationId, callHash, runningFlight);
+            if (reply != null) {
+                coalescedRemote.increment();
+                if (onToken != null) {
+                    onToken.accept(reply);
+                }
+                return reply;
+            }
+            // The remote runner failed or vanished; take over without holding the lock
+            logger.debug("No shared result for conversationId={}, calling the model", conversationId);
+            return call(prompt, conversationId, onToken);
+        }
+
+        String reply = null;
+        try {
+            reply = call(prompt, conversationId, onToken);
+            return reply;
+        } finally {
+            release(conversationId, callHash, flightId, reply);
+        }
+    }
+
+    private String call(String prompt, Integer conversationId, Consumer<String> onToken) {
+        return onToken == null
+                ? delegate.generateResponse(prompt, conversationId)
+                : delegate.streamResponse(prompt, conversationId, onToken);
+    }
+
+    // The flight running the call; our own flightId when we run it
+    private String tryAcquire(Integer conversationId, String callHash, String flightId) {
+        try {
+            return registry.tryAcquire(conversationId, callHash, flightId, lease);
+        } catch (RuntimeException e) {
+            // Without Redis there is only local coalescing
+            logger.warn("Single-flight lock unavailable for conversationId={}: {}", conversationId, e.getMessage());
+            return flightId;
+        }
+    }
+
+    private void release(Integer conversationId, String callHash, String flightId, String reply) {
+        try {
+            registry.release(conversationId, callHash, flightId, reply, resultTtl);
+        } catch (RuntimeException e) {
+            // The lease expires on its own
+            logger.warn("Could not release single-flight lock for conversationId={}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    // Null when the runner finished without publishing a result or the lease ran out
+    private String awaitRemote(Integer conversationId, String callHash, String flightId) {
+        long deadline = System.nanoTime() + lease.toNanos();
+        while (System.nanoTime() < deadline) {
+            RedisInFlightRegistry.FlightState state;
+            try {
+                state = registry.state(conversationId, callHash, flightId);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            if (state.result() != null) {
+                return state.result();
+            }
+            if (!state.running()) {
+                return null;
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a shared model call", e);
+            }
+        }
+        return null;
+    }
+
+    private static String join(CompletableFuture<String> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
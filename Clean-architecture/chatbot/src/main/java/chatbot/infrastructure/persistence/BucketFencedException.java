@@ -0,0 +1,12 @@
+package chatbot.infrastructure.persistence;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+// A write reached a shard whose copy of the bucket a move has fenced off. ShardDirectory retries
+// it against the refreshed directory until db.shards.write-wait-ms runs out.
+class BucketFencedException extends TransientDataAccessResourceException {
+
+    BucketFencedException(int bucket, int shardId) {
+        super("Bucket " + bucket + " is fenced on shard " + shardId + " while it is being moved");
+    }
+}
@@ -0,0 +1,330 @@
+package chatbot.infrastructure.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Online resharding: moves the buckets listed in db.shards.move-buckets ("bucket:shard,...")
+// while the application keeps serving. Set the property on one node only.
+// 1. Copy the bucket's conversations and messages to the target while writes continue.
+// 2. Freeze the bucket in the directory, so nodes hold new writes to it, and fence it on the
+//    source shard: the fence waits for writes already running there to commit and refuses any
+//    later one (see WriteRoute). Copy what changed in the meantime; the source no longer can.
+// 3. Assign the bucket to the target and wait until every live node has loaded that directory
+//    version, then delete from the source exactly the rows the target holds.
+// Every step is idempotent, so a move interrupted by a restart is simply run again.
+@Component
+@ConditionalOnProperty(name = "db.shards.enabled", havingValue = "true")
+public class BucketMover {
+
+    private static final Logger logger = LoggerFactory.getLogger(BucketMover.class);
+    private static final int BATCH_SIZE = 500;
+    private static final long ACK_POLL_MS = 100;
+
+    private final ShardDirectory shardDirectory;
+    private final String moves;
+    private final long nodeTimeoutMs;
+    private final long ackTimeoutMs;
+
+    public BucketMover(ShardDirectory shardDirectory,
+                       @Value("${db.shards.move-buckets:}") String moves,
+                       @Value("${db.shards.node-timeout-ms:10000}") long nodeTimeoutMs,
+                       @Value("${db.shards.move-ack-timeout-ms:60000}") long ackTimeoutMs) {
+        this.shardDirectory = shardDirectory;
+        this.moves = moves;
+        this.nodeTimeoutMs = nodeTimeoutMs;
+        this.ackTimeoutMs = ackTimeoutMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void moveConfiguredBuckets() {
+        if (moves.isBlank()) {
+            return;
+        }
+        for (String move : moves.split(",")) {
+            String[] parts = move.trim().split(":");
+            int bucket = Integer.parseInt(parts[0]);
+            int target = Integer.parseInt(parts[1]);
+            try {
+                move(bucket, target);
+            } catch (DataAccessException | IllegalArgumentException | IllegalStateException e) {
+                // The bucket stays frozen or on its source shard; re-running the move resumes it
+                logger.error("Moving bucket {} to shard {} failed: {}", bucket, target, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public void move(int bucket, int targetId) {
+        if (bucket < 0 || bucket >= ShardDirectory.BUCKETS || targetId < 0 || targetId >= shardDirectory.shards().size()) {
+            throw new IllegalArgumentException("No bucket " + bucket + " or shard " + targetId);
+        }
+        JdbcTemplate directory = shardDirectory.directory().jdbcTemplate();
+        int sourceId = directory.queryForObject(
+                "SELECT shard_id FROM shard_buckets WHERE bucket = ?", Integer.class, bucket);
+        Shard target = shardDirectory.shard(targetId);
+        if (sourceId == targetId) {
+            finishEarlierMove(directory, bucket, target);
+            return;
+        }
+        Shard source = shardDirectory.shard(sourceId);
+        logger.info("Moving bucket {} from shard {} to shard {}", bucket, sourceId, targetId);
+
+        copy(bucket, source, target, false);
+        logger.info("Bucket {}: bulk copy done, fencing writes", bucket);
+
+        setAssignment(directory, bucket, sourceId, "FROZEN");
+        setFence(source, bucket, "FENCED");
+        int copiedUpTo = copy(bucket, source, target, true);
+
+        setFence(target, bucket, WriteRoute.ACTIVE);
+        long version = setAssignment(directory, bucket, targetId, WriteRoute.ACTIVE);
+        awaitNodes(directory, version);
+        int deleted = deleteCopied(bucket, source, target, copiedUpTo);
+        logger.info("Bucket {} now on shard {}; removed {} conversation(s) from shard {}", bucket, targetId, deleted, sourceId);
+    }
+
+    // A move that stopped after switching the bucket over left its old copy on a fenced shard
+    private void finishEarlierMove(JdbcTemplate directory, int bucket, Shard target) {
+        awaitNodes(directory, directory.queryForObject(
+                "SELECT version FROM shard_buckets WHERE bucket = ?", Long.class, bucket));
+        for (Shard shard : shardDirectory.shards()) {
+            if (shard.id() == target.id() || !"FENCED".equals(fenceState(shard, bucket))) {
+                continue;
+            }
+            int deleted = deleteCopied(bucket, shard, target, Integer.MAX_VALUE);
+            if (deleted > 0) {
+                logger.info("Bucket {}: removed {} conversation(s) left on shard {}", bucket, deleted, shard.id());
+            }
+        }
+        logger.info("Bucket {} is on shard {}", bucket, target.id());
+    }
+
+    // Returns the id of the last conversation copied
+    private int copy(int bucket, Shard source, Shard target, boolean verify) {
+        int lastId = 0;
+        Set<Integer> users = new LinkedHashSet<>();
+        while (true) {
+            List<Map<String, Object>> batch = source.jdbcTemplate().queryForList(
+                    "SELECT id, name, user_id, created_at FROM conversations WHERE id > ? AND "
+                            + ShardDirectory.BUCKET_SQL + " = ? ORDER BY id LIMIT ?",
+                    lastId, bucket, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                for (Integer userId : users) {
+                    copySearchIndex(userId, source, target, verify);
+                }
+                return lastId;
+            }
+            List<Object[]> directoryRows = new ArrayList<>(batch.size());
+            List<Object[]> conversationRows = new ArrayList<>(batch.size());
+            for (Map<String, Object> row : batch) {
+                directoryRows.add(new Object[]{row.get("id"), bucket});
+                conversationRows.add(new Object[]{row.get("id"), row.get("name"), row.get("user_id"), row.get("created_at")});
+                users.add(((Number) row.get("user_id")).intValue());
+            }
+            // Conversations created before sharding get their directory entry here
+            shardDirectory.directory().jdbcTemplate().batchUpdate(
+                    "INSERT IGNORE INTO conversation_buckets (conversation_id, bucket) VALUES (?, ?)", directoryRows);
+            target.jdbcTemplate().batchUpdate(
+                    "INSERT INTO conversations (id, name, user_id, created_at) VALUES (?, ?, ?, ?) "
+                            + "ON DUPLICATE KEY UPDATE name = VALUES(name)", conversationRows);
+
+            for (Map<String, Object> row : batch) {
+                int conversationId = ((Number) row.get("id")).intValue();
+                copyMessages(conversationId, source, target, verify);
+                lastId = conversationId;
+            }
+        }
+    }
+
+    // Copies messages newer than the target's latest one. Ids of concurrent inserts can commit out
+    // of order, so the frozen pass also compares counts and recopies a conversation that differs.
+    private void copyMessages(int conversationId, Shard source, Shard target, boolean verify) {
+        Integer copiedUpTo = target.jdbcTemplate().queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM messages WHERE conversation_id = ?", Integer.class, conversationId);
+        copyMessagesAfter(conversationId, copiedUpTo, source, target);
+        if (verify && count(source, conversationId) != count(target, conversationId)) {
+            copyMessagesAfter(conversationId, 0, source, target);
+        }
+    }
+
+    private void copyMessagesAfter(int conversationId, int afterId, Shard source, Shard target) {
+        int lastId = afterId;
+        while (true) {
+            List<Map<String, Object>> batch = source.jdbcTemplate().queryForList(
+                    "SELECT id, content, timestamp, is_user FROM messages WHERE conversation_id = ? AND id > ? "
+                            + "ORDER BY id LIMIT ?",
+                    conversationId, lastId, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (Map<String, Object> row : batch) {
+                rows.add(new Object[]{row.get("id"), row.get("content"), row.get("timestamp"), row.get("is_user"), conversationId});
+            }
+            // Explicit ids also move the target's AUTO_INCREMENT past them
+            target.jdbcTemplate().batchUpdate(
+                    "INSERT IGNORE INTO messages (id, content, timestamp, is_user, conversation_id) VALUES (?, ?, ?, ?, ?)",
+                    rows);
+            lastId = ((Number) batch.get(batch.size() - 1).get("id")).intValue();
+        }
+    }
+
+    // Deletes from the source only rows the target holds: the bucket's conversations up to the
+    // last one copied, and for each conversation and user the ids up to the target's newest
+    private int deleteCopied(int bucket, Shard source, Shard target, int copiedUpTo) {
+        List<Integer> users = source.jdbcTemplate().queryForList(
+                "SELECT DISTINCT user_id FROM conversations WHERE " + ShardDirectory.BUCKET_SQL + " = ? AND id <= ?",
+                Integer.class, bucket, copiedUpTo);
+        for (Integer userId : users) {
+            int copiedSearchId = maxId(target, "message_search", "user_id", userId);
+            source.jdbcTemplate().update(
+                    "DELETE FROM message_terms WHERE user_id = ? AND search_id <= ?", userId, copiedSearchId);
+            source.jdbcTemplate().update(
+                    "DELETE FROM message_search WHERE user_id = ? AND id <= ?", userId, copiedSearchId);
+        }
+
+        int deleted = 0;
+        int lastId = 0;
+        while (true) {
+            List<Integer> ids = source.jdbcTemplate().queryForList(
+                    "SELECT id FROM conversations WHERE " + ShardDirectory.BUCKET_SQL + " = ? AND id > ? AND id <= ? "
+                            + "ORDER BY id LIMIT ?",
+                    Integer.class, bucket, lastId, copiedUpTo, BATCH_SIZE);
+            if (ids.isEmpty()) {
+                return deleted;
+            }
+            for (Integer id : ids) {
+                lastId = id;
+                if (target.jdbcTemplate().queryForList("SELECT id FROM conversations WHERE id = ?", Integer.class, id).isEmpty()) {
+                    logger.warn("Bucket {}: conversation {} is missing on shard {}, keeping it on shard {}",
+                            bucket, id, target.id(), source.id());
+                    continue;
+                }
+                source.jdbcTemplate().update("DELETE FROM messages WHERE conversation_id = ? AND id <= ?",
+                        id, maxId(target, "messages", "conversation_id", id));
+                if (count(source, id) > 0) {
+                    logger.warn("Bucket {}: conversation {} has messages missing on shard {}, keeping it on shard {}",
+                            bucket, id, target.id(), source.id());
+                    continue;
+                }
+                source.jdbcTemplate().update("DELETE FROM conversations WHERE id = ?", id);
+                deleted++;
+            }
+        }
+    }
+
+    private static int maxId(Shard shard, String table, String column, int value) {
+        Integer max = shard.jdbcTemplate().queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM " + table + " WHERE " + column + " = ?", Integer.class, value);
+        return max == null ? 0 : max;
+    }
+
+    // The user's search documents and their terms; recopied in full when the frozen pass finds
+    // the counts differ, for the same reason as messages
+    private void copySearchIndex(int userId, Shard source, Shard target, boolean verify) {
+        Integer copiedUpTo = target.jdbcTemplate().queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM message_search WHERE user_id = ?", Integer.class, userId);
+        copySearchIndexAfter(userId, copiedUpTo, source, target);
+        if (verify && searchCount(source, userId) != searchCount(target, userId)) {
+            copySearchIndexAfter(userId, 0, source, target);
+        }
+    }
+
+    private void copySearchIndexAfter(int userId, int afterId, Shard source, Shard target) {
+        int lastId = afterId;
+        while (true) {
+            List<Map<String, Object>> batch = source.jdbcTemplate().queryForList(
+                    "SELECT id, conversation_id, content, is_user, occurred_at FROM message_search "
+                            + "WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?",
+                    userId, lastId, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Object[]> documents = new ArrayList<>(batch.size());
+            for (Map<String, Object> row : batch) {
+                documents.add(new Object[]{row.get("id"), userId, row.get("conversation_id"), row.get("content"),
+                        row.get("is_user"), row.get("occurred_at")});
+            }
+            target.jdbcTemplate().batchUpdate("INSERT IGNORE INTO message_search "
+                    + "(id, user_id, conversation_id, content, is_user, occurred_at) VALUES (?, ?, ?, ?, ?, ?)", documents);
+
+            int firstId = ((Number) batch.get(0).get("id")).intValue();
+            lastId = ((Number) batch.get(batch.size() - 1).get("id")).intValue();
+            List<Object[]> terms = source.jdbcTemplate().query(
+                    "SELECT term, search_id, tf FROM message_terms WHERE user_id = ? AND search_id BETWEEN ? AND ?",
+                    (rs, rowNum) -> new Object[]{userId, rs.getString("term"), rs.getInt("search_id"), rs.getInt("tf")},
+                    userId, firstId, lastId);
+            target.jdbcTemplate().batchUpdate(
+                    "INSERT IGNORE INTO message_terms (user_id, term, search_id, tf) VALUES (?, ?, ?, ?)", terms);
+        }
+    }
+
+    private static long searchCount(Shard shard, int userId) {
+        Long count = shard.jdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM message_search WHERE user_id = ?", Long.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    private static long count(Shard shard, int conversationId) {
+        Long count = shard.jdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM messages WHERE conversation_id = ?", Long.class, conversationId);
+        return count == null ? 0 : count;
+    }
+
+    // Returns the directory version of the change, which nodes acknowledge once they route by it
+    private long setAssignment(JdbcTemplate directory, int bucket, int shardId, String state) {
+        Long version = directory.queryForObject("SELECT MAX(version) + 1 FROM shard_buckets", Long.class);
+        directory.update("UPDATE shard_buckets SET shard_id = ?, state = ?, version = ? WHERE bucket = ?",
+                shardId, state, version, bucket);
+        shardDirectory.refresh();
+        return version;
+    }
+
+    // Fencing waits for the shared locks of writes in flight on this shard's copy of the bucket
+    private static void setFence(Shard shard, int bucket, String state) {
+        shard.jdbcTemplate().update("INSERT INTO bucket_fences (bucket, state) VALUES (?, ?) "
+                + "ON DUPLICATE KEY UPDATE state = VALUES(state)", bucket, state);
+    }
+
+    private static String fenceState(Shard shard, int bucket) {
+        List<String> state = shard.jdbcTemplate().queryForList(
+                "SELECT state FROM bucket_fences WHERE bucket = ?", String.class, bucket);
+        return state.isEmpty() ? WriteRoute.ACTIVE : state.get(0);
+    }
+
+    // Nodes that have not refreshed for db.shards.node-timeout-ms are taken to be gone
+    private void awaitNodes(JdbcTemplate directory, long version) {
+        long giveUpAt = System.currentTimeMillis() + ackTimeoutMs;
+        while (true) {
+            Integer behind = directory.queryForObject("SELECT COUNT(*) FROM shard_directory_nodes "
+                            + "WHERE version < ? AND seen_at > NOW(3) - INTERVAL ? MICROSECOND",
+                    Integer.class, version, nodeTimeoutMs * 1000);
+            if (behind == null || behind == 0) {
+                return;
+            }
+            if (System.currentTimeMillis() >= giveUpAt) {
+                throw new IllegalStateException(behind + " node(s) have not loaded directory version " + version
+                        + "; the old copy is kept until the move is run again");
+            }
+            try {
+                Thread.sleep(ACK_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while moving a bucket", e);
+            }
+        }
+    }
+}
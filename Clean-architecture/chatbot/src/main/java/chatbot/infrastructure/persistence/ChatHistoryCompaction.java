@@ -0,0 +1,102 @@
+package chatbot.infrastructure.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// One-off migration of chat history written before lists were capped and binary-encoded.
+// Each old chat:<id>:history list is trimmed to the retained window, re-encoded into
+// chat:{<id>}:history (in front of anything written since the upgrade) and deleted, along with
+// its old summary keys. Safe to re-run: converted keys no longer match the scan pattern.
+@Component
+@ConditionalOnProperty(name = "chat.history.compaction.enabled", havingValue = "true")
+public class ChatHistoryCompaction {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatHistoryCompaction.class);
+
+    private static final Pattern LEGACY_HISTORY_KEY = Pattern.compile("chat:(\\d+):history");
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisTemplate<String, byte[]> historyTemplate;
+    private final int maxEntries;
+
+    public ChatHistoryCompaction(StringRedisTemplate redisTemplate,
+                                 @Qualifier("chatHistoryRedisTemplate") RedisTemplate<String, byte[]> historyTemplate,
+                                 RedisChatHistoryRepository historyRepository) {
+        this.redisTemplate = redisTemplate;
+        this.historyTemplate = historyTemplate;
+        this.maxEntries = historyRepository.maxEntries();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void compact() {
+        int converted = 0;
+        ScanOptions options = ScanOptions.scanOptions().match("chat:[0-9]*:history").count(500).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                Matcher matcher = LEGACY_HISTORY_KEY.matcher(keys.next());
+                if (matcher.matches() && convert(Integer.valueOf(matcher.group(1)))) {
+                    converted++;
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.error("Error compacting chat history after {} conversation(s): {}", converted, e.getMessage());
+            return;
+        }
+        logger.info("Compacted chat history of {} conversation(s)", converted);
+    }
+
+    private boolean convert(Integer conversationId) {
+        String legacyKey = "chat:" + conversationId + ":history";
+        Long legacyLength = redisTemplate.opsForList().size(legacyKey);
+        List<String> legacy = redisTemplate.opsForList().range(legacyKey, -maxEntries, -1);
+        if (legacyLength == null || legacy == null) {
+            return false;
+        }
+
+        String historyKey = RedisChatHistoryRepository.historyKey(conversationId);
+        if (!legacy.isEmpty()) {
+            // LPUSH newest-first so the old entries end up ahead of any written after the upgrade
+            byte[][] encoded = new byte[legacy.size()][];
+            for (int i = 0; i < legacy.size(); i++) {
+                encoded[legacy.size() - 1 - i] = HistoryEntry.fromLegacyLine(legacy.get(i)).encode();
+            }
+            historyTemplate.opsForList().leftPushAll(historyKey, encoded);
+            historyTemplate.opsForList().trim(historyKey, -maxEntries, -1);
+            historyTemplate.expire(historyKey, RedisChatHistoryRepository.HISTORY_TTL);
+        }
+
+        // The old list was never trimmed, so its length is the number of entries ever appended
+        String appendedKey = RedisChatHistoryRepository.appendedKey(conversationId);
+        redisTemplate.opsForValue().increment(appendedKey, legacyLength);
+        redisTemplate.expire(appendedKey, RedisChatHistoryRepository.HISTORY_TTL);
+
+        moveIfAbsent("chat:" + conversationId + ":summary", RedisChatHistoryRepository.summaryKey(conversationId));
+        moveIfAbsent("chat:" + conversationId + ":summary:upto", RedisChatHistoryRepository.summarizedUpToKey(conversationId));
+
+        redisTemplate.delete(legacyKey);
+        return true;
+    }
+
+    // GET + SET rather than RENAME: the two keys may live in different cluster slots
+    private void moveIfAbsent(String legacyKey, String key) {
+        String value = redisTemplate.opsForValue().get(legacyKey);
+        if (value != null) {
+            redisTemplate.opsForValue().setIfAbsent(key, value, RedisChatHistoryRepository.HISTORY_TTL);
+            redisTemplate.delete(legacyKey);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.entity.Message;
+
+import java.time.LocalDateTime;
+
+// One entry of the conversation event log. Which of name, content and isUser are set depends on
+// the type. Events are created without a position; the store fills in id, conversation,
+// version and owner when it appends them.
+public record ConversationEvent(Integer id, Integer conversationId, int version, Integer userId, Type type,
+                                String name, String content, Boolean isUser, LocalDateTime occurredAt) {
+
+    public enum Type {
+        CONVERSATION_CREATED,
+        MESSAGE_ADDED,
+        CONVERSATION_RENAMED
+    }
+
+    static ConversationEvent created(Integer conversationId, Conversation conversation) {
+        return new ConversationEvent(null, conversationId, 1, conversation.getUserId(), Type.CONVERSATION_CREATED,
+                conversation.getName(), null, null, conversation.getDateTime());
+    }
+
+    static ConversationEvent messageAdded(Message message) {
+        return new ConversationEvent(null, null, 0, null, Type.MESSAGE_ADDED,
+                null, message.getContent(), message.getIsUser(), message.getTimestamp());
+    }
+
+    static ConversationEvent renamed(String name) {
+        return new ConversationEvent(null, null, 0, null, Type.CONVERSATION_RENAMED,
+                name, null, null, LocalDateTime.now());
+    }
+
+    ConversationEvent at(Integer conversationId, int version, Integer userId) {
+        return new ConversationEvent(id, conversationId, version, userId, type, name, content, isUser, occurredAt);
+    }
+}
@@ -0,0 +1,234 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Append-only log of conversation events. Rows are only ever inserted at the end of the
+// clustered index; UNIQUE (conversation_id, version) rejects a second writer that appended
+// against the same version, which then reloads and appends after it. The same check makes the
+// cached state of a conversation safe to append against: a stale version only costs a reload.
+@Component
+@ConditionalOnProperty(name = "db.conversations.event-sourced", havingValue = "true")
+public class ConversationEventStore {
+
+    private static final String INSERT_SQL = "INSERT INTO conversation_events "
+            + "(conversation_id, version, user_id, type, name, content, is_user, occurred_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SNAPSHOT_SQL = "SELECT * FROM conversation_snapshots WHERE conversation_id = ?";
+    private static final String STREAM_SQL =
+            "SELECT * FROM conversation_events WHERE conversation_id = ? AND version > ? ORDER BY version";
+    private static final String EVENTS_AFTER_SQL = "SELECT * FROM conversation_events WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String EVENTS_WITH_IDS_SQL = "SELECT * FROM conversation_events WHERE id IN (%s) ORDER BY id";
+    private static final String SAVE_SNAPSHOT_SQL = "INSERT INTO conversation_snapshots "
+            + "(conversation_id, user_id, name, created_at, version, message_count) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "name = IF(VALUES(version) > version, VALUES(name), name), "
+            + "message_count = IF(VALUES(version) > version, VALUES(message_count), message_count), "
+            + "version = GREATEST(version, VALUES(version))";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int snapshotEvery;
+    private final Outbox outbox;
+    private final MessageSearchIndex searchIndex;
+    private final Cache<Integer, ConversationState> states = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    private final RowMapper<ConversationEvent> eventRowMapper = (rs, rowNum) -> new ConversationEvent(
+            rs.getInt("id"),
+            rs.getInt("conversation_id"),
+            rs.getInt("version"),
+            rs.getInt("user_id"),
+            ConversationEvent.Type.valueOf(rs.getString("type")),
+            rs.getString("name"),
+            rs.getString("content"),
+            rs.getObject("is_user", Boolean.class),
+            rs.getTimestamp("occurred_at").toLocalDateTime()
+    );
+
+    private final RowMapper<ConversationState> snapshotRowMapper = (rs, rowNum) -> new ConversationState(
+            rs.getInt("conversation_id"),
+            rs.getInt("user_id"),
+            rs.getString("name"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getInt("version"),
+            rs.getInt("message_count")
+    );
+
+    public ConversationEventStore(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  Outbox outbox,
+                                  MessageSearchIndex searchIndex,
+                                  @Value("${db.conversations.snapshot-every:100}") int snapshotEvery,
+                                  @Value("${db.shards.enabled:false}") boolean shardsEnabled) {
+        // Sharded ids are spaced MAX_SHARDS apart, which the projector would take for uncommitted gaps
+        if (shardsEnabled) {
+            throw new IllegalStateException("db.conversations.event-sourced requires db.shards.enabled=false");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotEvery = snapshotEvery;
+        this.outbox = outbox;
+        this.searchIndex = searchIndex;
+        startAboveProjectedIds();
+    }
+
+    // Conversation ids come from conversation_ids and message ids are event ids. Both start above
+    // the rows written while the tables were updated in place, so switching modes never reuses an id.
+    private void startAboveProjectedIds() {
+        startAbove("conversation_ids", "conversations");
+        startAbove("conversation_events", "messages");
+    }
+
+    private void startAbove(String sequence, String table) {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Integer.class);
+        Integer maxSequenceId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + sequence, Integer.class);
+        // Once the sequence has handed out an id above the table, its counter is past it for good;
+        // only the first start after switching modes (or switching back) needs the DDL
+        if (maxSequenceId < maxId) {
+            jdbcTemplate.execute("ALTER TABLE " + sequence + " AUTO_INCREMENT = " + (maxId + 1));
+        }
+    }
+
+    public Integer create(Conversation conversation) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> connection.prepareStatement(
+                "INSERT INTO conversation_ids () VALUES ()", Statement.RETURN_GENERATED_KEYS), keyHolder);
+        Integer conversationId = keyHolder.getKey().intValue();
+        insert(List.of(ConversationEvent.created(conversationId, conversation)));
+        return conversationId;
+    }
+
+    // Replays the events after the latest snapshot; null when the conversation has no events
+    public ConversationState load(Integer conversationId) {
+        List<ConversationState> snapshots = jdbcTemplate.query(SNAPSHOT_SQL, snapshotRowMapper, conversationId);
+        ConversationState state = snapshots.isEmpty() ? null : snapshots.get(0);
+        List<ConversationEvent> events = jdbcTemplate.query(STREAM_SQL, eventRowMapper,
+                conversationId, state == null ? 0 : state.version());
+        for (ConversationEvent event : events) {
+            state = ConversationState.apply(state, event);
+        }
+        if (state != null) {
+            remember(state);
+        }
+        return state;
+    }
+
+    // Appends the events in one transaction, numbered after the current version; null when the
+    // conversation does not exist
+    public ConversationState append(Integer conversationId, List<ConversationEvent> changes) {
+        for (int attempt = 1; ; attempt++) {
+            ConversationState state = states.getIfPresent(conversationId);
+            boolean cached = state != null;
+            if (!cached) {
+                state = load(conversationId);
+            }
+            if (state == null) {
+                return null;
+            }
+            List<ConversationEvent> events = new ArrayList<>(changes.size());
+            for (int i = 0; i < changes.size(); i++) {
+                events.add(changes.get(i).at(conversationId, state.version() + i + 1, state.userId()));
+            }
+            try {
+                insert(events);
+            } catch (DataIntegrityViolationException e) {
+                // Another writer took these versions first, or the cached conversation's user was
+                // deleted since and the reload finds nothing
+                states.invalidate(conversationId);
+                if (!(e instanceof DuplicateKeyException || cached) || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+
+            ConversationState next = state;
+            for (ConversationEvent event : events) {
+                next = ConversationState.apply(next, event);
+            }
+            if (next.version() / snapshotEvery > state.version() / snapshotEvery) {
+                saveSnapshot(next);
+            }
+            remember(next);
+            return next;
+        }
+    }
+
+    public List<ConversationEvent> eventsAfter(int position, int limit) {
+        return jdbcTemplate.query(EVENTS_AFTER_SQL, eventRowMapper, position, limit);
+    }
+
+    // The events among ids that exist; used by the projector to look for late commits
+    public List<ConversationEvent> eventsWithIds(List<Integer> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query(EVENTS_WITH_IDS_SQL.formatted(placeholders), eventRowMapper, ids.toArray());
+    }
+
+    // A load racing an append must not put back an older version
+    private void remember(ConversationState state) {
+        states.asMap().merge(state.id(), state,
+                (cached, loaded) -> loaded.version() >= cached.version() ? loaded : cached);
+    }
+
+    // With rewriteBatchedStatements this is a single multi-row INSERT; added messages also go to
+    // the outbox and the search index
+    private void insert(List<ConversationEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), ConversationEventStore::bind);
+            List<Message> messages = events.stream()
+                    .filter(event -> event.type() == ConversationEvent.Type.MESSAGE_ADDED)
+                    .map(event -> new Message(null, event.content(), event.occurredAt(), event.isUser()))
+                    .toList();
+            if (!messages.isEmpty()) {
+                outbox.record(jdbcTemplate, events.get(0).conversationId(), messages);
+                searchIndex.record(jdbcTemplate, events.get(0).conversationId(), events.get(0).userId(), messages);
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement ps, ConversationEvent event) throws SQLException {
+        ps.setInt(1, event.conversationId());
+        ps.setInt(2, event.version());
+        ps.setInt(3, event.userId());
+        ps.setString(4, event.type().name());
+        ps.setString(5, event.name());
+        ps.setString(6, event.content());
+        if (event.isUser() == null) {
+            ps.setNull(7, Types.BOOLEAN);
+        } else {
+            ps.setBoolean(7, event.isUser());
+        }
+        ps.setTimestamp(8, Timestamp.valueOf(event.occurredAt()));
+    }
+
+    private void saveSnapshot(ConversationState state) {
+        jdbcTemplate.update(SAVE_SNAPSHOT_SQL, state.id(), state.userId(), state.name(),
+                Timestamp.valueOf(state.createdAt()), state.version(), state.messageCount());
+    }
+}
@@ -0,0 +1,157 @@
+package chatbot.infrastructure.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Folds the event log into the conversations and messages tables, which serve as the read
+// projections for the history list and message pages. The position row is locked for each
+// batch, so several nodes can run this and the batches are still applied once and in order.
+// Ids are taken before commit, so the log can have holes that fill in later. The projector
+// does not wait at a hole: it records the missing ids in projection_gaps, moves on, and looks
+// for them again with every batch. Within a conversation an event commits only after the one
+// before it, and a batch reads the log from one snapshot, so merging late events by id keeps
+// each conversation's order.
+@Component
+@ConditionalOnProperty(name = "db.conversations.event-sourced", havingValue = "true")
+public class ConversationProjector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversationProjector.class);
+
+    private static final String PROJECTION = "conversations";
+
+    // Events of a user deleted in the meantime match no row and are dropped
+    private static final String CREATE_SQL = "INSERT IGNORE INTO conversations (id, name, user_id, created_at) "
+            + "SELECT ?, ?, id, ? FROM users WHERE id = ?";
+    private static final String ADD_MESSAGE_SQL = "INSERT IGNORE INTO messages (id, content, timestamp, is_user, conversation_id) "
+            + "SELECT ?, ?, ?, ?, id FROM conversations WHERE id = ?";
+    private static final String RENAME_SQL = "UPDATE conversations SET name = ? WHERE id = ?";
+
+    private final ConversationEventStore eventStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long gapTimeoutMs;
+
+    public ConversationProjector(ConversationEventStore eventStore,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${db.conversations.projection-batch-size:500}") int batchSize,
+                                 @Value("${db.conversations.projection-gap-timeout-ms:60000}") long gapTimeoutMs) {
+        this.eventStore = eventStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.gapTimeoutMs = gapTimeoutMs;
+    }
+
+    @Scheduled(fixedDelayString = "${db.conversations.projection-interval-ms:100}")
+    public void project() {
+        try {
+            Integer applied;
+            do {
+                applied = transactionTemplate.execute(status -> projectBatch());
+            } while (applied != null && applied == batchSize);
+        } catch (DataAccessException e) {
+            logger.error("Error projecting conversation events: {}", e.getMessage());
+        }
+    }
+
+    // Returns how many events past the position were read, so project() knows when it caught up
+    private int projectBatch() {
+        Integer position = jdbcTemplate.queryForObject(
+                "SELECT position FROM projection_positions WHERE name = ? FOR UPDATE", Integer.class, PROJECTION);
+        List<ConversationEvent> events = eventStore.eventsAfter(position, batchSize);
+
+        List<Object[]> missing = new ArrayList<>();
+        int expected = position + 1;
+        for (ConversationEvent event : events) {
+            for (int id = expected; id < event.id(); id++) {
+                missing.add(new Object[]{PROJECTION, id});
+            }
+            expected = event.id() + 1;
+        }
+
+        List<ConversationEvent> ready = new ArrayList<>(events);
+        ready.addAll(lateEvents());
+        ready.sort(Comparator.comparing(ConversationEvent::id));
+        if (ready.isEmpty()) {
+            return 0;
+        }
+
+        apply(ready);
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT IGNORE INTO projection_gaps (name, event_id, seen_at) "
+                    + "VALUES (?, ?, CURRENT_TIMESTAMP(3))", missing);
+        }
+        if (!events.isEmpty()) {
+            jdbcTemplate.update("UPDATE projection_positions SET position = ? WHERE name = ?",
+                    events.get(events.size() - 1).id(), PROJECTION);
+        }
+        return events.size();
+    }
+
+    // Events that committed after the projector first moved past their ids. Ids missing for
+    // longer than gapTimeoutMs belong to rolled-back transactions and are forgotten.
+    private List<ConversationEvent> lateEvents() {
+        List<Integer> gaps = jdbcTemplate.queryForList(
+                "SELECT event_id FROM projection_gaps WHERE name = ?", Integer.class, PROJECTION);
+        if (gaps.isEmpty()) {
+            return List.of();
+        }
+        List<ConversationEvent> late = eventStore.eventsWithIds(gaps);
+        if (!late.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM projection_gaps WHERE name = ? AND event_id = ?",
+                    late.stream().map(event -> new Object[]{PROJECTION, event.id()}).toList());
+            logger.debug("Projecting {} event(s) that committed late", late.size());
+        }
+        jdbcTemplate.update("DELETE FROM projection_gaps WHERE name = ? AND seen_at < ?", PROJECTION,
+                new Timestamp(System.currentTimeMillis() - gapTimeoutMs));
+        return late;
+    }
+
+    // Consecutive events of one type go out as one batch; order across types is kept
+    private void apply(List<ConversationEvent> events) {
+        int start = 0;
+        while (start < events.size()) {
+            ConversationEvent.Type type = events.get(start).type();
+            int end = start + 1;
+            while (end < events.size() && events.get(end).type() == type) {
+                end++;
+            }
+            List<ConversationEvent> run = events.subList(start, end);
+            switch (type) {
+                case CONVERSATION_CREATED -> jdbcTemplate.batchUpdate(CREATE_SQL, run, run.size(), (ps, event) -> {
+                    ps.setInt(1, event.conversationId());
+                    ps.setString(2, event.name());
+                    ps.setTimestamp(3, Timestamp.valueOf(event.occurredAt()));
+                    ps.setInt(4, event.userId());
+                });
+                case MESSAGE_ADDED -> jdbcTemplate.batchUpdate(ADD_MESSAGE_SQL, run, run.size(), (ps, event) -> {
+                    ps.setInt(1, event.id());
+                    ps.setString(2, event.content());
+                    ps.setTimestamp(3, Timestamp.valueOf(event.occurredAt()));
+                    ps.setBoolean(4, event.isUser());
+                    ps.setInt(5, event.conversationId());
+                });
+                case CONVERSATION_RENAMED -> jdbcTemplate.batchUpdate(RENAME_SQL, run, run.size(), (ps, event) -> {
+                    ps.setString(1, event.name());
+                    ps.setInt(2, event.conversationId());
+                });
+            }
+            start = end;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Conversation;
+
+import java.time.LocalDateTime;
+
+// A conversation as rebuilt from its events: enough to validate and version new appends.
+// Snapshots store exactly this, so loading never replays more than db.conversations.snapshot-every events.
+record ConversationState(Integer id, Integer userId, String name, LocalDateTime createdAt,
+                         int version, int messageCount) {
+
+    // state is null until the CONVERSATION_CREATED event has been applied
+    static ConversationState apply(ConversationState state, ConversationEvent event) {
+        return switch (event.type()) {
+            case CONVERSATION_CREATED -> new ConversationState(event.conversationId(), event.userId(), event.name(),
+                    event.occurredAt(), event.version(), 0);
+            case MESSAGE_ADDED -> new ConversationState(state.id, state.userId, state.name, state.createdAt,
+                    event.version(), state.messageCount + 1);
+            case CONVERSATION_RENAMED -> new ConversationState(state.id, state.userId, event.name(), state.createdAt,
+                    event.version(), state.messageCount);
+        };
+    }
+
+    Conversation toConversation() {
+        return new Conversation(id, name, userId, createdAt);
+    }
+}
@@ -0,0 +1,124 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
+import chatbot.domain.repository.ConversationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Commands append to the event log; queries read the projections ConversationProjector keeps
+// up to date, a few hundred milliseconds behind. A conversation that is not projected yet is
+// still found by id, rebuilt from its events.
+@Repository
+@ConditionalOnProperty(name = "db.conversations.event-sourced", havingValue = "true")
+public class EventSourcedConversationRepository implements ConversationRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSourcedConversationRepository.class);
+
+    private final ConversationEventStore eventStore;
+    private final ReadRouting readRouting;
+    // The projections have the layout of the tables JdbcConversationRepository updates in place
+    private final JdbcConversationRepository projections;
+
+    public EventSourcedConversationRepository(ConversationEventStore eventStore,
+                                              JdbcTemplate jdbcTemplate,
+                                              PlatformTransactionManager transactionManager,
+                                              ReadRouting readRouting) {
+        this.eventStore = eventStore;
+        this.readRouting = readRouting;
+        this.projections = new JdbcConversationRepository(
+                ShardDirectory.single(jdbcTemplate, new TransactionTemplate(transactionManager)), readRouting,
+                MessageWriter.direct(new Outbox(false)));
+    }
+
+    @Override
+    public Conversation findById(Integer id) {
+        Conversation projected = projections.findById(id);
+        if (projected != null) {
+            return projected;
+        }
+        try {
+            ConversationState state = eventStore.load(id);
+            return state == null ? null : state.toConversation();
+        } catch (DataAccessException e) {
+            logger.error("Error loading conversation ID {} from its events: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public List<Conversation> findByUserId(Integer userId) {
+        return projections.findByUserId(userId);
+    }
+
+    @Override
+    public void save(Conversation conversation) {
+        try {
+            conversation.setId(eventStore.create(conversation));
+            readRouting.markWritten(ReadRouting.userScope(conversation.getUserId()),
+                    ReadRouting.conversationScope(conversation.getId()));
+        } catch (DataAccessException e) {
+            logger.error("Error saving conversation {}: {}", conversation, e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Message> getMessages(Integer conversationId) {
+        List<Message> messages = projections.getMessages(conversationId);
+        // Not projected yet, so neither are its messages
+        if (messages == null && findById(conversationId) != null) {
+            return List.of();
+        }
+        return messages;
+    }
+
+    @Override
+    public MessagePage getMessagesPage(Integer conversationId, Integer beforeId, int limit) {
+        MessagePage page = projections.getMessagesPage(conversationId, beforeId, limit);
+        if (page == null && findById(conversationId) != null) {
+            return new MessagePage(List.of(), null, false);
+        }
+        return page;
+    }
+
+    @Override
+    public void addMessage(Integer conversationId, Message message) {
+        try {
+            addMessages(conversationId, List.of(message));
+        } catch (DataAccessException | IllegalArgumentException e) {
+            logger.error("Error adding message to conversation ID {}: {}", conversationId, e.getMessage());
+        }
+    }
+
+    // All messages are appended in one transaction
+    @Override
+    public void addMessages(Integer conversationId, List<Message> messages) {
+        List<ConversationEvent> events = messages.stream().map(ConversationEvent::messageAdded).toList();
+        if (eventStore.append(conversationId, events) == null) {
+            throw new IllegalArgumentException("Conversation " + conversationId + " not found");
+        }
+        readRouting.markWritten(ReadRouting.conversationScope(conversationId));
+    }
+
+    @Override
+    public void renameConversation(Integer conversationId, String newName) {
+        try {
+            if (eventStore.append(conversationId, List.of(ConversationEvent.renamed(newName))) == null) {
+                logger.warn("Conversation ID {} not found.", conversationId);
+                return;
+            }
+            readRouting.markWritten(ReadRouting.conversationScope(conversationId));
+        } catch (DataAccessException e) {
+            logger.error("Error renaming conversation ID {}: {}", conversationId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package chatbot.infrastructure.persistence;
+
+import java.nio.charset.StandardCharsets;
+
+// One line of Redis chat history. Stored as a role byte followed by the UTF-8 content,
+// instead of the "User: ..." / "AI: ..." strings used before.
+public record HistoryEntry(boolean fromUser, String content) {
+
+    private static final byte USER = 1;
+    private static final byte AI = 2;
+
+    private static final String USER_PREFIX = "User: ";
+    private static final String AI_PREFIX = "AI: ";
+
+    public static HistoryEntry user(String content) {
+        return new HistoryEntry(true, content);
+    }
+
+    public static HistoryEntry ai(String content) {
+        return new HistoryEntry(false, content);
+    }
+
+    public String promptLine() {
+        return (fromUser ? USER_PREFIX : AI_PREFIX) + content;
+    }
+
+    byte[] encode() {
+        byte[] text = content.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[text.length + 1];
+        encoded[0] = fromUser ? USER : AI;
+        System.arraycopy(text, 0, encoded, 1, text.length);
+        return encoded;
+    }
+
+    static HistoryEntry decode(byte[] encoded) {
+        if (encoded.length == 0 || (encoded[0] != USER && encoded[0] != AI)) {
+            throw new IllegalArgumentException("Not an encoded history entry");
+        }
+        String text = new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+        return new HistoryEntry(encoded[0] == USER, text);
+    }
+
+    // Entries written before the binary encoding; anything unprefixed is kept as AI text
+    static HistoryEntry fromLegacyLine(String line) {
+        if (line.startsWith(USER_PREFIX)) {
+            return user(line.substring(USER_PREFIX.length()));
+        }
+        if (line.startsWith(AI_PREFIX)) {
+            return ai(line.substring(AI_PREFIX.length()));
+        }
+        return ai(line);
+    }
+}
@@ -2,9 +2,11 @@ package chatbot.infrastructure.persistence;
 
 import chatbot.domain.entity.Conversation;
 import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
 import chatbot.domain.repository.ConversationRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -13,6 +15,8 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,14 +24,31 @@ import java.sql.PreparedStatement;
 import java.sql.Statement;
 
 @Repository
+@ConditionalOnProperty(name = "db.conversations.event-sourced", havingValue = "false", matchIfMissing = true)
 public class JdbcConversationRepository implements ConversationRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcConversationRepository.class);
 
-    private final JdbcTemplate jdbcTemplate;
-
-    public JdbcConversationRepository(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    // Hot-path queries, shared with QueryPlanVerifier so the EXPLAIN check tracks what actually runs
+    static final String FIND_BY_ID_SQL = "SELECT * FROM conversations WHERE id = ?";
+    static final String FIND_BY_USER_ID_SQL = "SELECT * FROM conversations WHERE user_id = ?";
+    static final String MESSAGES_SQL = "SELECT * FROM messages WHERE conversation_id = ? ORDER BY id ASC";
+    // messages is partitioned by month, which these keyset queries do not prune on: each one
+    // does an index dive per partition (see the Database migrations section of the README)
+    static final String LATEST_MESSAGES_SQL =
+            "SELECT * FROM messages WHERE conversation_id = ? ORDER BY id DESC LIMIT ?";
+    static final String MESSAGES_BEFORE_SQL =
+            "SELECT * FROM messages WHERE conversation_id = ? AND id < ? ORDER BY id DESC LIMIT ?";
+
+    // Conversations and messages live on their owner's shard; unsharded, that is always shard 0
+    private final ShardDirectory shardDirectory;
+    private final ReadRouting readRouting;
+    private final MessageWriter messageWriter;
+
+    public JdbcConversationRepository(ShardDirectory shardDirectory, ReadRouting readRouting, MessageWriter messageWriter) {
+        this.shardDirectory = shardDirectory;
+        this.readRouting = readRouting;
+        this.messageWriter = messageWriter;
     }
 
     private final RowMapper<Conversation> conversationRowMapper = (rs, rowNum) -> new Conversation(
@@ -46,9 +67,10 @@ public class JdbcConversationRepository implements ConversationRepository {
 
     @Override
     public Conversation findById(Integer id) {
-        String sql = "SELECT * FROM conversations WHERE id = ?";
         try {
-            List<Conversation> result = jdbcTemplate.query(sql, conversationRowMapper, id);
+            JdbcTemplate jdbcTemplate = shardDirectory.forConversation(id).jdbcTemplate();
+            List<Conversation> result = readRouting.read(ReadRouting.conversationScope(id),
+                    () -> jdbcTemplate.query(FIND_BY_ID_SQL, conversationRowMapper, id));
             return result.stream().findFirst().orElse(null);
         } catch (DataAccessException e) {
             logger.error("Error finding conversation by ID {}: {}", id, e.getMessage());
@@ -58,9 +80,10 @@ public class JdbcConversationRepository implements ConversationRepository {
 
     @Override
     public List<Conversation> findByUserId(Integer userId) {
-        String sql = "SELECT * FROM conversations WHERE user_id = ?";
         try {
-            return jdbcTemplate.query(sql, conversationRowMapper, userId);
+            JdbcTemplate jdbcTemplate = shardDirectory.forUser(userId).jdbcTemplate();
+            return readRouting.read(ReadRouting.userScope(userId),
+                    () -> jdbcTemplate.query(FIND_BY_USER_ID_SQL, conversationRowMapper, userId));
         } catch (DataAccessException e) {
             logger.error("Error finding conversations for user ID {}: {}", userId, e.getMessage());
             return List.of(); // Return empty list as fallback
@@ -73,55 +96,112 @@ public class JdbcConversationRepository implements ConversationRepository {
         KeyHolder keyHolder = new GeneratedKeyHolder();
         
         try {
-            jdbcTemplate.update(connection -> {
-                PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-                ps.setString(1, conversation.getName());
-                ps.setInt(2, conversation.getUserId());
-                ps.setTimestamp(3, Timestamp.valueOf(conversation.getDateTime()));
-                return ps;
-            }, keyHolder);
+            Shard shard = shardDirectory.writeForUser(conversation.getUserId(), route -> route.execute(jdbcTemplate -> {
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                    ps.setString(1, conversation.getName());
+                    ps.setInt(2, conversation.getUserId());
+                    ps.setTimestamp(3, Timestamp.valueOf(conversation.getDateTime()));
+                    return ps;
+                }, keyHolder);
+                return route.shard();
+            }));
 
             Map<String, Object> keys = keyHolder.getKeys();
             if (keys != null && keys.get("id") != null) {
                 conversation.setId(((Number) keys.get("id")).intValue());
+                register(shard, conversation);
             }
+            // The owner's conversation list changed, and the new conversation is read right away
+            readRouting.markWritten(ReadRouting.userScope(conversation.getUserId()),
+                    ReadRouting.conversationScope(conversation.getId()));
 
         } catch (DataAccessException e) {
             logger.error("Error saving conversation {}: {}", conversation, e.getMessage());
         }
     }
 
+    // A conversation the directory cannot resolve would be unreachable by id, so it is removed again
+    private void register(Shard shard, Conversation conversation) {
+        try {
+            shardDirectory.registerConversation(conversation.getId(), conversation.getUserId());
+        } catch (DataAccessException e) {
+            shard.jdbcTemplate().update("DELETE FROM conversations WHERE id = ?", conversation.getId());
+            conversation.setId(null);
+            throw e;
+        }
+    }
+
     @Override
     public List<Message> getMessages(Integer conversationId) {
         if (findById(conversationId) == null) {
             logger.warn("Conversation ID {} not found.", conversationId);
             return null;
         }
-        String sql = "SELECT * FROM messages WHERE conversation_id = ? ORDER BY timestamp ASC";
         try {
-            return jdbcTemplate.query(sql, messageRowMapper, conversationId);
+            JdbcTemplate jdbcTemplate = shardDirectory.forConversation(conversationId).jdbcTemplate();
+            return readRouting.read(ReadRouting.conversationScope(conversationId),
+                    () -> jdbcTemplate.query(MESSAGES_SQL, messageRowMapper, conversationId));
         } catch (DataAccessException e) {
             logger.error("Error getting messages for conversation ID {}: {}", conversationId, e.getMessage());
             return List.of();
         }
     }
 
+    @Override
+    public MessagePage getMessagesPage(Integer conversationId, Integer beforeId, int limit) {
+        // Keyset on (conversation_id, id): each page is an index range scan of limit + 1 rows,
+        // the extra row only tells us whether an older page exists
+        List<Message> newestFirst;
+        try {
+            JdbcTemplate jdbcTemplate = shardDirectory.forConversation(conversationId).jdbcTemplate();
+            newestFirst = readRouting.read(ReadRouting.conversationScope(conversationId), () -> beforeId == null
+                    ? jdbcTemplate.query(LATEST_MESSAGES_SQL, messageRowMapper, conversationId, limit + 1)
+                    : jdbcTemplate.query(MESSAGES_BEFORE_SQL, messageRowMapper, conversationId, beforeId, limit + 1));
+        } catch (DataAccessException e) {
+            logger.error("Error getting message page for conversation ID {}: {}", conversationId, e.getMessage());
+            return new MessagePage(List.of(), null, false);
+        }
+
+        // Only an empty page needs the extra lookup to tell "no messages" from "no conversation"
+        if (newestFirst.isEmpty() && findById(conversationId) == null) {
+            logger.warn("Conversation ID {} not found.", conversationId);
+            return null;
+        }
+
+        boolean hasMore = newestFirst.size() > limit;
+        List<Message> page = new ArrayList<>(newestFirst.subList(0, Math.min(limit, newestFirst.size())));
+        Collections.reverse(page);
+        Integer nextCursor = hasMore ? page.get(0).getId() : null;
+        return new MessagePage(page, nextCursor, hasMore);
+    }
+
     @Override
     public void addMessage(Integer conversationId, Message message) {
-        String sql = "INSERT INTO messages ( content, timestamp, is_user, conversation_id) VALUES (?, ?, ?, ?)";
         try {
-            jdbcTemplate.update(sql, message.getContent(),
-                    Timestamp.valueOf(message.getTimestamp()), message.getIsUser(), conversationId);
+            addMessages(conversationId, List.of(message));
         } catch (DataAccessException e) {
             logger.error("Error adding message to conversation ID {}: {}", conversationId, e.getMessage());
         }
     }
 
+    // MessageWriter commits the batch, with its outbox rows, before returning
+    @Override
+    public void addMessages(Integer conversationId, List<Message> messages) {
+        shardDirectory.writeForConversation(conversationId, route -> {
+            messageWriter.write(route, conversationId, messages);
+            return null;
+        });
+        readRouting.markWritten(ReadRouting.conversationScope(conversationId));
+    }
+
     @Override
     public void renameConversation(Integer conversationId, String newName) {
         String sql = "UPDATE conversations SET name = ? WHERE id = ?";
         try {
-            jdbcTemplate.update(sql, newName, conversationId);
+            shardDirectory.writeForConversation(conversationId,
+                    route -> route.execute(jdbcTemplate -> jdbcTemplate.update(sql, newName, conversationId)));
+            readRouting.markWritten(ReadRouting.conversationScope(conversationId));
         } catch (DataAccessException e) {
             logger.error("Error renaming conversation ID {}: {}", conversationId, e.getMessage());
         }
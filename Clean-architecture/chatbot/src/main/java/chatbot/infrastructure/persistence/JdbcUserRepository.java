@@ -10,6 +10,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
@@ -21,10 +22,17 @@ public class JdbcUserRepository implements UserRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(JdbcUserRepository.class);
 
+    static final String FIND_BY_EMAIL_SQL = "SELECT * FROM users WHERE email = ?";
+
+    // Users stay on shard 0 (the main database); only their conversations are sharded
     private final JdbcTemplate jdbcTemplate;
+    private final ShardDirectory shardDirectory;
+    private final ReadRouting readRouting;
 
-    public JdbcUserRepository(JdbcTemplate jdbcTemplate) {
+    public JdbcUserRepository(JdbcTemplate jdbcTemplate, ShardDirectory shardDirectory, ReadRouting readRouting) {
         this.jdbcTemplate = jdbcTemplate;
+        this.shardDirectory = shardDirectory;
+        this.readRouting = readRouting;
     }
 
     private final RowMapper<User> userRowMapper = (rs, rowNum) -> new User(
@@ -38,7 +46,8 @@ public class JdbcUserRepository implements UserRepository {
     public Optional<User> findById(Integer id) {
         String sql = "SELECT * FROM users WHERE id = ?";
         try {
-            List<User> users = jdbcTemplate.query(sql, userRowMapper, id);
+            List<User> users = readRouting.read(ReadRouting.userScope(id),
+                    () -> jdbcTemplate.query(sql, userRowMapper, id));
             return users.stream().findFirst();
         } catch (DataAccessException e) {
             logger.error("Error finding user by ID {}: {}", id, e.getMessage());
@@ -48,9 +57,10 @@ public class JdbcUserRepository implements UserRepository {
 
     @Override
     public Optional<User> findByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE email = ?";
         try {
-            List<User> users = jdbcTemplate.query(sql, userRowMapper, email);
+            // Login right after registering must see the new row
+            List<User> users = readRouting.read(ReadRouting.emailScope(email),
+                    () -> jdbcTemplate.query(FIND_BY_EMAIL_SQL, userRowMapper, email));
             return users.stream().findFirst();
         } catch (DataAccessException e) {
             logger.error("Error finding user by email {}: {}", email, e.getMessage());
@@ -86,6 +96,7 @@ public class JdbcUserRepository implements UserRepository {
             if (keyHolder.getKey() != null) {
                 int generatedId = keyHolder.getKey().intValue();
                 user.setId(generatedId);
+                readRouting.markWritten(ReadRouting.userScope(generatedId), ReadRouting.emailScope(user.getEmail()));
                 logger.info("Saved user with id {}: {}", generatedId, user);
                 return generatedId;
             }
@@ -98,10 +109,26 @@ public class JdbcUserRepository implements UserRepository {
 
 
     @Override
+    @Transactional
     public void deleteById(Integer id) {
+        // messages is partitioned and cannot carry a foreign key, so it is not covered by the cascade;
+        // neither are conversations on shards other than 0. On shard 0 this joins the outer transaction.
+        String deleteMessagesSql = "DELETE m FROM messages m JOIN conversations c ON m.conversation_id = c.id WHERE c.user_id = ?";
+        String deleteConversationsSql = "DELETE FROM conversations WHERE user_id = ?";
+        String deleteSearchTermsSql = "DELETE FROM message_terms WHERE user_id = ?";
+        String deleteSearchDocumentsSql = "DELETE FROM message_search WHERE user_id = ?";
         String sql = "DELETE FROM users WHERE id = ?";
         try {
+            shardDirectory.writeForUser(id, route -> route.shard().transactionTemplate().execute(status -> {
+                route.checkFence();
+                JdbcTemplate shardTemplate = route.shard().jdbcTemplate();
+                shardTemplate.update(deleteMessagesSql, id);
+                shardTemplate.update(deleteConversationsSql, id);
+                shardTemplate.update(deleteSearchTermsSql, id);
+                return shardTemplate.update(deleteSearchDocumentsSql, id);
+            }));
             jdbcTemplate.update(sql, Integer.valueOf(id));
+            readRouting.markWritten(ReadRouting.userScope(id));
             logger.info(id.toString());
         } catch (DataAccessException e) {
             logger.error("Error deleting user by ID {}: {}", id, e.getMessage());
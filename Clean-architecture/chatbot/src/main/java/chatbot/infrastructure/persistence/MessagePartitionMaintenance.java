@@ -0,0 +1,136 @@
+package chatbot.infrastructure.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Keeps monthly partitions of the messages table ahead of time and drops the expired ones, on every shard.
+// The search index rows of dropped months are pruned with them.
+@Component
+@ConditionalOnProperty(name = "db.messages.partition-maintenance.enabled", havingValue = "true", matchIfMissing = true)
+public class MessagePartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagePartitionMaintenance.class);
+
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("p(\\d{4})_(\\d{2})");
+    private static final String FUTURE_PARTITION = "p_future";
+
+    private final ShardDirectory shardDirectory;
+    private final MessageSearchIndex searchIndex;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public MessagePartitionMaintenance(ShardDirectory shardDirectory,
+                                       MessageSearchIndex searchIndex,
+                                       @Value("${db.messages.partitions-ahead-months:3}") int monthsAhead,
+                                       @Value("${db.messages.retention-months:0}") int retentionMonths) {
+        this.shardDirectory = shardDirectory;
+        this.searchIndex = searchIndex;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${db.messages.partition-maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        for (Shard shard : shardDirectory.shards()) {
+            maintain(shard);
+        }
+    }
+
+    private void maintain(Shard shard) {
+        JdbcTemplate jdbcTemplate = shard.jdbcTemplate();
+        try {
+            List<String> partitions = jdbcTemplate.queryForList(
+                    "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'messages' AND PARTITION_NAME IS NOT NULL " +
+                            "ORDER BY PARTITION_ORDINAL_POSITION",
+                    String.class);
+            if (partitions.isEmpty()) {
+                logger.warn("messages table on shard {} is not partitioned, skipping partition maintenance", shard.id());
+                return;
+            }
+
+            YearMonth current = YearMonth.now();
+            addUpcomingPartitions(jdbcTemplate, partitions, current.plusMonths(monthsAhead));
+            if (retentionMonths > 0) {
+                YearMonth oldestKept = current.minusMonths(retentionMonths);
+                dropExpiredPartitions(jdbcTemplate, partitions, oldestKept);
+                pruneSearchIndex(shard, oldestKept.atDay(1).atStartOfDay());
+            }
+        } catch (DataAccessException e) {
+            logger.error("Error maintaining messages partitions on shard {}: {}", shard.id(), e.getMessage());
+        }
+    }
+
+    private void addUpcomingPartitions(JdbcTemplate jdbcTemplate, List<String> partitions, YearMonth target) {
+        if (!partitions.contains(FUTURE_PARTITION)) {
+            logger.warn("messages has no {} partition to split, skipping", FUTURE_PARTITION);
+            return;
+        }
+        // Ranges must stay increasing, so new months can only be appended after the newest one
+        YearMonth newest = partitions.stream()
+                .map(MessagePartitionMaintenance::monthOf)
+                .filter(Objects::nonNull)
+                .max(YearMonth::compareTo)
+                .orElse(YearMonth.now().minusMonths(1));
+
+        for (YearMonth month = newest.plusMonths(1); !month.isAfter(target); month = month.plusMonths(1)) {
+            jdbcTemplate.execute(String.format(
+                    "ALTER TABLE messages REORGANIZE PARTITION %s INTO (" +
+                            "PARTITION %s VALUES LESS THAN (UNIX_TIMESTAMP('%s-01 00:00:00')), " +
+                            "PARTITION %s VALUES LESS THAN MAXVALUE)",
+                    FUTURE_PARTITION, partitionName(month), month.plusMonths(1), FUTURE_PARTITION));
+            logger.info("Added messages partition {}", partitionName(month));
+        }
+    }
+
+    private void dropExpiredPartitions(JdbcTemplate jdbcTemplate, List<String> partitions, YearMonth oldestKept) {
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                jdbcTemplate.execute("ALTER TABLE messages DROP PARTITION " + partition);
+                logger.info("Dropped expired messages partition {}", partition);
+            }
+        }
+    }
+
+    // Runs even when no partition was due, so a prune cut short by an error is finished next time
+    private void pruneSearchIndex(Shard shard, LocalDateTime before) {
+        int pruned = searchIndex.prune(shard, before);
+        if (pruned > 0) {
+            logger.info("Pruned {} search index document(s) older than {} on shard {}", pruned, before, shard.id());
+        }
+    }
+
+    private static YearMonth monthOf(String partition) {
+        Matcher matcher = MONTHLY_PARTITION.matcher(partition);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,99 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Indexes the messages stored before the search index existed, on every shard, in batches
+// that each commit their progress. Newer messages were indexed when written, so the work ends
+// at the id recorded by the migration. The progress row is locked per batch: several nodes can
+// run this, and a restart resumes where the last batch ended.
+@Component
+@ConditionalOnExpression("${chat.search.enabled:true} and ${chat.search.backfill.enabled:true}")
+public class MessageSearchBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearchBackfill.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ShardDirectory shardDirectory;
+    private final MessageSearchIndex searchIndex;
+
+    public MessageSearchBackfill(ShardDirectory shardDirectory, MessageSearchIndex searchIndex) {
+        this.shardDirectory = shardDirectory;
+        this.searchIndex = searchIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        for (Shard shard : shardDirectory.shards()) {
+            int indexed = 0;
+            try {
+                int batch;
+                do {
+                    batch = indexBatch(shard);
+                    indexed += batch;
+                } while (batch > 0);
+            } catch (DataAccessException e) {
+                logger.error("Error backfilling the search index of shard {} after {} message(s): {}",
+                        shard.id(), indexed, e.getMessage());
+                continue;
+            }
+            if (indexed > 0) {
+                logger.info("Indexed {} earlier message(s) on shard {} for search", indexed, shard.id());
+            }
+        }
+    }
+
+    private int indexBatch(Shard shard) {
+        Integer indexed = shard.transactionTemplate().execute(status -> {
+            JdbcTemplate jdbcTemplate = shard.jdbcTemplate();
+            Map<String, Object> progress = jdbcTemplate.queryForMap(
+                    "SELECT up_to, position FROM message_search_backfill WHERE id = 1 FOR UPDATE");
+            int upTo = ((Number) progress.get("up_to")).intValue();
+            int position = ((Number) progress.get("position")).intValue();
+            if (position >= upTo) {
+                return 0;
+            }
+
+            List<StoredMessage> rows = jdbcTemplate.query(
+                    "SELECT m.id, m.content, m.timestamp, m.is_user, m.conversation_id, c.user_id "
+                            + "FROM messages m JOIN conversations c ON c.id = m.conversation_id "
+                            + "WHERE m.id > ? AND m.id <= ? ORDER BY m.id LIMIT ?",
+                    (rs, rowNum) -> new StoredMessage(rs.getInt("conversation_id"), rs.getInt("user_id"),
+                            new Message(rs.getInt("id"), rs.getString("content"),
+                                    rs.getTimestamp("timestamp").toLocalDateTime(), rs.getBoolean("is_user"))),
+                    position, upTo, BATCH_SIZE);
+
+            // Consecutive messages of one conversation are indexed together
+            Map<Integer, List<Message>> byConversation = new LinkedHashMap<>();
+            Map<Integer, Integer> owners = new LinkedHashMap<>();
+            for (StoredMessage row : rows) {
+                owners.put(row.conversationId(), row.userId());
+                byConversation.computeIfAbsent(row.conversationId(), id -> new ArrayList<>()).add(row.message());
+            }
+            byConversation.forEach((conversationId, messages) ->
+                    searchIndex.record(jdbcTemplate, conversationId, owners.get(conversationId), messages));
+
+            // An empty batch means only orphaned messages were left below up_to
+            int reached = rows.isEmpty() ? upTo : rows.get(rows.size() - 1).message().getId();
+            jdbcTemplate.update("UPDATE message_search_backfill SET position = ? WHERE id = 1", reached);
+            return rows.isEmpty() ? 0 : rows.size();
+        });
+        return indexed == null ? 0 : indexed;
+    }
+
+    private record StoredMessage(Integer conversationId, Integer userId, Message message) {
+    }
+}
@@ -0,0 +1,293 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.ConversationMatch;
+import chatbot.domain.entity.Message;
+import chatbot.domain.entity.SearchSnippet;
+import chatbot.domain.repository.MessageSearchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Per-user inverted index over message content. message_search keeps a copy of each message
+// with its owner; message_terms holds one row per (user, term, message), so every query term is
+// a primary-key range scan over that user's postings only, however many other users there are.
+// message_search_stats keeps the document counts BM25 needs, so a query never counts rows.
+// Rows are written in the transaction that stores the messages. With chat.search.enabled=false
+// nothing is indexed and searches find nothing.
+@Repository
+public class MessageSearchIndex implements MessageSearchRepository {
+
+    private static final String INSERT_DOCUMENT_SQL =
+            "INSERT INTO message_search (user_id, conversation_id, content, is_user, occurred_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_TERM_SQL =
+            "INSERT INTO message_terms (user_id, term, search_id, tf) VALUES (?, ?, ?, ?)";
+    static final String POSTINGS_SQL =
+            "SELECT search_id, tf FROM message_terms WHERE user_id = ? AND term = ? ORDER BY search_id DESC LIMIT ?";
+    private static final String ADD_STATS_SQL = "INSERT INTO message_search_stats (user_id, term, documents) "
+            + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE documents = documents + VALUES(documents)";
+    private static final String REMOVE_STATS_SQL =
+            "UPDATE message_search_stats SET documents = documents - ? WHERE user_id = ? AND term = ?";
+    private static final String EXPIRED_SQL = "SELECT id, user_id, content FROM message_search "
+            + "WHERE occurred_at < ? ORDER BY occurred_at LIMIT ? FOR UPDATE";
+    // The stats row with the empty term holds the user's message count
+    static final String ALL_MESSAGES = "";
+
+    private static final int MAX_QUERY_TERMS = 8;
+    // Messages ranked before grouping by conversation, and snippets shown per conversation
+    private static final int CANDIDATES = 200;
+    private static final int SNIPPETS_PER_CONVERSATION = 3;
+    private static final double K1 = 1.2;
+    private static final int PRUNE_BATCH = 500;
+
+    private final ShardDirectory shardDirectory;
+    private final ReadRouting readRouting;
+    private final int maxPostingsPerTerm;
+    private final boolean enabled;
+
+    public MessageSearchIndex(ShardDirectory shardDirectory,
+                              ReadRouting readRouting,
+                              @Value("${chat.search.max-postings-per-term:5000}") int maxPostingsPerTerm,
+                              @Value("${chat.search.enabled:true}") boolean enabled) {
+        this.shardDirectory = shardDirectory;
+        this.readRouting = readRouting;
+        this.maxPostingsPerTerm = maxPostingsPerTerm;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Must be called inside the transaction that writes the messages, on the conversation's shard
+    public void record(JdbcTemplate jdbcTemplate, Integer conversationId, Integer userId, List<Message> messages) {
+        if (!enabled || messages.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = insertDocuments(jdbcTemplate, conversationId, userId, messages);
+        List<Object[]> terms = new ArrayList<>();
+        // Sorted, so concurrent writes of one user lock the stats rows in the same order
+        Map<String, Integer> documentCounts = new TreeMap<>();
+        documentCounts.put(ALL_MESSAGES, messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Integer searchId = ids.get(i);
+            SearchText.termFrequencies(messages.get(i).getContent()).forEach((term, tf) -> {
+                terms.add(new Object[]{userId, term, searchId, Math.min(tf, Short.MAX_VALUE)});
+                documentCounts.merge(term, 1, Integer::sum);
+            });
+        }
+        if (!terms.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TERM_SQL, terms);
+        }
+        jdbcTemplate.batchUpdate(ADD_STATS_SQL, documentCounts.entrySet().stream()
+                .map(entry -> new Object[]{userId, entry.getKey(), entry.getValue()})
+                .toList());
+    }
+
+    // Removes the index rows of messages that occurred before the cutoff, in batches that each
+    // commit; called by retention once the messages themselves are dropped. Returns the count.
+    public int prune(Shard shard, LocalDateTime before) {
+        int pruned = 0;
+        int batch;
+        do {
+            Integer removed = shard.transactionTemplate().execute(status -> pruneBatch(shard.jdbcTemplate(), before));
+            batch = removed == null ? 0 : removed;
+            pruned += batch;
+        } while (batch == PRUNE_BATCH);
+        return pruned;
+    }
+
+    private int pruneBatch(JdbcTemplate jdbcTemplate, LocalDateTime before) {
+        List<Expired> expired = jdbcTemplate.query(EXPIRED_SQL, (rs, rowNum) -> new Expired(rs.getInt("id"),
+                rs.getInt("user_id"), rs.getString("content")), Timestamp.valueOf(before), PRUNE_BATCH);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        // A message's postings are its content's terms, so they are deleted by primary key
+        List<Object[]> postings = new ArrayList<>();
+        for (Expired message : expired) {
+            SearchText.termFrequencies(message.content()).keySet()
+                    .forEach(term -> postings.add(new Object[]{message.userId(), term, message.id()}));
+        }
+        int[] deleted = postings.isEmpty() ? new int[0]
+                : jdbcTemplate.batchUpdate("DELETE FROM message_terms WHERE user_id = ? AND term = ? AND search_id = ?", postings);
+
+        // Only postings that were there count against the stats (a driver may report a batched
+        // delete as SUCCESS_NO_INFO, so anything but 0 is a removal). Sorted like record() locks them.
+        Map<Integer, Map<String, Integer>> removed = new TreeMap<>();
+        for (int i = 0; i < postings.size(); i++) {
+            if (deleted[i] != 0) {
+                removed.computeIfAbsent((Integer) postings.get(i)[0], user -> new TreeMap<>())
+                        .merge((String) postings.get(i)[1], 1, Integer::sum);
+            }
+        }
+        expired.forEach(message -> removed.computeIfAbsent(message.userId(), user -> new TreeMap<>())
+                .merge(ALL_MESSAGES, 1, Integer::sum));
+        List<Object[]> decrements = new ArrayList<>();
+        List<Object[]> keys = new ArrayList<>();
+        removed.forEach((userId, terms) -> terms.forEach((term, count) -> {
+            decrements.add(new Object[]{count, userId, term});
+            keys.add(new Object[]{userId, term});
+        }));
+        jdbcTemplate.batchUpdate(REMOVE_STATS_SQL, decrements);
+        jdbcTemplate.batchUpdate("DELETE FROM message_search_stats WHERE user_id = ? AND term = ? AND documents <= 0", keys);
+
+        jdbcTemplate.update("DELETE FROM message_search WHERE id IN (" + placeholders(expired.size()) + ")",
+                expired.stream().map(Expired::id).toArray());
+        return expired.size();
+    }
+
+    // JdbcTemplate's batch methods do not return keys, so the batch is run by hand
+    private static List<Integer> insertDocuments(JdbcTemplate jdbcTemplate, Integer conversationId, Integer userId,
+                                                 List<Message> messages) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_DOCUMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Message message : messages) {
+                    ps.setInt(1, userId);
+                    ps.setInt(2, conversationId);
+                    ps.setString(3, message.getContent());
+                    ps.setBoolean(4, message.getIsUser());
+                    ps.setTimestamp(5, Timestamp.valueOf(message.getTimestamp()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> ids = new ArrayList<>(messages.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getInt(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    @Override
+    public List<ConversationMatch> search(Integer userId, String query, int limit) {
+        List<String> terms = SearchText.queryTerms(query, MAX_QUERY_TERMS);
+        if (!enabled || terms.isEmpty()) {
+            return List.of();
+        }
+        JdbcTemplate jdbcTemplate = shardDirectory.forUser(userId).jdbcTemplate();
+        return readRouting.read(ReadRouting.userScope(userId), () -> search(jdbcTemplate, userId, terms, limit));
+    }
+
+    private List<ConversationMatch> search(JdbcTemplate jdbcTemplate, Integer userId, List<String> terms, int limit) {
+        // The user's message count and each term's document count, in one primary-key lookup
+        List<Object> statArgs = new ArrayList<>(terms.size() + 2);
+        statArgs.add(userId);
+        statArgs.add(ALL_MESSAGES);
+        statArgs.addAll(terms);
+        Map<String, Integer> stats = new HashMap<>();
+        jdbcTemplate.query("SELECT term, documents FROM message_search_stats WHERE user_id = ? AND term IN ("
+                        + placeholders(terms.size() + 1) + ")",
+                rs -> {
+                    stats.put(rs.getString("term"), rs.getInt("documents"));
+                }, statArgs.toArray());
+        int total = stats.getOrDefault(ALL_MESSAGES, 0);
+        if (total <= 0) {
+            return List.of();
+        }
+
+        // BM25 without length normalization: chat messages are short and of similar length.
+        // Each term reads at most maxPostingsPerTerm of its newest postings, which bounds the
+        // cost of very common words; their weight is low anyway, and df is their full count.
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : terms) {
+            int df = stats.getOrDefault(term, 0);
+            if (df <= 0) {
+                continue;
+            }
+            List<int[]> postings = jdbcTemplate.query(POSTINGS_SQL,
+                    (rs, rowNum) -> new int[]{rs.getInt("search_id"), rs.getInt("tf")},
+                    userId, term, maxPostingsPerTerm);
+            double idf = Math.log(1 + (total - df + 0.5) / (df + 0.5));
+            for (int[] posting : postings) {
+                double tf = posting[1];
+                scores.merge(posting[0], idf * tf * (K1 + 1) / (tf + K1), Double::sum);
+            }
+        }
+        if (scores.isEmpty()) {
+            return List.of();
+        }
+
+        List<Integer> candidates = scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<Integer, Double>comparingByKey().reversed()))
+                .limit(CANDIDATES)
+                .map(Map.Entry::getKey)
+                .toList();
+        return group(load(jdbcTemplate, candidates), candidates, scores, new HashSet<>(terms), limit);
+    }
+
+    private static Map<Integer, Document> load(JdbcTemplate jdbcTemplate, List<Integer> ids) {
+        // Joining conversations drops documents of conversations that no longer exist
+        String sql = "SELECT s.id, s.conversation_id, s.content, s.is_user, s.occurred_at, c.name "
+                + "FROM message_search s JOIN conversations c ON c.id = s.conversation_id "
+                + "WHERE s.id IN (" + placeholders(ids.size()) + ")";
+        Map<Integer, Document> documents = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            documents.put(rs.getInt("id"), new Document(rs.getInt("conversation_id"), rs.getString("name"),
+                    rs.getString("content"), rs.getBoolean("is_user"), rs.getTimestamp("occurred_at").toLocalDateTime()));
+        }, ids.toArray());
+        return documents;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    // A conversation scores the sum of its best SNIPPETS_PER_CONVERSATION messages
+    private static List<ConversationMatch> group(Map<Integer, Document> documents, List<Integer> rankedIds,
+                                                 Map<Integer, Double> scores, Set<String> terms, int limit) {
+        Map<Integer, List<Integer>> byConversation = new LinkedHashMap<>();
+        for (Integer id : rankedIds) {
+            Document document = documents.get(id);
+            if (document == null) {
+                continue;
+            }
+            List<Integer> best = byConversation.computeIfAbsent(document.conversationId(), key -> new ArrayList<>());
+            if (best.size() < SNIPPETS_PER_CONVERSATION) {
+                best.add(id);
+            }
+        }
+
+        List<ConversationMatch> matches = new ArrayList<>(byConversation.size());
+        byConversation.forEach((conversationId, ids) -> {
+            double score = 0;
+            List<SearchSnippet> snippets = new ArrayList<>(ids.size());
+            for (Integer id : ids) {
+                Document document = documents.get(id);
+                score += scores.get(id);
+                snippets.add(SearchText.snippet(document.content(), terms, document.occurredAt(), document.isUser()));
+            }
+            matches.add(new ConversationMatch(conversationId, documents.get(ids.get(0)).conversationName(), score, snippets));
+        });
+        matches.sort(Comparator.comparingDouble(ConversationMatch::getScore).reversed());
+        return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+    }
+
+    private record Document(Integer conversationId, String conversationName, String content, boolean isUser,
+                            LocalDateTime occurredAt) {
+    }
+
+    private record Expired(int id, int userId, String content) {
+    }
+}
@@ -0,0 +1,283 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Inserts messages with their outbox rows. By default each call is its own transaction, run by
+// the caller. With db.messages.write-behind.enabled, calls are queued in a bounded buffer and a
+// single flusher commits them in group transactions of up to max-batch-rows, at most
+// flush-interval-ms after the first one arrived. Either way write() returns only once the rows
+// are committed, so callers keep their durability guarantee; they just share the commit.
+@Component
+public class MessageWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages ( content, timestamp, is_user, conversation_id) VALUES (?, ?, ?, ?)";
+    // How often a flusher waiting out a long flush interval notices stop()
+    private static final long DRAIN_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Outbox outbox;
+    // null for writers that only serve reads; their messages are not indexed
+    private final MessageSearchIndex searchIndex;
+    // A conversation never changes owner, so the index looks each one up once per node
+    private final Cache<Integer, Integer> owners = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+    private final boolean writeBehind;
+    private final BlockingQueue<PendingWrite> buffer;
+    private final long flushIntervalNanos;
+    private final int maxBatchRows;
+    private final long enqueueTimeoutMs;
+    private final DistributionSummary flushRows;
+
+    private Thread flusher;
+    private volatile boolean running;
+    // Set by stop(): the flusher exits once the buffer is empty, and only then do writes go direct
+    private volatile boolean draining;
+
+    public MessageWriter(Outbox outbox,
+                         MessageSearchIndex searchIndex,
+                         @Value("${db.messages.write-behind.enabled:false}") boolean writeBehind,
+                         @Value("${db.messages.write-behind.buffer-size:4096}") int bufferSize,
+                         @Value("${db.messages.write-behind.flush-interval-ms:5}") long flushIntervalMs,
+                         @Value("${db.messages.write-behind.max-batch-rows:500}") int maxBatchRows,
+                         @Value("${db.messages.write-behind.enqueue-timeout-ms:1000}") long enqueueTimeoutMs,
+                         MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.searchIndex = searchIndex;
+        this.writeBehind = writeBehind;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxBatchRows = maxBatchRows;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.flushRows = DistributionSummary.builder("db.messages.flush.rows")
+                .description("Messages committed per group transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        if (writeBehind) {
+            Gauge.builder("db.messages.write-behind.buffered", buffer, BlockingQueue::size)
+                    .description("Message writes waiting for the next group commit")
+                    .register(meterRegistry);
+        }
+    }
+
+    // One transaction per call, in the caller's thread; for code that never writes
+    public static MessageWriter direct(Outbox outbox) {
+        return new MessageWriter(outbox, null, false, 1, 0, 1, 0, new SimpleMeterRegistry());
+    }
+
+    // Blocks until the messages are committed. Writes to one conversation are committed in call order.
+    public void write(WriteRoute route, Integer conversationId, List<Message> messages) {
+        if (!writeBehind || !running) {
+            commit(route.shard(), List.of(new PendingWrite(conversationId, messages, route)));
+            return;
+        }
+
+        PendingWrite write = new PendingWrite(conversationId, messages, route);
+        try {
+            // Backpressure: a full buffer holds the caller, then fails it, instead of growing
+            if (!buffer.offer(write, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new TransientDataAccessResourceException("Message write buffer is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted while queueing messages", e);
+        }
+
+        awaitCommit(write);
+    }
+
+    // Not interruptible: once queued the rows may commit, and the caller must not assume otherwise
+    private void awaitCommit(PendingWrite write) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    write.committed().get(1, TimeUnit.SECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    // Queued just as the flusher stopped: nobody else will commit it
+                    if (!running && buffer.remove(write)) {
+                        commit(write.route().shard(), List.of(write));
+                        return;
+                    }
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : new CompletionException(e.getCause());
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!writeBehind) {
+            return;
+        }
+        draining = false;
+        running = true;
+        flusher = Thread.ofPlatform()
+                .name("message-flusher")
+                .daemon(true)
+                .start(this::flushLoop);
+    }
+
+    // Runs before the connection pools close. The buffer is committed first and only then do new
+    // writes go direct, so a direct write never overtakes one still waiting in the buffer.
+    @Override
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        draining = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+        flusher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (!draining || !buffer.isEmpty()) {
+            try {
+                PendingWrite first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                int rows = first.messages().size();
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (rows < maxBatchRows) {
+                    long remaining = deadline - System.nanoTime();
+                    // Once stopping, group what is already buffered without waiting for more
+                    PendingWrite next = remaining > 0 && !draining
+                            ? buffer.poll(Math.min(remaining, DRAIN_CHECK_NANOS), TimeUnit.NANOSECONDS)
+                            : buffer.poll();
+                    if (next == null) {
+                        if (remaining > DRAIN_CHECK_NANOS && !draining) {
+                            continue;
+                        }
+                        break;
+                    }
+                    batch.add(next);
+                    rows += next.messages().size();
+                }
+            } catch (InterruptedException e) {
+                // Keep draining: callers are waiting on these writes
+                Thread.interrupted();
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    // One transaction per shard; the buffer order, and so each conversation's order, is kept
+    private void flush(List<PendingWrite> batch) {
+        Map<Shard, List<PendingWrite>> byShard = new LinkedHashMap<>();
+        for (PendingWrite write : batch) {
+            byShard.computeIfAbsent(write.route().shard(), shard -> new ArrayList<>()).add(write);
+        }
+        byShard.forEach((shard, writes) -> {
+            try {
+                commit(shard, writes);
+                writes.forEach(write -> write.committed().complete(null));
+            } catch (RuntimeException e) {
+                // One bad write must not fail the others it was grouped with: retry them one by one
+                logger.warn("Group commit of {} message write(s) on shard {} failed, retrying singly: {}",
+                        writes.size(), shard.id(), e.getMessage());
+                for (PendingWrite write : writes) {
+                    try {
+                        commit(shard, List.of(write));
+                        write.committed().complete(null);
+                    } catch (RuntimeException single) {
+                        write.committed().completeExceptionally(single);
+                    }
+                }
+            }
+        });
+    }
+
+    // With rewriteBatchedStatements the driver sends a single multi-row INSERT. The outbox and
+    // search index rows commit or roll back together with the messages, behind the fences of the
+    // buckets written to.
+    private void commit(Shard shard, List<PendingWrite> writes) {
+        List<Object[]> rows = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            for (Message message : write.messages()) {
+                rows.add(new Object[]{message.getContent(), Timestamp.valueOf(message.getTimestamp()),
+                        message.getIsUser(), write.conversationId()});
+            }
+        }
+        shard.transactionTemplate().executeWithoutResult(status -> {
+            writes.stream().map(PendingWrite::route).distinct().forEach(WriteRoute::checkFence);
+            shard.jdbcTemplate().batchUpdate(INSERT_SQL, rows);
+            for (PendingWrite write : writes) {
+                outbox.record(shard.jdbcTemplate(), write.conversationId(), write.messages());
+                index(shard.jdbcTemplate(), write);
+            }
+        });
+        flushRows.record(rows.size());
+    }
+
+    private void index(JdbcTemplate jdbcTemplate, PendingWrite write) {
+        if (searchIndex == null || !searchIndex.isEnabled()) {
+            return;
+        }
+        // An unknown conversation is not cached, so it is looked up again if it is created later
+        Integer userId = owners.get(write.conversationId(), conversationId -> jdbcTemplate.query(
+                "SELECT user_id FROM conversations WHERE id = ?",
+                rs -> rs.next() ? rs.getInt(1) : null, conversationId));
+        // Messages of a conversation that does not exist have no owner to be searched by
+        if (userId != null) {
+            searchIndex.record(jdbcTemplate, write.conversationId(), userId, write.messages());
+        }
+    }
+
+    private record PendingWrite(Integer conversationId, List<Message> messages, WriteRoute route,
+                                CompletableFuture<Void> committed) {
+
+        PendingWrite(Integer conversationId, List<Message> messages, WriteRoute route) {
+            this(conversationId, messages, route, new CompletableFuture<>());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Message;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+// Transactional outbox: one row per stored message, written in the transaction that stores the
+// messages, on the same database. OutboxRelay hands the rows to the OutboxSubscribers once that
+// transaction has committed. With outbox.enabled=false nothing is recorded.
+@Component
+public class Outbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox (conversation_id, is_user, content, occurred_at) VALUES (?, ?, ?, ?)";
+
+    private final boolean enabled;
+
+    public Outbox(@Value("${outbox.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Must be called inside the transaction that writes the messages
+    public void record(JdbcTemplate jdbcTemplate, Integer conversationId, List<Message> messages) {
+        if (!enabled || messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (ps, message) -> {
+            ps.setInt(1, conversationId);
+            ps.setBoolean(2, message.getIsUser());
+            ps.setString(3, message.getContent());
+            ps.setTimestamp(4, Timestamp.valueOf(message.getTimestamp()));
+        });
+    }
+}
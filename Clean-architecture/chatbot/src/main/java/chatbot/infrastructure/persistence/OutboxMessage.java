@@ -0,0 +1,9 @@
+package chatbot.infrastructure.persistence;
+
+import java.time.LocalDateTime;
+
+// A stored message as delivered by OutboxRelay. id is unique on its shard only, and a row can
+// commit (and be delivered) after rows with higher ids.
+public record OutboxMessage(long id, Integer conversationId, boolean fromUser, String content,
+                            LocalDateTime occurredAt, LocalDateTime recordedAt) {
+}
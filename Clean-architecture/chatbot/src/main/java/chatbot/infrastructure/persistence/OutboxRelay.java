@@ -0,0 +1,89 @@
+package chatbot.infrastructure.persistence;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Delivers outbox rows to the subscribers in batches and deletes them in the same transaction,
+// so a batch is only removed once every subscriber has taken it. The selected rows stay locked
+// until then: relays on other nodes wait instead of delivering the same rows out of order.
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String BATCH_SQL = "SELECT * FROM outbox ORDER BY id LIMIT ? FOR UPDATE";
+
+    private final ShardDirectory shardDirectory;
+    private final List<OutboxSubscriber> subscribers;
+    private final int batchSize;
+    private final Timer deliveryLag;
+
+    private final RowMapper<OutboxMessage> rowMapper = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("id"),
+            rs.getInt("conversation_id"),
+            rs.getBoolean("is_user"),
+            rs.getString("content"),
+            rs.getTimestamp("occurred_at").toLocalDateTime(),
+            rs.getTimestamp("recorded_at").toLocalDateTime()
+    );
+
+    public OutboxRelay(ShardDirectory shardDirectory,
+                       List<OutboxSubscriber> subscribers,
+                       @Value("${outbox.batch-size:500}") int batchSize,
+                       MeterRegistry meterRegistry) {
+        this.shardDirectory = shardDirectory;
+        this.subscribers = subscribers;
+        this.batchSize = batchSize;
+        this.deliveryLag = Timer.builder("outbox.delivery.lag")
+                .description("Time from storing a message to delivering it to the outbox subscribers")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:200}")
+    public void relay() {
+        for (Shard shard : shardDirectory.shards()) {
+            try {
+                int delivered;
+                do {
+                    delivered = relayBatch(shard);
+                } while (delivered == batchSize);
+            } catch (RuntimeException e) {
+                // Nothing was deleted; the batch is delivered again on the next run
+                logger.error("Error relaying outbox of shard {}: {}", shard.id(), e.getMessage());
+            }
+        }
+    }
+
+    private int relayBatch(Shard shard) {
+        Integer delivered = shard.transactionTemplate().execute(status -> {
+            List<OutboxMessage> batch = shard.jdbcTemplate().query(BATCH_SQL, rowMapper, batchSize);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            for (OutboxSubscriber subscriber : subscribers) {
+                subscriber.onMessages(shard.id(), batch);
+            }
+            // By id, not by range: a lower id that commits later must still be delivered
+            shard.jdbcTemplate().batchUpdate("DELETE FROM outbox WHERE id = ?", batch, batch.size(),
+                    (ps, message) -> ps.setLong(1, message.id()));
+
+            LocalDateTime now = LocalDateTime.now();
+            batch.forEach(message -> deliveryLag.record(Duration.between(message.recordedAt(), now)));
+            return batch.size();
+        });
+        return delivered == null ? 0 : delivered;
+    }
+}
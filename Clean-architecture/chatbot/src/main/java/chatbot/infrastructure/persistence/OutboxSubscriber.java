@@ -0,0 +1,11 @@
+package chatbot.infrastructure.persistence;
+
+import java.util.List;
+
+// Downstream work driven by stored messages. Batches arrive in outbox order per shard, off the
+// request path. Delivery is at least once: when any subscriber throws, the whole batch is
+// delivered again, so handlers must tolerate seeing a message twice.
+public interface OutboxSubscriber {
+
+    void onMessages(int shardId, List<OutboxMessage> messages);
+}
@@ -0,0 +1,80 @@
+package chatbot.infrastructure.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Runs EXPLAIN on the repository hot-path queries and reports any that fall back to a table scan.
+// QueryPlanVerifierTest runs the same check against a migrated MySQL schema.
+@Component
+@ConditionalOnProperty(name = "db.explain-check.enabled", havingValue = "true")
+public class QueryPlanVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanVerifier.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean failOnScan;
+
+    public QueryPlanVerifier(JdbcTemplate jdbcTemplate,
+                             @Value("${db.explain-check.fail-on-scan:false}") boolean failOnScan) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.failOnScan = failOnScan;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        List<String> scans = findScans(jdbcTemplate);
+        if (scans.isEmpty()) {
+            return;
+        }
+        scans.forEach(scan -> logger.error("EXPLAIN table scan: {}", scan));
+        if (failOnScan) {
+            throw new IllegalStateException("Hot-path queries are not using an index: " + scans);
+        }
+    }
+
+    // The hot-path queries with representative arguments
+    static Map<String, Object[]> hotQueries() {
+        Map<String, Object[]> queries = new LinkedHashMap<>();
+        queries.put(JdbcConversationRepository.FIND_BY_ID_SQL, new Object[]{1});
+        queries.put(JdbcConversationRepository.FIND_BY_USER_ID_SQL, new Object[]{1});
+        queries.put(JdbcConversationRepository.MESSAGES_SQL, new Object[]{1});
+        queries.put(JdbcConversationRepository.LATEST_MESSAGES_SQL, new Object[]{1, 51});
+        queries.put(JdbcConversationRepository.MESSAGES_BEFORE_SQL, new Object[]{1, Integer.MAX_VALUE, 51});
+        queries.put(JdbcUserRepository.FIND_BY_EMAIL_SQL, new Object[]{"alice@example.com"});
+        queries.put(MessageSearchIndex.POSTINGS_SQL, new Object[]{1, "hello", 5000});
+        return queries;
+    }
+
+    // One entry per plan row that reads a table without an index
+    static List<String> findScans(JdbcTemplate jdbcTemplate) {
+        List<String> scans = new ArrayList<>();
+        hotQueries().forEach((sql, args) -> {
+            for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + sql, args)) {
+                String type = (String) row.get("type");
+                Object key = row.get("key");
+                String extra = String.valueOf(row.get("Extra"));
+                if (extra.contains("no matching row") || extra.contains("Impossible WHERE")) {
+                    // The optimizer already answered the query from an index lookup
+                    logger.info("EXPLAIN ok (resolved by optimizer): {}", sql);
+                } else if (key == null || "ALL".equals(type)) {
+                    scans.add(sql + " -> type=" + type + ", rows=" + row.get("rows"));
+                } else {
+                    logger.info("EXPLAIN ok: {} -> key={}, type={}, rows={}, partitions={}",
+                            sql, key, type, row.get("rows"), row.get("partitions"));
+                }
+            }
+        });
+        return scans;
+    }
+}
@@ -0,0 +1,114 @@
+package chatbot.infrastructure.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Decides which reads may be served by a replica. Repositories wrap read-only queries in read()
+// with a scope naming the data they touch ("conversation:12", "user:3"), and call markWritten()
+// for the scopes a write changed. A scope written within the read-your-writes window is read
+// from the primary, on every node: the marker is kept locally and in Redis.
+// The choice is handed to ReplicaRoutingDataSource through a thread-local flag; inside a
+// transaction the connection is already bound, so reads there always stay on the primary.
+@Component
+public class ReadRouting {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadRouting.class);
+    private static final String MARKER_PREFIX = "db:written:";
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Duration window;
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, Boolean> recentWrites;
+
+    public ReadRouting(@Value("${db.replicas.enabled:false}") boolean enabled,
+                       @Value("${db.replicas.read-your-writes-ms:5000}") long windowMs,
+                       StringRedisTemplate redisTemplate) {
+        this.enabled = enabled;
+        this.window = Duration.ofMillis(windowMs);
+        this.redisTemplate = redisTemplate;
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    // Every read goes to the primary; for code that builds repositories by hand (benchmarks)
+    public static ReadRouting primaryOnly() {
+        return new ReadRouting(false, 0, null);
+    }
+
+    // Read by ReplicaRoutingDataSource when a connection is requested
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    public <T> T read(String scope, Supplier<T> query) {
+        if (!enabled || recentlyWritten(scope)) {
+            return query.get();
+        }
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+            // The replica went away between lag checks; the primary answers this one
+            logger.warn("Replica read for {} failed ({}), retrying on the primary", scope, e.getMessage());
+        } finally {
+            REPLICA_READ.remove();
+        }
+        return query.get();
+    }
+
+    public void markWritten(String... scopes) {
+        if (!enabled) {
+            return;
+        }
+        for (String scope : scopes) {
+            recentWrites.put(scope, Boolean.TRUE);
+            try {
+                redisTemplate.opsForValue().set(MARKER_PREFIX + scope, "1", window);
+            } catch (RuntimeException e) {
+                // Other nodes may serve this scope from a lagging replica until the window passes
+                logger.warn("Could not publish write marker for {}: {}", scope, e.getMessage());
+            }
+        }
+    }
+
+    // Costs one Redis EXISTS per replica-eligible read that this node has not written itself:
+    // that round trip is what makes another node's write visible here. It is cheaper than the
+    // primary read it saves, but it is paid on every such read; with a single node, or sticky
+    // sessions, the local cache alone would be enough.
+    private boolean recentlyWritten(String scope) {
+        if (recentWrites.getIfPresent(scope) != null) {
+            return true;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(MARKER_PREFIX + scope));
+        } catch (RuntimeException e) {
+            // Without the markers we cannot tell, so stay consistent
+            return true;
+        }
+    }
+
+    public static String conversationScope(Integer conversationId) {
+        return "conversation:" + conversationId;
+    }
+
+    public static String userScope(Integer userId) {
+        return "user:" + userId;
+    }
+
+    public static String emailScope(String email) {
+        return "email:" + email;
+    }
+}
@@ -0,0 +1,196 @@
+package chatbot.infrastructure.persistence;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Redis-backed chat history used to build model prompts. Every operation is a single round trip,
+// and all keys of a conversation share the {id} hash tag, so it behaves the same on a Redis Cluster.
+// History lists are capped at the window the prompt builder reads.
+@Repository
+public class RedisChatHistoryRepository {
+
+    static final Duration HISTORY_TTL = Duration.ofDays(30);
+    // How long an entry appended on the request path waits for its outbox delivery to be skipped
+    static final Duration PENDING_TTL = Duration.ofMinutes(10);
+    // How long delivered outbox rows are remembered; redeliveries follow a failed relay batch
+    static final Duration DELIVERED_TTL = Duration.ofHours(1);
+
+    private static final RedisScript<Long> APPEND_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/append_history.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> APPEND_ONCE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/append_history_once.lua"), List.class);
+
+    private final RedisTemplate<String, byte[]> historyTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final int maxEntries;
+
+    public RedisChatHistoryRepository(@Qualifier("chatHistoryRedisTemplate") RedisTemplate<String, byte[]> historyTemplate,
+                                      StringRedisTemplate redisTemplate,
+                                      @Value("${ai.prompt.max-history-entries:40}") int maxEntries) {
+        this.historyTemplate = historyTemplate;
+        this.redisTemplate = redisTemplate;
+        this.maxEntries = maxEntries;
+    }
+
+    // Summary and the retained entries for prompt building, pipelined into one round trip
+    public ChatContext context(Integer conversationId) {
+        List<Object> results = historyTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForValue().get(summaryKey(conversationId));
+                operations.opsForList().range(historyKey(conversationId), 0, -1);
+                return null;
+            }
+        });
+        return new ChatContext(text(results.get(0)), entries(results.get(1)));
+    }
+
+    // RPUSH + LTRIM + PEXPIRE + INCRBY in one script; returns how many entries were ever appended.
+    // With outboxFollows the entries are also counted as pending, so appendOnce() skips them when
+    // the outbox delivers them after they are stored.
+    public long append(Integer conversationId, List<HistoryEntry> entries, boolean outboxFollows) {
+        List<byte[]> args = new ArrayList<>(entries.size() + 3);
+        args.add(bytes(HISTORY_TTL.toMillis()));
+        args.add(bytes(maxEntries));
+        args.add(bytes(PENDING_TTL.toMillis()));
+        entries.forEach(entry -> args.add(entry.encode()));
+        List<String> keys = outboxFollows
+                ? List.of(historyKey(conversationId), appendedKey(conversationId), pendingKey(conversationId))
+                : List.of(historyKey(conversationId), appendedKey(conversationId));
+        Long appended = historyTemplate.execute(APPEND_SCRIPT, keys, args.toArray());
+        return appended == null ? 0 : appended;
+    }
+
+    // append() for outbox deliveries: each row id (unique per shard) is appended at most once,
+    // whatever order the rows commit in, and rows already appended by append() are skipped
+    public Appended appendOnce(Integer conversationId, int shardId, List<Long> outboxIds, List<HistoryEntry> entries) {
+        List<byte[]> args = new ArrayList<>(entries.size() * 2 + 4);
+        args.add(bytes(HISTORY_TTL.toMillis()));
+        args.add(bytes(maxEntries));
+        args.add(bytes(System.currentTimeMillis()));
+        args.add(bytes(DELIVERED_TTL.toMillis()));
+        for (int i = 0; i < entries.size(); i++) {
+            args.add((shardId + ":" + outboxIds.get(i)).getBytes(StandardCharsets.UTF_8));
+            args.add(entries.get(i).encode());
+        }
+        List<?> result = historyTemplate.execute(APPEND_ONCE_SCRIPT,
+                List.of(historyKey(conversationId), appendedKey(conversationId),
+                        deliveredKey(conversationId), pendingKey(conversationId)),
+                args.toArray());
+        return result == null ? new Appended(0, 0)
+                : new Appended((Long) result.get(0), ((Long) result.get(1)).intValue());
+    }
+
+    // The previous summary and the entries appended since it was written, in one round trip.
+    // Entries already trimmed from the list are gone; the summary then skips over them.
+    public SummaryInput summaryInput(Integer conversationId) {
+        List<Object> results = historyTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForValue().get(summaryKey(conversationId));
+                operations.opsForValue().get(summarizedUpToKey(conversationId));
+                operations.opsForValue().get(appendedKey(conversationId));
+                operations.opsForList().range(historyKey(conversationId), 0, -1);
+                return null;
+            }
+        });
+        long summarizedUpTo = number(results.get(1));
+        long appended = number(results.get(2));
+        List<HistoryEntry> retained = entries(results.get(3));
+
+        long unsummarized = Math.max(0, appended - summarizedUpTo);
+        int newCount = (int) Math.min(unsummarized, retained.size());
+        List<HistoryEntry> newEntries = retained.subList(retained.size() - newCount, retained.size());
+        return new SummaryInput(text(results.get(0)), newEntries, appended);
+    }
+
+    // Writes the summary and its coverage in one pipelined round trip
+    public void saveSummary(Integer conversationId, String summary, long summarizedUpTo) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForValue().set(summaryKey(conversationId), summary, HISTORY_TTL);
+                operations.opsForValue().set(summarizedUpToKey(conversationId), String.valueOf(summarizedUpTo), HISTORY_TTL);
+                return null;
+            }
+        });
+    }
+
+    int maxEntries() {
+        return maxEntries;
+    }
+
+    private static List<HistoryEntry> entries(Object result) {
+        if (result == null) {
+            return List.of();
+        }
+        @SuppressWarnings("unchecked")
+        List<byte[]> encoded = (List<byte[]>) result;
+        List<HistoryEntry> entries = new ArrayList<>(encoded.size());
+        encoded.forEach(value -> entries.add(HistoryEntry.decode(value)));
+        return entries;
+    }
+
+    private static String text(Object result) {
+        return result == null ? null : new String((byte[]) result, StandardCharsets.UTF_8);
+    }
+
+    private static long number(Object result) {
+        return result == null ? 0 : Long.parseLong(text(result));
+    }
+
+    private static byte[] bytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public record ChatContext(String summary, List<HistoryEntry> recentEntries) {
+    }
+
+    // Entries ever appended to the conversation, and how many of them this call added
+    public record Appended(long total, int added) {
+    }
+
+    public record SummaryInput(String previousSummary, List<HistoryEntry> newEntries, long appended) {
+    }
+
+    static String historyKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:history";
+    }
+
+    static String appendedKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:appended";
+    }
+
+    // A sorted set of shard:row id by delivery time; the old chat:{id}:delivered hash just expires
+    static String deliveredKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:delivered:rows";
+    }
+
+    static String pendingKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:pending";
+    }
+
+    static String summaryKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:summary";
+    }
+
+    static String summarizedUpToKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:summary:upto";
+    }
+}
@@ -0,0 +1,76 @@
+package chatbot.infrastructure.persistence;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cross-node bookkeeping for single-flight model calls: a lease-bound lock per call holding the
+// id of the flight that runs it, and a short-lived result key per flight that followers on other
+// nodes read. Results are keyed by flight, so a follower only ever sees the result of the flight
+// it waited on, never one left by an earlier identical call. All keys carry the {id} hash tag.
+@Repository
+public class RedisInFlightRegistry {
+
+    private static final RedisScript<String> ACQUIRE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/acquire_flight.lua"), String.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/release_flight.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisInFlightRegistry(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    // The flight now running the call: flightId when it was acquired, otherwise the one to wait on
+    public String tryAcquire(Integer conversationId, String callHash, String flightId, Duration lease) {
+        String holder = redisTemplate.execute(ACQUIRE_SCRIPT, List.of(lockKey(conversationId, callHash)),
+                flightId, String.valueOf(lease.toMillis()));
+        // Null only when the lock expired in between; nothing left to wait on
+        return holder != null ? holder : flightId;
+    }
+
+    // result may be null when the call failed; the lock is released either way
+    public void release(Integer conversationId, String callHash, String flightId, String result, Duration resultTtl) {
+        List<String> args = new ArrayList<>(3);
+        args.add(flightId);
+        args.add(String.valueOf(resultTtl.toMillis()));
+        if (result != null) {
+            args.add(result);
+        }
+        redisTemplate.execute(RELEASE_SCRIPT,
+                List.of(lockKey(conversationId, callHash), resultKey(conversationId, callHash, flightId)), args.toArray());
+    }
+
+    // Result published by the flight and whether it still holds the lock, in one round trip
+    public FlightState state(Integer conversationId, String callHash, String flightId) {
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                operations.opsForValue().get(resultKey(conversationId, callHash, flightId));
+                operations.opsForValue().get(lockKey(conversationId, callHash));
+                return null;
+            }
+        });
+        return new FlightState((String) results.get(0), flightId.equals(results.get(1)));
+    }
+
+    public record FlightState(String result, boolean running) {
+    }
+
+    static String lockKey(Integer conversationId, String callHash) {
+        return "chat:{" + conversationId + "}:flight:" + callHash;
+    }
+
+    static String resultKey(Integer conversationId, String callHash, String flightId) {
+        return "chat:{" + conversationId + "}:flight:" + callHash + ":result:" + flightId;
+    }
+}
@@ -0,0 +1,149 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.application.service.RateLimiter;
+import chatbot.application.service.TokenEstimator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+// Per-user token buckets for chat requests and model tokens, shared by all nodes through Redis.
+// Each node leases small batches from the Redis buckets and admits requests locally until the
+// lease runs out or expires, so most requests cost no Redis round trip. Unused lease is lost on
+// expiry, which errs on the side of admitting slightly less than the configured rate. Reply tokens
+// are charged to the shared bucket, not the lease, so a lease expiring cannot forgive them.
+@Component
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimiter.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/rate_limit.lua"), List.class);
+    private static final RedisScript<Long> CHARGE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/rate_limit_charge.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final double requestCapacity;
+    private final double requestsPerMs;
+    private final double tokenCapacity;
+    private final double tokensPerMs;
+    private final long batchRequests;
+    private final long batchTokens;
+    private final Cache<Integer, Lease> leases;
+
+    public RedisRateLimiter(StringRedisTemplate redisTemplate,
+                            @Value("${rate-limit.enabled:true}") boolean enabled,
+                            @Value("${rate-limit.requests-per-minute:30}") double requestsPerMinute,
+                            @Value("${rate-limit.request-burst:10}") double requestBurst,
+                            @Value("${rate-limit.tokens-per-minute:20000}") double tokensPerMinute,
+                            @Value("${rate-limit.token-burst:8000}") double tokenBurst,
+                            @Value("${rate-limit.local-batch-requests:2}") long batchRequests,
+                            @Value("${rate-limit.local-batch-tokens:1000}") long batchTokens,
+                            @Value("${rate-limit.local-lease-ms:2000}") long leaseMs) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.requestCapacity = requestBurst;
+        this.requestsPerMs = requestsPerMinute / 60_000;
+        this.tokenCapacity = tokenBurst;
+        this.tokensPerMs = tokensPerMinute / 60_000;
+        this.batchRequests = batchRequests;
+        this.batchTokens = batchTokens;
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(leaseMs))
+                .build();
+    }
+
+    @Override
+    public long tryAcquire(Integer userId, String prompt) {
+        if (!enabled) {
+            return 0;
+        }
+        long estimate = TokenEstimator.estimate(prompt);
+        Lease lease = leases.get(userId, id -> new Lease());
+        synchronized (lease) {
+            if (lease.requests >= 1 && lease.tokens >= estimate) {
+                lease.take(estimate);
+                return 0;
+            }
+
+            long requestsNeeded = lease.requests >= 1 ? 0 : 1;
+            // A prompt larger than the whole bucket is admitted once the bucket is full
+            long tokensNeeded = (long) Math.min(Math.max(0, estimate - lease.tokens), tokenCapacity);
+            Grant grant;
+            try {
+                grant = take(userId, Math.max(batchRequests, requestsNeeded), requestsNeeded,
+                        Math.max(batchTokens, tokensNeeded), tokensNeeded);
+            } catch (RuntimeException e) {
+                // Fail open: losing Redis must not take the chat endpoints down with it
+                logger.warn("Rate limiter unavailable for userId={}: {}", userId, e.getMessage());
+                return 0;
+            }
+            if (grant.retryAfterMs() > 0) {
+                return grant.retryAfterMs();
+            }
+            lease.requests += grant.requests();
+            lease.tokens += grant.tokens();
+            lease.take(estimate);
+            return 0;
+        }
+    }
+
+    @Override
+    public void recordReply(Integer userId, String reply) {
+        if (!enabled || reply == null) {
+            return;
+        }
+        long used = TokenEstimator.estimate(reply);
+        try {
+            // Carried by the bucket as a debt that the refill pays off before the next grant
+            Long level = redisTemplate.execute(CHARGE_SCRIPT, List.of(bucketKey(userId)),
+                    String.valueOf(tokenCapacity), String.valueOf(tokensPerMs), String.valueOf(used),
+                    String.valueOf(requestCapacity), String.valueOf(requestsPerMs));
+            if (level != null && level < 0) {
+                // In debt: stop admitting from this node's lease and ask Redis next time
+                leases.invalidate(userId);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not charge reply tokens for userId={}: {}", userId, e.getMessage());
+        }
+    }
+
+    private Grant take(Integer userId, long requestsWanted, long requestsRequired, long tokensWanted, long tokensRequired) {
+        @SuppressWarnings("unchecked")
+        List<Long> result = redisTemplate.execute(TAKE_SCRIPT, List.of(bucketKey(userId)),
+                String.valueOf(requestCapacity), String.valueOf(requestsPerMs),
+                String.valueOf(requestsWanted), String.valueOf(requestsRequired),
+                String.valueOf(tokenCapacity), String.valueOf(tokensPerMs),
+                String.valueOf(tokensWanted), String.valueOf(tokensRequired));
+        return new Grant(result.get(0), result.get(1), result.get(2));
+    }
+
+    private record Grant(long requests, long tokens, long retryAfterMs) {
+    }
+
+    // Allowance this node has already taken from the shared buckets
+    private static class Lease {
+        private long requests;
+        private long tokens;
+
+        private void take(long estimatedTokens) {
+            requests--;
+            tokens -= estimatedTokens;
+        }
+    }
+
+    static String bucketKey(Integer userId) {
+        return "ratelimit:{" + userId + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.application.service.ResponseCacheSettings;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+
+// Conversations opted out of reply caching carry a chat:{id}:nocache flag; caching is the default.
+// Flags are read on every chat turn, so each node keeps them for refresh-ms instead of asking Redis
+// each time; a change made on another node takes effect here within that delay.
+@Repository
+public class RedisResponseCacheSettings implements ResponseCacheSettings {
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<Integer, Boolean> enabled;
+
+    public RedisResponseCacheSettings(StringRedisTemplate redisTemplate,
+                                      @Value("${ai.cache.settings-refresh-ms:5000}") long refreshMs) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(refreshMs))
+                .build();
+    }
+
+    @Override
+    public boolean isEnabled(Integer conversationId) {
+        return enabled.get(conversationId,
+                id -> !Boolean.TRUE.equals(redisTemplate.hasKey(noCacheKey(id))));
+    }
+
+    @Override
+    public void setEnabled(Integer conversationId, boolean enabled) {
+        if (enabled) {
+            redisTemplate.delete(noCacheKey(conversationId));
+        } else {
+            redisTemplate.opsForValue().set(noCacheKey(conversationId), "1");
+        }
+        this.enabled.put(conversationId, enabled);
+    }
+
+    static String noCacheKey(Integer conversationId) {
+        return "chat:{" + conversationId + "}:nocache";
+    }
+}
@@ -0,0 +1,85 @@
+package chatbot.infrastructure.persistence;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+// Durable work queue of conversations waiting for a summary.
+// A taken item is leased to its worker until acknowledged; when the lease runs out (the worker
+// died or stalled) any node reclaims it, so a crashed worker loses nothing and live workers on
+// other nodes keep their items. All keys share the {summary} hash tag and therefore a single cluster slot.
+@Repository
+public class RedisSummaryQueue {
+
+    static final String PENDING_KEY = "chat:{summary}:pending";
+    static final String QUEUE_KEY = "chat:{summary}:queue";
+    static final String LEASES_KEY = "chat:{summary}:leases";
+
+    private static final int RECLAIM_BATCH = 100;
+
+    private static final RedisScript<Long> ENQUEUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/enqueue_summary.lua"), Long.class);
+    private static final RedisScript<String> TAKE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/take_summary.lua"), String.class);
+    private static final RedisScript<Long> RECLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/reclaim_summaries.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lease;
+
+    public RedisSummaryQueue(StringRedisTemplate redisTemplate,
+                             @Value("${ai.summary.lease-ms:120000}") long leaseMs,
+                             MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.lease = Duration.ofMillis(leaseMs);
+        // Read from Redis on each scrape, so every node reports the shared backlog
+        Gauge.builder("ai.summary.queue.depth", this, RedisSummaryQueue::depthOrNaN)
+                .description("Conversations waiting for a background summary")
+                .register(meterRegistry);
+    }
+
+    // Returns false when the conversation was already waiting and the request was coalesced
+    public boolean enqueue(Integer conversationId) {
+        Long queued = redisTemplate.execute(ENQUEUE_SCRIPT, List.of(PENDING_KEY, QUEUE_KEY), conversationId.toString());
+        return queued != null && queued == 1;
+    }
+
+    // Null when nothing is waiting; the taken id stays leased to the caller until acknowledged
+    public Integer take() {
+        String id = redisTemplate.execute(TAKE_SCRIPT, List.of(PENDING_KEY, QUEUE_KEY, LEASES_KEY),
+                Long.toString(System.currentTimeMillis() + lease.toMillis()));
+        return id == null ? null : Integer.valueOf(id);
+    }
+
+    public void acknowledge(Integer conversationId) {
+        redisTemplate.opsForZSet().remove(LEASES_KEY, conversationId.toString());
+    }
+
+    // Puts back items whose lease expired, making them pending again so new requests coalesce
+    public long reclaimExpired() {
+        Long reclaimed = redisTemplate.execute(RECLAIM_SCRIPT, List.of(PENDING_KEY, QUEUE_KEY, LEASES_KEY),
+                Long.toString(System.currentTimeMillis()), Integer.toString(RECLAIM_BATCH));
+        return reclaimed == null ? 0 : reclaimed;
+    }
+
+    public long depth() {
+        Long size = redisTemplate.opsForList().size(QUEUE_KEY);
+        return size == null ? 0 : size;
+    }
+
+    // A scrape must not fail because Redis is down; NaN shows up as a gap instead of a zero
+    private double depthOrNaN() {
+        try {
+            return depth();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.SearchSnippet;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Tokenizing shared by indexing and querying, plus snippet extraction. Words are lower-cased
+// and stripped of diacritics, so "Hà Nội" is found by "ha noi" as well as by "hà nội".
+final class SearchText {
+
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MAX_TERM_LENGTH = 40;
+    // Bounds the index rows a very long reply can add
+    static final int MAX_TERMS_PER_MESSAGE = 500;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int SNIPPET_LENGTH = 160;
+    private static final int SNIPPET_LEAD = 50;
+
+    private SearchText() {
+    }
+
+    static String fold(String word) {
+        String lower = word.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        return MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    // Term -> occurrences in the text
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            String term = fold(matcher.group());
+            if (!indexable(term) || (frequencies.size() >= MAX_TERMS_PER_MESSAGE && !frequencies.containsKey(term))) {
+                continue;
+            }
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    static List<String> queryTerms(String query, int maxTerms) {
+        Set<String> terms = new LinkedHashSet<>();
+        Matcher matcher = WORD.matcher(query);
+        while (matcher.find() && terms.size() < maxTerms) {
+            String term = fold(matcher.group());
+            if (indexable(term)) {
+                terms.add(term);
+            }
+        }
+        return List.copyOf(terms);
+    }
+
+    // Up to SNIPPET_LENGTH characters starting a little before the first match, with the
+    // positions of every matched word inside it
+    static SearchSnippet snippet(String content, Set<String> terms, LocalDateTime timestamp, Boolean isUser) {
+        List<int[]> matches = new ArrayList<>();
+        Matcher matcher = WORD.matcher(content);
+        while (matcher.find()) {
+            if (terms.contains(fold(matcher.group()))) {
+                matches.add(new int[]{matcher.start(), matcher.end()});
+            }
+        }
+
+        int start = matches.isEmpty() ? 0 : Math.max(0, matches.get(0)[0] - SNIPPET_LEAD);
+        // Start on a word boundary rather than in the middle of one
+        while (start > 0 && Character.isLetterOrDigit(content.charAt(start - 1))) {
+            start--;
+        }
+        int end = Math.min(content.length(), start + SNIPPET_LENGTH);
+        String prefix = start > 0 ? "…" : "";
+        String suffix = end < content.length() ? "…" : "";
+
+        List<SearchSnippet.Highlight> highlights = new ArrayList<>();
+        for (int[] match : matches) {
+            if (match[0] >= start && match[1] <= end) {
+                highlights.add(new SearchSnippet.Highlight(match[0] - start + prefix.length(), match[1] - start + prefix.length()));
+            }
+        }
+        return new SearchSnippet(prefix + content.substring(start, end) + suffix, timestamp, isUser, highlights);
+    }
+
+    private static boolean indexable(String term) {
+        return term.length() >= MIN_TERM_LENGTH && term.length() <= MAX_TERM_LENGTH;
+    }
+}
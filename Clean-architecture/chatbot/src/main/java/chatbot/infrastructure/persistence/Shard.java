@@ -0,0 +1,9 @@
+package chatbot.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// One database holding conversations and messages. Shard 0 is the spring.datasource database,
+// which also keeps users and the shard directory.
+public record Shard(int id, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+}
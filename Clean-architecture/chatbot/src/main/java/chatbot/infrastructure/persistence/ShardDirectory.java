@@ -0,0 +1,221 @@
+package chatbot.infrastructure.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Maps users and conversations to the shard holding their data.
+// Users hash into BUCKETS fixed buckets; the shard_buckets table on shard 0 assigns buckets to
+// shards and is re-read every db.shards.directory-refresh-ms, so a bucket can move without a
+// restart. A conversation lives in its owner's bucket. Its bucket is looked up once in
+// conversation_buckets and cached for good, since it never changes; a conversation missing
+// there predates sharding and is still on shard 0.
+// While a bucket is frozen for a move, writes to it wait until the move has switched it over;
+// a write that reaches a shard where the bucket is fenced (see WriteRoute) is retried the same way.
+// After each reload the node records the directory version it now routes by, which is what a
+// move waits for before it deletes the old copy of a bucket.
+// Disabled, every lookup answers shard 0 without touching the directory.
+public class ShardDirectory implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardDirectory.class);
+
+    public static final int BUCKETS = 64;
+    // Ids are interleaved across shards (auto_increment_increment), which caps the shard count
+    public static final int MAX_SHARDS = 64;
+    // bucketOf() in SQL, for queries that select a bucket's rows
+    public static final String BUCKET_SQL = "FLOOR(MOD(user_id * 2654435761, 4294967296) / 67108864)";
+
+    private static final long FIBONACCI_MULTIPLIER = 2654435761L;
+    private static final long WRITE_WAIT_POLL_MS = 50;
+
+    private final boolean enabled;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Shard> shards;
+    private final long writeWaitMs;
+    private final List<? extends AutoCloseable> ownedPools;
+    private final Cache<Integer, Integer> conversationBuckets = Caffeine.newBuilder()
+            .maximumSize(1_000_000)
+            .build();
+
+    private volatile Assignment[] assignments;
+
+    public ShardDirectory(boolean enabled, List<Shard> shards, long writeWaitMs, List<? extends AutoCloseable> ownedPools) {
+        this.enabled = enabled;
+        this.shards = List.copyOf(shards);
+        this.writeWaitMs = writeWaitMs;
+        this.ownedPools = ownedPools;
+        this.assignments = allOnShardZero();
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    // A single unsharded database, for repositories built by hand
+    public static ShardDirectory single(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        return new ShardDirectory(false, List.of(new Shard(0, jdbcTemplate, transactionTemplate)), 0, List.of());
+    }
+
+    public static int bucketOf(Integer userId) {
+        return (int) ((((userId & 0xffffffffL) * FIBONACCI_MULTIPLIER) & 0xffffffffL) >>> 26);
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    public Shard directory() {
+        return shards.get(0);
+    }
+
+    public Shard shard(int id) {
+        return shards.get(id);
+    }
+
+    public int shardOf(int bucket) {
+        return assignments[bucket].shardId();
+    }
+
+    public Shard forUser(Integer userId) {
+        return enabled ? shards.get(assignments[bucketOf(userId)].shardId()) : directory();
+    }
+
+    // Runs a write to the user's rows, again if a bucket move fenced it off before it committed
+    public <T> T writeForUser(Integer userId, Function<WriteRoute, T> write) {
+        return enabled ? fencedWrite(bucketOf(userId), write) : write.apply(new WriteRoute(directory(), null));
+    }
+
+    public Shard forConversation(Integer conversationId) {
+        if (!enabled) {
+            return directory();
+        }
+        Integer bucket = conversationBucket(conversationId);
+        return bucket == null ? directory() : shards.get(assignments[bucket].shardId());
+    }
+
+    public <T> T writeForConversation(Integer conversationId, Function<WriteRoute, T> write) {
+        Integer bucket = enabled ? conversationBucket(conversationId) : null;
+        // An unknown conversation: the write finds nothing to change on shard 0
+        return bucket == null ? write.apply(new WriteRoute(directory(), null)) : fencedWrite(bucket, write);
+    }
+
+    // Called after a conversation row has been inserted on its owner's shard
+    public void registerConversation(Integer conversationId, Integer userId) {
+        if (!enabled) {
+            return;
+        }
+        int bucket = bucketOf(userId);
+        directory().jdbcTemplate().update(
+                "INSERT INTO conversation_buckets (conversation_id, bucket) VALUES (?, ?)", conversationId, bucket);
+        conversationBuckets.put(conversationId, bucket);
+    }
+
+    @Scheduled(fixedDelayString = "${db.shards.directory-refresh-ms:1000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Assignment[] loaded = allOnShardZero();
+            long version = 0;
+            for (Map<String, Object> row : directory().jdbcTemplate().queryForList(
+                    "SELECT bucket, shard_id, state, version FROM shard_buckets")) {
+                int bucket = ((Number) row.get("bucket")).intValue();
+                version = Math.max(version, ((Number) row.get("version")).longValue());
+                int shardId = ((Number) row.get("shard_id")).intValue();
+                if (shardId >= shards.size()) {
+                    // Keep the last known owner rather than route to a shard this node has no pool for
+                    logger.error("Bucket {} is assigned to unknown shard {}", bucket, shardId);
+                    loaded[bucket] = assignments[bucket];
+                    continue;
+                }
+                loaded[bucket] = new Assignment(shardId, "FROZEN".equals(row.get("state")));
+            }
+            assignments = loaded;
+            directory().jdbcTemplate().update("INSERT INTO shard_directory_nodes (node_id, version, seen_at) "
+                    + "VALUES (?, ?, NOW(3)) ON DUPLICATE KEY UPDATE version = VALUES(version), seen_at = VALUES(seen_at)",
+                    nodeId, version);
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the shard directory, keeping the previous map: {}", e.getMessage());
+        }
+    }
+
+    private Integer conversationBucket(Integer conversationId) {
+        return conversationBuckets.get(conversationId, this::loadConversationBucket);
+    }
+
+    // null for an unknown conversation: not cached, the caller's query simply finds nothing
+    private Integer loadConversationBucket(Integer conversationId) {
+        List<Integer> registered = directory().jdbcTemplate().queryForList(
+                "SELECT bucket FROM conversation_buckets WHERE conversation_id = ?", Integer.class, conversationId);
+        if (!registered.isEmpty()) {
+            return registered.get(0);
+        }
+        List<Integer> owner = directory().jdbcTemplate().queryForList(
+                "SELECT user_id FROM conversations WHERE id = ?", Integer.class, conversationId);
+        return owner.isEmpty() ? null : bucketOf(owner.get(0));
+    }
+
+    private <T> T fencedWrite(int bucket, Function<WriteRoute, T> write) {
+        long giveUpAt = System.currentTimeMillis() + writeWaitMs;
+        while (true) {
+            Shard shard = writableShard(bucket, giveUpAt);
+            try {
+                return write.apply(new WriteRoute(shard, bucket));
+            } catch (BucketFencedException e) {
+                // Routed by a directory read just before the move froze the bucket
+                if (System.currentTimeMillis() >= giveUpAt) {
+                    throw e;
+                }
+                pause(bucket);
+            }
+        }
+    }
+
+    private Shard writableShard(int bucket, long giveUpAt) {
+        Assignment assignment = assignments[bucket];
+        while (assignment.frozen()) {
+            if (System.currentTimeMillis() >= giveUpAt) {
+                throw new IllegalStateException("Bucket " + bucket + " is being moved, try again shortly");
+            }
+            pause(bucket);
+            assignment = assignments[bucket];
+        }
+        return shards.get(assignment.shardId());
+    }
+
+    private static void pause(int bucket) {
+        try {
+            Thread.sleep(WRITE_WAIT_POLL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for bucket " + bucket, e);
+        }
+    }
+
+    private static Assignment[] allOnShardZero() {
+        Assignment[] all = new Assignment[BUCKETS];
+        Arrays.fill(all, new Assignment(0, false));
+        return all;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (AutoCloseable pool : ownedPools) {
+            pool.close();
+        }
+    }
+
+    private record Assignment(int shardId, boolean frozen) {
+    }
+}
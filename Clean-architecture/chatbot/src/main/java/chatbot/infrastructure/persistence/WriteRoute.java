@@ -0,0 +1,38 @@
+package chatbot.infrastructure.persistence;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Where a write to a user's or conversation's rows goes: the shard and, when sharding is on, the
+// bucket those rows belong to. The write must check the bucket's fence in its own transaction
+// (see BucketMover), so a move never misses it and never races it.
+public record WriteRoute(Shard shard, Integer bucket) {
+
+    static final String ACTIVE = "ACTIVE";
+
+    // Call inside the write's transaction on shard. The shared lock on the fence row is held
+    // until commit, so fencing the bucket waits for this write to finish.
+    void checkFence() {
+        if (bucket == null) {
+            return;
+        }
+        List<String> state = shard.jdbcTemplate().queryForList(
+                "SELECT state FROM bucket_fences WHERE bucket = ? FOR SHARE", String.class, bucket);
+        if (!state.isEmpty() && !ACTIVE.equals(state.get(0))) {
+            throw new BucketFencedException(bucket, shard.id());
+        }
+    }
+
+    // Runs the statements in one transaction behind the fence; unsharded, they run as they are
+    <T> T execute(Function<JdbcTemplate, T> statements) {
+        if (bucket == null) {
+            return statements.apply(shard.jdbcTemplate());
+        }
+        return shard.transactionTemplate().execute(status -> {
+            checkFence();
+            return statements.apply(shard.jdbcTemplate());
+        });
+    }
+}
@@ -0,0 +1,20 @@
+-- Document counts for BM25 (see MessageSearchIndex), kept up to date as messages are indexed
+-- and pruned: one row per (user, term) with the number of that user's messages containing the
+-- term, and a row with the empty term holding the user's message count. Terms are at least
+-- two characters long, so the empty term never clashes with a real one.
+-- occurred_at is indexed for the retention pruning of message_search.
+
+CREATE TABLE message_search_stats (
+    user_id INT NOT NULL,
+    term VARCHAR(40) NOT NULL,
+    documents INT NOT NULL,
+    PRIMARY KEY (user_id, term)
+);
+
+INSERT INTO message_search_stats (user_id, term, documents)
+SELECT user_id, term, COUNT(*) FROM message_terms GROUP BY user_id, term;
+
+INSERT INTO message_search_stats (user_id, term, documents)
+SELECT user_id, '', COUNT(*) FROM message_search GROUP BY user_id;
+
+CREATE INDEX idx_message_search_occurred ON message_search (occurred_at);
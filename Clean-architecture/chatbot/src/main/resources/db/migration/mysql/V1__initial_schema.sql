@@ -1,6 +1,5 @@
-DROP TABLE IF EXISTS messages;
-DROP TABLE IF EXISTS conversations;
-DROP TABLE IF EXISTS users;
+-- Initial schema, identical to the former schema.sql minus the DROP statements.
+-- Databases created by schema.sql are baselined at this version.
 
 CREATE TABLE users (
     id INT AUTO_INCREMENT PRIMARY KEY,
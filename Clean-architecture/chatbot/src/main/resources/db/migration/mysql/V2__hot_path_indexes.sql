@@ -0,0 +1,7 @@
+-- Composite indexes matching the repository queries.
+-- JdbcConversationRepository.findByUserId: WHERE user_id = ?
+CREATE INDEX idx_conversations_user_created ON conversations (user_id, created_at);
+
+-- JdbcConversationRepository.getMessages / getMessagesPage:
+-- WHERE conversation_id = ? [AND id < ?] ORDER BY id
+CREATE INDEX idx_messages_conversation_id ON messages (conversation_id, id);
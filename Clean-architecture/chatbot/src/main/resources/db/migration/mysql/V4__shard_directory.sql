@@ -0,0 +1,81 @@
+-- Shard directory, kept on the main database (shard 0). Users hash into 64 buckets
+-- (ShardDirectory.bucketOf); shard_buckets says which shard holds each bucket's conversations
+-- and messages, and FROZEN while a bucket is being moved. conversation_buckets resolves a
+-- conversation id to its bucket; conversations missing from it predate sharding and live here.
+
+CREATE TABLE shard_buckets (
+    bucket SMALLINT PRIMARY KEY,
+    shard_id SMALLINT NOT NULL,
+    state VARCHAR(16) NOT NULL
+);
+
+INSERT INTO shard_buckets (bucket, shard_id, state) VALUES
+    (0, 0, 'ACTIVE'),
+    (1, 0, 'ACTIVE'),
+    (2, 0, 'ACTIVE'),
+    (3, 0, 'ACTIVE'),
+    (4, 0, 'ACTIVE'),
+    (5, 0, 'ACTIVE'),
+    (6, 0, 'ACTIVE'),
+    (7, 0, 'ACTIVE'),
+    (8, 0, 'ACTIVE'),
+    (9, 0, 'ACTIVE'),
+    (10, 0, 'ACTIVE'),
+    (11, 0, 'ACTIVE'),
+    (12, 0, 'ACTIVE'),
+    (13, 0, 'ACTIVE'),
+    (14, 0, 'ACTIVE'),
+    (15, 0, 'ACTIVE'),
+    (16, 0, 'ACTIVE'),
+    (17, 0, 'ACTIVE'),
+    (18, 0, 'ACTIVE'),
+    (19, 0, 'ACTIVE'),
+    (20, 0, 'ACTIVE'),
+    (21, 0, 'ACTIVE'),
+    (22, 0, 'ACTIVE'),
+    (23, 0, 'ACTIVE'),
+    (24, 0, 'ACTIVE'),
+    (25, 0, 'ACTIVE'),
+    (26, 0, 'ACTIVE'),
+    (27, 0, 'ACTIVE'),
+    (28, 0, 'ACTIVE'),
+    (29, 0, 'ACTIVE'),
+    (30, 0, 'ACTIVE'),
+    (31, 0, 'ACTIVE'),
+    (32, 0, 'ACTIVE'),
+    (33, 0, 'ACTIVE'),
+    (34, 0, 'ACTIVE'),
+    (35, 0, 'ACTIVE'),
+    (36, 0, 'ACTIVE'),
+    (37, 0, 'ACTIVE'),
+    (38, 0, 'ACTIVE'),
+    (39, 0, 'ACTIVE'),
+    (40, 0, 'ACTIVE'),
+    (41, 0, 'ACTIVE'),
+    (42, 0, 'ACTIVE'),
+    (43, 0, 'ACTIVE'),
+    (44, 0, 'ACTIVE'),
+    (45, 0, 'ACTIVE'),
+    (46, 0, 'ACTIVE'),
+    (47, 0, 'ACTIVE'),
+    (48, 0, 'ACTIVE'),
+    (49, 0, 'ACTIVE'),
+    (50, 0, 'ACTIVE'),
+    (51, 0, 'ACTIVE'),
+    (52, 0, 'ACTIVE'),
+    (53, 0, 'ACTIVE'),
+    (54, 0, 'ACTIVE'),
+    (55, 0, 'ACTIVE'),
+    (56, 0, 'ACTIVE'),
+    (57, 0, 'ACTIVE'),
+    (58, 0, 'ACTIVE'),
+    (59, 0, 'ACTIVE'),
+    (60, 0, 'ACTIVE'),
+    (61, 0, 'ACTIVE'),
+    (62, 0, 'ACTIVE'),
+    (63, 0, 'ACTIVE');
+
+CREATE TABLE conversation_buckets (
+    conversation_id INT PRIMARY KEY,
+    bucket SMALLINT NOT NULL
+);
@@ -0,0 +1,40 @@
+-- Event-sourced conversation store (db.conversations.event-sourced=true).
+-- conversation_events is the append-only log; message ids are the ids of their MESSAGE_ADDED
+-- events. conversation_ids only hands out conversation ids. conversations and messages become
+-- read projections, and projection_positions records how far ConversationProjector has got.
+-- Deleting a user cascades to their events and snapshots, as it does to their conversations.
+
+CREATE TABLE conversation_ids (
+    id INT AUTO_INCREMENT PRIMARY KEY
+);
+
+CREATE TABLE conversation_events (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    conversation_id INT NOT NULL,
+    version INT NOT NULL,
+    user_id INT NOT NULL,
+    type VARCHAR(32) NOT NULL,
+    name VARCHAR(255),
+    content TEXT,
+    is_user BOOLEAN,
+    occurred_at TIMESTAMP NOT NULL,
+    UNIQUE KEY uk_conversation_events_version (conversation_id, version),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE conversation_snapshots (
+    conversation_id INT PRIMARY KEY,
+    user_id INT NOT NULL,
+    name VARCHAR(255),
+    created_at TIMESTAMP NOT NULL,
+    version INT NOT NULL,
+    message_count INT NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE projection_positions (
+    name VARCHAR(64) PRIMARY KEY,
+    position INT NOT NULL
+);
+
+INSERT INTO projection_positions (name, position) VALUES ('conversations', 0);
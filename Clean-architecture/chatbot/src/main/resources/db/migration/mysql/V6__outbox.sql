@@ -0,0 +1,11 @@
+-- Transactional outbox (outbox.enabled=true): one row per stored message, inserted in the same
+-- transaction and deleted by OutboxRelay once every subscriber has taken it.
+
+CREATE TABLE outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    conversation_id INT NOT NULL,
+    is_user BOOLEAN NOT NULL,
+    content TEXT NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    recorded_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
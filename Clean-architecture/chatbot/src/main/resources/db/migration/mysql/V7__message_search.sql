@@ -0,0 +1,34 @@
+-- Per-user search index over message content (see MessageSearchIndex). messages is
+-- partitioned, which rules out a FULLTEXT index on it, and a FULLTEXT index could not be
+-- scoped to one user anyway. message_terms is keyed (user_id, term, ...) so each query term
+-- reads only the searching user's postings.
+-- Messages stored before this migration are indexed by MessageSearchBackfill, up to the
+-- newest message id recorded here; later ones are indexed as they are written.
+
+CREATE TABLE message_search (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL,
+    conversation_id INT NOT NULL,
+    content TEXT NOT NULL,
+    is_user BOOLEAN NOT NULL,
+    occurred_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_message_search_user ON message_search (user_id, id);
+
+CREATE TABLE message_terms (
+    user_id INT NOT NULL,
+    term VARCHAR(40) NOT NULL,
+    search_id INT NOT NULL,
+    tf SMALLINT NOT NULL,
+    PRIMARY KEY (user_id, term, search_id)
+);
+
+CREATE TABLE message_search_backfill (
+    id TINYINT PRIMARY KEY,
+    up_to INT NOT NULL,
+    position INT NOT NULL
+);
+
+INSERT INTO message_search_backfill (id, up_to, position)
+SELECT 1, COALESCE(MAX(id), 0), 0 FROM messages;
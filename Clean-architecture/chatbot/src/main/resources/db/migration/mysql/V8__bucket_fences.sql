@@ -0,0 +1,21 @@
+-- Fences and acknowledgements for bucket moves (see BucketMover).
+-- Every write to a bucket's rows reads the bucket's bucket_fences row FOR SHARE in its own
+-- transaction and is refused unless it is ACTIVE. A move sets the row on the source shard to
+-- FENCED: that update waits for the writes in flight, and every later write is refused.
+-- shard_buckets.version orders directory changes; each node records the newest version it has
+-- loaded in shard_directory_nodes, so a move can wait until every live node routes by it.
+
+CREATE TABLE bucket_fences (
+    bucket SMALLINT PRIMARY KEY,
+    state VARCHAR(16) NOT NULL
+);
+
+INSERT INTO bucket_fences (bucket, state) SELECT bucket, 'ACTIVE' FROM shard_buckets;
+
+ALTER TABLE shard_buckets ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE shard_directory_nodes (
+    node_id VARCHAR(36) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    seen_at TIMESTAMP(3) NOT NULL
+);
@@ -0,0 +1,10 @@
+-- Event ids ConversationProjector has moved past without finding them. Ids are taken before
+-- commit, so each one may still turn up; the projector re-checks them with every batch until
+-- db.conversations.projection-gap-timeout-ms has passed, then takes the id as rolled back.
+
+CREATE TABLE projection_gaps (
+    name VARCHAR(64) NOT NULL,
+    event_id INT NOT NULL,
+    seen_at TIMESTAMP(3) NOT NULL,
+    PRIMARY KEY (name, event_id)
+);
@@ -0,0 +1,11 @@
+-- Outbox of this shard, as db/migration/mysql/V6 on shard 0: rows are written in the
+-- transaction that stores the messages, which runs on the conversation's shard.
+
+CREATE TABLE outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    conversation_id INT NOT NULL,
+    is_user BOOLEAN NOT NULL,
+    content TEXT NOT NULL,
+    occurred_at TIMESTAMP NOT NULL,
+    recorded_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+);
@@ -0,0 +1,30 @@
+-- Search index of this shard, as db/migration/mysql/V7 on shard 0: index rows are written
+-- with the messages, on the conversation's shard.
+
+CREATE TABLE message_search (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL,
+    conversation_id INT NOT NULL,
+    content TEXT NOT NULL,
+    is_user BOOLEAN NOT NULL,
+    occurred_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_message_search_user ON message_search (user_id, id);
+
+CREATE TABLE message_terms (
+    user_id INT NOT NULL,
+    term VARCHAR(40) NOT NULL,
+    search_id INT NOT NULL,
+    tf SMALLINT NOT NULL,
+    PRIMARY KEY (user_id, term, search_id)
+);
+
+CREATE TABLE message_search_backfill (
+    id TINYINT PRIMARY KEY,
+    up_to INT NOT NULL,
+    position INT NOT NULL
+);
+
+INSERT INTO message_search_backfill (id, up_to, position)
+SELECT 1, COALESCE(MAX(id), 0), 0 FROM messages;
@@ -0,0 +1,15 @@
+-- Bucket fences of this shard, as db/migration/mysql/V8 on shard 0: a write to a bucket's rows
+-- here is refused unless the bucket's row is ACTIVE.
+
+CREATE TABLE bucket_fences (
+    bucket SMALLINT PRIMARY KEY,
+    state VARCHAR(16) NOT NULL
+);
+
+INSERT INTO bucket_fences (bucket, state)
+WITH RECURSIVE buckets (bucket) AS (
+    SELECT 0
+    UNION ALL
+    SELECT bucket + 1 FROM buckets WHERE bucket < 63
+)
+SELECT bucket, 'ACTIVE' FROM buckets;
@@ -0,0 +1,8 @@
+-- Starts a single-flight call unless an identical one is already running.
+-- KEYS[1] = lock key
+-- ARGV[1] = flight id, ARGV[2] = lease in milliseconds
+-- Returns the id of the flight holding the lock: ARGV[1] when acquired, the running one otherwise.
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return ARGV[1]
+end
+return redis.call('GET', KEYS[1])
@@ -0,0 +1,19 @@
+-- Appends entries to a chat history list, caps it and refreshes TTLs in one round trip.
+-- KEYS[1] = chat:{id}:history, KEYS[2] = chat:{id}:appended (same hash slot)
+-- KEYS[3] = chat:{id}:pending, only when the outbox will deliver the same entries again later
+-- ARGV[1] = ttl in milliseconds, ARGV[2] = entries to keep, ARGV[3] = pending ttl in milliseconds,
+-- ARGV[4..n] = encoded entries
+-- Returns the number of entries ever appended to the conversation.
+redis.call('RPUSH', KEYS[1], unpack(ARGV, 4))
+redis.call('LTRIM', KEYS[1], -tonumber(ARGV[2]), -1)
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+local appended = redis.call('INCRBY', KEYS[2], #ARGV - 3)
+redis.call('PEXPIRE', KEYS[2], ARGV[1])
+if KEYS[3] then
+    -- Counted per entry digest, so append_history_once.lua skips each delivery of it once
+    for i = 4, #ARGV do
+        redis.call('HINCRBY', KEYS[3], redis.sha1hex(ARGV[i]), 1)
+    end
+    redis.call('PEXPIRE', KEYS[3], ARGV[3])
+end
+return appended
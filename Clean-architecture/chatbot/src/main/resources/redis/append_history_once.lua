@@ -0,0 +1,37 @@
+-- append_history.lua for outbox deliveries, which may repeat and may arrive out of id order.
+-- Each outbox row is appended at most once: rows delivered before are remembered per shard and
+-- row id for the dedupe window, and rows whose entry the request path already appended (counted
+-- in the pending hash) use up one count instead. Counts are per content, not per row: when two
+-- rows with the same content are delivered and the request path appended only one of them, the
+-- first delivered is skipped and the other appended. The history ends up with both entries; only
+-- the position of the one the request path missed can differ.
+-- KEYS[1] = chat:{id}:history, KEYS[2] = chat:{id}:appended, KEYS[3] = chat:{id}:delivered:rows,
+-- KEYS[4] = chat:{id}:pending
+-- ARGV[1] = ttl in milliseconds, ARGV[2] = entries to keep, ARGV[3] = now in milliseconds,
+-- ARGV[4] = dedupe window in milliseconds, ARGV[5..n] = pairs of shard:row id and encoded entry
+-- Returns { entries ever appended, entries appended by this call }.
+local now = tonumber(ARGV[3])
+redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', now - tonumber(ARGV[4]))
+local entries = {}
+for i = 5, #ARGV, 2 do
+    if redis.call('ZADD', KEYS[3], 'NX', now, ARGV[i]) == 1 then
+        local digest = redis.sha1hex(ARGV[i + 1])
+        if redis.call('HEXISTS', KEYS[4], digest) == 1 then
+            if redis.call('HINCRBY', KEYS[4], digest, -1) <= 0 then
+                redis.call('HDEL', KEYS[4], digest)
+            end
+        else
+            entries[#entries + 1] = ARGV[i + 1]
+        end
+    end
+end
+redis.call('PEXPIRE', KEYS[3], ARGV[4])
+if #entries == 0 then
+    return { tonumber(redis.call('GET', KEYS[2]) or '0'), 0 }
+end
+redis.call('RPUSH', KEYS[1], unpack(entries))
+redis.call('LTRIM', KEYS[1], -tonumber(ARGV[2]), -1)
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+local appended = redis.call('INCRBY', KEYS[2], #entries)
+redis.call('PEXPIRE', KEYS[2], ARGV[1])
+return { appended, #entries }
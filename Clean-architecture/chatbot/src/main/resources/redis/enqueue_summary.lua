@@ -0,0 +1,9 @@
+-- Enqueues a conversation for summarization unless it is already waiting.
+-- KEYS[1] = pending set, KEYS[2] = queue list (same hash slot)
+-- ARGV[1] = conversation id
+-- Returns 1 when queued, 0 when coalesced into a request that is already waiting.
+if redis.call('SADD', KEYS[1], ARGV[1]) == 1 then
+    redis.call('LPUSH', KEYS[2], ARGV[1])
+    return 1
+end
+return 0
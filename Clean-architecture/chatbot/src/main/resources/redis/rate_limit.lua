@@ -0,0 +1,39 @@
+-- Token-bucket admission for one user with two buckets: requests and model tokens.
+-- KEYS[1] = ratelimit:{userId}
+-- ARGV[1..4] = request capacity, requests refilled per ms, requests wanted, requests required
+-- ARGV[5..8] = token capacity, tokens refilled per ms, tokens wanted, tokens required
+-- Grants between the required and wanted amount from each bucket, or nothing at all.
+-- The token level may be negative: reply tokens charged by rate_limit_charge.lua are a debt
+-- that refills before anything is granted again.
+-- Returns {requests granted, tokens granted, ms until the required amounts are available}.
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local reqCap, reqRate, reqWant, reqNeed = tonumber(ARGV[1]), tonumber(ARGV[2]), tonumber(ARGV[3]), tonumber(ARGV[4])
+local tokCap, tokRate, tokWant, tokNeed = tonumber(ARGV[5]), tonumber(ARGV[6]), tonumber(ARGV[7]), tonumber(ARGV[8])
+
+local state = redis.call('HMGET', KEYS[1], 'r', 'k', 'ts')
+local elapsed = math.max(0, now - (tonumber(state[3]) or now))
+
+local function refill(level, capacity, rate)
+    if not level then
+        return capacity
+    end
+    return math.min(capacity, tonumber(level) + elapsed * rate)
+end
+
+local requests = refill(state[1], reqCap, reqRate)
+local tokens = refill(state[2], tokCap, tokRate)
+
+if requests < reqNeed or tokens < tokNeed then
+    local wait = math.max((reqNeed - requests) / reqRate, (tokNeed - tokens) / tokRate, 1)
+    return {0, 0, math.ceil(wait)}
+end
+
+local reqGrant = math.floor(math.min(requests, reqWant))
+local tokGrant = math.floor(math.min(tokens, tokWant))
+redis.call('HSET', KEYS[1], 'r', requests - reqGrant, 'k', tokens - tokGrant, 'ts', now)
+-- An untouched bucket is full again after this long, so the key can go
+redis.call('PEXPIRE', KEYS[1], math.ceil(math.max((reqCap - requests + reqGrant) / reqRate,
+        (tokCap - tokens + tokGrant) / tokRate, 1)))
+return {reqGrant, tokGrant, 0}
@@ -0,0 +1,35 @@
+-- Charges model tokens used by a reply to a user's token bucket, after the fact.
+-- KEYS[1] = ratelimit:{userId}
+-- ARGV[1..3] = token capacity, tokens refilled per ms, tokens used
+-- ARGV[4..5] = request capacity, requests refilled per ms
+-- The level may go negative; the debt is repaid by the refill before rate_limit.lua grants
+-- tokens again. Returns the token level after the charge (rounded down).
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tokCap, tokRate, used = tonumber(ARGV[1]), tonumber(ARGV[2]), tonumber(ARGV[3])
+
+local state = redis.call('HMGET', KEYS[1], 'k', 'ts')
+local elapsed = math.max(0, now - (tonumber(state[2]) or now))
+local tokens = tokCap
+if state[1] then
+    tokens = math.min(tokCap, tonumber(state[1]) + elapsed * tokRate)
+end
+tokens = tokens - used
+
+-- The request bucket refills from the same timestamp, so bring it up to now as well
+local requests = redis.call('HGET', KEYS[1], 'r')
+local fields = {'k', tokens, 'ts', now}
+if requests then
+    local reqCap, reqRate = tonumber(ARGV[4]), tonumber(ARGV[5])
+    table.insert(fields, 'r')
+    table.insert(fields, math.min(reqCap, tonumber(requests) + elapsed * reqRate))
+end
+redis.call('HSET', KEYS[1], unpack(fields))
+-- Kept at least until the debt is repaid and the bucket is full again
+local ttl = math.max((tokCap - tokens) / tokRate, 1)
+if requests then
+    ttl = math.max(ttl, tonumber(ARGV[4]) / tonumber(ARGV[5]))
+end
+redis.call('PEXPIRE', KEYS[1], math.ceil(ttl))
+return math.floor(tokens)
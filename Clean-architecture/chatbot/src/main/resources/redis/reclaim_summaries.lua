@@ -0,0 +1,13 @@
+-- Puts conversations whose lease expired (their worker died or stalled) back in the queue.
+-- KEYS[1] = pending set, KEYS[2] = queue list, KEYS[3] = lease zset (same hash slot)
+-- ARGV[1] = now (epoch milliseconds), ARGV[2] = max items per call
+-- Returns how many leases were reclaimed. A conversation that was requested again in the
+-- meantime is already waiting, so it is not queued twice.
+local expired = redis.call('ZRANGEBYSCORE', KEYS[3], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+for _, id in ipairs(expired) do
+    redis.call('ZREM', KEYS[3], id)
+    if redis.call('SADD', KEYS[1], id) == 1 then
+        redis.call('LPUSH', KEYS[2], id)
+    end
+end
+return #expired
@@ -0,0 +1,11 @@
+-- Ends a single-flight call: publishes its result (if any) and releases the lock when still owned.
+-- KEYS[1] = lock key, KEYS[2] = result key of this flight (same hash slot)
+-- ARGV[1] = flight id, ARGV[2] = result ttl in milliseconds, ARGV[3] = result (optional)
+if ARGV[3] then
+    redis.call('SET', KEYS[2], ARGV[3], 'PX', ARGV[2])
+end
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+return 0
@@ -0,0 +1,12 @@
+-- Takes the oldest waiting conversation and leases it to the caller until ARGV[1].
+-- KEYS[1] = pending set, KEYS[2] = queue list, KEYS[3] = lease zset (same hash slot)
+-- ARGV[1] = lease expiry (epoch milliseconds)
+-- Returns the conversation id, or false when the queue is empty.
+local id = redis.call('RPOP', KEYS[2])
+if not id then
+    return false
+end
+redis.call('ZADD', KEYS[3], ARGV[1], id)
+-- From here on a new request for the conversation queues a fresh run
+redis.call('SREM', KEYS[1], id)
+return id
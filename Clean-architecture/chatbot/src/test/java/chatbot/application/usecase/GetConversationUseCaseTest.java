@@ -1,6 +1,7 @@
 package chatbot.application.usecase;
 
 import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
 import chatbot.domain.repository.ConversationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,35 +36,72 @@ class GetConversationUseCaseTest {
         List<Message> messages = new ArrayList<>();
         messages.add(new Message(1, "Hello", LocalDateTime.now(), true));
         messages.add(new Message(2, "Hi there!", LocalDateTime.now(), false));
+        MessagePage page = new MessagePage(messages, null, false);
 
-        when(conversationRepository.getMessages(conversationId)).thenReturn(messages);
+        when(conversationRepository.getMessagesPage(conversationId, null, GetConversationUseCase.DEFAULT_PAGE_SIZE))
+                .thenReturn(page);
 
         // Act
-        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId);
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId, null, null);
 
         // Assert
         assertTrue(result.isSuccess());
         assertEquals("Get message successfully", result.getMessage());
-        assertEquals(messages, result.getConversation());
-        assertEquals(2, result.getConversation().size());
+        assertEquals(page, result.getConversation());
+        assertEquals(2, result.getConversation().getMessages().size());
+    }
+
+    @Test
+    void execute_WithCursor_ShouldRequestOlderPage() {
+        // Arrange
+        Integer conversationId = 1;
+        MessagePage page = new MessagePage(List.of(new Message(3, "Older", LocalDateTime.now(), true)), 3, true);
+
+        when(conversationRepository.getMessagesPage(conversationId, 10, 1)).thenReturn(page);
+
+        // Act
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId, 10, 1);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getConversation().getNextCursor());
+        assertTrue(result.getConversation().isHasMore());
+    }
+
+    @Test
+    void execute_WithOversizedLimit_ShouldClampToMaximum() {
+        // Arrange
+        Integer conversationId = 1;
+        MessagePage page = new MessagePage(List.of(), null, false);
+
+        when(conversationRepository.getMessagesPage(conversationId, null, GetConversationUseCase.MAX_PAGE_SIZE))
+                .thenReturn(page);
+
+        // Act
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId, null, 100_000);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(page, result.getConversation());
     }
 
     @Test
     void execute_WithEmptyConversation_ShouldReturnSuccess() {
         // Arrange
         Integer conversationId = 1;
-        List<Message> messages = new ArrayList<>();
+        MessagePage page = new MessagePage(new ArrayList<>(), null, false);
 
-        when(conversationRepository.getMessages(conversationId)).thenReturn(messages);
+        when(conversationRepository.getMessagesPage(conversationId, null, GetConversationUseCase.DEFAULT_PAGE_SIZE))
+                .thenReturn(page);
 
         // Act
-        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId);
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId, null, null);
 
         // Assert
         assertTrue(result.isSuccess());
         assertEquals("Get message successfully", result.getMessage());
-        assertEquals(messages, result.getConversation());
-        assertTrue(result.getConversation().isEmpty());
+        assertTrue(result.getConversation().getMessages().isEmpty());
+        assertFalse(result.getConversation().isHasMore());
     }
 
     @Test
@@ -71,10 +109,11 @@ class GetConversationUseCaseTest {
         // Arrange
         Integer conversationId = 1;
 
-        when(conversationRepository.getMessages(conversationId)).thenReturn(null);
+        when(conversationRepository.getMessagesPage(conversationId, null, GetConversationUseCase.DEFAULT_PAGE_SIZE))
+                .thenReturn(null);
 
         // Act
-        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId);
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId, null, null);
 
         // Assert
         assertTrue(result.isSuccess());
@@ -87,10 +126,11 @@ class GetConversationUseCaseTest {
         // Arrange
         Integer conversationId = 1;
 
-        when(conversationRepository.getMessages(conversationId)).thenThrow(new RuntimeException("Database error"));
+        when(conversationRepository.getMessagesPage(conversationId, null, GetConversationUseCase.DEFAULT_PAGE_SIZE))
+                .thenThrow(new RuntimeException("Database error"));
 
         // Act
-        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId);
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(conversationId, null, null);
 
         // Assert
         assertFalse(result.isSuccess());
@@ -101,10 +141,11 @@ class GetConversationUseCaseTest {
     @Test
     void execute_WithNullConversationId_ShouldReturnFailure() {
         // Arrange
-        when(conversationRepository.getMessages(null)).thenThrow(new RuntimeException("Invalid conversation ID"));
+        when(conversationRepository.getMessagesPage(null, null, GetConversationUseCase.DEFAULT_PAGE_SIZE))
+                .thenThrow(new RuntimeException("Invalid conversation ID"));
 
         // Act
-        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(null);
+        GetConversationUseCase.GetConversationResult result = getConversationUseCase.execute(null, null, null);
 
         // Assert
         assertFalse(result.isSuccess());
@@ -112,4 +153,3 @@ class GetConversationUseCaseTest {
         assertNull(result.getConversation());
     }
 }
-
@@ -0,0 +1,112 @@
+package chatbot.application.usecase;
+
+import chatbot.application.service.JwtEncodedService;
+import chatbot.domain.entity.ConversationMatch;
+import chatbot.domain.entity.SearchSnippet;
+import chatbot.domain.repository.MessageSearchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchConversationsUseCaseTest {
+
+    @Mock
+    private MessageSearchRepository messageSearchRepository;
+
+    @Mock
+    private JwtEncodedService jwtEncodedService;
+
+    private SearchConversationsUseCase searchConversationsUseCase;
+
+    @BeforeEach
+    void setUp() {
+        searchConversationsUseCase = new SearchConversationsUseCase(messageSearchRepository, jwtEncodedService);
+    }
+
+    @Test
+    void execute_WithValidQuery_ShouldReturnMatchesOfTokenUser() {
+        // Arrange
+        String token = "valid.token.here";
+        Integer userId = 1;
+        List<ConversationMatch> matches = List.of(new ConversationMatch(3, "Trip planning", 2.5, List.of(
+                new SearchSnippet("Flights to Hanoi in May", LocalDateTime.now(), true, List.of(new SearchSnippet.Highlight(11, 16))))));
+
+        when(jwtEncodedService.decode(token)).thenReturn(userId);
+        when(messageSearchRepository.search(userId, "hanoi", SearchConversationsUseCase.DEFAULT_LIMIT)).thenReturn(matches);
+
+        // Act
+        SearchConversationsUseCase.SearchConversationsResult result = searchConversationsUseCase.execute(token, "  hanoi ", null);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(matches, result.getMatches());
+    }
+
+    @Test
+    void execute_WithLimitAboveMaximum_ShouldClampLimit() {
+        // Arrange
+        String token = "valid.token.here";
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(messageSearchRepository.search(1, "hanoi", SearchConversationsUseCase.MAX_LIMIT)).thenReturn(List.of());
+
+        // Act
+        SearchConversationsUseCase.SearchConversationsResult result = searchConversationsUseCase.execute(token, "hanoi", 1000);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertTrue(result.getMatches().isEmpty());
+    }
+
+    @Test
+    void execute_WithBlankQuery_ShouldReturnFailureWithoutSearching() {
+        // Act
+        SearchConversationsUseCase.SearchConversationsResult result = searchConversationsUseCase.execute("valid.token.here", "   ", null);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Search query is required", result.getMessage());
+        verify(messageSearchRepository, never()).search(any(), any(), anyInt());
+    }
+
+    @Test
+    void execute_WithTooLongQuery_ShouldReturnFailure() {
+        // Arrange
+        String query = "a".repeat(SearchConversationsUseCase.MAX_QUERY_LENGTH + 1);
+
+        // Act
+        SearchConversationsUseCase.SearchConversationsResult result = searchConversationsUseCase.execute("valid.token.here", query, null);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Search query is too long", result.getMessage());
+        verify(messageSearchRepository, never()).search(any(), any(), anyInt());
+    }
+
+    @Test
+    void execute_WithInvalidToken_ShouldReturnFailure() {
+        // Arrange
+        String token = "invalid.token";
+        when(jwtEncodedService.decode(token)).thenThrow(new RuntimeException("Invalid token"));
+
+        // Act
+        SearchConversationsUseCase.SearchConversationsResult result = searchConversationsUseCase.execute(token, "hanoi", null);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().contains("Invalid token"));
+        assertNull(result.getMatches());
+    }
+}
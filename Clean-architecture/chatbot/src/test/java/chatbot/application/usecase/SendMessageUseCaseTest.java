@@ -2,7 +2,8 @@ package chatbot.application.usecase;
 
 import chatbot.application.service.AIChatService;
 import chatbot.application.service.JwtEncodedService;
-import chatbot.domain.entity.Message;
+import chatbot.application.service.RateLimiter;
+import chatbot.domain.entity.Conversation;
 import chatbot.domain.repository.ConversationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +12,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,11 +33,14 @@ class SendMessageUseCaseTest {
     @Mock
     private AIChatService aiChatService;
 
+    @Mock
+    private RateLimiter rateLimiter;
+
     private SendMessageUseCase sendMessageUseCase;
 
     @BeforeEach
     void setUp() {
-        sendMessageUseCase = new SendMessageUseCase(conversationRepository, jwtEncodedService, aiChatService);
+        sendMessageUseCase = new SendMessageUseCase(conversationRepository, jwtEncodedService, aiChatService, rateLimiter, Runnable::run);
     }
 
     @Test
@@ -47,10 +51,10 @@ class SendMessageUseCaseTest {
         String prompt = "Hello, how are you?";
         Integer userId = 1;
         String aiResponse = "I'm doing well, thank you for asking!";
-        List<Message> existingMessages = new ArrayList<>();
+        Conversation conversation = new Conversation(conversationId, "Chat", userId, LocalDateTime.now());
 
         when(jwtEncodedService.decode(token)).thenReturn(userId);
-        when(conversationRepository.getMessages(conversationId)).thenReturn(existingMessages);
+        when(conversationRepository.findById(conversationId)).thenReturn(conversation);
         when(aiChatService.generateResponse(prompt, conversationId)).thenReturn(aiResponse);
 
         // Act
@@ -60,6 +64,29 @@ class SendMessageUseCaseTest {
         assertTrue(result.isSuccess());
         assertEquals("Message sent successfully", result.getMessage());
         assertEquals(aiResponse, result.getAiResponse());
+        verify(conversationRepository).addMessages(eq(conversationId), argThat(messages -> messages.size() == 2
+                && prompt.equals(messages.get(0).getContent()) && messages.get(0).getIsUser()
+                && aiResponse.equals(messages.get(1).getContent()) && !messages.get(1).getIsUser()));
+    }
+
+    @Test
+    void execute_WithConversationOfAnotherUser_ShouldReturnFailure() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+        Integer userId = 2;
+        Conversation conversation = new Conversation(conversationId, "Chat", 1, LocalDateTime.now());
+
+        when(jwtEncodedService.decode(token)).thenReturn(userId);
+        when(conversationRepository.findById(conversationId)).thenReturn(conversation);
+
+        // Act
+        SendMessageUseCase.SendMessageResult result = sendMessageUseCase.execute(conversationId, token, "Hello");
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Conversation not found or access denied", result.getMessage());
+        verify(conversationRepository, never()).addMessages(any(), any());
     }
 
     @Test
@@ -89,7 +116,7 @@ class SendMessageUseCaseTest {
         Integer userId = 1;
 
         when(jwtEncodedService.decode(token)).thenReturn(userId);
-        when(conversationRepository.getMessages(conversationId)).thenReturn(null);
+        when(conversationRepository.findById(conversationId)).thenReturn(null);
 
         // Act
         SendMessageUseCase.SendMessageResult result = sendMessageUseCase.execute(conversationId, token, prompt);
@@ -108,10 +135,10 @@ class SendMessageUseCaseTest {
         String prompt = null;
         Integer userId = 1;
         String aiResponse = "I received your message.";
-        List<Message> existingMessages = new ArrayList<>();
+        Conversation conversation = new Conversation(conversationId, "Chat", userId, LocalDateTime.now());
 
         when(jwtEncodedService.decode(token)).thenReturn(userId);
-        when(conversationRepository.getMessages(conversationId)).thenReturn(existingMessages);
+        when(conversationRepository.findById(conversationId)).thenReturn(conversation);
         when(aiChatService.generateResponse(prompt, conversationId)).thenReturn(aiResponse);
 
         // Act
@@ -131,10 +158,10 @@ class SendMessageUseCaseTest {
         String prompt = "";
         Integer userId = 1;
         String aiResponse = "I received your message.";
-        List<Message> existingMessages = new ArrayList<>();
+        Conversation conversation = new Conversation(conversationId, "Chat", userId, LocalDateTime.now());
 
         when(jwtEncodedService.decode(token)).thenReturn(userId);
-        when(conversationRepository.getMessages(conversationId)).thenReturn(existingMessages);
+        when(conversationRepository.findById(conversationId)).thenReturn(conversation);
         when(aiChatService.generateResponse(prompt, conversationId)).thenReturn(aiResponse);
 
         // Act
@@ -153,10 +180,10 @@ class SendMessageUseCaseTest {
         String token = "valid.token.here";
         String prompt = "Hello";
         Integer userId = 1;
-        List<Message> existingMessages = new ArrayList<>();
+        Conversation conversation = new Conversation(conversationId, "Chat", userId, LocalDateTime.now());
 
         when(jwtEncodedService.decode(token)).thenReturn(userId);
-        when(conversationRepository.getMessages(conversationId)).thenReturn(existingMessages);
+        when(conversationRepository.findById(conversationId)).thenReturn(conversation);
         when(aiChatService.generateResponse(prompt, conversationId)).thenThrow(new RuntimeException("AI service error"));
 
         // Act
@@ -166,6 +193,29 @@ class SendMessageUseCaseTest {
         assertFalse(result.isSuccess());
         assertTrue(result.getMessage().contains("Error processing message"));
         assertNull(result.getAiResponse());
+        verify(conversationRepository, never()).addMessages(any(), any());
     }
-}
 
+    @Test
+    void execute_WhenRateLimited_ShouldReturnRetryAfterWithoutCallingModel() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+        String prompt = "Hello";
+
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(conversationRepository.findById(conversationId))
+                .thenReturn(new Conversation(conversationId, "Chat", 1, LocalDateTime.now()));
+        when(rateLimiter.tryAcquire(1, prompt)).thenReturn(1500L);
+
+        // Act
+        SendMessageUseCase.SendMessageResult result = sendMessageUseCase.execute(conversationId, token, prompt);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Rate limit exceeded", result.getMessage());
+        assertEquals(2L, result.getRetryAfterSeconds());
+        verify(aiChatService, never()).generateResponse(any(), any());
+        verify(conversationRepository, never()).addMessages(any(), any());
+    }
+}
@@ -0,0 +1,94 @@
+package chatbot.application.usecase;
+
+import chatbot.application.service.JwtEncodedService;
+import chatbot.application.service.ResponseCacheSettings;
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.repository.ConversationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SetResponseCacheUseCaseTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private JwtEncodedService jwtEncodedService;
+
+    @Mock
+    private ResponseCacheSettings responseCacheSettings;
+
+    private SetResponseCacheUseCase setResponseCacheUseCase;
+
+    @BeforeEach
+    void setUp() {
+        setResponseCacheUseCase = new SetResponseCacheUseCase(conversationRepository, jwtEncodedService, responseCacheSettings);
+    }
+
+    @Test
+    void execute_WithOwnedConversation_ShouldUpdateSetting() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(conversationRepository.findById(conversationId))
+                .thenReturn(new Conversation(conversationId, "Chat", 1, LocalDateTime.now()));
+
+        // Act
+        SetResponseCacheUseCase.SetResponseCacheResult result = setResponseCacheUseCase.execute(conversationId, token, false);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals(false, result.getEnabled());
+        verify(responseCacheSettings).setEnabled(conversationId, false);
+    }
+
+    @Test
+    void execute_WithOtherUsersConversation_ShouldReturnFailure() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+
+        when(jwtEncodedService.decode(token)).thenReturn(2);
+        when(conversationRepository.findById(conversationId))
+                .thenReturn(new Conversation(conversationId, "Chat", 1, LocalDateTime.now()));
+
+        // Act
+        SetResponseCacheUseCase.SetResponseCacheResult result = setResponseCacheUseCase.execute(conversationId, token, false);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Conversation not found or access denied", result.getMessage());
+        verify(responseCacheSettings, never()).setEnabled(anyInt(), anyBoolean());
+    }
+
+    @Test
+    void execute_WithInvalidToken_ShouldReturnFailure() {
+        // Arrange
+        String token = "invalid.token.here";
+
+        when(jwtEncodedService.decode(token)).thenThrow(new RuntimeException("Invalid token"));
+
+        // Act
+        SetResponseCacheUseCase.SetResponseCacheResult result = setResponseCacheUseCase.execute(1, token, true);
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().contains("Invalid token"));
+        verify(responseCacheSettings, never()).setEnabled(anyInt(), anyBoolean());
+    }
+}
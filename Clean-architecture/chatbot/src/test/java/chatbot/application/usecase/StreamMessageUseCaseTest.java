@@ -0,0 +1,150 @@
+package chatbot.application.usecase;
+
+import chatbot.application.service.AIChatService;
+import chatbot.application.service.JwtEncodedService;
+import chatbot.application.service.RateLimiter;
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.repository.ConversationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StreamMessageUseCaseTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private JwtEncodedService jwtEncodedService;
+
+    @Mock
+    private AIChatService aiChatService;
+
+    @Mock
+    private RateLimiter rateLimiter;
+
+    private StreamMessageUseCase streamMessageUseCase;
+
+    @BeforeEach
+    void setUp() {
+        streamMessageUseCase = new StreamMessageUseCase(conversationRepository, jwtEncodedService, aiChatService, rateLimiter);
+    }
+
+    @Test
+    void execute_WithValidData_ShouldForwardChunksAndPersistReply() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+        String prompt = "Hello";
+        List<String> received = new ArrayList<>();
+
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(conversationRepository.findById(conversationId))
+                .thenReturn(new Conversation(conversationId, "Chat", 1, LocalDateTime.now()));
+        when(aiChatService.streamResponse(eq(prompt), eq(conversationId), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(2);
+            onToken.accept("Hi ");
+            onToken.accept("there!");
+            return "Hi there!";
+        });
+
+        // Act
+        StreamMessageUseCase.StreamMessageResult result =
+                streamMessageUseCase.execute(conversationId, token, prompt, received::add);
+
+        // Assert
+        assertTrue(result.isSuccess());
+        assertEquals("Hi there!", result.getAiResponse());
+        assertEquals(List.of("Hi ", "there!"), received);
+        assertNotNull(result.getTimeToFirstTokenMs());
+        verify(conversationRepository).addMessages(eq(conversationId), argThat(messages -> messages.size() == 2
+                && messages.get(0).getIsUser() && !messages.get(1).getIsUser()
+                && "Hi there!".equals(messages.get(1).getContent())));
+    }
+
+    @Test
+    void execute_WithNonExistentConversation_ShouldReturnFailure() {
+        // Arrange
+        Integer conversationId = 999;
+        String token = "valid.token.here";
+
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(conversationRepository.findById(conversationId)).thenReturn(null);
+
+        // Act
+        StreamMessageUseCase.StreamMessageResult result =
+                streamMessageUseCase.execute(conversationId, token, "Hello", chunk -> { });
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Conversation not found or access denied", result.getMessage());
+        assertNull(result.getAiResponse());
+    }
+
+    @Test
+    void execute_WhenConsumerFails_ShouldNotPersistMessages() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+        String prompt = "Hello";
+
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(conversationRepository.findById(conversationId))
+                .thenReturn(new Conversation(conversationId, "Chat", 1, LocalDateTime.now()));
+        when(aiChatService.streamResponse(eq(prompt), eq(conversationId), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(2);
+            onToken.accept("Hi ");
+            return "Hi there!";
+        });
+
+        // Act
+        StreamMessageUseCase.StreamMessageResult result = streamMessageUseCase.execute(conversationId, token, prompt, chunk -> {
+            throw new IllegalStateException("Client disconnected");
+        });
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessage().contains("Error processing message"));
+        verify(conversationRepository, never()).addMessages(any(), any());
+    }
+
+    @Test
+    void execute_WhenRateLimited_ShouldReturnRetryAfterWithoutCallingModel() {
+        // Arrange
+        Integer conversationId = 1;
+        String token = "valid.token.here";
+        String prompt = "Hello";
+
+        when(jwtEncodedService.decode(token)).thenReturn(1);
+        when(conversationRepository.findById(conversationId))
+                .thenReturn(new Conversation(conversationId, "Chat", 1, LocalDateTime.now()));
+        when(rateLimiter.tryAcquire(1, prompt)).thenReturn(1500L);
+
+        // Act
+        StreamMessageUseCase.StreamMessageResult result =
+                streamMessageUseCase.execute(conversationId, token, prompt, chunk -> { });
+
+        // Assert
+        assertFalse(result.isSuccess());
+        assertEquals("Rate limit exceeded", result.getMessage());
+        assertEquals(2L, result.getRetryAfterSeconds());
+        verify(aiChatService, never()).streamResponse(any(), any(), any());
+        verify(conversationRepository, never()).addMessages(any(), any());
+    }
+}
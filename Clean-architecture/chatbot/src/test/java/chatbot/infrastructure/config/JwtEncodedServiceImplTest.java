@@ -0,0 +1,111 @@
+package chatbot.infrastructure.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtEncodedServiceImplTest {
+
+    private static final String CACHE = "jwt.verified-tokens";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void decode_WithCachedToken_ShouldSkipSignatureVerification() {
+        // Arrange
+        JwtEncodedServiceImpl service = service(100);
+        String token = service.encode(42);
+
+        // Act
+        Integer first = service.decode(token);
+        Integer second = service.decode(token);
+
+        // Assert
+        assertEquals(42, first);
+        assertEquals(42, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", CACHE).tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void decode_AfterCachedTokenExpires_ShouldVerifyAgainAndReject() throws InterruptedException {
+        // Arrange
+        JwtEncodedServiceImpl service = service(100);
+        // exp has second precision, so this token expires within the next 1.5 s
+        String token = service.encode(42, new Date(System.currentTimeMillis() + 1500));
+        assertEquals(42, service.decode(token));
+
+        // Act
+        Thread.sleep(2000);
+
+        // Assert
+        assertThrows(ExpiredJwtException.class, () -> service.decode(token));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void decode_WithExpiredToken_ShouldNotCacheIt() {
+        // Arrange
+        JwtEncodedServiceImpl service = service(100);
+        String token = service.encode(42, new Date(System.currentTimeMillis() - 60_000));
+
+        // Act
+        assertThrows(ExpiredJwtException.class, () -> service.decode(token));
+        assertThrows(ExpiredJwtException.class, () -> service.decode(token));
+
+        // Assert
+        assertEquals(2, verifications.get());
+        assertEquals(0, meterRegistry.get("cache.size").tag("cache", CACHE).gauge().value());
+    }
+
+    @Test
+    void decode_WithTamperedToken_ShouldNotCacheIt() {
+        // Arrange
+        JwtEncodedServiceImpl service = service(100);
+        String token = service.encode(42);
+        // Another user's claims under this token's signature
+        String[] other = service.encode(7).split("\\.");
+        String tampered = other[0] + "." + other[1] + "." + token.split("\\.")[2];
+
+        // Act
+        assertThrows(JwtException.class, () -> service.decode(tampered));
+        assertThrows(JwtException.class, () -> service.decode(tampered));
+
+        // Assert
+        assertEquals(2, verifications.get());
+        assertEquals(0, meterRegistry.get("cache.size").tag("cache", CACHE).gauge().value());
+    }
+
+    @Test
+    void decode_WithCacheDisabled_ShouldVerifyEveryTime() {
+        // Arrange
+        JwtEncodedServiceImpl service = service(0);
+        String token = service.encode(42);
+
+        // Act
+        service.decode(token);
+        service.decode(token);
+
+        // Assert
+        assertEquals(2, verifications.get());
+        assertNull(meterRegistry.find("cache.size").tag("cache", CACHE).gauge());
+    }
+
+    private JwtEncodedServiceImpl service(long cacheMaxSize) {
+        return new JwtEncodedServiceImpl(cacheMaxSize, meterRegistry) {
+            @Override
+            Claims verify(String token) {
+                verifications.incrementAndGet();
+                return super.verify(token);
+            }
+        };
+    }
+}
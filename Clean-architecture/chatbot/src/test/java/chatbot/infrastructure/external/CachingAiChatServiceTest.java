@@ -0,0 +1,133 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.AIChatService;
+import chatbot.application.service.ResponseCacheSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAiChatServiceTest {
+
+    private static final int CONVERSATION_ID = 5;
+
+    @Mock
+    private AIChatService delegate;
+
+    @Mock
+    private ResponseCacheSettings settings;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CachingAiChatService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CachingAiChatService(delegate, settings, 1_000_000, Duration.ofMinutes(10), meterRegistry);
+    }
+
+    @Test
+    void generateResponse_WithCachedReply_ShouldSkipTheModelAndRecordTheExchange() {
+        // Arrange
+        when(settings.isEnabled(CONVERSATION_ID)).thenReturn(true);
+        when(delegate.contextFingerprint(anyString(), eq(CONVERSATION_ID))).thenReturn("summary");
+        when(delegate.generateResponse("hello", CONVERSATION_ID)).thenReturn("Hi there");
+        service.generateResponse("hello", CONVERSATION_ID);
+
+        // Act
+        String reply = service.generateResponse("hello", CONVERSATION_ID);
+
+        // Assert
+        assertEquals("Hi there", reply);
+        verify(delegate, times(1)).generateResponse("hello", CONVERSATION_ID);
+        verify(delegate).recordExchange("hello", "Hi there", CONVERSATION_ID);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "ai.responses").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void streamResponse_WithCachedReply_ShouldEmitItAsOneChunk() {
+        // Arrange
+        when(settings.isEnabled(CONVERSATION_ID)).thenReturn(true);
+        when(delegate.contextFingerprint(anyString(), eq(CONVERSATION_ID))).thenReturn("summary");
+        when(delegate.generateResponse("hello", CONVERSATION_ID)).thenReturn("Hi there");
+        service.generateResponse("hello", CONVERSATION_ID);
+        List<String> chunks = new ArrayList<>();
+
+        // Act
+        String reply = service.streamResponse("hello", CONVERSATION_ID, chunks::add);
+
+        // Assert
+        assertEquals("Hi there", reply);
+        assertEquals(List.of("Hi there"), chunks);
+        verify(delegate, never()).streamResponse(anyString(), anyInt(), any());
+        verify(delegate).recordExchange("hello", "Hi there", CONVERSATION_ID);
+    }
+
+    @Test
+    void generateResponse_WithChangedFingerprint_ShouldMiss() {
+        // Arrange
+        when(settings.isEnabled(CONVERSATION_ID)).thenReturn(true);
+        when(delegate.contextFingerprint(anyString(), eq(CONVERSATION_ID))).thenReturn("turn 1", "turn 2");
+        when(delegate.generateResponse("yes", CONVERSATION_ID)).thenReturn("First", "Second");
+        service.generateResponse("yes", CONVERSATION_ID);
+
+        // Act
+        String reply = service.generateResponse("yes", CONVERSATION_ID);
+
+        // Assert
+        assertEquals("Second", reply);
+        verify(delegate, times(2)).generateResponse("yes", CONVERSATION_ID);
+        verify(delegate, never()).recordExchange(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void generateResponse_WhenConversationOptedOut_ShouldBypassAndCount() {
+        // Arrange
+        when(settings.isEnabled(CONVERSATION_ID)).thenReturn(false);
+        when(delegate.generateResponse("hello", CONVERSATION_ID)).thenReturn("Hi there");
+
+        // Act
+        service.generateResponse("hello", CONVERSATION_ID);
+        service.generateResponse("hello", CONVERSATION_ID);
+
+        // Assert
+        verify(delegate, times(2)).generateResponse("hello", CONVERSATION_ID);
+        verify(delegate, never()).contextFingerprint(anyString(), anyInt());
+        assertEquals(2, meterRegistry.counter("ai.responses.cache.bypassed").count());
+    }
+
+    @Test
+    void generateResponse_WithSamePromptWrittenDifferently_ShouldHit() {
+        // Arrange
+        when(settings.isEnabled(CONVERSATION_ID)).thenReturn(true);
+        when(delegate.contextFingerprint(anyString(), eq(CONVERSATION_ID))).thenReturn("");
+        when(delegate.generateResponse("Hi!", CONVERSATION_ID)).thenReturn("Hello!");
+        service.generateResponse("Hi!", CONVERSATION_ID);
+
+        // Act
+        String reply = service.generateResponse(" hi ", CONVERSATION_ID);
+
+        // Assert
+        assertEquals("Hello!", reply);
+        verify(delegate, never()).generateResponse(eq(" hi "), anyInt());
+    }
+
+    @Test
+    void normalize_ShouldIgnoreCaseSpacingAndTrailingPunctuation() {
+        // Act & Assert
+        assertEquals("hi", CachingAiChatService.normalize("Hi!"));
+        assertEquals("hi", CachingAiChatService.normalize(" hi "));
+        assertEquals("what is java", CachingAiChatService.normalize("What   is\tJava?!"));
+        assertEquals("e.g. this", CachingAiChatService.normalize("e.g. this."));
+    }
+}
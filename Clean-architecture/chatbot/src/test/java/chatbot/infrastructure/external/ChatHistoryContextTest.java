@@ -0,0 +1,87 @@
+package chatbot.infrastructure.external;
+
+import chatbot.infrastructure.persistence.HistoryEntry;
+import chatbot.infrastructure.persistence.RedisChatHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatHistoryContextTest {
+
+    private static final int CONVERSATION_ID = 5;
+
+    private static final RedisChatHistoryRepository.ChatContext FIRST =
+            new RedisChatHistoryRepository.ChatContext(null, List.of(HistoryEntry.user("one")));
+    private static final RedisChatHistoryRepository.ChatContext SECOND =
+            new RedisChatHistoryRepository.ChatContext(null, List.of(HistoryEntry.user("one"), HistoryEntry.ai("two")));
+
+    @Mock
+    private RedisChatHistoryRepository historyRepository;
+
+    @Mock
+    private ObjectProvider<ConversationSummarizer> summarizer;
+
+    private ChatHistoryContext chatHistory;
+
+    @BeforeEach
+    void setUp() {
+        chatHistory = new ChatHistoryContext(historyRepository, summarizer, false);
+    }
+
+    @Test
+    void forPrompt_WithOverlappingTurns_ShouldUseEachTurnsFingerprintedContext() {
+        // Arrange
+        when(historyRepository.context(CONVERSATION_ID)).thenReturn(FIRST, SECOND);
+        String firstFingerprint = chatHistory.fingerprint(CONVERSATION_ID, "first question");
+        String secondFingerprint = chatHistory.fingerprint(CONVERSATION_ID, "second question");
+
+        // Act
+        RedisChatHistoryRepository.ChatContext second = chatHistory.forPrompt(CONVERSATION_ID, "second question");
+        RedisChatHistoryRepository.ChatContext first = chatHistory.forPrompt(CONVERSATION_ID, "first question");
+
+        // Assert
+        assertSame(FIRST, first);
+        assertSame(SECOND, second);
+        assertEquals("\nUser: one", firstFingerprint);
+        assertEquals("\nUser: one\nAI: two", secondFingerprint);
+        verify(historyRepository, times(2)).context(CONVERSATION_ID);
+    }
+
+    @Test
+    void forPrompt_WithoutFingerprint_ShouldReadTheHistory() {
+        // Arrange
+        when(historyRepository.context(CONVERSATION_ID)).thenReturn(FIRST);
+
+        // Act
+        RedisChatHistoryRepository.ChatContext context = chatHistory.forPrompt(CONVERSATION_ID, "question");
+
+        // Assert
+        assertSame(FIRST, context);
+    }
+
+    @Test
+    void record_AfterCachedTurn_ShouldDropItsFingerprintedContext() {
+        // Arrange
+        when(historyRepository.context(CONVERSATION_ID)).thenReturn(FIRST, SECOND);
+        when(historyRepository.append(eq(CONVERSATION_ID), anyList(), eq(false))).thenReturn(4L);
+        chatHistory.fingerprint(CONVERSATION_ID, "yes");
+        // Answered from the cache: the prompt is never built
+        chatHistory.record(CONVERSATION_ID, "yes", "Done.");
+
+        // Act
+        RedisChatHistoryRepository.ChatContext next = chatHistory.forPrompt(CONVERSATION_ID, "yes");
+
+        // Assert
+        assertSame(SECOND, next);
+    }
+}
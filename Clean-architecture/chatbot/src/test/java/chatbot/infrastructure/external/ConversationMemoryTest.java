@@ -0,0 +1,174 @@
+package chatbot.infrastructure.external;
+
+import chatbot.domain.entity.Message;
+import chatbot.domain.entity.MessagePage;
+import chatbot.domain.repository.ConversationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationMemoryTest {
+
+    private static final int CONVERSATION_ID = 1;
+    private static final double MIN_SCORE = 0.3;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    private final List<Message> stored = new CopyOnWriteArrayList<>();
+    private final CountingEmbeddingProvider embeddingProvider = new CountingEmbeddingProvider();
+    private final List<ConversationMemory> memories = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        memories.forEach(ConversationMemory::shutdown);
+    }
+
+    @Test
+    void recall_WithOldRelevantMessage_ShouldReturnItFirst() {
+        // Arrange
+        store(1, 2);
+        stored.add(message(3, "We planned a volcano hiking trip in Iceland for July"));
+        store(4, 30);
+        ConversationMemory memory = memory(5000);
+
+        // Act
+        List<ConversationMemory.Recalled> recalled = memory.recall(CONVERSATION_ID, "How long is the volcano hiking trip?", 3);
+
+        // Assert
+        assertFalse(recalled.isEmpty());
+        assertEquals(3, recalled.get(0).messageId());
+        assertEquals("User: We planned a volcano hiking trip in Iceland for July", recalled.get(0).entry().promptLine());
+        assertTrue(recalled.stream().allMatch(hit -> hit.score() >= MIN_SCORE));
+    }
+
+    @Test
+    void recall_WithMessagesStoredSinceLastTurn_ShouldIndexThem() {
+        // Arrange
+        store(1, 10);
+        ConversationMemory memory = memory(5000);
+        memory.recall(CONVERSATION_ID, "first question", 3);
+        stored.add(message(11, "The dentist appointment moved to Friday afternoon"));
+
+        // Act
+        List<ConversationMemory.Recalled> recalled = memory.recall(CONVERSATION_ID, "When is the dentist appointment?", 3);
+
+        // Assert
+        assertEquals(11, recalled.get(0).messageId());
+        assertEquals(10 + 1 + 1 + 1, embeddingProvider.texts.get(), "each message is embedded once");
+    }
+
+    @Test
+    void recall_PastMaxMessagesPerConversation_ShouldKeepTheNewestWithoutReembedding() throws InterruptedException {
+        // Arrange
+        store(1, 4);
+        stored.add(message(5, "Booking the passport renewal appointment downtown"));
+        store(6, 209);
+        stored.add(message(210, "We planned a volcano hiking trip in Iceland for July"));
+        store(211, 229);
+        stored.add(message(230, "Baking sourdough bread needs a lively starter"));
+        store(231, 300);
+        ConversationMemory memory = memory(100);
+
+        // Act
+        memory.recall(CONVERSATION_ID, "volcano hiking trip", 3);
+        assertTrue(awaitRecalled(memory, "volcano hiking trip", 210), "backfill reached message 210");
+        List<ConversationMemory.Recalled> passport = memory.recall(CONVERSATION_ID, "passport renewal appointment", 3);
+
+        store(301, 320);
+        int embeddedBefore = embeddingProvider.texts.get();
+        List<ConversationMemory.Recalled> volcano = memory.recall(CONVERSATION_ID, "volcano hiking trip", 3);
+        List<ConversationMemory.Recalled> sourdough = memory.recall(CONVERSATION_ID, "sourdough bread starter", 3);
+
+        // Assert
+        assertTrue(passport.stream().noneMatch(hit -> hit.messageId() == 5), "backfill stops at the cap");
+        verify(conversationRepository, never()).getMessagesPage(eq(CONVERSATION_ID), eq(151), anyInt());
+        assertTrue(volcano.stream().noneMatch(hit -> hit.messageId() == 210), "trimmed to the newest 100");
+        assertEquals(230, sourdough.get(0).messageId());
+        assertEquals(20 + 1 + 1, embeddingProvider.texts.get() - embeddedBefore, "kept messages are not embedded again");
+    }
+
+    @Test
+    void recall_WhenEmbeddingFails_ShouldReturnNothing() {
+        // Arrange
+        store(1, 5);
+        embeddingProvider.failing = true;
+        ConversationMemory memory = memory(5000);
+
+        // Act
+        List<ConversationMemory.Recalled> recalled = memory.recall(CONVERSATION_ID, "anything", 3);
+
+        // Assert
+        assertTrue(recalled.isEmpty());
+    }
+
+    private ConversationMemory memory(int maxMessagesPerConversation) {
+        when(conversationRepository.getMessagesPage(eq(CONVERSATION_ID), any(), anyInt()))
+                .thenAnswer(invocation -> page(invocation.getArgument(1), invocation.getArgument(2)));
+        ConversationMemory memory = new ConversationMemory(conversationRepository, embeddingProvider,
+                maxMessagesPerConversation, 50_000, 30, MIN_SCORE, new SimpleMeterRegistry());
+        memories.add(memory);
+        return memory;
+    }
+
+    // Same shape as the repository: newest limit messages before beforeId, oldest first
+    private MessagePage page(Integer beforeId, int limit) {
+        List<Message> older = stored.stream()
+                .filter(message -> beforeId == null || message.getId() < beforeId)
+                .toList();
+        List<Message> page = older.subList(Math.max(0, older.size() - limit), older.size());
+        boolean hasMore = older.size() > limit;
+        return new MessagePage(page, hasMore ? page.get(0).getId() : null, hasMore);
+    }
+
+    private boolean awaitRecalled(ConversationMemory memory, String prompt, int messageId) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            if (memory.recall(CONVERSATION_ID, prompt, 3).stream().anyMatch(hit -> hit.messageId() == messageId)) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private void store(int fromId, int toId) {
+        for (int id = fromId; id <= toId; id++) {
+            stored.add(message(id, "Routine status update number " + id));
+        }
+    }
+
+    private static Message message(int id, String content) {
+        return new Message(id, content, LocalDateTime.now(), true);
+    }
+
+    private static class CountingEmbeddingProvider implements EmbeddingProvider {
+
+        private final HashingEmbeddingProvider delegate = new HashingEmbeddingProvider(256);
+        private final AtomicInteger texts = new AtomicInteger();
+        private volatile boolean failing;
+
+        @Override
+        public List<float[]> embed(List<String> batch) {
+            if (failing) {
+                throw new IllegalStateException("embedding service down");
+            }
+            texts.addAndGet(batch.size());
+            return delegate.embed(batch);
+        }
+    }
+}
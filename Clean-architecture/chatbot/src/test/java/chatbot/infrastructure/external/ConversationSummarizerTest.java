@@ -0,0 +1,106 @@
+package chatbot.infrastructure.external;
+
+import chatbot.infrastructure.persistence.RedisChatHistoryRepository;
+import chatbot.infrastructure.persistence.RedisSummaryQueue;
+import chatbot.infrastructure.persistence.RedisTestServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationSummarizerTest {
+
+    private static final long LEASE_MS = 100;
+
+    private static RedisTestServer redis;
+
+    @Mock
+    private RedisChatHistoryRepository historyRepository;
+
+    private RedisSummaryQueue queue;
+    private ConversationSummarizer summarizer;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = RedisTestServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        queue = new RedisSummaryQueue(redis.template(), LEASE_MS, new SimpleMeterRegistry());
+        // Nothing new to fold in, so no model call is made and no client is needed
+        lenient().when(historyRepository.summaryInput(anyInt()))
+                .thenReturn(new RedisChatHistoryRepository.SummaryInput(null, List.of(), 0));
+        summarizer = new ConversationSummarizer(null, historyRepository, queue, 1, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        summarizer.stop();
+    }
+
+    @Test
+    void requestSummary_RepeatedBeforePickup_ShouldRunOnce() {
+        // Arrange
+        summarizer.requestSummary(7);
+        summarizer.requestSummary(7);
+
+        // Act
+        summarizer.start();
+
+        // Assert
+        verify(historyRepository, timeout(5000)).summaryInput(7);
+        assertEquals(0, queue.depth());
+        verify(historyRepository, after(300).times(1)).summaryInput(7);
+    }
+
+    @Test
+    void start_WithLeaseOfCrashedWorker_ShouldReclaimAndSummarize() throws InterruptedException {
+        // Arrange
+        summarizer.requestSummary(7);
+        // Taken by a worker that died before acknowledging
+        assertEquals(7, queue.take());
+        Thread.sleep(LEASE_MS * 2);
+
+        // Act
+        summarizer.start();
+
+        // Assert
+        verify(historyRepository, timeout(5000)).summaryInput(7);
+    }
+
+    @Test
+    void start_WithQueuedJob_ShouldAcknowledgeItSoItIsNotRerun() throws InterruptedException {
+        // Arrange
+        summarizer.requestSummary(7);
+        summarizer.start();
+        verify(historyRepository, timeout(5000)).summaryInput(7);
+        summarizer.stop();
+        Thread.sleep(LEASE_MS * 2);
+
+        // Act
+        long reclaimed = queue.reclaimExpired();
+
+        // Assert
+        assertEquals(0, reclaimed);
+        assertNull(queue.take());
+        verify(historyRepository, times(1)).summaryInput(7);
+    }
+}
@@ -0,0 +1,122 @@
+package chatbot.infrastructure.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+
+    private static final int MAX_LINKS = 16;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final int EF_SEARCH = 64;
+    private static final int K = 10;
+
+    private final HashingEmbeddingProvider embeddingProvider = new HashingEmbeddingProvider(256);
+
+    @Test
+    void search_OverHashedTexts_ShouldMatchBruteForceRecall() {
+        // Arrange
+        Random random = new Random(7);
+        List<String> vocabulary = IntStream.range(0, 500).mapToObj(i -> word(random)).toList();
+        List<float[]> vectors = embeddingProvider.embed(texts(random, vocabulary, 2000)).stream().map(HnswIndexTest::unit).toList();
+        List<float[]> queries = embeddingProvider.embed(texts(random, vocabulary, 50)).stream().map(HnswIndexTest::unit).toList();
+        HnswIndex<Integer> index = new HnswIndex<>(MAX_LINKS, EF_CONSTRUCTION);
+        for (int i = 0; i < vectors.size(); i++) {
+            index.add(vectors.get(i), i);
+        }
+
+        // Act
+        int found = 0;
+        for (float[] query : queries) {
+            Set<Integer> exact = new HashSet<>(bruteForce(vectors, query));
+            for (HnswIndex.Hit<Integer> hit : index.search(query, K, EF_SEARCH)) {
+                if (exact.contains(hit.value())) {
+                    found++;
+                }
+            }
+        }
+
+        // Assert
+        double recall = (double) found / (queries.size() * K);
+        assertTrue(recall >= 0.9, "recall@" + K + " was " + recall);
+        assertEquals(2000, index.size());
+    }
+
+    @Test
+    void search_ShouldReturnBestFirstWithCosineScores() {
+        // Arrange
+        HnswIndex<String> index = new HnswIndex<>(MAX_LINKS, EF_CONSTRUCTION);
+        List<String> texts = List.of("booking a flight to Lisbon", "renewing my passport", "baking sourdough bread");
+        List<float[]> vectors = embeddingProvider.embed(texts).stream().map(HnswIndexTest::unit).toList();
+        for (int i = 0; i < texts.size(); i++) {
+            index.add(vectors.get(i), texts.get(i));
+        }
+        float[] query = unit(embeddingProvider.embed(List.of("passport renewal")).get(0));
+
+        // Act
+        List<HnswIndex.Hit<String>> hits = index.search(query, 3, EF_SEARCH);
+
+        // Assert
+        assertEquals(3, hits.size());
+        assertEquals("renewing my passport", hits.get(0).value());
+        assertEquals(HnswIndex.similarity(query, vectors.get(1)), hits.get(0).score(), 1e-9);
+        assertTrue(hits.get(0).score() >= hits.get(1).score() && hits.get(1).score() >= hits.get(2).score());
+    }
+
+    @Test
+    void search_OnEmptyIndex_ShouldReturnNothing() {
+        // Arrange
+        HnswIndex<String> index = new HnswIndex<>(MAX_LINKS, EF_CONSTRUCTION);
+
+        // Act
+        List<HnswIndex.Hit<String>> hits = index.search(new float[]{1, 0}, 5, EF_SEARCH);
+
+        // Assert
+        assertTrue(hits.isEmpty());
+    }
+
+    private static List<Integer> bruteForce(List<float[]> vectors, float[] query) {
+        return IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> HnswIndex.similarity(query, vectors.get(i))).reversed())
+                .limit(K)
+                .toList();
+    }
+
+    private static List<String> texts(Random random, List<String> vocabulary, int count) {
+        List<String> texts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 8; w++) {
+                text.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+            }
+            texts.add(text.toString().trim());
+        }
+        return texts;
+    }
+
+    private static String word(Random random) {
+        StringBuilder word = new StringBuilder();
+        int length = 4 + random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+
+    private static float[] unit(float[] vector) {
+        double norm = Math.sqrt(HnswIndex.similarity(vector, vector));
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+}
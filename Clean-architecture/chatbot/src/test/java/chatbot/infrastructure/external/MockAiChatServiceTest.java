@@ -0,0 +1,118 @@
+package chatbot.infrastructure.external;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MockAiChatServiceTest {
+
+    private static final int CONVERSATION_ID = 3;
+
+    @Mock
+    private ChatHistoryContext chatHistory;
+
+    @Test
+    void generateResponse_WithErrorRateOne_ShouldAlwaysFail() {
+        // Arrange
+        MockAiChatService service = service(0, 1, "fixed", 0, 0);
+
+        // Act & Assert
+        for (int i = 0; i < 20; i++) {
+            assertThrows(IllegalStateException.class, () -> service.generateResponse("hello", CONVERSATION_ID));
+            assertThrows(IllegalStateException.class, () -> service.streamResponse("hello", CONVERSATION_ID, chunk -> { }));
+        }
+        verify(chatHistory, never()).record(anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    void generateResponse_WithErrorRateZero_ShouldNeverFail() {
+        // Arrange
+        MockAiChatService service = service(0, 0, "fixed", 0, 0);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            service.generateResponse("hello", CONVERSATION_ID);
+        }
+
+        // Assert
+        verify(chatHistory, times(50)).record(eq(CONVERSATION_ID), eq("hello"), anyString());
+    }
+
+    @Test
+    void generateResponse_WithFixedReplyWords_ShouldPadByThatManyWords() {
+        // Arrange
+        int baseWords = words(service(0, 0, "fixed", 0, 0).generateResponse("hello", CONVERSATION_ID));
+        MockAiChatService service = service(0, 0, "fixed", 30, 0);
+
+        // Act
+        String reply = service.generateResponse("hello", CONVERSATION_ID);
+
+        // Assert
+        assertEquals(baseWords + 30, words(reply));
+    }
+
+    @Test
+    void generateResponse_WithParetoReplyWords_ShouldFollowTheDistribution() {
+        // Arrange
+        int baseWords = words(service(0, 0, "fixed", 0, 0).generateResponse("hello", CONVERSATION_ID));
+        MockAiChatService service = service(0, 0, "pareto", 10, 60);
+
+        // Act
+        List<Integer> padding = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            padding.add(words(service.generateResponse("hello", CONVERSATION_ID)) - baseWords);
+        }
+
+        // Assert
+        assertTrue(padding.stream().allMatch(words -> words >= 10 && words <= 60), padding.toString());
+        assertTrue(padding.stream().distinct().count() > 5, "reply sizes vary");
+    }
+
+    @Test
+    void generateResponse_WithFixedLatency_ShouldTakeAtLeastThatLong() {
+        // Arrange
+        MockAiChatService service = service(50, 0, "fixed", 0, 0);
+
+        // Act
+        long startedAt = System.nanoTime();
+        service.generateResponse("hello", CONVERSATION_ID);
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        // Assert
+        assertTrue(elapsedMs >= 50, "took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void streamResponse_ShouldEmitTheReplyWordByWord() {
+        // Arrange
+        MockAiChatService service = service(0, 0, "fixed", 12, 0);
+        List<String> chunks = new ArrayList<>();
+
+        // Act
+        String reply = service.streamResponse("hello", CONVERSATION_ID, chunks::add);
+
+        // Assert
+        assertEquals(reply, String.join("", chunks));
+        assertEquals(words(reply), chunks.size());
+        verify(chatHistory).record(CONVERSATION_ID, "hello", reply);
+    }
+
+    private MockAiChatService service(double latencyMs, double errorRate,
+                                      String replyWordsDistribution, double replyWords, double replyWordsMax) {
+        return new MockAiChatService(chatHistory, "fixed", latencyMs, 0, 1.5, 60_000, 0, errorRate,
+                replyWordsDistribution, replyWords, 0, 1.5, replyWordsMax == 0 ? 4_000 : replyWordsMax);
+    }
+
+    private static int words(String text) {
+        return text.split(" ").length;
+    }
+}
@@ -0,0 +1,117 @@
+package chatbot.infrastructure.external;
+
+import chatbot.infrastructure.persistence.HistoryEntry;
+import chatbot.infrastructure.persistence.OutboxMessage;
+import chatbot.infrastructure.persistence.RedisChatHistoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxChatHistoryWriterTest {
+
+    private static final int SHARD_ID = 2;
+
+    @Mock
+    private RedisChatHistoryRepository historyRepository;
+
+    @Mock
+    private ObjectProvider<ConversationSummarizer> summarizerProvider;
+
+    @Mock
+    private ConversationSummarizer summarizer;
+
+    private OutboxChatHistoryWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doCallRealMethod().when(summarizerProvider).ifAvailable(any());
+        lenient().when(summarizerProvider.getIfAvailable()).thenReturn(summarizer);
+        writer = new OutboxChatHistoryWriter(historyRepository, summarizerProvider);
+    }
+
+    @Test
+    void onMessages_ShouldAppendOncePerConversationInOutboxOrder() {
+        // Arrange
+        when(historyRepository.appendOnce(anyInt(), anyInt(), anyList(), anyList()))
+                .thenReturn(new RedisChatHistoryRepository.Appended(3, 2));
+
+        // Act
+        writer.onMessages(SHARD_ID, List.of(
+                message(10, 1, true, "hello"),
+                message(11, 2, true, "other"),
+                message(12, 1, false, "Hi!")));
+
+        // Assert
+        verify(historyRepository).appendOnce(1, SHARD_ID, List.of(10L, 12L),
+                List.of(HistoryEntry.user("hello"), HistoryEntry.ai("Hi!")));
+        verify(historyRepository).appendOnce(2, SHARD_ID, List.of(11L), List.of(HistoryEntry.user("other")));
+        verifyNoMoreInteractions(historyRepository);
+    }
+
+    @Test
+    void onMessages_WhenCrossingTheSummaryInterval_ShouldRequestASummary() {
+        // Arrange
+        when(historyRepository.appendOnce(eq(1), anyInt(), anyList(), anyList()))
+                .thenReturn(new RedisChatHistoryRepository.Appended(11, 2));
+
+        // Act
+        writer.onMessages(SHARD_ID, List.of(message(10, 1, true, "hello"), message(11, 1, false, "Hi!")));
+
+        // Assert
+        verify(summarizer).requestSummary(1);
+    }
+
+    @Test
+    void onMessages_LandingExactlyOnTheSummaryInterval_ShouldRequestASummary() {
+        // Arrange
+        when(historyRepository.appendOnce(eq(1), anyInt(), anyList(), anyList()))
+                .thenReturn(new RedisChatHistoryRepository.Appended(10, 2));
+
+        // Act
+        writer.onMessages(SHARD_ID, List.of(message(10, 1, true, "hello"), message(11, 1, false, "Hi!")));
+
+        // Assert
+        verify(summarizer).requestSummary(1);
+    }
+
+    @Test
+    void onMessages_WithinTheSummaryInterval_ShouldNotRequestASummary() {
+        // Arrange
+        when(historyRepository.appendOnce(eq(1), anyInt(), anyList(), anyList()))
+                .thenReturn(new RedisChatHistoryRepository.Appended(9, 2));
+
+        // Act
+        writer.onMessages(SHARD_ID, List.of(message(10, 1, true, "hello"), message(11, 1, false, "Hi!")));
+
+        // Assert
+        verify(summarizer, never()).requestSummary(anyInt());
+    }
+
+    @Test
+    void onMessages_WithEverythingAlreadyAppended_ShouldNotRequestASummary() {
+        // Arrange
+        when(historyRepository.appendOnce(eq(1), anyInt(), anyList(), anyList()))
+                .thenReturn(new RedisChatHistoryRepository.Appended(10, 0));
+
+        // Act
+        writer.onMessages(SHARD_ID, List.of(message(10, 1, true, "hello"), message(11, 1, false, "Hi!")));
+
+        // Assert
+        verify(summarizer, never()).requestSummary(anyInt());
+    }
+
+    private static OutboxMessage message(long id, int conversationId, boolean fromUser, String content) {
+        LocalDateTime now = LocalDateTime.now();
+        return new OutboxMessage(id, conversationId, fromUser, content, now, now);
+    }
+}
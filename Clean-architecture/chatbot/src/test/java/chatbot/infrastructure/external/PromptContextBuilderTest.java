@@ -0,0 +1,150 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.TokenEstimator;
+import chatbot.infrastructure.persistence.HistoryEntry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptContextBuilderTest {
+
+    private static final String RECALLED_HEADER = "Relevant earlier messages:\n";
+
+    @Test
+    void build_WithRecalled_ShouldPrintThemInConversationOrderBeforeRecentTurns() {
+        // Arrange
+        PromptContextBuilder builder = new PromptContextBuilder(2000, 400, 5);
+        List<ConversationMemory.Recalled> recalled = List.of(
+                recalled(9, HistoryEntry.ai("Your flight leaves at 7am.")),
+                recalled(3, HistoryEntry.user("I am flying to Lisbon.")));
+        List<HistoryEntry> recent = List.of(HistoryEntry.user("What about hotels?"), HistoryEntry.ai("Here are three."));
+
+        // Act
+        String prompt = builder.build("We talked about travel.", recalled, recent, "When do I leave?");
+
+        // Assert
+        String expectedSection = RECALLED_HEADER + "User: I am flying to Lisbon.\nAI: Your flight leaves at 7am.\n\n";
+        assertTrue(prompt.contains(expectedSection), prompt);
+        assertTrue(prompt.indexOf("Summary of the earlier conversation:") < prompt.indexOf(RECALLED_HEADER));
+        assertTrue(prompt.indexOf(RECALLED_HEADER) < prompt.indexOf("Conversation:\nUser: What about hotels?\nAI: Here are three.\n"));
+        assertTrue(prompt.endsWith("User: When do I leave?\nAI:"));
+    }
+
+    @Test
+    void build_WithRecalledLineInRecentWindow_ShouldNotRepeatIt() {
+        // Arrange
+        PromptContextBuilder builder = new PromptContextBuilder(2000, 400, 5);
+        HistoryEntry repeated = HistoryEntry.user("My booking code is QX7.");
+        List<ConversationMemory.Recalled> recalled = List.of(
+                recalled(40, repeated),
+                recalled(2, HistoryEntry.user("My booking code is QX7.")),
+                recalled(1, HistoryEntry.user("I prefer aisle seats.")));
+        List<HistoryEntry> recent = List.of(repeated, HistoryEntry.ai("Noted."));
+
+        // Act
+        String prompt = builder.build(null, recalled, recent, "Which seat?");
+
+        // Assert
+        assertEquals(1, occurrences(prompt, "User: My booking code is QX7.\n"));
+        assertTrue(prompt.contains(RECALLED_HEADER + "User: I prefer aisle seats.\n\n"), prompt);
+    }
+
+    @Test
+    void build_WithOnlyRecalledInRecentWindow_ShouldOmitTheSection() {
+        // Arrange
+        PromptContextBuilder builder = new PromptContextBuilder(2000, 400, 5);
+        HistoryEntry entry = HistoryEntry.user("Hello there.");
+
+        // Act
+        String prompt = builder.build(null, List.of(recalled(1, entry)), List.of(entry), "Hi again");
+
+        // Assert
+        assertFalse(prompt.contains(RECALLED_HEADER));
+    }
+
+    @Test
+    void build_WithMoreMatchesThanTopK_ShouldKeepTheBestOnes() {
+        // Arrange
+        PromptContextBuilder builder = new PromptContextBuilder(2000, 400, 2);
+        List<ConversationMemory.Recalled> recalled = List.of(
+                recalled(5, HistoryEntry.user("best")),
+                recalled(1, HistoryEntry.user("second")),
+                recalled(3, HistoryEntry.user("third")));
+
+        // Act
+        String prompt = builder.build(null, recalled, List.of(), "question");
+
+        // Assert
+        assertTrue(prompt.contains(RECALLED_HEADER + "User: second\nUser: best\n\n"), prompt);
+        assertFalse(prompt.contains("User: third"));
+    }
+
+    @Test
+    void build_WithLongHistory_ShouldStayWithinTokenBudget() {
+        // Arrange
+        int tokenBudget = 300;
+        int memoryTokenBudget = 80;
+        PromptContextBuilder builder = new PromptContextBuilder(tokenBudget, memoryTokenBudget, 5);
+        List<ConversationMemory.Recalled> recalled = new ArrayList<>();
+        List<HistoryEntry> recent = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            recalled.add(recalled(i, HistoryEntry.user("Recalled fact number " + i + " with some extra words")));
+            recent.add(HistoryEntry.ai("Recent turn number " + i + " that goes on for a while longer"));
+        }
+
+        // Act
+        String prompt = builder.build("A summary.", recalled, recent, "What now?");
+
+        // Assert
+        assertTrue(TokenEstimator.estimate(prompt) <= tokenBudget, "estimate " + TokenEstimator.estimate(prompt));
+        String section = prompt.substring(prompt.indexOf(RECALLED_HEADER), prompt.indexOf("Conversation:\n"));
+        assertTrue(TokenEstimator.estimate(section) <= memoryTokenBudget);
+        assertTrue(prompt.contains("Recent turn number 39 "), "the newest turn is always kept");
+    }
+
+    @Test
+    void build_WithUnusedMemoryBudget_ShouldGiveItToRecentTurns() {
+        // Arrange
+        PromptContextBuilder builder = new PromptContextBuilder(200, 150, 5);
+        List<HistoryEntry> recent = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            recent.add(HistoryEntry.user("Turn " + i + " " + "x".repeat(47)));
+        }
+
+        // Act
+        String prompt = builder.build(null, List.of(recalled(1, HistoryEntry.user("old fact"))), recent, "hi");
+
+        // Assert
+        assertTrue(prompt.contains(RECALLED_HEADER + "User: old fact\n\n"), prompt);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(prompt.contains("User: Turn " + i + " "), "turn " + i + " kept");
+        }
+    }
+
+    @Test
+    void recallCandidates_ShouldReachPastTheRecentWindow() {
+        // Arrange
+        PromptContextBuilder builder = new PromptContextBuilder(2000, 400, 5);
+
+        // Act
+        int candidates = builder.recallCandidates(12);
+
+        // Assert
+        assertEquals(17, candidates);
+    }
+
+    private static ConversationMemory.Recalled recalled(int messageId, HistoryEntry entry) {
+        return new ConversationMemory.Recalled(messageId, entry, 0.9);
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int at = text.indexOf(part); at >= 0; at = text.indexOf(part, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
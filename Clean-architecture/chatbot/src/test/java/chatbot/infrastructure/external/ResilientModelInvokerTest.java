@@ -0,0 +1,367 @@
+package chatbot.infrastructure.external;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientModelInvokerTest {
+
+    private static final String PRIMARY = "primary";
+    private static final String FALLBACK = "fallback";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ResilientModelInvoker> invokers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        invokers.forEach(ResilientModelInvoker::shutdown);
+    }
+
+    @Test
+    void generate_WithOneFailedAttempt_ShouldRetryOnPrimary() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onGenerate = (name) -> {
+            if (model.calls(PRIMARY) == 1) {
+                throw new IllegalStateException("503");
+            }
+            return name + " reply";
+        };
+        ResilientModelInvoker invoker = invoker(model, new Settings());
+
+        // Act
+        String reply = invoker.generate("hello");
+
+        // Assert
+        assertEquals("primary reply", reply);
+        assertEquals(2, model.calls(PRIMARY));
+        assertEquals(0, model.calls(FALLBACK));
+        assertEquals(1, meterRegistry.counter("ai.gemini.retries").count());
+    }
+
+    @Test
+    void generate_WhenPrimaryKeepsFailing_ShouldFallBack() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onGenerate = failingOn(PRIMARY);
+        ResilientModelInvoker invoker = invoker(model, new Settings());
+
+        // Act
+        String reply = invoker.generate("hello");
+
+        // Assert
+        assertEquals("fallback reply", reply);
+        assertEquals(3, model.calls(PRIMARY));
+        assertEquals(1, meterRegistry.counter("ai.gemini.fallbacks").count());
+    }
+
+    @Test
+    void generate_WhenPrimaryUsedMostOfTheDeadline_ShouldBoundFallbackByWhatIsLeft() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onGenerate = (name) -> {
+            if (name.equals(PRIMARY)) {
+                sleep(250);
+                throw new IllegalStateException("503");
+            }
+            sleep(5_000);
+            return "too late";
+        };
+        Settings settings = new Settings();
+        settings.deadlineMs = 400;
+        settings.attemptTimeoutMs = 2_000;
+        settings.maxAttempts = 1;
+        ResilientModelInvoker invoker = invoker(model, settings);
+
+        // Act
+        long startedAt = System.nanoTime();
+        assertThrows(IllegalStateException.class, () -> invoker.generate("hello"));
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        // Assert
+        assertEquals(1, model.calls(FALLBACK));
+        assertTrue(elapsedMs < 1_000, "fallback waited " + elapsedMs + " ms past a 400 ms deadline");
+    }
+
+    @Test
+    void generate_WithRetryBudgetSpent_ShouldStopRetrying() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onGenerate = failingOn(PRIMARY);
+        Settings settings = new Settings();
+        settings.fallbackModel = "";
+        settings.retryBudgetRatio = 0;
+        settings.breakerWindow = 1_000;
+        ResilientModelInvoker invoker = invoker(model, settings);
+
+        // Act: the reserve of 10 extra calls covers five calls with two retries each
+        for (int i = 0; i < 6; i++) {
+            assertThrows(IllegalStateException.class, () -> invoker.generate("hello"));
+        }
+
+        // Assert
+        assertEquals(5 * 3 + 1, model.calls(PRIMARY));
+        assertEquals(10, meterRegistry.counter("ai.gemini.retries").count());
+    }
+
+    @Test
+    void generate_WhenCircuitOpens_ShouldSkipPrimary() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onGenerate = failingOn(PRIMARY);
+        Settings settings = new Settings();
+        settings.maxAttempts = 1;
+        settings.breakerWindow = 4;
+        ResilientModelInvoker invoker = invoker(model, settings);
+
+        // Act
+        invoker.generate("1");
+        invoker.generate("2");
+        String reply = invoker.generate("3");
+
+        // Assert
+        assertEquals("fallback reply", reply);
+        assertEquals(2, model.calls(PRIMARY));
+        assertEquals(3, model.calls(FALLBACK));
+        assertEquals(1, meterRegistry.get("ai.gemini.breaker.open").gauge().value());
+    }
+
+    @Test
+    void generate_AfterOpenPeriod_ShouldCloseCircuitOnSuccessfulTrial() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        AtomicInteger primaryFailures = new AtomicInteger(2);
+        model.onGenerate = (name) -> {
+            if (name.equals(PRIMARY) && primaryFailures.getAndDecrement() > 0) {
+                throw new IllegalStateException("503");
+            }
+            return name + " reply";
+        };
+        Settings settings = new Settings();
+        settings.maxAttempts = 1;
+        settings.breakerWindow = 4;
+        settings.breakerOpenMs = 100;
+        ResilientModelInvoker invoker = invoker(model, settings);
+        invoker.generate("1");
+        invoker.generate("2");
+
+        // Act
+        sleep(150);
+        String trial = invoker.generate("3");
+        String next = invoker.generate("4");
+
+        // Assert
+        assertEquals("primary reply", trial);
+        assertEquals("primary reply", next);
+        assertEquals(0, meterRegistry.get("ai.gemini.breaker.open").gauge().value());
+    }
+
+    @Test
+    void generate_WhenAttemptIsSlow_ShouldReturnFasterHedge() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onGenerate = (name) -> {
+            if (model.calls(PRIMARY) == 1) {
+                sleep(2_000);
+                return "slow";
+            }
+            return "hedged";
+        };
+        Settings settings = new Settings();
+        settings.hedgingEnabled = true;
+        settings.initialHedgeDelayMs = 50;
+        ResilientModelInvoker invoker = invoker(model, settings);
+
+        // Act
+        long startedAt = System.nanoTime();
+        String reply = invoker.generate("hello");
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        // Assert
+        assertEquals("hedged", reply);
+        assertEquals(2, model.calls(PRIMARY));
+        assertEquals(1, meterRegistry.counter("ai.gemini.hedges").count());
+        assertTrue(elapsedMs < 1_000, "hedged call took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void stream_WithChunks_ShouldForwardThemInOrder() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onStream = (name, onChunk) -> List.of("Hel", "lo").forEach(onChunk);
+        ResilientModelInvoker invoker = invoker(model, new Settings());
+        List<String> received = new ArrayList<>();
+
+        // Act
+        String reply = invoker.stream("hello", received::add);
+
+        // Assert
+        assertEquals("Hello", reply);
+        assertEquals(List.of("Hel", "lo"), received);
+        assertEquals(0, model.calls(FALLBACK));
+    }
+
+    @Test
+    void stream_WhenPrimaryFailsBeforeFirstChunk_ShouldFallBack() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onStream = (name, onChunk) -> {
+            if (name.equals(PRIMARY)) {
+                throw new IllegalStateException("503");
+            }
+            onChunk.accept("from fallback");
+        };
+        ResilientModelInvoker invoker = invoker(model, new Settings());
+        List<String> received = new ArrayList<>();
+
+        // Act
+        String reply = invoker.stream("hello", received::add);
+
+        // Assert
+        assertEquals("from fallback", reply);
+        assertEquals(List.of("from fallback"), received);
+    }
+
+    @Test
+    void stream_WhenPrimaryFailsAfterFirstChunk_ShouldNotReplay() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onStream = (name, onChunk) -> {
+            onChunk.accept("partial");
+            throw new IllegalStateException("connection reset");
+        };
+        ResilientModelInvoker invoker = invoker(model, new Settings());
+        List<String> received = new ArrayList<>();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> invoker.stream("hello", received::add));
+        assertEquals(List.of("partial"), received);
+        assertEquals(0, model.calls(FALLBACK));
+    }
+
+    @Test
+    void stream_WhenFirstChunkIsLate_ShouldTimeOutAndFallBack() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onStream = (name, onChunk) -> {
+            if (name.equals(PRIMARY)) {
+                sleep(5_000);
+            }
+            onChunk.accept(name);
+        };
+        Settings settings = new Settings();
+        settings.attemptTimeoutMs = 200;
+        ResilientModelInvoker invoker = invoker(model, settings);
+
+        // Act
+        long startedAt = System.nanoTime();
+        String reply = invoker.stream("hello", chunk -> { });
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        // Assert
+        assertEquals(FALLBACK, reply);
+        assertTrue(elapsedMs < 2_000, "first chunk wait took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void stream_WhenStreamOutlivesDeadline_ShouldStopWithPartialReply() {
+        // Arrange
+        FakeChatModel model = new FakeChatModel();
+        model.onStream = (name, onChunk) -> {
+            for (int i = 0; i < 100; i++) {
+                onChunk.accept("x");
+                sleep(50);
+            }
+        };
+        Settings settings = new Settings();
+        settings.streamDeadlineMs = 300;
+        ResilientModelInvoker invoker = invoker(model, settings);
+        List<String> received = new CopyOnWriteArrayList<>();
+
+        // Act
+        long startedAt = System.nanoTime();
+        assertThrows(IllegalStateException.class, () -> invoker.stream("hello", received::add));
+        long elapsedMs = (System.nanoTime() - startedAt) / 1_000_000;
+
+        // Assert
+        assertFalse(received.isEmpty());
+        assertTrue(received.size() < 100);
+        assertTrue(elapsedMs < 2_000, "stream ran for " + elapsedMs + " ms");
+        assertEquals(0, model.calls(FALLBACK));
+    }
+
+    private ResilientModelInvoker invoker(ChatModel model, Settings settings) {
+        ResilientModelInvoker invoker = new ResilientModelInvoker(model, PRIMARY, settings.fallbackModel,
+                settings.deadlineMs, settings.streamDeadlineMs, settings.attemptTimeoutMs, settings.maxAttempts,
+                1, 5, settings.retryBudgetRatio, settings.hedgingEnabled, settings.initialHedgeDelayMs, 10,
+                settings.breakerWindow, 0.5, settings.breakerOpenMs, meterRegistry);
+        invokers.add(invoker);
+        return invoker;
+    }
+
+    private static Function<String, String> failingOn(String failingModel) {
+        return name -> {
+            if (name.equals(failingModel)) {
+                throw new IllegalStateException("503");
+            }
+            return name + " reply";
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Settings {
+        String fallbackModel = FALLBACK;
+        long deadlineMs = 5_000;
+        long streamDeadlineMs = 5_000;
+        long attemptTimeoutMs = 2_000;
+        int maxAttempts = 3;
+        double retryBudgetRatio = 0.1;
+        boolean hedgingEnabled = false;
+        long initialHedgeDelayMs = 1_000;
+        int breakerWindow = 100;
+        long breakerOpenMs = 60_000;
+    }
+
+    // Counts calls per model and answers with the behaviour the test sets
+    private static class FakeChatModel implements ChatModel {
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+        Function<String, String> onGenerate = name -> name + " reply";
+        BiConsumer<String, Consumer<String>> onStream = (name, onChunk) -> onChunk.accept(name);
+
+        int calls(String model) {
+            return calls.computeIfAbsent(model, name -> new AtomicInteger()).get();
+        }
+
+        @Override
+        public String generate(String model, String prompt) {
+            calls.computeIfAbsent(model, name -> new AtomicInteger()).incrementAndGet();
+            return onGenerate.apply(model);
+        }
+
+        @Override
+        public void stream(String model, String prompt, Consumer<String> onChunk) {
+            calls.computeIfAbsent(model, name -> new AtomicInteger()).incrementAndGet();
+            onStream.accept(model, onChunk);
+        }
+    }
+}
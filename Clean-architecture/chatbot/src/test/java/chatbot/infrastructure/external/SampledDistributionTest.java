@@ -0,0 +1,90 @@
+package chatbot.infrastructure.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SampledDistributionTest {
+
+    private static final int SAMPLES = 20_000;
+
+    @Test
+    void sample_WithFixed_ShouldAlwaysReturnValue() {
+        // Arrange
+        SampledDistribution distribution = SampledDistribution.of("fixed", 250, 99, 1.5, 60_000);
+
+        // Act
+        double[] samples = samples(distribution);
+
+        // Assert
+        assertTrue(Arrays.stream(samples).allMatch(sample -> sample == 250));
+        assertEquals(250, distribution.sampleLong());
+    }
+
+    @Test
+    void sample_WithPareto_ShouldStayBetweenValueAndMax() {
+        // Arrange
+        SampledDistribution distribution = SampledDistribution.of("pareto", 100, 0, 1.5, 2_000);
+
+        // Act
+        double[] samples = samples(distribution);
+
+        // Assert
+        assertTrue(Arrays.stream(samples).allMatch(sample -> sample >= 100 && sample <= 2_000));
+        // P(X > 2000) = (100 / 2000)^1.5, about 1.1% of the samples land on the clamp
+        long clamped = Arrays.stream(samples).filter(sample -> sample == 2_000).count();
+        assertTrue(clamped > SAMPLES * 0.005 && clamped < SAMPLES * 0.02, "clamped " + clamped);
+        // The median of a Pareto distribution is value * 2^(1 / shape), about 159 here
+        Arrays.sort(samples);
+        assertEquals(100 * Math.pow(2, 1 / 1.5), samples[SAMPLES / 2], 10);
+    }
+
+    @Test
+    void sample_WithNormal_ShouldCenterOnValueAndNeverGoNegative() {
+        // Arrange
+        SampledDistribution distribution = SampledDistribution.of("normal", 10, 20, 1.5, 1_000);
+
+        // Act
+        double[] samples = samples(distribution);
+
+        // Assert
+        assertTrue(Arrays.stream(samples).allMatch(sample -> sample >= 0));
+        assertTrue(Arrays.stream(samples).anyMatch(sample -> sample == 0), "negative draws are clamped to 0");
+        SampledDistribution wide = SampledDistribution.of("normal", 500, 20, 1.5, 1_000);
+        assertEquals(500, Arrays.stream(samples(wide)).average().orElseThrow(), 2);
+    }
+
+    @Test
+    void of_WithKindInAnyCase_ShouldParseIt() {
+        // Act
+        SampledDistribution distribution = SampledDistribution.of(" Fixed ", 7, 0, 1.5, 100);
+
+        // Assert
+        assertEquals(7, distribution.sample());
+    }
+
+    @Test
+    void of_WithUnknownKind_ShouldThrow() {
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> SampledDistribution.of("lognormal", 100, 0, 1.5, 1_000));
+        assertTrue(e.getMessage().contains("lognormal"));
+    }
+
+    @Test
+    void of_WithParetoShapeNotPositive_ShouldThrow() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> SampledDistribution.of("pareto", 100, 0, 0, 1_000));
+        assertThrows(IllegalArgumentException.class, () -> SampledDistribution.of("pareto", 100, 0, -1, 1_000));
+    }
+
+    private static double[] samples(SampledDistribution distribution) {
+        double[] samples = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = distribution.sample();
+        }
+        return samples;
+    }
+}
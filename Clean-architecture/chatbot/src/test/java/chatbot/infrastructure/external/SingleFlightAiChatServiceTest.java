@@ -0,0 +1,248 @@
+package chatbot.infrastructure.external;
+
+import chatbot.application.service.AIChatService;
+import chatbot.infrastructure.persistence.RedisInFlightRegistry;
+import chatbot.infrastructure.persistence.RedisTestServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightAiChatServiceTest {
+
+    private static final int CONVERSATION_ID = 9;
+    private static final Duration LEASE = Duration.ofSeconds(5);
+
+    private static RedisTestServer redis;
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private RedisInFlightRegistry registry;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = RedisTestServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        registry = new RedisInFlightRegistry(redis.template());
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void generateResponse_WithLocalFollower_ShouldShareTheRunnersCall() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        FakeBackend backend = new FakeBackend(() -> {
+            await(release);
+            return "shared reply";
+        });
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SingleFlightAiChatService node = node(backend, meterRegistry);
+        Future<String> runner = callers.submit(() -> node.generateResponse("hello", CONVERSATION_ID));
+        backend.awaitCalls(1);
+
+        // Act
+        Future<String> follower = callers.submit(() -> node.generateResponse("hello", CONVERSATION_ID));
+        awaitCount(() -> meterRegistry.counter("ai.single-flight.coalesced", "scope", "local").count(), 1);
+        release.countDown();
+
+        // Assert
+        assertEquals("shared reply", runner.get(5, TimeUnit.SECONDS));
+        assertEquals("shared reply", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, backend.calls.get());
+    }
+
+    @Test
+    void generateResponse_WithRemoteFollower_ShouldReturnThePublishedResult() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        FakeBackend runnerBackend = new FakeBackend(() -> {
+            await(release);
+            return "shared reply";
+        });
+        FakeBackend followerBackend = new FakeBackend(() -> "own reply");
+        SimpleMeterRegistry followerMeters = new SimpleMeterRegistry();
+        SingleFlightAiChatService runnerNode = node(runnerBackend, new SimpleMeterRegistry());
+        SingleFlightAiChatService followerNode = node(followerBackend, followerMeters);
+        Future<String> runner = callers.submit(() -> runnerNode.generateResponse("hello", CONVERSATION_ID));
+        runnerBackend.awaitCalls(1);
+
+        // Act
+        Future<String> follower = callers.submit(() -> followerNode.generateResponse("hello", CONVERSATION_ID));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        assertEquals("shared reply", runner.get(5, TimeUnit.SECONDS));
+        assertEquals("shared reply", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(0, followerBackend.calls.get());
+        assertEquals(1, followerMeters.counter("ai.single-flight.coalesced", "scope", "remote").count());
+    }
+
+    @Test
+    void generateResponse_WhenRemoteRunnerFails_ShouldTakeOver() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        FakeBackend runnerBackend = new FakeBackend(() -> {
+            await(release);
+            throw new IllegalStateException("model down");
+        });
+        FakeBackend followerBackend = new FakeBackend(() -> "own reply");
+        SingleFlightAiChatService runnerNode = node(runnerBackend, new SimpleMeterRegistry());
+        SingleFlightAiChatService followerNode = node(followerBackend, new SimpleMeterRegistry());
+        Future<String> runner = callers.submit(() -> runnerNode.generateResponse("hello", CONVERSATION_ID));
+        runnerBackend.awaitCalls(1);
+
+        // Act
+        Future<String> follower = callers.submit(() -> followerNode.generateResponse("hello", CONVERSATION_ID));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        assertThrows(Exception.class, () -> runner.get(5, TimeUnit.SECONDS));
+        assertEquals("own reply", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, followerBackend.calls.get());
+    }
+
+    @Test
+    void generateResponse_WhenRemoteRunnerVanishes_ShouldTakeOverAfterItsLease() {
+        // Arrange
+        FakeBackend backend = new FakeBackend(() -> "own reply");
+        SingleFlightAiChatService node = node(backend, new SimpleMeterRegistry());
+        // A node that died mid-call: its lock is never released and no result is published
+        registry.tryAcquire(CONVERSATION_ID, callHash(backend, "hello"), "dead-flight", Duration.ofMillis(300));
+
+        // Act
+        long startedAt = System.nanoTime();
+        String reply = node.generateResponse("hello", CONVERSATION_ID);
+
+        // Assert
+        assertEquals("own reply", reply);
+        assertEquals(1, backend.calls.get());
+        assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(250), "waited for the lease");
+    }
+
+    @Test
+    void generateResponse_WithRepeatedPromptInNewTurn_ShouldNotReuseTheOldResult() {
+        // Arrange
+        AtomicInteger turn = new AtomicInteger(1);
+        FakeBackend backend = new FakeBackend(() -> "reply " + turn.get());
+        backend.fingerprint = () -> "context " + turn.get();
+        SingleFlightAiChatService node = node(backend, new SimpleMeterRegistry());
+        assertEquals("reply 1", node.generateResponse("yes", CONVERSATION_ID));
+
+        // Act
+        turn.set(2);
+        String reply = node.generateResponse("yes", CONVERSATION_ID);
+
+        // Assert
+        assertEquals("reply 2", reply);
+        assertEquals(2, backend.calls.get());
+    }
+
+    @Test
+    void generateResponse_WhileWaitingOnANewFlight_ShouldNotReturnAnEarlierFlightsResult() {
+        // Arrange
+        FakeBackend backend = new FakeBackend(() -> "fresh reply");
+        SingleFlightAiChatService node = node(backend, new SimpleMeterRegistry());
+        String callHash = callHash(backend, "yes");
+        // An earlier identical call published its result, then a second one started and died
+        registry.tryAcquire(CONVERSATION_ID, callHash, "earlier-flight", LEASE);
+        registry.release(CONVERSATION_ID, callHash, "earlier-flight", "stale reply", Duration.ofSeconds(10));
+        registry.tryAcquire(CONVERSATION_ID, callHash, "dead-flight", Duration.ofMillis(300));
+
+        // Act
+        String reply = node.generateResponse("yes", CONVERSATION_ID);
+
+        // Assert
+        assertEquals("fresh reply", reply);
+        assertEquals(1, backend.calls.get());
+    }
+
+    private SingleFlightAiChatService node(AIChatService backend, SimpleMeterRegistry meterRegistry) {
+        return new SingleFlightAiChatService(backend, registry, LEASE, Duration.ofSeconds(10),
+                Duration.ofMillis(20), meterRegistry);
+    }
+
+    // Same hash the service computes: the prompt and the backend's context fingerprint
+    private static String callHash(FakeBackend backend, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String value = prompt + '\u0000' + backend.fingerprint.get();
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitCount(Supplier<Double> count, double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, count.get());
+    }
+
+    private static class FakeBackend implements AIChatService {
+
+        private final Supplier<String> reply;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Supplier<String> fingerprint = () -> "context";
+
+        FakeBackend(Supplier<String> reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public String generateResponse(String prompt, Integer conversationId) {
+            calls.incrementAndGet();
+            return reply.get();
+        }
+
+        @Override
+        public String contextFingerprint(String prompt, Integer conversationId) {
+            return fingerprint.get();
+        }
+
+        void awaitCalls(int expected) throws InterruptedException {
+            awaitCount(() -> (double) calls.get(), expected);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package chatbot.infrastructure.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Shards are H2 databases in MySQL mode; the directory (shard_buckets, node acks) is a mock
+@ExtendWith(MockitoExtension.class)
+class BucketMoverTest {
+
+    private static final int USER_ID = 7;
+    private static final int BUCKET = ShardDirectory.bucketOf(USER_ID);
+    private static final Timestamp NOW = Timestamp.valueOf(LocalDateTime.of(2026, 1, 1, 12, 0));
+
+    @Mock
+    private ShardDirectory shardDirectory;
+
+    @Mock
+    private JdbcTemplate directory;
+
+    private final List<SingleConnectionDataSource> dataSources = new ArrayList<>();
+    private Shard source;
+    private Shard target;
+
+    @BeforeEach
+    void setUp() {
+        source = shard(0);
+        target = shard(1);
+        lenient().when(shardDirectory.shards()).thenReturn(List.of(source, target));
+        lenient().when(shardDirectory.shard(0)).thenReturn(source);
+        lenient().when(shardDirectory.shard(1)).thenReturn(target);
+        lenient().when(shardDirectory.directory()).thenReturn(new Shard(0, directory, null));
+        lenient().when(directory.queryForObject("SELECT MAX(version) + 1 FROM shard_buckets", Long.class)).thenReturn(5L);
+        lenient().when(directory.queryForObject(startsWith("SELECT version FROM shard_buckets"), eq(Long.class), any()))
+                .thenReturn(4L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSources.forEach(SingleConnectionDataSource::destroy);
+    }
+
+    @Test
+    void move_ShouldCopyTheBucketAndRemoveItFromTheSource() {
+        // Arrange
+        storeConversations(source);
+        bucketOn(0);
+        nodesBehind(() -> 0);
+
+        // Act
+        mover(60_000).move(BUCKET, 1);
+
+        // Assert
+        assertEquals(List.of(1, 2), ids(target, "conversations"));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(target, "messages"));
+        assertEquals(List.of(1, 2), ids(target, "message_search"));
+        assertEquals(List.of(), ids(source, "conversations"));
+        assertEquals(List.of(), ids(source, "messages"));
+        assertEquals(List.of(), ids(source, "message_search"));
+        assertEquals("FENCED", fence(source));
+        verify(directory).update(anyString(), eq(1), eq(WriteRoute.ACTIVE), eq(5L), eq(BUCKET));
+    }
+
+    @Test
+    void move_WithSourceMessageNewerThanTheTargetsLatest_ShouldKeepItsConversation() {
+        // Arrange
+        storeConversations(source);
+        bucketOn(0);
+        // Lands on the source after the last copy pass
+        nodesBehind(() -> {
+            source.jdbcTemplate().update("INSERT INTO messages (id, content, timestamp, is_user, conversation_id) "
+                    + "VALUES (100, 'late', ?, TRUE, 1)", NOW);
+            return 0;
+        });
+
+        // Act
+        mover(60_000).move(BUCKET, 1);
+
+        // Assert
+        assertEquals(List.of(1), ids(source, "conversations"));
+        assertEquals(List.of(100), ids(source, "messages"));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(target, "messages"));
+    }
+
+    @Test
+    void move_WithConversationMissingOnTarget_ShouldKeepIt() {
+        // Arrange
+        storeConversations(source);
+        bucketOn(0);
+        nodesBehind(() -> {
+            target.jdbcTemplate().update("DELETE FROM messages WHERE conversation_id = 2");
+            target.jdbcTemplate().update("DELETE FROM conversations WHERE id = 2");
+            return 0;
+        });
+
+        // Act
+        mover(60_000).move(BUCKET, 1);
+
+        // Assert
+        assertEquals(List.of(2), ids(source, "conversations"));
+        assertEquals(List.of(4, 5), ids(source, "messages"));
+        assertEquals(List.of(1), ids(target, "conversations"));
+    }
+
+    @Test
+    void move_WhenNodesDoNotAcknowledge_ShouldThrowAndDeleteNothing() {
+        // Arrange
+        storeConversations(source);
+        bucketOn(0);
+        nodesBehind(() -> 1);
+        BucketMover mover = mover(200);
+
+        // Act
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> mover.move(BUCKET, 1));
+
+        // Assert
+        assertTrue(e.getMessage().contains("directory version 5"), e.getMessage());
+        assertEquals(List.of(1, 2), ids(source, "conversations"));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(source, "messages"));
+        assertEquals(List.of(1, 2), ids(source, "message_search"));
+        assertEquals(List.of(1, 2), ids(target, "conversations"));
+    }
+
+    @Test
+    void move_RerunAfterSwitchOver_ShouldOnlyRemoveTheLeftoverCopyOnTheFencedShard() {
+        // Arrange
+        storeConversations(source);
+        storeConversations(target);
+        int otherUser = userInAnotherBucket();
+        source.jdbcTemplate().update("INSERT INTO conversations (id, name, user_id, created_at) VALUES (3, 'Other', ?, ?)",
+                otherUser, NOW);
+        source.jdbcTemplate().update("INSERT INTO messages (id, content, timestamp, is_user, conversation_id) "
+                + "VALUES (6, 'kept', ?, TRUE, 3)", NOW);
+        source.jdbcTemplate().update("INSERT INTO bucket_fences (bucket, state) VALUES (?, 'FENCED')", BUCKET);
+        bucketOn(1);
+        nodesBehind(() -> 0);
+
+        // Act
+        mover(60_000).move(BUCKET, 1);
+
+        // Assert
+        assertEquals(List.of(3), ids(source, "conversations"));
+        assertEquals(List.of(6), ids(source, "messages"));
+        assertEquals(List.of(), ids(source, "message_search"));
+        assertEquals(List.of(1, 2), ids(target, "conversations"));
+        assertEquals(List.of(1, 2, 3, 4, 5), ids(target, "messages"));
+        verify(directory, never()).update(startsWith("UPDATE shard_buckets"), any(Object[].class));
+    }
+
+    private BucketMover mover(long ackTimeoutMs) {
+        return new BucketMover(shardDirectory, "", 10_000, ackTimeoutMs);
+    }
+
+    private void bucketOn(int shardId) {
+        when(directory.queryForObject(startsWith("SELECT shard_id FROM shard_buckets"), eq(Integer.class), eq(BUCKET)))
+                .thenReturn(shardId);
+    }
+
+    private void nodesBehind(IntSupplier behind) {
+        when(directory.queryForObject(startsWith("SELECT COUNT(*) FROM shard_directory_nodes"), eq(Integer.class), any(), any()))
+                .thenAnswer(invocation -> behind.getAsInt());
+    }
+
+    // Two conversations of USER_ID: 1 with messages 1-3, 2 with messages 4-5, and a search document each
+    private static void storeConversations(Shard shard) {
+        JdbcTemplate jdbc = shard.jdbcTemplate();
+        jdbc.update("INSERT INTO conversations (id, name, user_id, created_at) VALUES (1, 'Trip', ?, ?), (2, 'Work', ?, ?)",
+                USER_ID, NOW, USER_ID, NOW);
+        for (int id = 1; id <= 5; id++) {
+            jdbc.update("INSERT INTO messages (id, content, timestamp, is_user, conversation_id) VALUES (?, ?, ?, TRUE, ?)",
+                    id, "message " + id, NOW, id <= 3 ? 1 : 2);
+        }
+        jdbc.update("INSERT INTO message_search (id, user_id, conversation_id, content, is_user, occurred_at) "
+                + "VALUES (1, ?, 1, 'lisbon', TRUE, ?), (2, ?, 2, 'report', TRUE, ?)", USER_ID, NOW, USER_ID, NOW);
+        jdbc.update("INSERT INTO message_terms (user_id, term, search_id, tf) VALUES (?, 'lisbon', 1, 1), (?, 'report', 2, 1)",
+                USER_ID, USER_ID);
+    }
+
+    private Shard shard(int id) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:mover-" + UUID.randomUUID() + ";MODE=MySQL", "sa", "", true);
+        dataSources.add(dataSource);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE conversations (id INT PRIMARY KEY, name VARCHAR(255), user_id INT NOT NULL, "
+                + "created_at TIMESTAMP)");
+        jdbc.execute("CREATE TABLE messages (id INT AUTO_INCREMENT PRIMARY KEY, content TEXT NOT NULL, "
+                + "timestamp TIMESTAMP NOT NULL, is_user BOOLEAN, conversation_id INT NOT NULL)");
+        jdbc.execute("CREATE TABLE message_search (id INT AUTO_INCREMENT PRIMARY KEY, user_id INT NOT NULL, "
+                + "conversation_id INT NOT NULL, content TEXT NOT NULL, is_user BOOLEAN NOT NULL, occurred_at TIMESTAMP NOT NULL)");
+        jdbc.execute("CREATE TABLE message_terms (user_id INT NOT NULL, term VARCHAR(40) NOT NULL, "
+                + "search_id INT NOT NULL, tf SMALLINT NOT NULL, PRIMARY KEY (user_id, term, search_id))");
+        jdbc.execute("CREATE TABLE bucket_fences (bucket INT PRIMARY KEY, state VARCHAR(10) NOT NULL)");
+        return new Shard(id, jdbc, null);
+    }
+
+    private static List<Integer> ids(Shard shard, String table) {
+        return shard.jdbcTemplate().queryForList("SELECT id FROM " + table + " ORDER BY id", Integer.class);
+    }
+
+    private static String fence(Shard shard) {
+        return shard.jdbcTemplate().queryForObject("SELECT state FROM bucket_fences WHERE bucket = ?", String.class, BUCKET);
+    }
+
+    private static int userInAnotherBucket() {
+        int userId = USER_ID + 1;
+        while (ShardDirectory.bucketOf(userId) == BUCKET) {
+            userId++;
+        }
+        return userId;
+    }
+}
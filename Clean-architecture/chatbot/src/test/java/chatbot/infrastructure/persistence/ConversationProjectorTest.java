@@ -0,0 +1,143 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Conversation;
+import chatbot.domain.entity.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationProjectorTest {
+
+    @Mock
+    private MessageSearchIndex searchIndex;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ConversationEventStore eventStore;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:projections;MODE=MySQL", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ConversationEventStoreTest.createSchema(jdbcTemplate);
+        eventStore = new ConversationEventStore(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                new Outbox(false), searchIndex, 1000, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void project_ShouldFoldTheLogIntoTheProjections() {
+        // Arrange
+        Integer conversationId = eventStore.create(new Conversation(null, "Trip", 1, LocalDateTime.now()));
+        eventStore.append(conversationId, List.of(message("hi"), message("hello")));
+        eventStore.append(conversationId, List.of(ConversationEvent.renamed("Holiday")));
+
+        // Act
+        projector(60_000).project();
+
+        // Assert
+        assertEquals("Holiday", jdbcTemplate.queryForObject(
+                "SELECT name FROM conversations WHERE id = ?", String.class, conversationId));
+        assertEquals(List.of("hi", "hello"), jdbcTemplate.queryForList(
+                "SELECT content FROM messages ORDER BY id", String.class));
+        assertEquals(4, position());
+    }
+
+    @Test
+    void project_WithMissingEventId_ShouldMoveOnWithoutWaiting() {
+        // Arrange
+        Integer conversationId = eventStore.create(new Conversation(null, "Trip", 1, LocalDateTime.now()));
+        burnEventId();
+        eventStore.append(conversationId, List.of(message("hi")));
+
+        // Act
+        projector(60_000).project();
+
+        // Assert
+        assertEquals(List.of("hi"), jdbcTemplate.queryForList("SELECT content FROM messages", String.class));
+        assertEquals(3, position());
+        assertEquals(List.of(2), gaps());
+    }
+
+    @Test
+    void project_WhenMissingEventCommitsLater_ShouldProjectIt() {
+        // Arrange
+        ConversationProjector projector = projector(60_000);
+        Integer late = eventStore.create(new Conversation(null, "Late", 1, LocalDateTime.now()));
+        Integer busy = eventStore.create(new Conversation(null, "Busy", 1, LocalDateTime.now()));
+        burnEventId();
+        eventStore.append(busy, List.of(message("hi")));
+        projector.project();
+
+        // Act: the event that held id 3 commits only now
+        jdbcTemplate.update("INSERT INTO conversation_events "
+                + "(id, conversation_id, version, user_id, type, content, is_user, occurred_at) "
+                + "VALUES (3, ?, 2, 1, 'MESSAGE_ADDED', 'late', TRUE, ?)", late, LocalDateTime.now());
+        projector.project();
+
+        // Assert
+        assertEquals(List.of("late"), jdbcTemplate.queryForList(
+                "SELECT content FROM messages WHERE conversation_id = ?", String.class, late));
+        assertEquals(List.of(), gaps());
+        assertEquals(4, position());
+    }
+
+    @Test
+    void project_WhenMissingEventNeverCommits_ShouldForgetItAfterTheTimeout() {
+        // Arrange
+        ConversationProjector projector = projector(0);
+        Integer conversationId = eventStore.create(new Conversation(null, "Trip", 1, LocalDateTime.now()));
+        burnEventId();
+        eventStore.append(conversationId, List.of(message("hi")));
+        projector.project();
+
+        // Act
+        jdbcTemplate.update("UPDATE projection_gaps SET seen_at = ?", LocalDateTime.now().minusSeconds(1));
+        projector.project();
+
+        // Assert
+        assertEquals(List.of(), gaps());
+        assertEquals(3, position());
+    }
+
+    private ConversationProjector projector(long gapTimeoutMs) {
+        return new ConversationProjector(eventStore, jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                500, gapTimeoutMs);
+    }
+
+    // Takes the next event id and rolls it back, as a failed append does
+    private void burnEventId() {
+        jdbcTemplate.update("INSERT INTO conversation_events (conversation_id, version, user_id, type, occurred_at) "
+                + "VALUES (0, 0, 1, 'MESSAGE_ADDED', ?)", LocalDateTime.now());
+        jdbcTemplate.update("DELETE FROM conversation_events WHERE conversation_id = 0");
+    }
+
+    private int position() {
+        return jdbcTemplate.queryForObject(
+                "SELECT position FROM projection_positions WHERE name = 'conversations'", Integer.class);
+    }
+
+    private List<Integer> gaps() {
+        return jdbcTemplate.queryForList("SELECT event_id FROM projection_gaps ORDER BY event_id", Integer.class);
+    }
+
+    private static ConversationEvent message(String content) {
+        return ConversationEvent.messageAdded(new Message(null, content, LocalDateTime.now(), true));
+    }
+}
@@ -0,0 +1,132 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.ConversationMatch;
+import chatbot.domain.entity.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSearchIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Shard shard;
+    private MessageSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:search;MODE=MySQL", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE conversations (id INT PRIMARY KEY, name VARCHAR(255), user_id INT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE message_search (id INT AUTO_INCREMENT PRIMARY KEY, user_id INT NOT NULL, "
+                + "conversation_id INT NOT NULL, content TEXT NOT NULL, is_user BOOLEAN NOT NULL, occurred_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE message_terms (user_id INT NOT NULL, term VARCHAR(40) NOT NULL, "
+                + "search_id INT NOT NULL, tf SMALLINT NOT NULL, PRIMARY KEY (user_id, term, search_id))");
+        jdbcTemplate.execute("CREATE TABLE message_search_stats (user_id INT NOT NULL, term VARCHAR(40) NOT NULL, "
+                + "documents INT NOT NULL, PRIMARY KEY (user_id, term))");
+        jdbcTemplate.update("INSERT INTO conversations (id, name, user_id) VALUES (1, 'Trip', 7), (2, 'Work', 7), (3, 'Other', 8)");
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        shard = new Shard(0, jdbcTemplate, transactionTemplate);
+        index = new MessageSearchIndex(ShardDirectory.single(jdbcTemplate, transactionTemplate),
+                ReadRouting.primaryOnly(), 2, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void record_ShouldKeepDocumentCountsPerUserAndTerm() {
+        // Act
+        index.record(jdbcTemplate, 1, 7, List.of(message("Flights to Hanoi", NOW), message("Hanoi hotels", NOW)));
+        index.record(jdbcTemplate, 3, 8, List.of(message("Hanoi", NOW)));
+
+        // Assert
+        assertEquals(2, documents(7, MessageSearchIndex.ALL_MESSAGES));
+        assertEquals(2, documents(7, "hanoi"));
+        assertEquals(1, documents(7, "hotels"));
+        assertEquals(1, documents(8, "hanoi"));
+    }
+
+    @Test
+    void search_ShouldRankRareTermsAboveCommonOnesBeyondThePostingsCap() {
+        // Arrange: "hanoi" has more postings than the cap of 2, "visa" only one
+        index.record(jdbcTemplate, 1, 7, List.of(message("hanoi", NOW), message("hanoi", NOW), message("hanoi", NOW)));
+        index.record(jdbcTemplate, 2, 7, List.of(message("visa", NOW)));
+
+        // Act
+        List<ConversationMatch> matches = index.search(7, "hanoi visa", 10);
+
+        // Assert
+        assertEquals(List.of(2, 1), matches.stream().map(ConversationMatch::getConversationId).toList());
+        assertEquals(3, documents(7, "hanoi"));
+    }
+
+    @Test
+    void search_ShouldOnlyFindTheUsersOwnMessages() {
+        // Arrange
+        index.record(jdbcTemplate, 3, 8, List.of(message("Hanoi", NOW)));
+
+        // Act
+        List<ConversationMatch> matches = index.search(7, "hanoi", 10);
+
+        // Assert
+        assertEquals(List.of(), matches);
+    }
+
+    @Test
+    void prune_ShouldRemoveOldDocumentsTheirPostingsAndTheirCounts() {
+        // Arrange
+        index.record(jdbcTemplate, 1, 7, List.of(message("Hanoi visa", NOW.minusMonths(13))));
+        index.record(jdbcTemplate, 1, 7, List.of(message("Hanoi hotels", NOW)));
+
+        // Act
+        int pruned = index.prune(shard, NOW.minusMonths(12));
+
+        // Assert
+        assertEquals(1, pruned);
+        assertEquals(1, documents(7, MessageSearchIndex.ALL_MESSAGES));
+        assertEquals(1, documents(7, "hanoi"));
+        assertEquals(0, documents(7, "visa"));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM message_terms WHERE term = 'visa'", Integer.class));
+        assertEquals(List.of("Hanoi hotels"),
+                jdbcTemplate.queryForList("SELECT content FROM message_search", String.class));
+    }
+
+    @Test
+    void record_WhenDisabled_ShouldIndexNothing() {
+        // Arrange
+        MessageSearchIndex disabled = new MessageSearchIndex(ShardDirectory.single(jdbcTemplate, null),
+                ReadRouting.primaryOnly(), 2, false);
+
+        // Act
+        disabled.record(jdbcTemplate, 1, 7, List.of(message("Hanoi", NOW)));
+
+        // Assert
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_search", Integer.class));
+        assertEquals(List.of(), disabled.search(7, "hanoi", 10));
+    }
+
+    private int documents(int userId, String term) {
+        List<Integer> documents = jdbcTemplate.queryForList(
+                "SELECT documents FROM message_search_stats WHERE user_id = ? AND term = ?", Integer.class, userId, term);
+        return documents.isEmpty() ? 0 : documents.get(0);
+    }
+
+    private static Message message(String content, LocalDateTime timestamp) {
+        return new Message(null, content, timestamp, true);
+    }
+}
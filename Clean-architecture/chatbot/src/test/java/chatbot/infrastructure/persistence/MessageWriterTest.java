@@ -0,0 +1,151 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.Message;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private WriteRoute route;
+    private SimpleMeterRegistry meterRegistry;
+    private MessageWriter writer;
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    @BeforeEach
+    void setUp() {
+        // A connection per caller, so group commits and direct writes really run side by side
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:writer;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE messages (id INT AUTO_INCREMENT PRIMARY KEY, content TEXT NOT NULL, "
+                + "timestamp TIMESTAMP NOT NULL, is_user BOOLEAN, conversation_id INT NOT NULL)");
+        route = new WriteRoute(new Shard(0, jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource))), null);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+        callers.shutdownNow();
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void write_WithWriteBehind_ShouldKeepEachConversationsCallOrder() {
+        // Arrange
+        writer = writeBehind(5, 500);
+        writer.start();
+
+        // Act: four callers, each writing its own conversation one message after another
+        List<CompletableFuture<Void>> calls = IntStream.rangeClosed(1, 4)
+                .mapToObj(conversationId -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        writer.write(route, conversationId, List.of(message(conversationId + "-" + i)));
+                    }
+                }, callers))
+                .toList();
+        calls.forEach(CompletableFuture::join);
+
+        // Assert
+        for (int conversationId = 1; conversationId <= 4; conversationId++) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                expected.add(conversationId + "-" + i);
+            }
+            assertEquals(expected, jdbcTemplate.queryForList(
+                    "SELECT content FROM messages WHERE conversation_id = ? ORDER BY id", String.class, conversationId));
+        }
+    }
+
+    @Test
+    void write_WhenOneWriteOfAGroupFails_ShouldCommitTheOthers() {
+        // Arrange: the flusher waits for all three rows, so they share one group commit
+        writer = writeBehind(10_000, 3);
+        writer.start();
+
+        // Act
+        CompletableFuture<Void> first = CompletableFuture.runAsync(
+                () -> writer.write(route, 1, List.of(message("first"))), callers);
+        CompletableFuture<Void> broken = CompletableFuture.runAsync(
+                () -> writer.write(route, 2, List.of(message(null))), callers);
+        CompletableFuture<Void> last = CompletableFuture.runAsync(
+                () -> writer.write(route, 3, List.of(message("last"))), callers);
+
+        // Assert
+        first.join();
+        last.join();
+        CompletionException failure = assertThrows(CompletionException.class, broken::join);
+        assertInstanceOf(DataIntegrityViolationException.class, failure.getCause());
+        assertEquals(List.of("first", "last"),
+                jdbcTemplate.queryForList("SELECT content FROM messages ORDER BY conversation_id", String.class));
+        // The group never committed: the two good writes were retried one by one
+        DistributionSummary flushRows = meterRegistry.get("db.messages.flush.rows").summary();
+        assertEquals(2, flushRows.count());
+        assertEquals(1, flushRows.max());
+    }
+
+    @Test
+    void stop_ShouldCommitBufferedWritesBeforeWritingDirect() throws InterruptedException {
+        // Arrange: a long flush interval keeps the first write waiting in the flusher
+        writer = writeBehind(60_000, 500);
+        writer.start();
+        CompletableFuture<Void> buffered = CompletableFuture.runAsync(
+                () -> writer.write(route, 1, List.of(message("buffered"))), callers);
+        Thread.sleep(200);
+
+        // Act
+        writer.stop();
+        writer.write(route, 1, List.of(message("direct")));
+
+        // Assert
+        assertFalse(buffered.isCompletedExceptionally());
+        assertTrue(buffered.isDone());
+        assertFalse(writer.isRunning());
+        assertEquals(List.of("buffered", "direct"),
+                jdbcTemplate.queryForList("SELECT content FROM messages ORDER BY id", String.class));
+    }
+
+    @Test
+    void direct_ShouldCommitInTheCallersThread() {
+        // Arrange
+        MessageWriter direct = MessageWriter.direct(new Outbox(false));
+
+        // Act
+        direct.write(route, 1, List.of(message("hi"), message("hello")));
+
+        // Assert
+        assertEquals(List.of("hi", "hello"),
+                jdbcTemplate.queryForList("SELECT content FROM messages ORDER BY id", String.class));
+    }
+
+    private MessageWriter writeBehind(long flushIntervalMs, int maxBatchRows) {
+        return new MessageWriter(new Outbox(false), null, true, 64, flushIntervalMs, maxBatchRows, 1000, meterRegistry);
+    }
+
+    private static Message message(String content) {
+        return new Message(null, content, LocalDateTime.now(), true);
+    }
+}
@@ -0,0 +1,134 @@
+package chatbot.infrastructure.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private ShardDirectory shardDirectory;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Shard shard;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:outbox;MODE=MySQL", "sa", "", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, conversation_id INT NOT NULL, "
+                + "is_user BOOLEAN NOT NULL, content TEXT NOT NULL, occurred_at TIMESTAMP NOT NULL, "
+                + "recorded_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3))");
+        shard = new Shard(0, jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        when(shardDirectory.shards()).thenReturn(List.of(shard));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void relay_ShouldDeliverToEverySubscriberBeforeDeletingTheBatch() {
+        // Arrange
+        store(3);
+        List<Integer> rowsSeenBySubscriber = new ArrayList<>();
+        List<OutboxMessage> delivered = new ArrayList<>();
+        OutboxSubscriber first = (shardId, messages) -> rowsSeenBySubscriber.add(rows());
+        OutboxSubscriber second = (shardId, messages) -> delivered.addAll(messages);
+
+        // Act
+        relay(List.of(first, second), 500).relay();
+
+        // Assert
+        assertEquals(List.of(3), rowsSeenBySubscriber);
+        assertEquals(List.of(1L, 2L, 3L), delivered.stream().map(OutboxMessage::id).toList());
+        assertEquals("message 1", delivered.get(0).content());
+        assertEquals(0, rows());
+    }
+
+    @Test
+    void relay_WhenSubscriberThrows_ShouldKeepTheBatchForTheNextRun() {
+        // Arrange
+        store(3);
+        List<Integer> deliveries = new ArrayList<>();
+        OutboxSubscriber failing = (shardId, messages) -> {
+            deliveries.add(messages.size());
+            if (deliveries.size() == 1) {
+                throw new IllegalStateException("Redis down");
+            }
+        };
+        OutboxRelay relay = relay(List.of(failing), 500);
+
+        // Act
+        relay.relay();
+        int afterFailure = rows();
+        relay.relay();
+
+        // Assert
+        assertEquals(3, afterFailure);
+        assertEquals(List.of(3, 3), deliveries);
+        assertEquals(0, rows());
+    }
+
+    @Test
+    void relay_WithFullBatches_ShouldKeepGoingUntilAShortOne() {
+        // Arrange
+        store(5);
+        List<List<Long>> batches = new ArrayList<>();
+        OutboxSubscriber subscriber = (shardId, messages) -> batches.add(messages.stream().map(OutboxMessage::id).toList());
+
+        // Act
+        relay(List.of(subscriber), 2).relay();
+
+        // Assert
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L)), batches);
+        assertEquals(0, rows());
+    }
+
+    @Test
+    void relay_WithExactlyFullBatches_ShouldStopAtTheEmptyOne() {
+        // Arrange
+        store(4);
+        List<Integer> batchSizes = new ArrayList<>();
+        OutboxSubscriber subscriber = (shardId, messages) -> batchSizes.add(messages.size());
+
+        // Act
+        relay(List.of(subscriber), 2).relay();
+
+        // Assert
+        assertEquals(List.of(2, 2), batchSizes);
+        assertEquals(0, rows());
+    }
+
+    private OutboxRelay relay(List<OutboxSubscriber> subscribers, int batchSize) {
+        return new OutboxRelay(shardDirectory, subscribers, batchSize, new SimpleMeterRegistry());
+    }
+
+    private void store(int count) {
+        for (int i = 1; i <= count; i++) {
+            jdbcTemplate.update("INSERT INTO outbox (conversation_id, is_user, content, occurred_at) "
+                    + "VALUES (1, TRUE, ?, CURRENT_TIMESTAMP)", "message " + i);
+        }
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox", Integer.class);
+    }
+}
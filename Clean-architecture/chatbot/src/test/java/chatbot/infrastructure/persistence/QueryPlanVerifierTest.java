@@ -0,0 +1,108 @@
+package chatbot.infrastructure.persistence;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueryPlanVerifierTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findScans_WithIndexedPlans_ShouldReportNothing() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class)))
+                .thenReturn(List.of(planRow("ref", "idx_messages_conversation_id", "Using where")));
+
+        // Act
+        List<String> scans = QueryPlanVerifier.findScans(jdbcTemplate);
+
+        // Assert
+        assertTrue(scans.isEmpty());
+    }
+
+    @Test
+    void findScans_WithFullTableScan_ShouldReportThatQuery() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class)))
+                .thenReturn(List.of(planRow("ref", "PRIMARY", null)));
+        when(jdbcTemplate.queryForList(eq("EXPLAIN " + JdbcConversationRepository.FIND_BY_USER_ID_SQL), any(Object[].class)))
+                .thenReturn(List.of(planRow("ALL", null, "Using where")));
+
+        // Act
+        List<String> scans = QueryPlanVerifier.findScans(jdbcTemplate);
+
+        // Assert
+        assertEquals(1, scans.size());
+        assertTrue(scans.get(0).startsWith(JdbcConversationRepository.FIND_BY_USER_ID_SQL));
+    }
+
+    @Test
+    void findScans_WhenOptimizerFindsNoRow_ShouldNotReportScan() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class)))
+                .thenReturn(List.of(planRow(null, null, "no matching row in const table")));
+
+        // Act
+        List<String> scans = QueryPlanVerifier.findScans(jdbcTemplate);
+
+        // Assert
+        assertTrue(scans.isEmpty());
+    }
+
+    @Test
+    void verify_WithScanAndFailOnScan_ShouldThrow() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), any(Object[].class)))
+                .thenReturn(List.of(planRow("ALL", null, null)));
+        QueryPlanVerifier verifier = new QueryPlanVerifier(jdbcTemplate, true);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, verifier::verify);
+    }
+
+    // Needs a disposable MySQL database, e.g.
+    // EXPLAIN_CHECK_DATABASE_URL=jdbc:mysql://localhost:3306/chatbot_plans EXPLAIN_CHECK_DATABASE_USER=root mvn test
+    @Test
+    @EnabledIfEnvironmentVariable(named = "EXPLAIN_CHECK_DATABASE_URL", matches = ".+")
+    void findScans_OnMigratedMySqlSchema_ShouldUseAnIndexForEveryHotQuery() {
+        // Arrange
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("EXPLAIN_CHECK_DATABASE_URL"),
+                System.getenv().getOrDefault("EXPLAIN_CHECK_DATABASE_USER", "root"),
+                System.getenv().getOrDefault("EXPLAIN_CHECK_DATABASE_PASSWORD", ""));
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/mysql").load().migrate();
+
+        // Act
+        List<String> scans = QueryPlanVerifier.findScans(new JdbcTemplate(dataSource));
+
+        // Assert
+        assertEquals(List.of(), scans);
+    }
+
+    private static Map<String, Object> planRow(String type, String key, String extra) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("type", type);
+        row.put("key", key);
+        row.put("Extra", extra);
+        row.put("rows", 1);
+        return row;
+    }
+}
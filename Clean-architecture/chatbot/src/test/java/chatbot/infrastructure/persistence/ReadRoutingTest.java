@@ -0,0 +1,120 @@
+package chatbot.infrastructure.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadRoutingTest {
+
+    private static final String SCOPE = ReadRouting.conversationScope(12);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Test
+    void read_WithUnwrittenScope_ShouldUseReplica() {
+        // Arrange
+        ReadRouting routing = new ReadRouting(true, 5000, redisTemplate);
+        when(redisTemplate.hasKey("db:written:" + SCOPE)).thenReturn(false);
+
+        // Act
+        boolean replica = routing.read(SCOPE, ReadRouting::isReplicaRead);
+
+        // Assert
+        assertTrue(replica);
+        assertFalse(ReadRouting.isReplicaRead());
+    }
+
+    @Test
+    void read_AfterMarkWritten_ShouldUsePrimaryWithoutAskingRedis() {
+        // Arrange
+        ReadRouting routing = new ReadRouting(true, 5000, redisTemplate);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        routing.markWritten(SCOPE);
+
+        // Act
+        boolean replica = routing.read(SCOPE, ReadRouting::isReplicaRead);
+
+        // Assert
+        assertFalse(replica);
+        verify(valueOperations).set("db:written:" + SCOPE, "1", Duration.ofMillis(5000));
+        verify(redisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    void read_WithMarkerFromAnotherNode_ShouldUsePrimary() {
+        // Arrange
+        ReadRouting routing = new ReadRouting(true, 5000, redisTemplate);
+        when(redisTemplate.hasKey("db:written:" + SCOPE)).thenReturn(true);
+
+        // Act
+        boolean replica = routing.read(SCOPE, ReadRouting::isReplicaRead);
+
+        // Assert
+        assertFalse(replica);
+    }
+
+    @Test
+    void read_WhenRedisIsDown_ShouldUsePrimary() {
+        // Arrange
+        ReadRouting routing = new ReadRouting(true, 5000, redisTemplate);
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        // Act
+        boolean replica = routing.read(SCOPE, ReadRouting::isReplicaRead);
+
+        // Assert
+        assertFalse(replica);
+    }
+
+    @Test
+    void read_WhenReplicaFails_ShouldRetryOnPrimary() {
+        // Arrange
+        ReadRouting routing = new ReadRouting(true, 5000, redisTemplate);
+        when(redisTemplate.hasKey(anyString())).thenReturn(false);
+        List<Boolean> attempts = new ArrayList<>();
+
+        // Act
+        String result = routing.read(SCOPE, () -> {
+            attempts.add(ReadRouting.isReplicaRead());
+            if (ReadRouting.isReplicaRead()) {
+                throw new DataAccessResourceFailureException("replica gone");
+            }
+            return "row";
+        });
+
+        // Assert
+        assertEquals("row", result);
+        assertEquals(List.of(true, false), attempts);
+    }
+
+    @Test
+    void read_WhenDisabled_ShouldNeverTouchRedis() {
+        // Arrange
+        ReadRouting routing = new ReadRouting(false, 5000, redisTemplate);
+
+        // Act
+        routing.markWritten(SCOPE);
+        boolean replica = routing.read(SCOPE, ReadRouting::isReplicaRead);
+
+        // Assert
+        assertFalse(replica);
+        verifyNoInteractions(redisTemplate);
+    }
+}
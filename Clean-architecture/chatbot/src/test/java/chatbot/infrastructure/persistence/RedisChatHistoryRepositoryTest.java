@@ -0,0 +1,106 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.infrastructure.config.RedisConfig;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisChatHistoryRepositoryTest {
+
+    private static final int CONVERSATION_ID = 4;
+    private static final int SHARD_ID = 0;
+
+    private static RedisTestServer redis;
+    private static RedisTemplate<String, byte[]> historyTemplate;
+
+    private RedisChatHistoryRepository repository;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = RedisTestServer.start();
+        historyTemplate = new RedisConfig().chatHistoryRedisTemplate(redis.connectionFactory());
+        historyTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        repository = new RedisChatHistoryRepository(historyTemplate, redis.template(), 40);
+    }
+
+    @Test
+    void appendOnce_WithTurnAppendedOnTheRequestPath_ShouldSkipItsDelivery() {
+        // Arrange
+        repository.append(CONVERSATION_ID, List.of(HistoryEntry.user("hello"), HistoryEntry.ai("Hi!")), true);
+
+        // Act
+        RedisChatHistoryRepository.Appended appended = repository.appendOnce(CONVERSATION_ID, SHARD_ID,
+                List.of(1L, 2L), List.of(HistoryEntry.user("hello"), HistoryEntry.ai("Hi!")));
+
+        // Assert
+        assertEquals(new RedisChatHistoryRepository.Appended(2, 0), appended);
+        assertEquals(List.of(HistoryEntry.user("hello"), HistoryEntry.ai("Hi!")), history());
+        assertFalse(redis.template().hasKey(RedisChatHistoryRepository.pendingKey(CONVERSATION_ID)));
+    }
+
+    @Test
+    void appendOnce_WithRedeliveredRows_ShouldAppendThemOnce() {
+        // Arrange
+        List<HistoryEntry> entries = List.of(HistoryEntry.user("hello"), HistoryEntry.ai("Hi!"));
+        repository.appendOnce(CONVERSATION_ID, SHARD_ID, List.of(1L, 2L), entries);
+
+        // Act
+        RedisChatHistoryRepository.Appended again = repository.appendOnce(CONVERSATION_ID, SHARD_ID, List.of(1L, 2L), entries);
+        RedisChatHistoryRepository.Appended otherShard = repository.appendOnce(CONVERSATION_ID, 1, List.of(1L), entries.subList(0, 1));
+
+        // Assert
+        assertEquals(new RedisChatHistoryRepository.Appended(2, 0), again);
+        assertEquals(new RedisChatHistoryRepository.Appended(3, 1), otherShard);
+        assertEquals(List.of(HistoryEntry.user("hello"), HistoryEntry.ai("Hi!"), HistoryEntry.user("hello")), history());
+    }
+
+    // Pending counts are per content: with two identical messages and one request-path append,
+    // the first delivery is skipped and the second appended, so both end up in the history
+    @Test
+    void appendOnce_WithIdenticalContentAppendedOnceOnTheRequestPath_ShouldAppendTheOther() {
+        // Arrange
+        repository.append(CONVERSATION_ID, List.of(HistoryEntry.user("yes"), HistoryEntry.ai("Done.")), true);
+        // The second turn's request-path append failed
+
+        // Act
+        RedisChatHistoryRepository.Appended appended = repository.appendOnce(CONVERSATION_ID, SHARD_ID,
+                List.of(1L, 2L, 3L, 4L),
+                List.of(HistoryEntry.user("yes"), HistoryEntry.ai("Done."), HistoryEntry.user("yes"), HistoryEntry.ai("Done again.")));
+
+        // Assert
+        assertEquals(new RedisChatHistoryRepository.Appended(4, 2), appended);
+        assertEquals(List.of(HistoryEntry.user("yes"), HistoryEntry.ai("Done."), HistoryEntry.user("yes"), HistoryEntry.ai("Done again.")),
+                history());
+        assertFalse(redis.template().hasKey(RedisChatHistoryRepository.pendingKey(CONVERSATION_ID)));
+    }
+
+    @Test
+    void append_WithoutOutbox_ShouldNotCountPending() {
+        // Act
+        long appended = repository.append(CONVERSATION_ID, List.of(HistoryEntry.user("hello")), false);
+
+        // Assert
+        assertEquals(1, appended);
+        assertFalse(redis.template().hasKey(RedisChatHistoryRepository.pendingKey(CONVERSATION_ID)));
+    }
+
+    private List<HistoryEntry> history() {
+        return repository.context(CONVERSATION_ID).recentEntries();
+    }
+}
@@ -0,0 +1,128 @@
+package chatbot.infrastructure.persistence;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisSummaryQueueTest {
+
+    private static final long LEASE_MS = 100;
+
+    private static RedisTestServer redis;
+
+    private RedisSummaryQueue queue;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = RedisTestServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flush();
+        queue = new RedisSummaryQueue(redis.template(), LEASE_MS, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void enqueue_WhenAlreadyWaiting_ShouldCoalesce() {
+        // Act
+        boolean first = queue.enqueue(7);
+        boolean second = queue.enqueue(7);
+
+        // Assert
+        assertTrue(first);
+        assertFalse(second);
+        assertEquals(1, queue.depth());
+    }
+
+    @Test
+    void take_ShouldReturnOldestFirstAndLeaseIt() {
+        // Arrange
+        queue.enqueue(1);
+        queue.enqueue(2);
+
+        // Act
+        Integer first = queue.take();
+        Integer second = queue.take();
+        Integer third = queue.take();
+
+        // Assert
+        assertEquals(1, first);
+        assertEquals(2, second);
+        assertNull(third);
+        assertEquals(2, redis.template().opsForZSet().size(RedisSummaryQueue.LEASES_KEY));
+    }
+
+    @Test
+    void reclaimExpired_AfterWorkerCrashed_ShouldHandTheJobToAnotherWorker() throws InterruptedException {
+        // Arrange
+        queue.enqueue(7);
+        assertEquals(7, queue.take());
+        // The worker dies without acknowledging
+        Thread.sleep(LEASE_MS * 2);
+
+        // Act
+        long reclaimed = queue.reclaimExpired();
+        Integer retaken = queue.take();
+
+        // Assert
+        assertEquals(1, reclaimed);
+        assertEquals(7, retaken);
+    }
+
+    @Test
+    void reclaimExpired_WithLiveLease_ShouldLeaveIt() {
+        // Arrange
+        RedisSummaryQueue longLeases = new RedisSummaryQueue(redis.template(), 60_000, new SimpleMeterRegistry());
+        longLeases.enqueue(7);
+        longLeases.take();
+
+        // Act
+        long reclaimed = longLeases.reclaimExpired();
+
+        // Assert
+        assertEquals(0, reclaimed);
+        assertNull(longLeases.take());
+    }
+
+    @Test
+    void reclaimExpired_AfterAcknowledge_ShouldNotRerunTheJob() throws InterruptedException {
+        // Arrange
+        queue.enqueue(7);
+        queue.acknowledge(queue.take());
+        Thread.sleep(LEASE_MS * 2);
+
+        // Act
+        long reclaimed = queue.reclaimExpired();
+
+        // Assert
+        assertEquals(0, reclaimed);
+        assertNull(queue.take());
+    }
+
+    @Test
+    void reclaimExpired_WhenRequestedAgainMeanwhile_ShouldQueueItOnce() throws InterruptedException {
+        // Arrange
+        queue.enqueue(7);
+        queue.take();
+        queue.enqueue(7);
+        Thread.sleep(LEASE_MS * 2);
+
+        // Act
+        queue.reclaimExpired();
+
+        // Assert
+        assertEquals(1, queue.depth());
+        assertEquals(7, queue.take());
+        assertNull(queue.take());
+    }
+}
@@ -0,0 +1,104 @@
+package chatbot.infrastructure.persistence;
+
+import chatbot.domain.entity.SearchSnippet;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTextTest {
+
+    @Test
+    void fold_ShouldLowerCaseAndStripDiacritics() {
+        // Act & Assert
+        assertEquals("ha", SearchText.fold("Hà"));
+        assertEquals("noi", SearchText.fold("Nội"));
+        assertEquals("duong", SearchText.fold("Đường"));
+        assertEquals("cafe", SearchText.fold("CAFÉ"));
+    }
+
+    @Test
+    void termFrequencies_ShouldCountFoldedWordsAndSkipTooShortOrLongOnes() {
+        // Arrange
+        String text = "Hà Nội, ha noi! a " + "x".repeat(SearchText.MAX_TERM_LENGTH + 1) + " 2024";
+
+        // Act
+        Map<String, Integer> frequencies = SearchText.termFrequencies(text);
+
+        // Assert
+        assertEquals(Map.of("ha", 2, "noi", 2, "2024", 1), frequencies);
+    }
+
+    @Test
+    void termFrequencies_WithVeryLongText_ShouldKeepAtMostMaxTermsPerMessage() {
+        // Arrange
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < SearchText.MAX_TERMS_PER_MESSAGE + 100; i++) {
+            text.append("word").append(i).append(' ');
+        }
+        text.append("word0");
+
+        // Act
+        Map<String, Integer> frequencies = SearchText.termFrequencies(text.toString());
+
+        // Assert
+        assertEquals(SearchText.MAX_TERMS_PER_MESSAGE, frequencies.size());
+        assertEquals(2, frequencies.get("word0"));
+    }
+
+    @Test
+    void queryTerms_ShouldDedupeFoldedTermsUpToTheLimit() {
+        // Act
+        List<String> terms = SearchText.queryTerms("Hà ha noi x trip budget", 3);
+
+        // Assert
+        assertEquals(List.of("ha", "noi", "trip"), terms);
+    }
+
+    @Test
+    void snippet_ShouldHighlightMatchesWithinTheText() {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.now();
+
+        // Act
+        SearchSnippet snippet = SearchText.snippet("Flights to Hà Nội in May", Set.of("ha", "noi"), timestamp, true);
+
+        // Assert
+        assertEquals("Flights to Hà Nội in May", snippet.getText());
+        assertEquals(List.of(new SearchSnippet.Highlight(11, 13), new SearchSnippet.Highlight(14, 17)),
+                snippet.getHighlights());
+        assertEquals(timestamp, snippet.getTimestamp());
+        assertTrue(snippet.getIsUser());
+    }
+
+    @Test
+    void snippet_WithLateMatchInLongText_ShouldStartOnAWordBoundaryAndMarkTheCuts() {
+        // Arrange
+        String content = "lorem ipsum ".repeat(20) + "Hanoi " + "dolor sit ".repeat(30);
+
+        // Act
+        SearchSnippet snippet = SearchText.snippet(content, Set.of("hanoi"), LocalDateTime.now(), false);
+
+        // Assert
+        String text = snippet.getText();
+        assertTrue(text.startsWith("…"));
+        assertTrue(text.endsWith("…"));
+        assertTrue(text.substring(1).startsWith("lorem") || text.substring(1).startsWith("ipsum"), text);
+        SearchSnippet.Highlight highlight = snippet.getHighlights().get(0);
+        assertEquals("Hanoi", text.substring(highlight.start(), highlight.end()));
+    }
+
+    @Test
+    void snippet_WithoutMatch_ShouldStartAtTheBeginning() {
+        // Act
+        SearchSnippet snippet = SearchText.snippet("Nothing here", Set.of("hanoi"), LocalDateTime.now(), true);
+
+        // Assert
+        assertEquals("Nothing here", snippet.getText());
+        assertEquals(List.of(), snippet.getHighlights());
+    }
+}
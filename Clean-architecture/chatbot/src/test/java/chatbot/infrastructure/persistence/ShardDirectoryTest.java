@@ -0,0 +1,158 @@
+package chatbot.infrastructure.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ShardDirectoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bucketOf_ShouldAgreeWithBucketSql() {
+        // Arrange
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:buckets;MODE=MySQL", "sa", "", true);
+        try {
+            JdbcTemplate h2 = new JdbcTemplate(dataSource);
+            h2.execute("CREATE TABLE users (user_id INT NOT NULL)");
+            List<Integer> userIds = sampleUserIds();
+            h2.batchUpdate("INSERT INTO users (user_id) VALUES (?)", userIds.stream().map(id -> new Object[]{id}).toList());
+
+            // Act
+            List<int[]> buckets = h2.query("SELECT user_id, " + ShardDirectory.BUCKET_SQL + " AS bucket FROM users",
+                    (rs, rowNum) -> new int[]{rs.getInt("user_id"), rs.getInt("bucket")});
+
+            // Assert
+            assertEquals(userIds.size(), buckets.size());
+            for (int[] row : buckets) {
+                assertEquals(ShardDirectory.bucketOf(row[0]), row[1], "user " + row[0]);
+            }
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    // BUCKET_SQL_CHECK_DATABASE_URL=jdbc:mysql://localhost:3306/chatbot BUCKET_SQL_CHECK_DATABASE_USER=root mvn test
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BUCKET_SQL_CHECK_DATABASE_URL", matches = ".+")
+    void bucketOf_OnMySql_ShouldAgreeWithBucketSql() {
+        // Arrange
+        JdbcTemplate mysql = new JdbcTemplate(new DriverManagerDataSource(
+                System.getenv("BUCKET_SQL_CHECK_DATABASE_URL"),
+                System.getenv().getOrDefault("BUCKET_SQL_CHECK_DATABASE_USER", "root"),
+                System.getenv().getOrDefault("BUCKET_SQL_CHECK_DATABASE_PASSWORD", "")));
+
+        for (Integer userId : sampleUserIds()) {
+            // Act
+            Integer bucket = mysql.queryForObject(
+                    "SELECT " + ShardDirectory.BUCKET_SQL + " FROM (SELECT ? AS user_id) AS users", Integer.class, userId);
+
+            // Assert
+            assertEquals(ShardDirectory.bucketOf(userId), bucket, "user " + userId);
+        }
+    }
+
+    @Test
+    void writeForUser_WhenSourceFencedOnce_ShouldRetryTheWrite() {
+        // Arrange
+        ShardDirectory directory = shardedDirectory(1_000);
+        AtomicInteger attempts = new AtomicInteger();
+        List<WriteRoute> routes = new ArrayList<>();
+
+        // Act
+        String result = directory.writeForUser(7, route -> {
+            routes.add(route);
+            if (attempts.incrementAndGet() == 1) {
+                throw new BucketFencedException(route.bucket(), route.shard().id());
+            }
+            return "written";
+        });
+
+        // Assert
+        assertEquals("written", result);
+        assertEquals(2, attempts.get());
+        assertEquals(ShardDirectory.bucketOf(7), routes.get(1).bucket());
+    }
+
+    @Test
+    void writeForUser_WhenStillFencedAfterWriteWait_ShouldFail() {
+        // Arrange
+        ShardDirectory directory = shardedDirectory(0);
+
+        // Act & Assert
+        assertThrows(BucketFencedException.class, () -> directory.writeForUser(7, route -> {
+            throw new BucketFencedException(route.bucket(), route.shard().id());
+        }));
+    }
+
+    @Test
+    void writeForUser_WhenUnsharded_ShouldSkipTheFence() {
+        // Arrange
+        ShardDirectory directory = ShardDirectory.single(jdbcTemplate, null);
+
+        // Act
+        WriteRoute route = directory.writeForUser(7, chosen -> chosen);
+        route.checkFence();
+
+        // Assert
+        assertNull(route.bucket());
+        assertEquals(0, route.shard().id());
+    }
+
+    @Test
+    void checkFence_WithFencedBucket_ShouldRefuseTheWrite() {
+        // Arrange
+        WriteRoute route = new WriteRoute(new Shard(1, jdbcTemplate, null), 5);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(5))).thenReturn(List.of("FENCED"));
+
+        // Act & Assert
+        assertThrows(BucketFencedException.class, route::checkFence);
+    }
+
+    @Test
+    void checkFence_WithActiveBucket_ShouldLetTheWriteThrough() {
+        // Arrange
+        WriteRoute route = new WriteRoute(new Shard(1, jdbcTemplate, null), 5);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(5))).thenReturn(List.of("ACTIVE"));
+
+        // Act & Assert
+        assertDoesNotThrow(route::checkFence);
+    }
+
+    // Every bucket on shard 0 and active, as the directory loads it
+    private ShardDirectory shardedDirectory(long writeWaitMs) {
+        when(jdbcTemplate.queryForList(anyString())).thenReturn(List.of());
+        return new ShardDirectory(true, List.of(new Shard(0, jdbcTemplate, null)), writeWaitMs, List.of());
+    }
+
+    private static List<Integer> sampleUserIds() {
+        List<Integer> userIds = new ArrayList<>();
+        for (int id = 1; id <= 1_000; id++) {
+            userIds.add(id);
+        }
+        Random random = new Random(20);
+        for (int i = 0; i < 1_000; i++) {
+            userIds.add(random.nextInt(Integer.MAX_VALUE) + 1);
+        }
+        userIds.add(Integer.MAX_VALUE);
+        return userIds;
+    }
+}
@@ -26,6 +26,7 @@ const ChatInterface: React.FC = () => {
   const [conversations, setConversations] = useState<Conversation[]>([]);
   const [currentConversationId, setCurrentConversationId] = useState<number | null>(null);
   const [messages, setMessages] = useState<Message[]>([]);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
   const [loading, setLoading] = useState(false);
   const [error, setError] = useState('');
   const [mobileOpen, setMobileOpen] = useState(false);
@@ -64,7 +65,8 @@ const ChatInterface: React.FC = () => {
     try {
       const response = await chatService.getConversation(conversationId);
       if (response.status === 200) {
-        setMessages(response.data);
+        setMessages(response.data.messages);
+        setNextCursor(response.data.nextCursor);
         setError('');
       } else {
         setError(response.message);
@@ -72,12 +74,31 @@ const ChatInterface: React.FC = () => {
     } catch (err: any) {
       setError('Failed to load messages');
       setMessages([]);
+      setNextCursor(null);
+    }
+  };
+
+  const loadOlderMessages = async () => {
+    if (!currentConversationId || nextCursor === null) {
+      return;
+    }
+    try {
+      const response = await chatService.getConversation(currentConversationId, nextCursor);
+      if (response.status === 200) {
+        setMessages(prev => [...response.data.messages, ...prev]);
+        setNextCursor(response.data.nextCursor);
+      } else {
+        setError(response.message);
+      }
+    } catch (err: any) {
+      setError('Failed to load older messages');
     }
   };
 
   const handleConversationSelect = async (conversationId: number) => {
     setCurrentConversationId(conversationId);
     setMessages([]);
+    setNextCursor(null);
     setError(''); // Clear any previous errors
     await loadMessages(conversationId);
     
@@ -97,6 +118,7 @@ const ChatInterface: React.FC = () => {
         // Set the new conversation as current immediately
         setCurrentConversationId(newConversationId);
         setMessages([]); // Clear messages for new conversation
+        setNextCursor(null);
         setError('');
         
         // Reload conversations to update the sidebar
@@ -279,7 +301,12 @@ const ChatInterface: React.FC = () => {
         >
           {currentConversationId ? (
             <>
-              <MessageList messages={messages} loading={loading} />
+              <MessageList
+                messages={messages}
+                loading={loading}
+                hasOlder={nextCursor !== null}
+                onLoadOlder={loadOlderMessages}
+              />
               <div ref={messagesEndRef} />
             </>
           ) : (
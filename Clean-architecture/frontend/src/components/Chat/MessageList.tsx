@@ -4,6 +4,7 @@ import {
   Typography,
   Paper,
   Avatar,
+  Button,
   useMediaQuery,
   useTheme
 } from '@mui/material';
@@ -19,9 +20,11 @@ import TypingIndicator from './TypingIndicator';
 interface MessageListProps {
   messages: Message[];
   loading?: boolean;
+  hasOlder?: boolean;
+  onLoadOlder?: () => void;
 }
 
-const MessageList: React.FC<MessageListProps> = ({ messages, loading }) => {
+const MessageList: React.FC<MessageListProps> = ({ messages, loading, hasOlder, onLoadOlder }) => {
   const theme = useTheme();
   const isMobile = useMediaQuery(theme.breakpoints.down('md'));
   
@@ -45,6 +48,13 @@ const MessageList: React.FC<MessageListProps> = ({ messages, loading }) => {
         backgroundColor: '#f8f9fa'
       }}
     >
+      {hasOlder && onLoadOlder && (
+        <Box sx={{ display: 'flex', justifyContent: 'center' }}>
+          <Button size="small" onClick={onLoadOlder}>
+            Load earlier messages
+          </Button>
+        </Box>
+      )}
       {messages.length !== 0 &&  (
         <>
           {messages.map((message, index) => (
@@ -50,8 +50,9 @@ export const chatService = {
     return response.data;
   },
 
-  getConversation: async (conversationId: number): Promise<ConversationResponse> => {
-    const response = await api.get(`/api/chat/getConversation/${conversationId}`);
+  getConversation: async (conversationId: number, before?: number): Promise<ConversationResponse> => {
+    const params = before !== undefined ? { before } : undefined;
+    const response = await api.get(`/api/chat/getConversation/${conversationId}`, { params });
     return response.data;
   },
 
@@ -43,9 +43,15 @@ export interface ChatResponse {
   status: number;
 }
 
+export interface MessagePage {
+  messages: Message[];
+  nextCursor: number | null;
+  hasMore: boolean;
+}
+
 export interface ConversationResponse {
   message: string;
-  data: Message[];
+  data: MessagePage;
   status: number;
 }
 
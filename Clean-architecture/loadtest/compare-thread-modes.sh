@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread modes of the chatbot backend under
+# the same load. The AI backend is the mock with a fixed latency, so the run
+# measures how many blocked requests each thread model can carry.
+#
+# Prerequisites:
+#   - MySQL and Redis running (docker-compose up -d mysql redis)
+#   - the backend jar built (cd chatbot && ./mvnw -DskipTests package)
+#   - hey (https://github.com/rakyll/hey) on PATH
+#
+# Usage: ./compare-thread-modes.sh [concurrency] [duration] [mock-latency-ms]
+set -euo pipefail
+
+CONCURRENCY=${1:-400}
+DURATION=${2:-60s}
+MOCK_LATENCY_MS=${3:-2000}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:${PORT}"
+SCRIPT_DIR=$(cd "$(dirname "$0")" && pwd)
+JAR=$(ls "${SCRIPT_DIR}"/../chatbot/target/chatbot-*-exec.jar | head -n 1)
+RESULTS_DIR="${SCRIPT_DIR}/results"
+STAMP=$(date +%Y%m%d-%H%M%S)
+REPORT="${RESULTS_DIR}/thread-modes-${STAMP}.txt"
+
+mkdir -p "${RESULTS_DIR}"
+
+wait_for_backend() {
+  for _ in $(seq 1 60); do
+    if curl -sf -o /dev/null -X POST "${BASE_URL}/auth/login" \
+        -H 'Content-Type: application/json' \
+        -d '{"email":"alice@example.com","password":"alice123"}'; then
+      return 0
+    fi
+    sleep 1
+  done
+  echo "backend did not come up" >&2
+  return 1
+}
+
+run_mode() {
+  local virtual=$1
+  local label=$2
+
+  java -jar "${JAR}" \
+    --server.port="${PORT}" \
+    --spring.threads.virtual.enabled="${virtual}" \
+    --server.tomcat.threads.max=200 \
+    --ai.service.mock=true \
+    --ai.service.mock.latency-ms="${MOCK_LATENCY_MS}" \
+    --spring.data.redis.host=localhost \
+    --logging.level.root=WARN > "${RESULTS_DIR}/${label}-${STAMP}.log" 2>&1 &
+  local pid=$!
+  trap 'kill ${pid} 2>/dev/null || true' EXIT
+
+  wait_for_backend
+
+  local token
+  token=$(curl -s -X POST "${BASE_URL}/auth/login" \
+    -H 'Content-Type: application/json' \
+    -d '{"email":"alice@example.com","password":"alice123"}' | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+  {
+    echo "=== ${label} (spring.threads.virtual.enabled=${virtual}) ==="
+    echo "concurrency=${CONCURRENCY} duration=${DURATION} mock-latency-ms=${MOCK_LATENCY_MS}"
+    hey -z "${DURATION}" -c "${CONCURRENCY}" -m POST \
+      -H "Authorization: Bearer ${token}" \
+      -H 'Content-Type: application/json' \
+      -d '{"prompt":"hello"}' \
+      "${BASE_URL}/api/chat/getResponse/1"
+    echo
+  } | tee -a "${REPORT}"
+
+  kill "${pid}"
+  wait "${pid}" 2>/dev/null || true
+  trap - EXIT
+}
+
+run_mode false platform
+run_mode true virtual
+
+echo "Report written to ${REPORT}"
@@ -0,0 +1,140 @@
+package chatbot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// One scripted user: register, login, create a conversation, then a weighted mix of
+// send / history / getConversation calls separated by exponentially distributed think time.
+final class ChatSession implements Runnable {
+
+    private static final String[] PROMPTS = {
+            "hi", "What can you do?", "Explain virtual threads in Java in two sentences.",
+            "Summarize our conversation so far.", "Give me three ideas for a weekend project.",
+            "How do I reverse a linked list?", "Thanks!"
+    };
+
+    private final HarnessOptions options;
+    private final HttpClient client;
+    private final ObjectMapper mapper;
+    private final Map<String, EndpointStats> stats;
+
+    ChatSession(HarnessOptions options, HttpClient client, ObjectMapper mapper, Map<String, EndpointStats> stats) {
+        this.options = options;
+        this.client = client;
+        this.mapper = mapper;
+        this.stats = stats;
+    }
+
+    @Override
+    public void run() {
+        String email = "lt-" + UUID.randomUUID() + "@example.com";
+        String password = "loadtest";
+
+        JsonNode registered = call("register", post("/auth/register",
+                json(Map.of("name", "Load Test", "email", email, "password", password)), null));
+        if (registered == null) {
+            return;
+        }
+        JsonNode login = call("login", post("/auth/login", json(Map.of("email", email, "password", password)), null));
+        if (login == null) {
+            return;
+        }
+        String token = login.path("data").path("token").asText();
+
+        JsonNode created = call("create", post("/api/chat/create?name=" + encode("Load test"), "", token));
+        if (created == null) {
+            return;
+        }
+        int conversationId = created.path("data").asInt();
+
+        int totalWeight = options.sendWeight() + options.historyWeight() + options.conversationWeight();
+        for (int i = 0; i < options.actionsPerSession(); i++) {
+            think();
+            int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+            if (pick < options.sendWeight()) {
+                String prompt = PROMPTS[ThreadLocalRandom.current().nextInt(PROMPTS.length)];
+                call("getResponse", post("/api/chat/getResponse/" + conversationId, json(Map.of("prompt", prompt)), token));
+            } else if (pick < options.sendWeight() + options.historyWeight()) {
+                call("history", get("/api/chat/history", token));
+            } else {
+                call("getConversation", get("/api/chat/getConversation/" + conversationId + "?limit=50", token));
+            }
+        }
+    }
+
+    // Returns the parsed body of a 2xx response, or null
+    private JsonNode call(String endpoint, HttpRequest request) {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, e -> new EndpointStats());
+        long startedAt = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            endpointStats.record(System.nanoTime() - startedAt, response.statusCode());
+            if (response.statusCode() / 100 != 2) {
+                return null;
+            }
+            return mapper.readTree(response.body());
+        } catch (IOException e) {
+            endpointStats.record(System.nanoTime() - startedAt, 0);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.baseUrl() + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(options.baseUrl() + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private void think() {
+        long meanMs = options.meanThinkTime().toMillis();
+        if (meanMs <= 0) {
+            return;
+        }
+        long pauseMs = (long) (-meanMs * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String json(Map<String, String> body) {
+        try {
+            return mapper.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package chatbot.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram (1 µs to 5 min, 3 significant digits) and outcome counts for one endpoint.
+final class EndpointStats {
+
+    private final Recorder latencies = new Recorder(TimeUnit.MINUTES.toMicros(5), 3);
+    private final Histogram total = new Histogram(TimeUnit.MINUTES.toMicros(5), 3);
+    private final LongAdder errors = new LongAdder();
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+    // status 0 means the request failed before a response arrived
+    void record(long latencyNanos, int status) {
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), total.getHighestTrackableValue()));
+        statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+        if (status == 0 || status >= 400) {
+            errors.increment();
+        }
+    }
+
+    synchronized Histogram snapshot() {
+        total.add(latencies.getIntervalHistogram());
+        return total.copy();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    Map<Integer, Long> statusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+}
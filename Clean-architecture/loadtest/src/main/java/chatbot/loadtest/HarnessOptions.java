@@ -0,0 +1,40 @@
+package chatbot.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Command-line options, given as --name=value.
+record HarnessOptions(String baseUrl,
+                      double sessionsPerSecond,
+                      Duration duration,
+                      int actionsPerSession,
+                      Duration meanThinkTime,
+                      int sendWeight,
+                      int historyWeight,
+                      int conversationWeight,
+                      Duration drainTimeout,
+                      String resultsDir) {
+
+    static HarnessOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int split = arg.indexOf('=');
+            values.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return new HarnessOptions(
+                values.getOrDefault("base-url", "http://localhost:8080"),
+                Double.parseDouble(values.getOrDefault("rate", "5")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration-s", "60"))),
+                Integer.parseInt(values.getOrDefault("actions", "10")),
+                Duration.ofMillis(Long.parseLong(values.getOrDefault("think-ms", "1000"))),
+                Integer.parseInt(values.getOrDefault("send-weight", "50")),
+                Integer.parseInt(values.getOrDefault("history-weight", "25")),
+                Integer.parseInt(values.getOrDefault("conversation-weight", "25")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("drain-s", "60"))),
+                values.getOrDefault("results-dir", "results"));
+    }
+}
@@ -0,0 +1,131 @@
+package chatbot.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load generator: sessions arrive as a Poisson process at a fixed rate, whether or not
+// earlier sessions have finished, so a slow backend faces a growing backlog instead of a
+// politely throttled client. Each session runs on its own virtual thread.
+public final class LoadHarness {
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        HarnessOptions options = HarnessOptions.parse(args);
+        Map<String, EndpointStats> stats = new ConcurrentSkipListMap<>();
+        ObjectMapper mapper = new ObjectMapper();
+
+        ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+        // The client's own executor stays up until every session is done with it: shutting down an
+        // executor the client still completes exchanges on fails the requests in flight
+        ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(httpExecutor)
+                .build();
+        List<Future<?>> inFlight = new ArrayList<>();
+
+        System.out.printf("Arrival rate %.2f sessions/s for %d s against %s%n",
+                options.sessionsPerSecond(), options.duration().toSeconds(), options.baseUrl());
+
+        long startedAt = System.nanoTime();
+        long stopAt = startedAt + options.duration().toNanos();
+        long nextArrival = startedAt;
+        long launched = 0;
+        while (true) {
+            // Exponential inter-arrival times; the schedule never waits for the backend
+            nextArrival += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble())
+                    / options.sessionsPerSecond() * TimeUnit.SECONDS.toNanos(1));
+            if (nextArrival >= stopAt) {
+                break;
+            }
+            long wait = nextArrival - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.add(sessions.submit(new ChatSession(options, client, mapper, stats)));
+            launched++;
+            if (launched % 1000 == 0) {
+                inFlight.removeIf(Future::isDone);
+            }
+        }
+        long arrivalSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startedAt));
+
+        boolean drained = drain(inFlight, System.nanoTime() + options.drainTimeout().toNanos());
+        double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path report = Path.of(options.resultsDir(), "load-" + stamp + ".txt");
+        Files.createDirectories(report.getParent());
+        try (PrintStream file = new PrintStream(Files.newOutputStream(report))) {
+            for (PrintStream out : new PrintStream[]{System.out, file}) {
+                out.printf("%nsessions launched: %d (%.2f/s achieved), drained: %s, elapsed: %.1f s%n",
+                        launched, (double) launched / arrivalSeconds, drained, elapsedSeconds);
+                printReport(out, stats, elapsedSeconds);
+            }
+        }
+        System.out.println("Report written to " + report.toAbsolutePath());
+        sessions.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+
+    // Waits for the sessions still running, up to the drain deadline
+    private static boolean drain(List<Future<?>> inFlight, long deadline) throws InterruptedException {
+        for (Future<?> session : inFlight) {
+            try {
+                session.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                // Counted by the session itself; the drain only cares that it ended
+            }
+        }
+        return true;
+    }
+
+    private static void printReport(PrintStream out, Map<String, EndpointStats> stats, double elapsedSeconds) {
+        out.printf("%-16s %8s %7s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((endpoint, endpointStats) -> {
+            Histogram histogram = endpointStats.snapshot();
+            out.printf("%-16s %8d %7d %8.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint, histogram.getTotalCount(), endpointStats.errors(),
+                    histogram.getTotalCount() / elapsedSeconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(95)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        });
+        out.println();
+        stats.forEach((endpoint, endpointStats) ->
+                out.printf("%-16s status codes: %s%n", endpoint, endpointStats.statusCounts()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}